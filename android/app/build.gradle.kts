@@ -42,8 +42,20 @@ android {
             signingConfig = signingConfigs.getByName("debug")
         }
     }
+
+    // src/test 는 플랫폼 무관 코드만 JVM 에서 돌린다 (Log 등 스텁 호출은 기본값 반환)
+    testOptions {
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 flutter {
     source = "../.."
 }
+
+dependencies {
+    // HEIC 스트림이 없는 기기에서 YUV 스틸을 HEIC 로 인코딩 (API 28+)
+    implementation("androidx.heifwriter:heifwriter:1.0.0")
+
+    testImplementation("junit:junit:4.13.2")
+}
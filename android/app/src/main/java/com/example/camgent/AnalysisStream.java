@@ -0,0 +1,113 @@
+package com.example.camgent;
+
+import android.graphics.ImageFormat;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.Surface;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 세션의 세 번째 출력: 저해상도 YUV_420_888 분석 스트림.
+ * 프레임은 전용 분석 스레드에서 등록된 FrameAnalyzer 들에 차례로 넘겨진다.
+ * 분석이 밀리면 acquireLatestImage() 로 가장 최신 프레임만 남기고 나머지는 버린다 (drop-when-busy).
+ */
+public final class AnalysisStream {
+    private static final String TAG = "Cam2Native";
+    // 분석 1장 + 다음 프레임 1장
+    private static final int MAX_IMAGES = 2;
+    // 분석용으로 충분한 크기 (이보다 큰 것 중 가장 작은 것)
+    public static final StreamSize DEFAULT_TARGET = new StreamSize(640, 480);
+
+    private final ImageReader reader;
+    private final HandlerThread thread;
+    private final Handler handler;
+    private final CopyOnWriteArrayList<FrameAnalyzer> analyzers = new CopyOnWriteArrayList<>();
+
+    // 분석 스레드 전용
+    private long frames = 0;
+    private long lastTimestampNs = 0;
+    private long skipped = 0;         // 분석 중에 밀려서 버린 프레임 (타임스탬프 간격으로 추정)
+    private long frameIntervalNs = 0; // 센서 프레임 간격 추정 (최솟값)
+
+    public AnalysisStream(CameraInfo info, StreamSize target) {
+        StreamSize size = chooseSize(info, target != null ? target : DEFAULT_TARGET);
+        thread = new HandlerThread("native-cam2-analysis");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        reader = ImageReader.newInstance(size.getWidth(), size.getHeight(), ImageFormat.YUV_420_888, MAX_IMAGES);
+        reader.setOnImageAvailableListener(this::onImageAvailable, handler);
+        Log.d(TAG, "analysis stream " + size);
+    }
+
+    public Surface surface() { return reader.getSurface(); }
+
+    public StreamSize size() { return new StreamSize(reader.getWidth(), reader.getHeight()); }
+
+    public void addAnalyzer(FrameAnalyzer a) { analyzers.addIfAbsent(a); }
+
+    public void removeAnalyzer(FrameAnalyzer a) { analyzers.remove(a); }
+
+    /** 분석 스레드에서 돌린다 (분석기 상태 초기화 등) */
+    public void post(Runnable r) { handler.post(r); }
+
+    // 통계는 분석 스레드에서 갱신되므로 대략값
+    public long frames() { return frames; }
+    public long skipped() { return skipped; }
+
+    private void onImageAvailable(ImageReader r) {
+        Image image;
+        try {
+            image = r.acquireLatestImage(); // 밀린 프레임은 여기서 버려진다
+        } catch (IllegalStateException e) {
+            return; // 리더가 닫히는 중
+        }
+        if (image == null) return;
+        try {
+            long ts = image.getTimestamp();
+            if (lastTimestampNs != 0) {
+                long dt = ts - lastTimestampNs;
+                if (dt > 0 && (frameIntervalNs == 0 || dt < frameIntervalNs)) frameIntervalNs = dt;
+                if (frameIntervalNs > 0 && dt > frameIntervalNs * 3 / 2) {
+                    skipped += Math.round((double) dt / frameIntervalNs) - 1;
+                }
+            }
+            lastTimestampNs = ts;
+            frames++;
+            for (FrameAnalyzer a : analyzers) {
+                try {
+                    a.analyze(image);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "analyzer failed", e);
+                }
+            }
+        } finally {
+            image.close();
+        }
+    }
+
+    /** 리더는 분석 스레드에서 닫는다 (분석 중인 Image 와 겹치지 않도록) */
+    public void close() {
+        handler.post(() -> {
+            reader.setOnImageAvailableListener(null, null);
+            reader.close();
+        });
+        thread.quitSafely();
+    }
+
+    private static StreamSize chooseSize(CameraInfo info, StreamSize target) {
+        StreamSize[] sizes = info != null ? info.outputSizes(ImageFormat.YUV_420_888) : new StreamSize[0];
+        if (sizes.length == 0) return target;
+        long want = (long) target.getWidth() * target.getHeight();
+        StreamSize best = null, largest = sizes[0];
+        for (StreamSize s : sizes) {
+            long area = (long) s.getWidth() * s.getHeight();
+            if (area > (long) largest.getWidth() * largest.getHeight()) largest = s;
+            if (area >= want && (best == null || area < (long) best.getWidth() * best.getHeight())) best = s;
+        }
+        return best != null ? best : largest;
+    }
+}
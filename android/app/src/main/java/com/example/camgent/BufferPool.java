@@ -0,0 +1,142 @@
+package com.example.camgent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 캡처/인코딩 페이로드용 direct ByteBuffer 풀 (프로세스 전역, 스레드 안전).
+ *
+ * 크기 등급은 2^k 와 1.5·2^k (최소 MIN_CLASS) → 요청 크기보다 최대 1/3 정도만 크게 잡힌다.
+ * 잡아 둔 버퍼 전체(사용 중 + 반납된 것)가 예산을 넘지 않는다. 새로 만들 자리가 없으면 다른 등급의
+ * 빈 버퍼부터 놓아 주고, 그래도 모자라면 acquire() 가 null → 호출자가 건너뛰거나 풀 없이 처리한다.
+ * 받은 버퍼는 반드시 release() 로 한 번만 돌려준다 (빌려준 버퍼를 기억해 두고, 다른 곳에서 만든 버퍼나
+ * 두 번째 반납은 거절한다).
+ */
+public final class BufferPool {
+    public static final long DEFAULT_BUDGET_BYTES = 32L << 20;
+    static final int MIN_CLASS = 64 << 10;
+
+    private static final BufferPool SHARED = new BufferPool(DEFAULT_BUDGET_BYTES);
+
+    /** 카메라 레이어가 같이 쓰는 풀 */
+    public static BufferPool shared() { return SHARED; }
+
+    private long budget;
+    private final TreeMap<Integer, ArrayDeque<ByteBuffer>> free = new TreeMap<>();
+    // 빌려준 버퍼 (ByteBuffer.equals 는 내용 비교라 identity 로)
+    private final Set<ByteBuffer> lent = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long allocatedBytes = 0, inUseBytes = 0, highWaterBytes = 0;
+    private long hits = 0, misses = 0, rejects = 0;
+
+    public BufferPool(long budgetBytes) {
+        this.budget = budgetBytes;
+    }
+
+    /** 예산 변경. 줄었으면 빈 버퍼를 놓아 준다 (사용 중인 버퍼는 반납될 때) */
+    public synchronized void setBudget(long budgetBytes) {
+        budget = Math.max(0, budgetBytes);
+        trimTo(budget);
+    }
+
+    public synchronized long budget() { return budget; }
+
+    /**
+     * capacity 바이트 이상인 빈 버퍼 (position 0, limit = capacity, little-endian).
+     * 예산 안에서 만들 수 없으면 null
+     */
+    public synchronized ByteBuffer acquire(int capacity) {
+        int size = classSize(capacity);
+        ArrayDeque<ByteBuffer> q = free.get(size);
+        ByteBuffer b = q != null ? q.poll() : null;
+        if (b != null) {
+            hits++;
+        } else {
+            if (allocatedBytes + size > budget) trimTo(budget - size);
+            if (allocatedBytes + size > budget) {
+                rejects++;
+                return null;
+            }
+            misses++;
+            b = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+            allocatedBytes += size;
+            highWaterBytes = Math.max(highWaterBytes, allocatedBytes);
+        }
+        inUseBytes += size;
+        lent.add(b);
+        b.clear().limit(capacity);
+        return b;
+    }
+
+    /** acquire() 로 받은 버퍼 반납. 예산이 줄어 있으면 그냥 놓아 준다 */
+    public synchronized void release(ByteBuffer b) {
+        if (!lent.remove(b)) {
+            throw new IllegalArgumentException("not a buffer lent by this pool: " + b);
+        }
+        int size = b.capacity();
+        inUseBytes -= size;
+        if (allocatedBytes > budget) {
+            allocatedBytes -= size;
+            return;
+        }
+        ArrayDeque<ByteBuffer> q = free.get(size);
+        if (q == null) free.put(size, q = new ArrayDeque<>());
+        q.push(b); // 최근에 쓴 버퍼부터 다시
+    }
+
+    // 빈 버퍼를 큰 등급부터 놓아 줘서 allocatedBytes 를 target 이하로
+    private void trimTo(long target) {
+        while (allocatedBytes > target && !free.isEmpty()) {
+            Map.Entry<Integer, ArrayDeque<ByteBuffer>> e = free.lastEntry();
+            e.getValue().poll();
+            allocatedBytes -= e.getKey();
+            if (e.getValue().isEmpty()) free.remove(e.getKey());
+        }
+    }
+
+    static int classSize(int capacity) {
+        if (capacity <= MIN_CLASS) return MIN_CLASS;
+        int p = Integer.highestOneBit(capacity);
+        if (capacity == p) return p;
+        int mid = p + (p >> 1);
+        return capacity <= mid ? mid : p << 1;
+    }
+
+    /** getCaptureStats 용 */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("budgetBytes", budget);
+        m.put("allocatedBytes", allocatedBytes);
+        m.put("inUseBytes", inUseBytes);
+        m.put("highWaterBytes", highWaterBytes);
+        m.put("hits", hits);
+        m.put("misses", misses);
+        m.put("rejects", rejects);
+        return m;
+    }
+
+    /** direct ByteBuffer 에 바로 쓰는 OutputStream (넘치면 IOException → 호출자가 다른 경로로) */
+    public static final class Output extends OutputStream {
+        private final ByteBuffer out;
+
+        public Output(ByteBuffer out) { this.out = out; }
+
+        @Override public void write(int b) throws IOException {
+            if (!out.hasRemaining()) throw new IOException("buffer full");
+            out.put((byte) b);
+        }
+
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            if (out.remaining() < len) throw new IOException("buffer full");
+            out.put(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.camgent;
+
+import android.graphics.ImageFormat;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Surface;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 멀티 프레임 촬영용 YUV_420_888 출력 (브래킷 등). captureBurst 로 보낸 요청들의 프레임을 모아 한 번에 넘긴다.
+ *
+ * 프레임은 전용 버스트 스레드에서 도착하는 즉시 풀의 NV21 프레임으로 복사하고 Image 는 바로 닫는다
+ * → 리더는 몇 장만 잡아도 버스트 길이에 묶이지 않는다. 프레임 풀은 버스트 최대 길이 + 병합 결과 1장.
+ * 프레임을 다 모으면 (또는 시간 초과) 같은 스레드에서 콜백 → 병합/저장 요청도 이 스레드에서 한다.
+ *
+ * 크기는 스틸과 같은 비율 중 RECORD 급(긴 변 MAX_EDGE 이하)으로 제한한다: 프리뷰 + 스틸 + YUV 조합이
+ * 보장되는 크기이고, 병합할 픽셀 수도 이 정도가 적당하다.
+ */
+public final class BurstCapture {
+    private static final String TAG = "Cam2Native";
+    public static final int MAX_FRAMES = HdrMerge.MAX_FRAMES;
+    private static final int MAX_EDGE = 1920;
+    private static final int MAX_IMAGES = 3;
+
+    /** 버스트 스레드에서 호출. frames 는 요청 순서(타임스탬프 순). 다 못 모았으면 error 도 같이 온다 */
+    public interface Callback {
+        void onBurst(List<YuvFrame> frames, long burstNs, Exception error);
+    }
+
+    private final ImageReader reader;
+    private final HandlerThread thread;
+    private final Handler handler;
+    private final YuvFrame.Pool pool;
+
+    // 버스트 스레드 전용: 진행 중인 수집
+    private Callback callback;
+    private int expected = 0;
+    private long startNs = 0;
+    private final List<YuvFrame> frames = new ArrayList<>(MAX_FRAMES);
+    private final Runnable timeout = this::onTimeout;
+    private volatile boolean busy = false;
+    private volatile long bursts = 0, framesDropped = 0;
+
+    /** YUV 출력을 못 내는 카메라면 null */
+    public static BurstCapture create(CameraInfo info, StreamSize stillSize) {
+        StreamSize size = chooseSize(info, stillSize);
+        return size != null ? new BurstCapture(size) : null;
+    }
+
+    private BurstCapture(StreamSize size) {
+        thread = new HandlerThread("native-cam2-burst");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        pool = new YuvFrame.Pool(size.getWidth(), size.getHeight(), MAX_FRAMES + 1);
+        reader = ImageReader.newInstance(size.getWidth(), size.getHeight(), ImageFormat.YUV_420_888, MAX_IMAGES);
+        reader.setOnImageAvailableListener(this::onImageAvailable, handler);
+        Log.d(TAG, "burst output " + size);
+    }
+
+    public Surface surface() { return reader.getSurface(); }
+
+    public StreamSize size() { return new StreamSize(pool.width, pool.height); }
+
+    /** 병합 결과 등 버스트 밖에서 쓸 프레임. 다 쓰고 release() */
+    public YuvFrame.Pool pool() { return pool; }
+
+    /** 수집 중이거나 앞 버스트 프레임이 아직 풀로 안 돌아왔으면 true */
+    public boolean isBusy() { return busy || pool.inUse() > 0; }
+
+    public long bursts() { return bursts; }
+    public long framesDropped() { return framesDropped; }
+
+    /**
+     * 카메라 스레드: captureBurst 직전에 부른다. count 장이 모이거나 timeoutMs 가 지나면 cb 가 한 번 불린다.
+     * 실패한 요청은 onRequestFailed() 로 알려야 기다리지 않는다.
+     */
+    public void begin(int count, long timeoutMs, Callback cb) {
+        busy = true;
+        long now = SystemClock.elapsedRealtimeNanos();
+        handler.post(() -> {
+            releaseFrames();
+            callback = cb;
+            expected = count;
+            startNs = now;
+            handler.postDelayed(timeout, timeoutMs);
+        });
+    }
+
+    /** 카메라 스레드: 버스트 요청 하나가 실패 → 그 프레임은 오지 않는다 */
+    public void onRequestFailed() {
+        handler.post(() -> {
+            if (callback == null) return;
+            expected--;
+            framesDropped++;
+            if (frames.size() >= expected) complete(null);
+        });
+    }
+
+    private void onImageAvailable(ImageReader r) {
+        Image image;
+        try {
+            image = r.acquireNextImage();
+        } catch (IllegalStateException e) {
+            return; // 리더가 닫히는 중
+        }
+        if (image == null) return;
+        try {
+            if (callback == null) return; // 수집 중이 아님 (늦게 온 프레임)
+            YuvFrame f = pool.acquire();
+            if (f == null) {
+                framesDropped++;
+                Log.w(TAG, "burst frame pool exhausted, frame dropped");
+                return;
+            }
+            copyToNv21(image, f);
+            f.timestampNs = image.getTimestamp();
+            frames.add(f);
+        } finally {
+            image.close();
+        }
+        if (frames.size() >= expected) complete(null);
+    }
+
+    private void onTimeout() {
+        if (callback == null) return;
+        framesDropped += Math.max(0, expected - frames.size());
+        complete(new TimeoutException("burst got " + frames.size() + "/" + expected + " frames"));
+    }
+
+    private void complete(Exception error) {
+        handler.removeCallbacks(timeout);
+        Callback cb = callback;
+        callback = null;
+        long burstNs = SystemClock.elapsedRealtimeNanos() - startNs;
+        // 버스트 요청은 순서대로 노출되므로 타임스탬프 순 = 요청 순
+        Collections.sort(frames, Comparator.comparingLong(f -> f.timestampNs));
+        List<YuvFrame> out = new ArrayList<>(frames);
+        for (int i = 0; i < out.size(); i++) out.get(i).index = i;
+        frames.clear();
+        bursts++;
+        busy = false;
+        try {
+            cb.onBurst(out, burstNs, error);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "burst callback failed", e);
+        }
+    }
+
+    // 버스트 스레드: 모으다 만 프레임 반납
+    private void releaseFrames() {
+        for (YuvFrame f : frames) f.release();
+        frames.clear();
+    }
+
+    /** 진행 중인 수집은 버린다. 리더는 버스트 스레드에서 닫는다 */
+    public void close() {
+        handler.post(() -> {
+            handler.removeCallbacks(timeout);
+            callback = null;
+            releaseFrames();
+            reader.setOnImageAvailableListener(null, null);
+            reader.close();
+        });
+        thread.quitSafely();
+    }
+
+    // YUV_420_888 (stride/pixelStride 제각각) → 촘촘한 NV21
+    private static void copyToNv21(Image image, YuvFrame f) {
+        int w = f.width, h = f.height;
+        byte[] out = f.nv21;
+        Image.Plane[] p = image.getPlanes();
+
+        ByteBuffer y = p[0].getBuffer();
+        int yBase = y.position(), yrs = p[0].getRowStride(), yps = p[0].getPixelStride();
+        int off = 0;
+        for (int r = 0; r < h; r++) {
+            int row = yBase + r * yrs;
+            if (yps == 1) {
+                y.position(row);
+                y.get(out, off, w);
+                off += w;
+            } else {
+                for (int c = 0; c < w; c++) out[off++] = y.get(row + c * yps);
+            }
+        }
+
+        ByteBuffer u = p[1].getBuffer(), v = p[2].getBuffer();
+        int uBase = u.position(), vBase = v.position();
+        int urs = p[1].getRowStride(), ups = p[1].getPixelStride();
+        int vrs = p[2].getRowStride(), vps = p[2].getPixelStride();
+        for (int r = 0; r < h / 2; r++) {
+            int uRow = uBase + r * urs, vRow = vBase + r * vrs;
+            for (int c = 0; c < w / 2; c++) {
+                out[off++] = v.get(vRow + c * vps);
+                out[off++] = u.get(uRow + c * ups);
+            }
+        }
+    }
+
+    // 스틸과 같은 비율의 YUV 크기 중 긴 변이 MAX_EDGE 이하인 가장 큰 것 (같은 비율이 없으면 비율 무시)
+    private static StreamSize chooseSize(CameraInfo info, StreamSize still) {
+        StreamSize[] sizes = info != null ? info.outputSizes(ImageFormat.YUV_420_888) : new StreamSize[0];
+        StreamSize best = null, any = null;
+        for (StreamSize s : sizes) {
+            if (Math.max(s.getWidth(), s.getHeight()) > MAX_EDGE || (s.getWidth() & 1) != 0 || (s.getHeight() & 1) != 0) {
+                continue;
+            }
+            if (any == null || area(s) > area(any)) any = s;
+            boolean sameAspect = still == null
+                    || (long) s.getWidth() * still.getHeight() == (long) s.getHeight() * still.getWidth();
+            if (sameAspect && (best == null || area(s) > area(best))) best = s;
+        }
+        return best != null ? best : any;
+    }
+
+    private static long area(StreamSize s) { return (long) s.getWidth() * s.getHeight(); }
+}
@@ -0,0 +1,307 @@
+package com.example.camgent;
+
+import android.content.Context;
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.graphics.SurfaceTexture;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraDevice;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.CameraMetadata;
+import android.hardware.camera2.params.StreamConfigurationMap;
+import android.media.MediaCodec;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Range;
+import android.util.Rational;
+import android.util.Size;
+import android.util.SizeF;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * CameraManager 위의 CameraBackend.
+ * 특성(CameraCharacteristics)은 ID 별로 한 번만 조회해 두고, CameraInfo 스냅샷은 여기서 만든다.
+ * 세션/재처리/DNG 처럼 Camera2 객체가 필요한 곳은 unwrap()/characteristics() 로 꺼낸다.
+ */
+public final class Camera2Backend implements CameraBackend {
+    // CameraInfo 에 크기 표를 미리 만들어 두는 스틸/분석 형식
+    private static final int[] OUTPUT_FORMATS = {ImageFormat.JPEG, ImageFormat.YUV_420_888, ImageFormat.HEIC};
+
+    private final CameraManager cameraManager;
+    private final Map<String, CameraCharacteristics> characteristics = new ConcurrentHashMap<>();
+    private AvailabilityListener listener;        // 메인 스레드에서만
+
+    public Camera2Backend(Context context) {
+        cameraManager = (CameraManager) context.getApplicationContext().getSystemService(Context.CAMERA_SERVICE);
+    }
+
+    /** Camera2 로 연 디바이스. 콜백마다 같은 객체 */
+    private static final class Camera2Device implements Device {
+        final CameraDevice camera;
+        final CameraCharacteristics characteristics;
+
+        Camera2Device(CameraDevice camera, CameraCharacteristics characteristics) {
+            this.camera = camera;
+            this.characteristics = characteristics;
+        }
+
+        @Override public String id() { return camera.getId(); }
+
+        @Override public void close() { camera.close(); }
+    }
+
+    /** Camera2Backend 가 연 디바이스의 CameraDevice (세션/요청 만들기용) */
+    public static CameraDevice unwrap(Device device) {
+        return ((Camera2Device) device).camera;
+    }
+
+    /** 열린 디바이스의 특성 (ZSL 재처리 구성, DngCreator 용) */
+    public static CameraCharacteristics characteristics(Device device) {
+        return ((Camera2Device) device).characteristics;
+    }
+
+    @Override public String[] cameraIds() throws CameraBackendException {
+        try {
+            return cameraManager.getCameraIdList();
+        } catch (CameraAccessException e) {
+            throw new CameraBackendException("camera id list", e);
+        }
+    }
+
+    @Override public CameraInfo info(String id) throws CameraBackendException {
+        return snapshot(id, characteristics(id));
+    }
+
+    @Override public Set<Set<String>> concurrentCameraIds() throws CameraBackendException {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) return Collections.emptySet();
+        try {
+            return cameraManager.getConcurrentCameraIds();
+        } catch (CameraAccessException e) {
+            throw new CameraBackendException("concurrent camera ids", e);
+        }
+    }
+
+    @Override public void open(String id, DeviceCallback cb, Executor executor) throws CameraBackendException {
+        CameraCharacteristics c = characteristics(id);
+        try {
+            if (executor instanceof CameraExecutor) {
+                // 카메라 스레드의 핸들러로 바로 → 콜백 홉 없음
+                cameraManager.openCamera(id, new StateAdapter(c, cb, null), ((CameraExecutor) executor).handler());
+            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                cameraManager.openCamera(id, executor, new StateAdapter(c, cb, null));
+            } else {
+                cameraManager.openCamera(id, new StateAdapter(c, cb, executor), new Handler(Looper.getMainLooper()));
+            }
+        } catch (CameraAccessException e) {
+            throw new CameraBackendException("open camera " + id, e);
+        }
+    }
+
+    @Override public void setAvailabilityListener(AvailabilityListener l) {
+        if (listener == null && l != null) {
+            cameraManager.registerAvailabilityCallback(availability, new Handler(Looper.getMainLooper()));
+        } else if (listener != null && l == null) {
+            cameraManager.unregisterAvailabilityCallback(availability);
+        }
+        listener = l;
+    }
+
+    private CameraCharacteristics characteristics(String id) throws CameraBackendException {
+        CameraCharacteristics c = characteristics.get(id);
+        if (c == null) {
+            try {
+                c = cameraManager.getCameraCharacteristics(id);
+            } catch (CameraAccessException e) {
+                throw new CameraBackendException("characteristics of " + id, e);
+            }
+            characteristics.put(id, c);
+        }
+        return c;
+    }
+
+    // CameraDevice.StateCallback → DeviceCallback. hop 이 null 이 아니면 그 executor 로 넘긴다
+    private static final class StateAdapter extends CameraDevice.StateCallback {
+        private final CameraCharacteristics characteristics;
+        private final DeviceCallback cb;
+        private final Executor hop;
+        private Camera2Device device;
+
+        StateAdapter(CameraCharacteristics characteristics, DeviceCallback cb, Executor hop) {
+            this.characteristics = characteristics;
+            this.cb = cb;
+            this.hop = hop;
+        }
+
+        private synchronized Camera2Device wrap(CameraDevice camera) {
+            if (device == null || device.camera != camera) device = new Camera2Device(camera, characteristics);
+            return device;
+        }
+
+        private void deliver(Runnable r) {
+            if (hop != null) hop.execute(r);
+            else r.run();
+        }
+
+        @Override public void onOpened(@NonNull CameraDevice camera) {
+            Camera2Device d = wrap(camera);
+            deliver(() -> cb.onOpened(d));
+        }
+
+        @Override public void onDisconnected(@NonNull CameraDevice camera) {
+            Camera2Device d = wrap(camera);
+            deliver(() -> cb.onDisconnected(d));
+        }
+
+        @Override public void onError(@NonNull CameraDevice camera, int error) {
+            Camera2Device d = wrap(camera);
+            deliver(() -> cb.onError(d, error));
+        }
+    }
+
+    private final CameraManager.AvailabilityCallback availability = new CameraManager.AvailabilityCallback() {
+        @Override public void onCameraAvailable(String id) {
+            AvailabilityListener l = listener;
+            if (l != null) l.onCameraAvailable(id);
+        }
+
+        @Override public void onCameraUnavailable(String id) {
+            AvailabilityListener l = listener;
+            if (l != null) l.onCameraUnavailable(id);
+        }
+    };
+
+    // ---------- CameraCharacteristics → CameraInfo ----------
+    static CameraInfo snapshot(String id, CameraCharacteristics c) {
+        CameraInfo.Builder b = new CameraInfo.Builder(id);
+
+        Integer f = c.get(CameraCharacteristics.LENS_FACING);
+        if (f != null) b.facing(f);
+        Integer so = c.get(CameraCharacteristics.SENSOR_ORIENTATION);
+        if (so != null) b.sensorOrientation(so);
+
+        Rect aa = c.get(CameraCharacteristics.SENSOR_INFO_ACTIVE_ARRAY_SIZE);
+        if (aa != null) b.activeArray(aa.left, aa.top, aa.right, aa.bottom);
+        Float mz = c.get(CameraCharacteristics.SCALER_AVAILABLE_MAX_DIGITAL_ZOOM);
+        if (mz != null) b.maxZoom(mz);
+        Range<Integer> ae = c.get(CameraCharacteristics.CONTROL_AE_COMPENSATION_RANGE);
+        Rational step = c.get(CameraCharacteristics.CONTROL_AE_COMPENSATION_STEP);
+        if (ae != null) b.aeCompensation(ae.getLower(), ae.getUpper(), step != null ? step.floatValue() : 0f);
+
+        Range<Long> exposure = c.get(CameraCharacteristics.SENSOR_INFO_EXPOSURE_TIME_RANGE);
+        if (exposure != null) b.exposureTimeRange(exposure.getLower(), exposure.getUpper());
+        Range<Integer> iso = c.get(CameraCharacteristics.SENSOR_INFO_SENSITIVITY_RANGE);
+        if (iso != null) b.sensitivityRange(iso.getLower(), iso.getUpper());
+        b.manualSensor(hasCapability(c, CameraMetadata.REQUEST_AVAILABLE_CAPABILITIES_MANUAL_SENSOR));
+        Float mfd = c.get(CameraCharacteristics.LENS_INFO_MINIMUM_FOCUS_DISTANCE);
+        if (mfd != null) b.minFocusDistance(mfd);
+        b.flash(Boolean.TRUE.equals(c.get(CameraCharacteristics.FLASH_INFO_AVAILABLE)));
+
+        StreamConfigurationMap map = c.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+        if (map != null) {
+            Size[] ps = map.getOutputSizes(SurfaceTexture.class);
+            if (ps != null) {
+                long[] minFrame = new long[ps.length];
+                for (int i = 0; i < ps.length; i++) minFrame[i] = map.getOutputMinFrameDuration(SurfaceTexture.class, ps[i]);
+                b.previewSizes(sizes(ps), minFrame);
+            }
+            Size[] vs = map.getOutputSizes(MediaCodec.class);
+            if (vs != null) b.videoSizes(sizes(vs));
+            for (int format : OUTPUT_FORMATS) addOutput(b, map, format);
+        }
+        b.rawSize(largestRaw(c, map));
+        b.focalLength35mm(equivalentFocalLength(c));
+        b.physicalIds(physicalIds(c));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            Range<Float> zr = c.get(CameraCharacteristics.CONTROL_ZOOM_RATIO_RANGE);
+            if (zr != null) b.zoomRatioRange(zr.getLower(), zr.getUpper());
+        }
+
+        // 설정 컴파일러가 검증에 쓰는 지원 목록
+        Range<Integer>[] fps = c.get(CameraCharacteristics.CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES);
+        if (fps != null) {
+            int[][] r = new int[fps.length][];
+            for (int i = 0; i < fps.length; i++) r[i] = new int[]{fps[i].getLower(), fps[i].getUpper()};
+            b.fpsRanges(r);
+        }
+        b.sceneModes(c.get(CameraCharacteristics.CONTROL_AVAILABLE_SCENE_MODES));
+        b.effectModes(c.get(CameraCharacteristics.CONTROL_AVAILABLE_EFFECTS));
+        b.noiseReductionModes(c.get(CameraCharacteristics.NOISE_REDUCTION_AVAILABLE_NOISE_REDUCTION_MODES));
+        b.tonemapModes(c.get(CameraCharacteristics.TONEMAP_AVAILABLE_TONE_MAP_MODES));
+        b.antibandingModes(c.get(CameraCharacteristics.CONTROL_AE_AVAILABLE_ANTIBANDING_MODES));
+        Integer ar = c.get(CameraCharacteristics.CONTROL_MAX_REGIONS_AE);
+        Integer fr = c.get(CameraCharacteristics.CONTROL_MAX_REGIONS_AF);
+        b.maxRegions(ar != null ? ar : 0, fr != null ? fr : 0);
+        return b.build();
+    }
+
+    private static void addOutput(CameraInfo.Builder b, StreamConfigurationMap map, int format) {
+        Size[] s = null;
+        try {
+            s = map.getOutputSizes(format);
+        } catch (IllegalArgumentException ignore) {
+            // 이 API 레벨에서 모르는 형식 (예: Q 미만의 HEIC)
+        }
+        if (s == null || s.length == 0) return;
+        long[] minFrame = new long[s.length];
+        long[] stall = new long[s.length];
+        for (int i = 0; i < s.length; i++) {
+            minFrame[i] = map.getOutputMinFrameDuration(format, s[i]);
+            stall[i] = map.getOutputStallDuration(format, s[i]);
+        }
+        b.output(format, sizes(s), minFrame, stall);
+    }
+
+    private static StreamSize[] sizes(Size[] s) {
+        StreamSize[] out = new StreamSize[s.length];
+        for (int i = 0; i < s.length; i++) out[i] = new StreamSize(s[i].getWidth(), s[i].getHeight());
+        return out;
+    }
+
+    private static boolean hasCapability(CameraCharacteristics c, int capability) {
+        int[] caps = c.get(CameraCharacteristics.REQUEST_AVAILABLE_CAPABILITIES);
+        if (caps != null) {
+            for (int cap : caps) if (cap == capability) return true;
+        }
+        return false;
+    }
+
+    // 가장 짧은 초점거리 × (35mm 대각선 / 센서 대각선)
+    private static float equivalentFocalLength(CameraCharacteristics c) {
+        float[] focals = c.get(CameraCharacteristics.LENS_INFO_AVAILABLE_FOCAL_LENGTHS);
+        SizeF sensor = c.get(CameraCharacteristics.SENSOR_INFO_PHYSICAL_SIZE);
+        if (focals == null || focals.length == 0 || sensor == null) return 0f;
+        float f = focals[0];
+        for (float v : focals) f = Math.min(f, v);
+        double diag = Math.hypot(sensor.getWidth(), sensor.getHeight());
+        return diag > 0 ? (float) (f * 43.27 / diag) : 0f;
+    }
+
+    private static Set<String> physicalIds(CameraCharacteristics c) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.P) return Collections.emptySet();
+        if (!hasCapability(c, CameraMetadata.REQUEST_AVAILABLE_CAPABILITIES_LOGICAL_MULTI_CAMERA)) {
+            return Collections.emptySet();
+        }
+        Set<String> ids = c.getPhysicalCameraIds();
+        return ids != null ? ids : Collections.emptySet();
+    }
+
+    private static StreamSize largestRaw(CameraCharacteristics c, StreamConfigurationMap map) {
+        if (map == null || !hasCapability(c, CameraMetadata.REQUEST_AVAILABLE_CAPABILITIES_RAW)) return null;
+        Size[] sizes = map.getOutputSizes(ImageFormat.RAW_SENSOR);
+        if (sizes == null || sizes.length == 0) return null;
+        Size best = sizes[0];
+        for (Size s : sizes) {
+            if ((long) s.getWidth() * s.getHeight() > (long) best.getWidth() * best.getHeight()) best = s;
+        }
+        return new StreamSize(best.getWidth(), best.getHeight());
+    }
+}
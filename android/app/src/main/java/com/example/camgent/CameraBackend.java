@@ -0,0 +1,54 @@
+package com.example.camgent;
+
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * 카메라 플랫폼 경계: ID 목록, 특성, 동시 열기 조합, 디바이스 열기, 연결/해제 알림.
+ * 레지스트리/뷰/프리웜은 CameraManager 를 직접 잡지 않고 이것만 쓴다 (기본 구현은 Camera2Backend,
+ * JVM 테스트/벤치마크는 FakeCameraBackend). 여기 나오는 타입에는 프레임워크 타입이 없다.
+ * 세션/요청/ImageReader 는 열린 디바이스의 구현(Camera2Backend.unwrap)에서 나오므로 여기 두지 않는다.
+ */
+public interface CameraBackend {
+    // 디바이스 에러 코드 (CameraDevice.StateCallback.ERROR_* 와 같은 값)
+    int ERROR_CAMERA_IN_USE = 1;
+    int ERROR_MAX_CAMERAS_IN_USE = 2;
+    int ERROR_CAMERA_DISABLED = 3;
+    int ERROR_CAMERA_DEVICE = 4;
+    int ERROR_CAMERA_SERVICE = 5;
+
+    /** 열린 디바이스 핸들. 콜백마다 같은 객체가 온다 (== 로 비교해도 된다) */
+    interface Device {
+        String id();
+
+        /** 여러 번 불러도 된다 */
+        void close();
+    }
+
+    /** 열기 결과와 이후 끊김/에러. open() 에 준 executor 에서 호출된다 */
+    interface DeviceCallback {
+        void onOpened(Device device);
+        void onDisconnected(Device device);
+        void onError(Device device, int error);
+    }
+
+    /** 카메라 연결/해제. 등록 직후엔 기존 카메라마다 onCameraAvailable 이 한 번씩 올 수 있다 */
+    interface AvailabilityListener {
+        void onCameraAvailable(String id);
+        void onCameraUnavailable(String id);
+    }
+
+    String[] cameraIds() throws CameraBackendException;
+
+    /** 특성 조회 (매번 새로 만든다. 캐시는 CameraRegistry 가) */
+    CameraInfo info(String id) throws CameraBackendException;
+
+    /** 동시에 열 수 있는 ID 조합. 지원하지 않으면 빈 집합 */
+    Set<Set<String>> concurrentCameraIds() throws CameraBackendException;
+
+    /** 결과는 executor 에서 cb 로 (CameraExecutor 를 주면 카메라 스레드에서 바로) */
+    void open(String id, DeviceCallback cb, Executor executor) throws CameraBackendException;
+
+    /** 리스너 하나만 (다시 부르면 교체). 콜백은 메인 스레드 */
+    void setAvailabilityListener(AvailabilityListener listener);
+}
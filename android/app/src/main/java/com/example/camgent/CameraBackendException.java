@@ -0,0 +1,15 @@
+package com.example.camgent;
+
+/**
+ * 백엔드 조회/열기 실패 (Camera2 에선 CameraAccessException 을 감싼다).
+ * 권한 없음(SecurityException)이나 모르는 ID(IllegalArgumentException)는 그대로 런타임 예외로 올라간다.
+ */
+public class CameraBackendException extends Exception {
+    public CameraBackendException(String message) {
+        super(message);
+    }
+
+    public CameraBackendException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
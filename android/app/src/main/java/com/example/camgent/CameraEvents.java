@@ -0,0 +1,42 @@
+package com.example.camgent;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.Map;
+
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
+
+/**
+ * 네이티브 → Flutter 이벤트 스트림 ("native_camera_events_<viewId>").
+ * 어느 스레드에서 emit 해도 메인 스레드로 넘겨 보낸다. 리스너가 없으면 버린다.
+ */
+public final class CameraEvents implements EventChannel.StreamHandler {
+    private final EventChannel channel;
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private EventChannel.EventSink sink; // 메인 스레드에서만 접근
+
+    public CameraEvents(BinaryMessenger messenger, int viewId) {
+        channel = new EventChannel(messenger, "native_camera_events_" + viewId);
+        channel.setStreamHandler(this);
+    }
+
+    /** event 맵에는 반드시 "event" 키(이벤트 이름)를 넣는다 */
+    public void emit(Map<String, Object> event) {
+        main.post(() -> {
+            if (sink != null) sink.success(event);
+        });
+    }
+
+    public void dispose() {
+        main.post(() -> {
+            sink = null;
+            channel.setStreamHandler(null);
+        });
+    }
+
+    @Override public void onListen(Object arguments, EventChannel.EventSink events) { sink = events; }
+
+    @Override public void onCancel(Object arguments) { sink = null; }
+}
@@ -0,0 +1,79 @@
+package com.example.camgent;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 카메라 전용 직렬 스레드.
+ * Camera2 호출과 디바이스/세션/캡처 콜백은 전부 이 스레드 하나에서만 실행된다.
+ * 상태(state)도 이 스레드에서만 바꾼다 → 별도 락 없이 순서가 보장됨.
+ */
+public final class CameraExecutor implements Executor {
+    private static final String TAG = "Cam2Native";
+
+    /** 디바이스/세션 상태 */
+    public enum State {
+        CLOSED,      // 디바이스 없음
+        OPENING,     // openCamera() 요청 후 onOpened 대기
+        CONFIGURED,  // 세션 구성 완료, 반복 요청 전
+        STREAMING,   // 프리뷰 반복 요청 중
+        PAUSED       // 반복 요청만 멈춘 상태
+    }
+
+    private final HandlerThread thread;
+    private final Handler handler;
+    private volatile State state = State.CLOSED;
+
+    public CameraExecutor(String name) {
+        thread = new HandlerThread(name);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    /** Camera2 API 에 넘길 콜백 핸들러 */
+    public Handler handler() { return handler; }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!handler.post(task)) {
+            Log.w(TAG, "CameraExecutor already shut down, task dropped");
+        }
+    }
+
+    public void executeDelayed(Runnable task, long delayMs) {
+        handler.postDelayed(task, delayMs);
+    }
+
+    public void cancel(Runnable task) {
+        handler.removeCallbacks(task);
+    }
+
+    public boolean isCameraThread() {
+        return Looper.myLooper() == thread.getLooper();
+    }
+
+    // ---------- State machine ----------
+    public State state() { return state; }
+
+    public boolean is(State s) { return state == s; }
+
+    /** 카메라 스레드에서만 호출 */
+    public void moveTo(State next) {
+        if (!isCameraThread()) {
+            throw new IllegalStateException("state change off camera thread: " + state + " -> " + next);
+        }
+        if (state != next) {
+            Log.d(TAG, "camera state " + state + " -> " + next);
+            state = next;
+        }
+    }
+
+    /** 남은 작업(닫기 등)을 처리한 뒤 스레드 종료. 메인 스레드를 막지 않는다. */
+    public void shutdown() {
+        thread.quitSafely();
+    }
+}
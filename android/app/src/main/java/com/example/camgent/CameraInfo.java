@@ -0,0 +1,278 @@
+package com.example.camgent;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 카메라 하나의 특성 스냅샷 (불변).
+ * CameraRegistry 가 한 번 만들어 두고 모든 NativeCameraView 가 공유한다 → 촬영/세션 구성 중에
+ * cameraserver 로 binder 호출을 하지 않는다.
+ *
+ * 플랫폼 타입을 들고 있지 않다: 백엔드가 Builder 로 채운다 (Camera2Backend 는 CameraCharacteristics 에서,
+ * 테스트/벤치마크는 FakeCameraBackend 에서). 출력 형식은 ImageFormat 값을 그대로 키로 쓴다.
+ */
+public final class CameraInfo {
+    // CameraCharacteristics.LENS_FACING_* 와 같은 값
+    public static final int FACING_FRONT = 0;
+    public static final int FACING_BACK = 1;
+    public static final int FACING_EXTERNAL = 2;
+
+    public final String id;
+    public final int facing;              // FACING_*. 모르면 -1
+    public final int sensorOrientation;
+    // 활성 픽셀 영역 (좌표계 원점은 센서 기준)
+    public final int activeLeft, activeTop, activeRight, activeBottom;
+    public final float maxZoom;
+    public final int aeCompMin, aeCompMax;
+    public final float aeCompStep;        // 노출 보정 1칸의 EV (CONTROL_AE_COMPENSATION_STEP)
+    public final StreamSize[] previewSizes; // SurfaceTexture 출력 크기
+    public final StreamSize[] videoSizes;   // MediaCodec 입력 표면 크기
+    public final boolean hasAutoFocus;    // 고정 초점 렌즈면 false (AF 트리거 생략)
+    public final float minFocusDistance;  // 디옵터. 0 이면 고정 초점
+    public final boolean hasFlash;
+    public final StreamSize rawSize;      // RAW_SENSOR 최대 크기. RAW 캡처를 못 하면 null
+    public final float focalLength35mm;   // 35mm 환산 초점거리 (렌즈 종류 분류용). 모르면 0
+    public final Set<String> physicalIds; // 논리 멀티 카메라의 물리 카메라 ID (아니면 비어 있음)
+    public final float zoomRatioMin, zoomRatioMax; // CONTROL_ZOOM_RATIO 범위 (API 30+). 없으면 0
+    public final boolean manualSensor;    // 수동 노출(AE OFF + 노출 시간/ISO)을 요청마다 줄 수 있다
+    // 센서 범위. 모르면 0 (clamp* 는 그대로 돌려준다)
+    public final long exposureMinNs, exposureMaxNs;
+    public final int isoMin, isoMax;
+    public final int[][] fpsRanges;       // {하한, 상한} 목록. 비어 있으면 요청 값을 그대로
+    // 지원 모드 목록 (CameraMetadata 값). null 이면 모름 → 검증하지 않는다
+    public final int[] sceneModes, effectModes, noiseModes, tonemapModes, antibandingModes;
+    public final int maxAeRegions, maxAfRegions;
+
+    // 형식(ImageFormat) → 출력 크기와 크기별 최소 프레임/스톨 시간
+    private final Map<Integer, Streams> outputs;
+    private final long[] previewMinFrameNs; // previewSizes 와 같은 순서
+
+    private static final class Streams {
+        final StreamSize[] sizes;
+        final long[] minFrameNs;
+        final long[] stallNs;
+
+        Streams(StreamSize[] sizes, long[] minFrameNs, long[] stallNs) {
+            this.sizes = sizes;
+            this.minFrameNs = minFrameNs;
+            this.stallNs = stallNs;
+        }
+    }
+
+    private CameraInfo(Builder b) {
+        id = b.id;
+        facing = b.facing;
+        sensorOrientation = b.sensorOrientation;
+        activeLeft = b.activeLeft;
+        activeTop = b.activeTop;
+        activeRight = b.activeRight;
+        activeBottom = b.activeBottom;
+        maxZoom = Math.max(1f, b.maxZoom);
+        aeCompMin = b.aeCompMin;
+        aeCompMax = b.aeCompMax;
+        aeCompStep = b.aeCompStep > 0 ? b.aeCompStep : 1f / 3;
+        previewSizes = b.previewSizes;
+        previewMinFrameNs = b.previewMinFrameNs;
+        videoSizes = b.videoSizes;
+        minFocusDistance = b.minFocusDistance;
+        hasAutoFocus = b.minFocusDistance > 0f;
+        hasFlash = b.hasFlash;
+        rawSize = b.rawSize;
+        focalLength35mm = b.focalLength35mm;
+        physicalIds = Collections.unmodifiableSet(new HashSet<>(b.physicalIds));
+        zoomRatioMin = b.zoomRatioMin;
+        zoomRatioMax = b.zoomRatioMax;
+        exposureMinNs = b.exposureMinNs;
+        exposureMaxNs = b.exposureMaxNs;
+        isoMin = b.isoMin;
+        isoMax = b.isoMax;
+        manualSensor = b.manualSensor && exposureMaxNs > 0 && isoMax > 0;
+        fpsRanges = b.fpsRanges;
+        sceneModes = b.sceneModes;
+        effectModes = b.effectModes;
+        noiseModes = b.noiseModes;
+        tonemapModes = b.tonemapModes;
+        antibandingModes = b.antibandingModes;
+        maxAeRegions = b.maxAeRegions;
+        maxAfRegions = b.maxAfRegions;
+        outputs = Collections.unmodifiableMap(new HashMap<>(b.outputs));
+    }
+
+    public boolean isBackFacing() { return facing == FACING_BACK; }
+
+    public int activeWidth() { return activeRight - activeLeft; }
+
+    public int activeHeight() { return activeBottom - activeTop; }
+
+    public boolean hasZoomRatio() { return zoomRatioMax > 0f; }
+
+    public int clampAeComp(int steps) { return Math.max(aeCompMin, Math.min(steps, aeCompMax)); }
+
+    public long clampExposureNs(long ns) {
+        return exposureMaxNs > 0 ? Math.max(exposureMinNs, Math.min(ns, exposureMaxNs)) : ns;
+    }
+
+    public int clampIso(int iso) { return isoMax > 0 ? Math.max(isoMin, Math.min(iso, isoMax)) : iso; }
+
+    /** 출력 형식별 크기. 지원하지 않는 형식이면 빈 배열 */
+    public StreamSize[] outputSizes(int format) {
+        Streams s = outputs.get(format);
+        return s != null ? s.sizes : new StreamSize[0];
+    }
+
+    public long outputMinFrameDurationNs(int format, StreamSize size) {
+        Streams s = outputs.get(format);
+        int i = s != null ? indexOf(s.sizes, size) : -1;
+        return i >= 0 ? s.minFrameNs[i] : 0;
+    }
+
+    public long outputStallDurationNs(int format, StreamSize size) {
+        Streams s = outputs.get(format);
+        int i = s != null ? indexOf(s.sizes, size) : -1;
+        return i >= 0 ? s.stallNs[i] : 0;
+    }
+
+    public long previewMinFrameDurationNs(StreamSize size) {
+        int i = indexOf(previewSizes, size);
+        return i >= 0 ? previewMinFrameNs[i] : 0;
+    }
+
+    public boolean supportsRaw() { return rawSize != null; }
+
+    public boolean isLogicalMultiCamera() { return !physicalIds.isEmpty(); }
+
+    private static int indexOf(StreamSize[] sizes, StreamSize s) {
+        for (int i = 0; i < sizes.length; i++) if (sizes[i].equals(s)) return i;
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "CameraInfo{" + id + " facing=" + facing + " orientation=" + sensorOrientation
+                + " activeArray=" + activeWidth() + "x" + activeHeight() + " maxZoom=" + maxZoom
+                + " aeComp=[" + aeCompMin + ", " + aeCompMax + "]"
+                + " formats=" + outputs.size() + " focal35=" + focalLength35mm
+                + (physicalIds.isEmpty() ? "" : " physical=" + physicalIds) + "}";
+    }
+
+    // ---------- Builder ----------
+    /** 백엔드가 특성을 채운다. 안 채운 항목은 "모름/없음" */
+    public static final class Builder {
+        private final String id;
+        private int facing = -1;
+        private int sensorOrientation = 0;
+        private int activeLeft, activeTop, activeRight, activeBottom;
+        private float maxZoom = 1f;
+        private int aeCompMin = -2, aeCompMax = 2;
+        private float aeCompStep = 1f / 3;
+        private StreamSize[] previewSizes = new StreamSize[0];
+        private long[] previewMinFrameNs = new long[0];
+        private StreamSize[] videoSizes = new StreamSize[0];
+        private float minFocusDistance = 0f;
+        private boolean hasFlash = false;
+        private StreamSize rawSize;
+        private float focalLength35mm = 0f;
+        private Set<String> physicalIds = Collections.emptySet();
+        private float zoomRatioMin = 0f, zoomRatioMax = 0f;
+        private boolean manualSensor = false;
+        private long exposureMinNs = 0, exposureMaxNs = 0;
+        private int isoMin = 0, isoMax = 0;
+        private int[][] fpsRanges = new int[0][];
+        private int[] sceneModes, effectModes, noiseModes, tonemapModes, antibandingModes;
+        private int maxAeRegions = 0, maxAfRegions = 0;
+        private final Map<Integer, Streams> outputs = new HashMap<>();
+
+        public Builder(String id) { this.id = id; }
+
+        public Builder facing(int facing) { this.facing = facing; return this; }
+
+        public Builder sensorOrientation(int degrees) { sensorOrientation = degrees; return this; }
+
+        public Builder activeArray(int left, int top, int right, int bottom) {
+            activeLeft = left;
+            activeTop = top;
+            activeRight = right;
+            activeBottom = bottom;
+            return this;
+        }
+
+        public Builder maxZoom(float zoom) { maxZoom = zoom; return this; }
+
+        public Builder aeCompensation(int min, int max, float stepEv) {
+            aeCompMin = min;
+            aeCompMax = max;
+            aeCompStep = stepEv;
+            return this;
+        }
+
+        /** minFrameNs 는 sizes 와 같은 순서 (null 이면 모두 0) */
+        public Builder previewSizes(StreamSize[] sizes, long[] minFrameNs) {
+            previewSizes = sizes;
+            previewMinFrameNs = minFrameNs != null ? minFrameNs : new long[sizes.length];
+            return this;
+        }
+
+        public Builder videoSizes(StreamSize[] sizes) { videoSizes = sizes; return this; }
+
+        /** 형식 하나의 출력 크기. minFrameNs/stallNs 는 sizes 와 같은 순서 (null 이면 모두 0) */
+        public Builder output(int format, StreamSize[] sizes, long[] minFrameNs, long[] stallNs) {
+            outputs.put(format, new Streams(sizes,
+                    minFrameNs != null ? minFrameNs : new long[sizes.length],
+                    stallNs != null ? stallNs : new long[sizes.length]));
+            return this;
+        }
+
+        public Builder rawSize(StreamSize size) { rawSize = size; return this; }
+
+        public Builder minFocusDistance(float diopters) { minFocusDistance = diopters; return this; }
+
+        public Builder flash(boolean available) { hasFlash = available; return this; }
+
+        public Builder focalLength35mm(float mm) { focalLength35mm = mm; return this; }
+
+        public Builder physicalIds(Set<String> ids) { physicalIds = ids; return this; }
+
+        public Builder zoomRatioRange(float min, float max) {
+            zoomRatioMin = min;
+            zoomRatioMax = max;
+            return this;
+        }
+
+        public Builder manualSensor(boolean supported) { manualSensor = supported; return this; }
+
+        public Builder exposureTimeRange(long minNs, long maxNs) {
+            exposureMinNs = minNs;
+            exposureMaxNs = maxNs;
+            return this;
+        }
+
+        public Builder sensitivityRange(int min, int max) {
+            isoMin = min;
+            isoMax = max;
+            return this;
+        }
+
+        public Builder fpsRanges(int[][] ranges) { fpsRanges = ranges; return this; }
+
+        public Builder sceneModes(int[] modes) { sceneModes = modes; return this; }
+
+        public Builder effectModes(int[] modes) { effectModes = modes; return this; }
+
+        public Builder noiseReductionModes(int[] modes) { noiseModes = modes; return this; }
+
+        public Builder tonemapModes(int[] modes) { tonemapModes = modes; return this; }
+
+        public Builder antibandingModes(int[] modes) { antibandingModes = modes; return this; }
+
+        public Builder maxRegions(int ae, int af) {
+            maxAeRegions = ae;
+            maxAfRegions = af;
+            return this;
+        }
+
+        public CameraInfo build() { return new CameraInfo(this); }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.camgent;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 선택 가능한 렌즈 하나 (불변). CameraRegistry 가 카메라 ID 목록과 함께 한 번 만들어 둔다.
+ *  - 독립 카메라 ID : 그 ID 를 연다 (전면/후면/외장, 별도 ID 로 노출된 광각·망원)
+ *  - 논리 멀티 카메라의 물리 렌즈 : 논리 카메라를 열어 둔 채 CONTROL_ZOOM_RATIO 로 옮겨 간다 (API 30+).
+ *    렌즈 전환은 HAL 이 하므로 세션을 다시 만들지 않는다 → zoomRatio > 0 인 항목만 고를 수 있다
+ */
+public final class CameraLens {
+    private static final String TAG = "Cam2Native";
+    // 35mm 환산 초점거리 기준 분류
+    private static final float ULTRA_WIDE_MAX_MM = 20f;
+    private static final float TELE_MIN_MM = 40f;
+
+    public enum Kind {
+        FRONT("front"),
+        WIDE("wide"),
+        ULTRA_WIDE("ultraWide"),
+        TELE("tele"),
+        EXTERNAL("external");
+
+        public final String key;
+
+        Kind(String key) { this.key = key; }
+
+        /** "back" 은 기본 후면(광각)과 같은 뜻. 모르는 값이면 null */
+        public static Kind fromString(String s) {
+            if (s == null) return null;
+            if ("back".equalsIgnoreCase(s)) return WIDE;
+            for (Kind k : values()) if (k.key.equalsIgnoreCase(s)) return k;
+            return null;
+        }
+    }
+
+    public final Kind kind;
+    public final String cameraId;       // 실제로 여는 ID
+    public final String physicalId;     // 논리 카메라 안의 물리 렌즈 (아니면 null)
+    public final float focalLength35mm;
+    public final float zoomRatio;       // 이 렌즈로 가는 CONTROL_ZOOM_RATIO. 0 이면 줌 비율로 못 감
+
+    CameraLens(Kind kind, String cameraId, String physicalId, float focalLength35mm, float zoomRatio) {
+        this.kind = kind;
+        this.cameraId = cameraId;
+        this.physicalId = physicalId;
+        this.focalLength35mm = focalLength35mm;
+        this.zoomRatio = zoomRatio;
+    }
+
+    /** 이 항목으로 전환할 수 있는지 (물리 렌즈는 줌 비율로만) */
+    public boolean isSelectable() { return physicalId == null || zoomRatio > 0; }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("lens", kind.key);
+        m.put("cameraId", cameraId);
+        m.put("physicalId", physicalId);
+        m.put("focalLength35mm", focalLength35mm);
+        m.put("zoomRatio", zoomRatio);
+        m.put("selectable", isSelectable());
+        return m;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CameraLens)) return false;
+        CameraLens l = (CameraLens) o;
+        return cameraId.equals(l.cameraId) && Objects.equals(physicalId, l.physicalId);
+    }
+
+    @Override
+    public int hashCode() { return Objects.hash(cameraId, physicalId); }
+
+    @Override
+    public String toString() {
+        return kind.key + "{" + cameraId + (physicalId != null ? "/" + physicalId : "")
+                + " " + focalLength35mm + "mm" + (zoomRatio > 0 ? " x" + zoomRatio : "") + "}";
+    }
+
+    // ---------- 목록 ----------
+    /** 레지스트리의 (캐시된) CameraInfo 로 목록을 만든다. 물리 렌즈 특성도 레지스트리에 캐시된다 */
+    static List<CameraLens> catalog(CameraRegistry registry) throws CameraBackendException {
+        List<CameraLens> out = new ArrayList<>();
+        for (String id : registry.cameraIds()) {
+            CameraInfo info = registry.info(id);
+            if (!info.isLogicalMultiCamera()) {
+                out.add(new CameraLens(classify(info), id, null, info.focalLength35mm, 0f));
+                continue;
+            }
+            // 논리 카메라: 줌 1.0 이 기본 렌즈. 물리 렌즈는 기본 렌즈 대비 초점거리 비율로 줌 위치를 구한다
+            Kind base = info.facing == CameraInfo.FACING_FRONT ? Kind.FRONT : Kind.WIDE;
+            out.add(new CameraLens(base, id, null, info.focalLength35mm, info.hasZoomRatio() ? 1f : 0f));
+
+            List<CameraInfo> physical = new ArrayList<>();
+            for (String pid : info.physicalIds) {
+                try {
+                    physical.add(registry.info(pid));
+                } catch (CameraBackendException | IllegalArgumentException e) {
+                    Log.w(TAG, "physical camera " + pid + " of " + id + " not queryable", e);
+                }
+            }
+            float baseFocal = baseFocal(physical, base);
+            for (CameraInfo p : physical) {
+                Kind kind = base == Kind.FRONT ? Kind.FRONT : classify(p);
+                out.add(new CameraLens(kind, id, p.id, p.focalLength35mm, zoomRatioFor(p, baseFocal, info)));
+            }
+        }
+        return Collections.unmodifiableList(out);
+    }
+
+    /**
+     * 요청에 맞는 렌즈. id 를 주면 그 항목, 아니면 종류로 고른다.
+     * 같은 종류가 여럿이면 지금 열린 카메라에서 줌으로 갈 수 있는 것 → 독립 ID → 다른 논리 카메라 순.
+     */
+    static CameraLens choose(List<CameraLens> lenses, String currentId, Kind kind,
+                             String cameraId, String physicalId) {
+        if (cameraId != null) {
+            for (CameraLens l : lenses) {
+                if (l.cameraId.equals(cameraId) && Objects.equals(l.physicalId, physicalId) && l.isSelectable()) {
+                    return l;
+                }
+            }
+            return null;
+        }
+        if (kind == null) return null;
+        CameraLens sameDevice = null, standalone = null, other = null;
+        for (CameraLens l : lenses) {
+            if (l.kind != kind || !l.isSelectable()) continue;
+            if (l.zoomRatio > 0 && l.cameraId.equals(currentId)) {
+                // 기본 렌즈(물리 ID 없음)가 물리 렌즈 항목보다 우선
+                if (sameDevice == null || (sameDevice.physicalId != null && l.physicalId == null)) sameDevice = l;
+            } else if (l.physicalId == null) {
+                if (standalone == null) standalone = l;
+            } else if (other == null) {
+                other = l;
+            }
+        }
+        return sameDevice != null ? sameDevice : standalone != null ? standalone : other;
+    }
+
+    private static Kind classify(CameraInfo info) {
+        if (info.facing == CameraInfo.FACING_FRONT) return Kind.FRONT;
+        if (info.facing == CameraInfo.FACING_EXTERNAL) return Kind.EXTERNAL;
+        float f = info.focalLength35mm;
+        if (f <= 0f) return Kind.WIDE;
+        if (f < ULTRA_WIDE_MAX_MM) return Kind.ULTRA_WIDE;
+        if (f > TELE_MIN_MM) return Kind.TELE;
+        return Kind.WIDE;
+    }
+
+    // 줌 1.0 에 해당하는 물리 렌즈의 초점거리 (같은 종류가 없으면 0)
+    private static float baseFocal(List<CameraInfo> physical, Kind base) {
+        for (CameraInfo p : physical) {
+            if (p.focalLength35mm > 0 && (base == Kind.FRONT || classify(p) == Kind.WIDE)) return p.focalLength35mm;
+        }
+        return 0f;
+    }
+
+    // logical: 물리 렌즈를 품은 논리 카메라 (줌 비율 범위는 논리 카메라 것)
+    private static float zoomRatioFor(CameraInfo p, float baseFocal, CameraInfo logical) {
+        if (!logical.hasZoomRatio() || baseFocal <= 0f || p.focalLength35mm <= 0f) return 0f;
+        float ratio = p.focalLength35mm / baseFocal;
+        float lo = logical.zoomRatioMin, hi = logical.zoomRatioMax;
+        // 범위를 조금 벗어나는 건 초점거리 반올림 차이 → 끝값으로
+        if (ratio < lo * 0.9f || ratio > hi * 1.1f) return 0f;
+        return Math.max(lo, Math.min(ratio, hi));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.camgent;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 파이프라인 단계별 지연 히스토그램 + 카운터 (뷰 하나당 하나).
+ * getMetrics 로 한 번에 꺼내고 resetMetrics 로 비운다.
+ */
+public final class CameraMetrics {
+
+    /** 핫패스 디버그 로그 스위치. 꺼져 있으면 문자열을 만들지도 않도록 호출부에서 먼저 검사한다 */
+    public static volatile boolean verbose = false;
+
+    public enum Stage {
+        OPEN("open"),                       // openCamera → onOpened
+        CONFIGURE("configure"),             // createCaptureSession → onConfigured
+        FIRST_FRAME("firstFrame"),          // 반복 요청 시작 → 첫 프리뷰 결과 (세션마다)
+        SETTINGS_APPLIED("settingsApplied"),// applySettings → 그 설정이 반영된 첫 프레임
+        SHUTTER_TO_IMAGE("shutterToImage"), // 탭 → JPEG 도착
+        ENQUEUE("enqueue"),                 // 스틸 도착 → MediaStore pending 항목 + 저장 큐에 넘김 (복사 없음)
+        SAVE("save"),                       // MediaStore 쓰기 + IS_PENDING 해제
+        RAW_SAVE("rawSave"),                // DNG 변환 + 쓰기 (RAW 스레드)
+        UPLOAD_VARIANT("uploadVariant"),    // 업로드용 축소 JPEG 디코드 + 인코드 (writer 스레드)
+        PRECAPTURE_AF("precaptureAf"),      // 탭 → 초점 잠김 (트리거를 건 경우만)
+        PRECAPTURE_AE("precaptureAe"),      // 탭 → AE 프리캡처/수렴 끝 (기다린 경우만)
+        LENS_SWITCH("lensSwitch"),          // selectLens → 새 렌즈의 첫 프리뷰 프레임
+        RECORD_FINALIZE("recordFinalize"),  // stopRecording → 남은 프레임 먹싱 + 파일 확정 (mux 스레드)
+        BRACKET_BURST("bracketBurst"),      // captureBurst → 브래킷 마지막 프레임 복사 끝
+        HDR_MERGE("hdrMerge"),              // 브래킷 프레임 노출 융합 (fork-join)
+        NIGHT_BURST("nightBurst"),          // 야간 촬영: captureBurst → 마지막 프레임 복사 끝
+        NIGHT_STACK_PER_MP("nightStackPerMp"); // 야간 정렬 + 평균 시간을 1 메가픽셀 기준으로 환산
+
+        final String key;
+
+        Stage(String key) { this.key = key; }
+    }
+
+    public enum Counter {
+        BUSY_REJECTIONS("busyRejections"),
+        DROPPED_FRAMES("droppedFrames"),
+        CAPTURE_FAILURES("captureFailures"),
+        PRECAPTURE_FAST_PATH("precaptureFastPath"),
+        PRECAPTURE_TIMEOUTS("precaptureTimeouts"),
+        RECORD_DROPPED_FRAMES("recordDroppedFrames");
+
+        final String key;
+
+        Counter(String key) { this.key = key; }
+    }
+
+    private final EnumMap<Stage, LatencyHistogram> stages = new EnumMap<>(Stage.class);
+    private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+    // 저장 형식별 쓰기 지연 + 바이트 (형식 간 파일 크기/저장 I/O 비교용)
+    private final EnumMap<StillFormat, LatencyHistogram> saveByFormat = new EnumMap<>(StillFormat.class);
+    private final AtomicLongArray savedBytes = new AtomicLongArray(StillFormat.values().length);
+
+    public CameraMetrics() {
+        for (Stage s : Stage.values()) stages.put(s, new LatencyHistogram());
+        for (StillFormat f : StillFormat.values()) saveByFormat.put(f, new LatencyHistogram());
+    }
+
+    public void record(Stage stage, long ns) {
+        stages.get(stage).record(ns);
+    }
+
+    /** 스틸 저장 한 건: SAVE 단계 + 형식별 통계 */
+    public void recordSave(StillFormat format, long ns, long bytes) {
+        stages.get(Stage.SAVE).record(ns);
+        saveByFormat.get(format).record(ns);
+        savedBytes.addAndGet(format.ordinal(), bytes);
+    }
+
+    public void count(Counter c) {
+        counters.incrementAndGet(c.ordinal());
+    }
+
+    public void count(Counter c, long n) {
+        if (n > 0) counters.addAndGet(c.ordinal(), n);
+    }
+
+    public void reset() {
+        for (LatencyHistogram h : stages.values()) h.reset();
+        for (LatencyHistogram h : saveByFormat.values()) h.reset();
+        for (int i = 0; i < savedBytes.length(); i++) savedBytes.set(i, 0);
+        for (int i = 0; i < counters.length(); i++) counters.set(i, 0);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> st = new HashMap<>();
+        for (Map.Entry<Stage, LatencyHistogram> e : stages.entrySet()) {
+            st.put(e.getKey().key, e.getValue().snapshot());
+        }
+        Map<String, Object> ct = new HashMap<>();
+        for (Counter c : Counter.values()) ct.put(c.key, counters.get(c.ordinal()));
+
+        Map<String, Object> m = new HashMap<>();
+        m.put("stages", st);
+        m.put("counters", ct);
+        m.put("saveByFormat", saveByFormatSnapshot());
+        m.put("bucketBoundsMs", LatencyHistogram.boundsMs());
+        return m;
+    }
+
+    // {jpeg: {...latency, bytes, meanBytes}, ...} — 저장 기록이 있는 형식만
+    private Map<String, Object> saveByFormatSnapshot() {
+        Map<String, Object> out = new HashMap<>();
+        for (Map.Entry<StillFormat, LatencyHistogram> e : saveByFormat.entrySet()) {
+            Map<String, Object> h = e.getValue().snapshot();
+            Object n = h.get("count");
+            long count = n instanceof Number ? ((Number) n).longValue() : 0;
+            if (count == 0) continue;
+            long bytes = savedBytes.get(e.getKey().ordinal());
+            h.put("bytes", bytes);
+            h.put("meanBytes", bytes / count);
+            out.put(e.getKey().key, h);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.camgent;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * 카메라 미리 열기 (opt-in).
+ * Flutter 엔진 구성 시점에 카메라 스레드를 띄우고 기본 카메라를 먼저 열어 둔다.
+ * 이후 만들어지는 NativeCameraView 가 claim() 으로 스레드와 디바이스를 그대로 넘겨받고,
+ * 프리뷰 표면은 플랫폼 뷰가 생긴 뒤에 붙인다.
+ * 아무도 가져가지 않으면 일정 시간 뒤 스스로 닫는다.
+ */
+public final class CameraPrewarmer {
+    private static final String TAG = "Cam2Native";
+    private static final long UNCLAIMED_TIMEOUT_MS = 5_000;
+
+    private static CameraPrewarmer pending; // 아직 아무 뷰도 가져가지 않은 것
+
+    /** 메인 스레드에서 호출. 이미 진행 중이면 무시 */
+    public static synchronized void start(Context context) {
+        if (pending != null) return;
+        pending = new CameraPrewarmer(context.getApplicationContext());
+    }
+
+    /** 진행 중인 미리 열기를 가져간다. 없으면 null */
+    public static synchronized CameraPrewarmer claim() {
+        CameraPrewarmer p = pending;
+        pending = null;
+        return p;
+    }
+
+    private final CameraRegistry registry;
+    private final CameraExecutor executor;
+    public final long startNs;
+
+    // 이하 카메라 스레드 전용
+    private CameraInfo info;
+    private CameraBackend.Device device;
+    private boolean finished = false;              // 열기 성공/실패가 결정됨
+    private CameraBackend.DeviceCallback delegate; // 넘겨받은 뷰의 콜백
+    private Runnable onFailed;
+
+    private CameraPrewarmer(Context appContext) {
+        startNs = SystemClock.elapsedRealtimeNanos();
+        registry = CameraRegistry.get(appContext);
+        executor = new CameraExecutor("native-cam2-bg");
+        executor.execute(this::open);
+        executor.executeDelayed(this::expireIfUnclaimed, UNCLAIMED_TIMEOUT_MS);
+    }
+
+    /** 넘겨받을 카메라 스레드 (뷰가 자기 스레드 대신 쓴다) */
+    public CameraExecutor executor() { return executor; }
+
+    /** 카메라 스레드에서 호출. 열린 카메라 정보 (실패했으면 null) */
+    public CameraInfo info() { return info; }
+
+    private void open() {
+        try {
+            info = registry.defaultCamera();
+            if (info == null) {
+                fail(null);
+                return;
+            }
+            executor.moveTo(CameraExecutor.State.OPENING);
+            registry.openCamera(info.id, callback, executor);
+            Log.d(TAG, "prewarm: opening camera " + info.id);
+        } catch (SecurityException | CameraBackendException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * 카메라 스레드에서 호출. 디바이스가 열려 있으면 바로, 여는 중이면 열리는 대로 cb.onOpened 로 넘긴다.
+     * 이후 끊김/에러도 cb 로 전달된다. 열기에 실패했으면 onFailed 를 부른다.
+     */
+    public void attach(CameraBackend.DeviceCallback cb, Runnable failed) {
+        delegate = cb;
+        onFailed = failed;
+        // 상태는 OPENING(여는 중/열림) 또는 CLOSED(실패) 그대로 뷰가 이어받는다
+        if (!finished) return;
+        if (device != null) cb.onOpened(device);
+        else failed.run();
+    }
+
+    private void fail(Exception e) {
+        Log.w(TAG, "prewarm failed", e);
+        finished = true;
+        device = null;
+        executor.moveTo(CameraExecutor.State.CLOSED);
+        if (onFailed != null) onFailed.run();
+    }
+
+    private void expireIfUnclaimed() {
+        synchronized (CameraPrewarmer.class) {
+            if (pending != this) return;
+            pending = null;
+        }
+        Log.d(TAG, "prewarm: not claimed in " + UNCLAIMED_TIMEOUT_MS + "ms, closing");
+        if (device != null) device.close();
+        device = null;
+        executor.shutdown();
+    }
+
+    private final CameraBackend.DeviceCallback callback = new CameraBackend.DeviceCallback() {
+        @Override public void onOpened(CameraBackend.Device camera) {
+            finished = true;
+            device = camera;
+            Log.d(TAG, "prewarm: camera opened in "
+                    + (SystemClock.elapsedRealtimeNanos() - startNs) / 1_000_000 + "ms");
+            if (delegate != null) delegate.onOpened(camera);
+        }
+        @Override public void onDisconnected(CameraBackend.Device camera) {
+            if (delegate != null && finished) {
+                delegate.onDisconnected(camera);
+            } else {
+                camera.close();
+                fail(null);
+            }
+        }
+        @Override public void onError(CameraBackend.Device camera, int error) {
+            if (delegate != null && finished) {
+                delegate.onError(camera, error);
+            } else {
+                camera.close();
+                fail(new IllegalStateException("camera device error=" + error));
+            }
+        }
+    };
+}
@@ -0,0 +1,129 @@
+package com.example.camgent;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * 프로세스 전역 카메라 특성 레지스트리.
+ * 카메라 ID 목록과 ID 별 CameraInfo 를 처음 필요할 때 한 번만 조회해 두고,
+ * 외장 카메라 연결/해제 같은 변화는 백엔드의 연결/해제 알림으로 감지해서 다시 조회하게 한다.
+ * 플랫폼 호출은 모두 CameraBackend 를 거친다. 어느 스레드에서 불러도 된다.
+ */
+public final class CameraRegistry {
+    private static final String TAG = "Cam2Native";
+
+    private static CameraRegistry instance;
+
+    public static synchronized CameraRegistry get(Context context) {
+        if (instance == null) instance = new CameraRegistry(new Camera2Backend(context));
+        return instance;
+    }
+
+    private final CameraBackend backend;
+    private String[] ids;                                      // null 이면 다시 조회
+    private final Map<String, CameraInfo> infos = new HashMap<>();
+    private List<CameraLens> lenses;                           // ids 와 같이 무효화
+    private Set<Set<String>> concurrent;                       // 동시에 열 수 있는 ID 조합 (API 30+)
+
+    CameraRegistry(CameraBackend backend) {
+        this.backend = backend;
+        backend.setAvailabilityListener(availability);
+    }
+
+    /** 디바이스 열기. 결과는 executor 에서 cb 로 */
+    public void openCamera(String id, CameraBackend.DeviceCallback cb, Executor executor) throws CameraBackendException {
+        backend.open(id, cb, executor);
+    }
+
+    public synchronized String[] cameraIds() throws CameraBackendException {
+        if (ids == null) ids = backend.cameraIds();
+        return ids.clone();
+    }
+
+    public synchronized CameraInfo info(String id) throws CameraBackendException {
+        CameraInfo info = infos.get(id);
+        if (info == null) {
+            info = backend.info(id);
+            infos.put(id, info);
+            Log.d(TAG, "registry cached " + info);
+        }
+        return info;
+    }
+
+    /** 전면/후면/광각/망원 + 논리 카메라의 물리 렌즈 */
+    public synchronized List<CameraLens> lenses() throws CameraBackendException {
+        if (lenses == null) {
+            lenses = CameraLens.catalog(this);
+            Log.d(TAG, "registry lenses " + lenses);
+        }
+        return lenses;
+    }
+
+    /** 두 카메라를 동시에 열어 둘 수 있는지 (렌즈 전환 시 미리 열기) */
+    public synchronized boolean canOpenConcurrently(String a, String b) {
+        if (concurrent == null) {
+            try {
+                concurrent = backend.concurrentCameraIds();
+            } catch (CameraBackendException e) {
+                Log.w(TAG, "concurrent camera query failed", e);
+                concurrent = Collections.emptySet();
+            }
+        }
+        for (Set<String> set : concurrent) {
+            if (set.contains(a) && set.contains(b)) return true;
+        }
+        return false;
+    }
+
+    /** 첫 번째 후면 카메라, 없으면 첫 번째 카메라. 카메라가 없으면 null */
+    public CameraInfo defaultCamera() throws CameraBackendException {
+        String[] all = cameraIds();
+        for (String id : all) {
+            CameraInfo info = info(id);
+            if (info.isBackFacing()) return info;
+        }
+        return all.length > 0 ? info(all[0]) : null;
+    }
+
+    // ---------- 무효화 ----------
+    private final CameraBackend.AvailabilityListener availability = new CameraBackend.AvailabilityListener() {
+        @Override public void onCameraAvailable(String id) {
+            // 등록 직후엔 기존 카메라마다 한 번씩 온다 → 모르는 ID 일 때만 (새로 연결된 카메라)
+            synchronized (CameraRegistry.this) {
+                if (ids != null && !contains(ids, id)) {
+                    Log.d(TAG, "registry: camera " + id + " appeared");
+                    ids = null;
+                    lenses = null;
+                    concurrent = null;
+                    infos.remove(id);
+                }
+            }
+        }
+
+        @Override public void onCameraUnavailable(String id) {
+            // 외장 카메라는 빠졌을 수 있다 → 다음에 다시 조회 (내장 카메라는 다른 앱이 연 것뿐)
+            synchronized (CameraRegistry.this) {
+                CameraInfo info = infos.get(id);
+                if (info != null && info.facing == CameraInfo.FACING_EXTERNAL) {
+                    Log.d(TAG, "registry: external camera " + id + " unavailable");
+                    ids = null;
+                    lenses = null;
+                    concurrent = null;
+                    infos.remove(id);
+                }
+            }
+        }
+    };
+
+    private static boolean contains(String[] arr, String v) {
+        for (String s : arr) if (s.equals(v)) return true;
+        return false;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.camgent;
+
+import android.hardware.camera2.CaptureRequest;
+import android.hardware.camera2.params.MeteringRectangle;
+import android.hardware.camera2.params.RggbChannelVector;
+import android.util.Range;
+
+/**
+ * 캡처 요청 상태의 단일 원본.
+ * applySettings / 줌 / 노출 보정 등 모든 진입점이 여기만 바꾸고, 프리뷰(반복) 요청과
+ * 스틸 요청은 모두 이 상태로부터 만든다 → 줌을 바꿔도 ISO 가 풀리지 않고, 사진이 프리뷰와 같다.
+ *
+ * 반복 요청용 빌더는 세션마다 한 번만 만들고, 바뀐 키만 반영한다.
+ * 바뀐 게 없으면 setRepeatingRequest 자체를 생략한다. 카메라 스레드 전용.
+ * 바뀐 키 추적은 RequestState 가 하고, 여기는 CaptureRequest 키/빌더와의 연결만 맡는다.
+ */
+public final class CaptureState {
+    private final RequestState<CaptureRequest.Key<?>> state = new RequestState<>();
+
+    // 세션에 묶인 반복 요청 빌더
+    private CaptureRequest.Builder repeating;
+
+    /** value 가 null 이면 키를 지운다(템플릿 기본값으로). 실제로 바뀌었으면 true */
+    public <T> boolean set(CaptureRequest.Key<T> key, T value) {
+        return state.set(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(CaptureRequest.Key<T> key) {
+        return (T) state.get(key);
+    }
+
+    public boolean hasPendingChanges() { return state.hasPendingChanges(); }
+
+    /** 다른 카메라로 바꿀 때: 이전 카메라 기준 값을 모두 버린다 (세션에 묶이지 않았을 때만 부른다) */
+    public void clear() { state.clear(); }
+
+    // ---------- 컴파일된 설정 ----------
+    /** SettingsPlan 의 항목을 Camera2 키/값으로 바꿔 반영. 하나라도 실제로 바뀌었으면 true */
+    public boolean apply(SettingsPlan plan) {
+        boolean changed = false;
+        for (int i = 0; i < plan.size(); i++) {
+            changed |= apply(plan.key(i), plan.value(i));
+        }
+        return changed;
+    }
+
+    private boolean apply(RequestKey key, Object v) {
+        switch (key) {
+            case SENSOR_SENSITIVITY:               return set(CaptureRequest.SENSOR_SENSITIVITY, (Integer) v);
+            case SENSOR_EXPOSURE_TIME:             return set(CaptureRequest.SENSOR_EXPOSURE_TIME, (Long) v);
+            case CONTROL_AE_EXPOSURE_COMPENSATION: return set(CaptureRequest.CONTROL_AE_EXPOSURE_COMPENSATION, (Integer) v);
+            case CONTROL_AE_LOCK:                  return set(CaptureRequest.CONTROL_AE_LOCK, (Boolean) v);
+            case CONTROL_AWB_LOCK:                 return set(CaptureRequest.CONTROL_AWB_LOCK, (Boolean) v);
+            case CONTROL_AE_MODE:                  return set(CaptureRequest.CONTROL_AE_MODE, (Integer) v);
+            case FLASH_MODE:                       return set(CaptureRequest.FLASH_MODE, (Integer) v);
+            case CONTROL_MODE:                     return set(CaptureRequest.CONTROL_MODE, (Integer) v);
+            case CONTROL_SCENE_MODE:               return set(CaptureRequest.CONTROL_SCENE_MODE, (Integer) v);
+            case COLOR_CORRECTION_MODE:            return set(CaptureRequest.COLOR_CORRECTION_MODE, (Integer) v);
+            case COLOR_CORRECTION_GAINS:           return set(CaptureRequest.COLOR_CORRECTION_GAINS, gains((float[]) v));
+            case LENS_FOCUS_DISTANCE:              return set(CaptureRequest.LENS_FOCUS_DISTANCE, (Float) v);
+            case CONTROL_EFFECT_MODE:              return set(CaptureRequest.CONTROL_EFFECT_MODE, (Integer) v);
+            case NOISE_REDUCTION_MODE:             return set(CaptureRequest.NOISE_REDUCTION_MODE, (Integer) v);
+            case TONEMAP_MODE:                     return set(CaptureRequest.TONEMAP_MODE, (Integer) v);
+            case CONTROL_AE_ANTIBANDING_MODE:      return set(CaptureRequest.CONTROL_AE_ANTIBANDING_MODE, (Integer) v);
+            case CONTROL_AE_REGIONS:               return set(CaptureRequest.CONTROL_AE_REGIONS, regions((int[]) v));
+            case CONTROL_AF_REGIONS:               return set(CaptureRequest.CONTROL_AF_REGIONS, regions((int[]) v));
+            case CONTROL_AE_TARGET_FPS_RANGE:      return set(CaptureRequest.CONTROL_AE_TARGET_FPS_RANGE, fps((int[]) v));
+            case JPEG_QUALITY:                     return set(CaptureRequest.JPEG_QUALITY, (Byte) v);
+            default:                               return false;
+        }
+    }
+
+    private static RggbChannelVector gains(float[] g) {
+        return g != null ? new RggbChannelVector(g[0], g[1], g[2], g[3]) : null;
+    }
+
+    private static MeteringRectangle[] regions(int[] r) {
+        if (r == null) return null;
+        int n = SettingsCompiler.REGION_FIELDS;
+        MeteringRectangle[] out = new MeteringRectangle[r.length / n];
+        for (int i = 0; i < out.length; i++) {
+            int o = i * n;
+            out[i] = new MeteringRectangle(r[o], r[o + 1], r[o + 2], r[o + 3], r[o + 4]);
+        }
+        return out;
+    }
+
+    private static Range<Integer> fps(int[] r) {
+        return r != null ? new Range<>(r[0], r[1]) : null;
+    }
+
+    // ---------- 반복 요청 ----------
+    /** 새 세션의 반복 요청 빌더를 묶고 전체 상태를 반영한다 */
+    public void bindRepeating(CaptureRequest.Builder builder) {
+        repeating = builder;
+        state.bindRepeating(target(builder));
+    }
+
+    public void unbindRepeating() {
+        repeating = null;
+        state.unbindRepeating();
+    }
+
+    public CaptureRequest.Builder repeatingBuilder() { return repeating; }
+
+    /** 바뀐 키만 빌더에 반영해서 요청을 만든다. 바뀐 게 없으면 null → 재제출 생략 */
+    public CaptureRequest buildRepeatingIfDirty(Object tag) {
+        if (repeating == null || !state.flushRepeating()) return null;
+        repeating.setTag(tag);
+        return repeating.build();
+    }
+
+    // ---------- 1회성 요청 ----------
+    /** 스틸 등 새로 만든 빌더에 현재 상태 전체를 덮어쓴다 */
+    public void applyTo(CaptureRequest.Builder builder) {
+        state.applyTo(target(builder));
+    }
+
+    private static RequestState.Target<CaptureRequest.Key<?>> target(CaptureRequest.Builder b) {
+        return new RequestState.Target<CaptureRequest.Key<?>>() {
+            @Override public Object get(CaptureRequest.Key<?> key) { return b.get(key); }
+            @Override public void set(CaptureRequest.Key<?> key, Object value) { put(b, key, value); }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void put(CaptureRequest.Builder b, CaptureRequest.Key<T> key, Object value) {
+        b.set(key, (T) value);
+    }
+}
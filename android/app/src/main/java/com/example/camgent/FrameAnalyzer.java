@@ -0,0 +1,12 @@
+package com.example.camgent;
+
+import android.media.Image;
+
+/**
+ * 분석 스트림(YUV_420_888) 프레임 소비자.
+ * AnalysisStream 의 분석 스레드에서만 호출된다. image 는 호출이 끝나면 스트림이 닫으므로
+ * 붙잡아 두지 말고, 필요한 값은 미리 잡아 둔 버퍼에 복사한다.
+ */
+public interface FrameAnalyzer {
+    void analyze(Image image);
+}
@@ -0,0 +1,196 @@
+package com.example.camgent;
+
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+import android.media.Image;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.flutter.plugin.common.BasicMessageChannel;
+import io.flutter.plugin.common.BinaryCodec;
+import io.flutter.plugin.common.BinaryMessenger;
+
+/**
+ * 프리뷰 프레임 내보내기 ("native_camera_frames_<viewId>", BinaryCodec).
+ * 분석 스트림 프레임을 줄여서 (휘도 원본 또는 JPEG) Dart 로 보낸다.
+ * 한 번만(요청 시) 또는 최대 fps 제한으로 계속 보낼 수 있다.
+ *
+ * 메시지 = 헤더 24바이트(little-endian) + 페이로드
+ *   int format(0=luma, 1=jpeg), int width, int height, int payloadBytes, long timestampNs
+ *
+ * 버퍼는 공용 BufferPool 의 direct ByteBuffer 를 빌려 쓰고 Dart 가 응답하면 돌려준다.
+ * Dart 쪽에 MAX_IN_FLIGHT 개가 가 있거나 풀 예산이 모자라면 그 프레임은 건너뛴다 (Dart 가 밀리면 자동으로 스킵).
+ */
+public final class FrameExporter implements FrameAnalyzer {
+    private static final String TAG = "Cam2Native";
+    public static final int HEADER_BYTES = 24;
+    public static final int FORMAT_LUMA = 0, FORMAT_JPEG = 1;
+    // 동시에 Dart 로 가 있을 수 있는 메시지 수
+    private static final int MAX_IN_FLIGHT = 2;
+
+    public enum Mode { OFF, ON_DEMAND, STREAM }
+
+    private final BasicMessageChannel<ByteBuffer> channel;
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final BufferPool pool = BufferPool.shared();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // 설정 (메인 스레드에서 쓰고 분석 스레드에서 읽는다)
+    private volatile Mode mode = Mode.OFF;
+    private volatile int format = FORMAT_JPEG;
+    private volatile int maxEdge = 320;
+    private volatile int quality = 70;
+    private volatile long minIntervalNs = 200_000_000L; // 5fps
+    private volatile boolean oneShot = false;
+
+    // 분석 스레드 전용 재사용 버퍼 (JPEG 경로)
+    private byte[] nv21 = new byte[0];
+    private final int[] strides = new int[2];
+    private long lastSentNs = 0;
+
+    private volatile long sent = 0, skipped = 0;
+    private volatile double lastEncodeMs = 0;
+
+    public FrameExporter(BinaryMessenger messenger, int viewId) {
+        channel = new BasicMessageChannel<>(messenger, "native_camera_frames_" + viewId, BinaryCodec.INSTANCE);
+    }
+
+    public void configure(Mode mode, int format, int maxEdge, int quality, double maxFps) {
+        this.format = format;
+        this.maxEdge = Math.max(16, maxEdge);
+        this.quality = Math.max(1, Math.min(100, quality));
+        this.minIntervalNs = maxFps > 0 ? (long) (1_000_000_000L / maxFps) : 0;
+        this.mode = mode;
+    }
+
+    public boolean isActive() { return mode != Mode.OFF; }
+
+    /** ON_DEMAND 모드: 다음 분석 프레임 하나를 보낸다 */
+    public void requestFrame() { oneShot = true; }
+
+    public long sent() { return sent; }
+    public long skipped() { return skipped; }
+    public double lastEncodeMs() { return lastEncodeMs; }
+
+    @Override
+    public void analyze(Image image) {
+        Mode m = mode;
+        if (m == Mode.OFF) return;
+        long now = SystemClock.elapsedRealtimeNanos();
+        if (m == Mode.ON_DEMAND) {
+            if (!oneShot) return;
+        } else if (now - lastSentNs < minIntervalNs) {
+            return;
+        }
+
+        int w = image.getWidth(), h = image.getHeight();
+        int step = Math.max(1, (Math.max(w, h) + maxEdge - 1) / maxEdge);
+        int ow = (w / step) & ~1, oh = (h / step) & ~1; // NV21 은 짝수 크기
+        if (ow <= 0 || oh <= 0) return;
+        int fmt = format;
+        // JPEG 이 원본 NV21 크기를 넘는 일은 거의 없지만 여유를 둔다
+        int payloadCap = fmt == FORMAT_LUMA ? ow * oh : ow * oh * 2;
+
+        ByteBuffer out = acquire(HEADER_BYTES + payloadCap);
+        if (out == null) {
+            skipped++; // Dart 가 앞 프레임을 아직 처리 중이거나 풀 예산 부족
+            return;
+        }
+        long t0 = SystemClock.elapsedRealtimeNanos();
+        out.clear();
+        out.position(HEADER_BYTES);
+        try {
+            if (fmt == FORMAT_LUMA) {
+                writeLuma(image.getPlanes()[0], step, ow, oh, out);
+            } else {
+                writeJpeg(image, step, ow, oh, out);
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "frame export encode failed", e);
+            recycle(out);
+            skipped++;
+            return;
+        }
+        int payload = out.position() - HEADER_BYTES;
+        // 위치는 끝에 둔다: 플랫폼 메시지는 position() 까지를 메시지 길이로 본다
+        out.putInt(0, fmt).putInt(4, ow).putInt(8, oh).putInt(12, payload).putLong(16, image.getTimestamp());
+        lastEncodeMs = (SystemClock.elapsedRealtimeNanos() - t0) / 1_000_000.0;
+        lastSentNs = now;
+        oneShot = false;
+        sent++;
+
+        main.post(() -> channel.send(out, reply -> recycle(out)));
+    }
+
+    // 빈 버퍼 (little-endian). Dart 쪽에 이미 MAX_IN_FLIGHT 개가 가 있거나 풀 예산이 모자라면 null
+    private ByteBuffer acquire(int capacity) {
+        if (inFlight.incrementAndGet() > MAX_IN_FLIGHT) {
+            inFlight.decrementAndGet();
+            return null;
+        }
+        ByteBuffer b = pool.acquire(capacity);
+        if (b == null) inFlight.decrementAndGet();
+        return b;
+    }
+
+    private void recycle(ByteBuffer b) {
+        pool.release(b);
+        inFlight.decrementAndGet();
+    }
+
+    // Y 평면을 step 간격으로 뽑아 그대로 쓴다
+    private static void writeLuma(Image.Plane y, int step, int ow, int oh, ByteBuffer out) {
+        ByteBuffer src = y.getBuffer();
+        int base = src.position();
+        int rs = y.getRowStride(), ps = y.getPixelStride();
+        for (int r = 0; r < oh; r++) {
+            int rowOff = base + r * step * rs;
+            for (int c = 0; c < ow; c++) {
+                out.put(src.get(rowOff + c * step * ps));
+            }
+        }
+    }
+
+    // 줄인 NV21 을 재사용 배열에 만들고 YuvImage 로 JPEG 인코딩 (출력은 direct 버퍼로 바로)
+    private void writeJpeg(Image image, int step, int ow, int oh, ByteBuffer out) throws IOException {
+        int need = ow * oh * 3 / 2;
+        if (nv21.length < need) nv21 = new byte[need];
+
+        Image.Plane[] p = image.getPlanes();
+        ByteBuffer yb = p[0].getBuffer(), ub = p[1].getBuffer(), vb = p[2].getBuffer();
+        int yBase = yb.position(), uBase = ub.position(), vBase = vb.position();
+        int yrs = p[0].getRowStride(), yps = p[0].getPixelStride();
+        // U/V 가 같은 스트라이드라는 보장은 없다 (YUV_420_888) → 플레인마다 따로
+        int urs = p[1].getRowStride(), ups = p[1].getPixelStride();
+        int vrs = p[2].getRowStride(), vps = p[2].getPixelStride();
+
+        int i = 0;
+        for (int r = 0; r < oh; r++) {
+            int rowOff = yBase + r * step * yrs;
+            for (int c = 0; c < ow; c++) nv21[i++] = yb.get(rowOff + c * step * yps);
+        }
+        // 크로마는 출력 2x2 당 하나 (원본에서는 step*2 간격 → 원본 크로마 좌표로는 step 간격)
+        for (int r = 0; r < oh / 2; r++) {
+            int row = r * step;
+            for (int c = 0; c < ow / 2; c++) {
+                int col = c * step;
+                nv21[i++] = vb.get(vBase + row * vrs + col * vps);
+                nv21[i++] = ub.get(uBase + row * urs + col * ups);
+            }
+        }
+
+        strides[0] = ow;
+        strides[1] = ow;
+        YuvImage yuv = new YuvImage(nv21, ImageFormat.NV21, ow, oh, strides);
+        if (!yuv.compressToJpeg(new Rect(0, 0, ow, oh), quality, new BufferPool.Output(out))) {
+            throw new IOException("compressToJpeg failed");
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.camgent;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 야간 멀티 프레임 노이즈 감소: 같은 노출의 NV21 프레임 N장을 맞춰서 평균 (노이즈 표준편차 ≈ 1/√N).
+ *
+ * 정렬은 전역 평행이동만. 프레임마다 휘도의 행 합/열 합 투영을 한 번 구하고, 기준 프레임 투영과의
+ * 평균 절대차가 가장 작은 (dx, dy) 를 ±MAX_SHIFT 안에서 찾는다 → 픽셀 비교 없이 O(W+H)·탐색 범위.
+ * 이동량은 짝수로만 찾는다: 크로마(2x2 당 하나)도 정확히 같은 만큼 옮겨진다.
+ * 회전/롤링 셔터는 보정하지 않는다.
+ *
+ * 고스트 제거: 옮긴 샘플이 기준 프레임 값과 ghostThreshold 넘게 다르면 (움직인 피사체, 정렬 실패)
+ * 그 샘플 대신 기준 값을 더한다 → 움직인 부분은 기준 프레임 그대로 남고 반투명 잔상이 생기지 않는다.
+ *
+ * 평균은 행 타일 단위 fork-join, 타일마다 int 누적 행 하나만 쓴다 (픽셀당 할당 없음).
+ * 이동 때문에 프레임 밖으로 나간 픽셀은 기준 프레임 값으로 채운다 (가장자리만 노이즈가 덜 줄어든다).
+ * 안드로이드 타입을 쓰지 않으므로 JVM 에서 그대로 돈다. stack() 은 한 스레드에서만 부른다.
+ */
+public final class FrameStacker {
+    public static final int MAX_SHIFT = 32;
+    // 잡음(고감도에서 σ ≈ 10)은 통과시키고 피사체 움직임만 걸러지는 차이 (8비트 값)
+    public static final int DEFAULT_GHOST_THRESHOLD = 48;
+    static final int TILE_ROWS = 32;
+
+    private final ForkJoinPool pool;
+    private int ghostThreshold = DEFAULT_GHOST_THRESHOLD;
+    // 투영 버퍼 재사용 (크기가 바뀔 때만 다시 할당)
+    private int[] refRows = new int[0], refCols = new int[0], rows = new int[0], cols = new int[0];
+
+    /** 한 번 쌓은 결과: 프레임별 이동량과 단계별 시간 */
+    public static final class Result {
+        public final int[] dx, dy;
+        public final long alignNs, mergeNs;
+
+        Result(int[] dx, int[] dy, long alignNs, long mergeNs) {
+            this.dx = dx;
+            this.dy = dy;
+            this.alignNs = alignNs;
+            this.mergeNs = mergeNs;
+        }
+    }
+
+    public FrameStacker(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /** 기준과 이만큼 넘게 다른 샘플은 버린다. 0 이하면 고스트 제거를 끄고 그대로 평균 */
+    public void setGhostThreshold(int threshold) {
+        ghostThreshold = threshold > 0 ? threshold : Integer.MAX_VALUE;
+    }
+
+    /** in[reference] 에 맞춰 정렬한 평균을 out 에. 모두 같은 크기여야 한다. 끝날 때까지 막힌다 */
+    public Result stack(YuvFrame[] in, int reference, YuvFrame out) {
+        int n = in.length, w = out.width, h = out.height;
+        if (n == 0 || reference < 0 || reference >= n) {
+            throw new IllegalArgumentException("frames: " + n + ", reference: " + reference);
+        }
+        for (YuvFrame f : in) {
+            if (f.width != w || f.height != h) {
+                throw new IllegalArgumentException("size mismatch: " + f.width + "x" + f.height + " vs " + w + "x" + h);
+            }
+        }
+
+        long t0 = System.nanoTime();
+        int[] dx = new int[n], dy = new int[n];
+        ensureProjections(w, h);
+        project(in[reference].nv21, w, h, refRows, refCols);
+        for (int k = 0; k < n; k++) {
+            if (k == reference) continue;
+            project(in[k].nv21, w, h, rows, cols);
+            dx[k] = bestShift(refCols, cols, w);
+            dy[k] = bestShift(refRows, rows, h);
+        }
+        long t1 = System.nanoTime();
+
+        byte[][] src = new byte[n][];
+        for (int k = 0; k < n; k++) src[k] = in[k].nv21;
+        pool.invoke(new Rows(src, dx, dy, in[reference].nv21, out.nv21, w, h, ghostThreshold, 0, h));
+        return new Result(dx, dy, t1 - t0, System.nanoTime() - t1);
+    }
+
+    private void ensureProjections(int w, int h) {
+        if (refRows.length != h) {
+            refRows = new int[h];
+            rows = new int[h];
+        }
+        if (refCols.length != w) {
+            refCols = new int[w];
+            cols = new int[w];
+        }
+    }
+
+    // 휘도 행 합/열 합
+    static void project(byte[] nv21, int w, int h, int[] rowSums, int[] colSums) {
+        java.util.Arrays.fill(colSums, 0);
+        for (int y = 0; y < h; y++) {
+            int off = y * w, sum = 0;
+            for (int x = 0; x < w; x++) {
+                int v = nv21[off + x] & 0xFF;
+                sum += v;
+                colSums[x] += v;
+            }
+            rowSums[y] = sum;
+        }
+    }
+
+    /**
+     * ref[i] ≈ cur[i + s] 가 되는 짝수 s (겹치는 구간의 평균 절대차 최소).
+     * 겹침이 너무 짧아지지 않도록 탐색 범위는 길이의 1/4 이내로 제한한다.
+     */
+    static int bestShift(int[] ref, int[] cur, int len) {
+        int max = Math.min(MAX_SHIFT, len / 4) & ~1;
+        int best = 0, bestOverlap = 1;
+        long bestSad = Long.MAX_VALUE;
+        for (int s = -max; s <= max; s += 2) {
+            int from = Math.max(0, -s), to = Math.min(len, len - s);
+            long sad = 0;
+            for (int i = from; i < to; i++) sad += Math.abs(ref[i] - cur[i + s]);
+            // 겹침 길이로 나눈 값끼리 비교 (sad/overlap < bestSad/bestOverlap 를 정수로). 같으면 작은 이동
+            int overlap = to - from;
+            long lhs = sad * bestOverlap, rhs = bestSad == Long.MAX_VALUE ? Long.MAX_VALUE : bestSad * overlap;
+            if (lhs < rhs || (lhs == rhs && Math.abs(s) < Math.abs(best))) {
+                best = s;
+                bestSad = sad;
+                bestOverlap = overlap;
+            }
+        }
+        return best;
+    }
+
+    private static final class Rows extends RecursiveAction {
+        private final byte[][] src;
+        private final int[] dx, dy;
+        private final byte[] ref, dst;
+        private final int width, height, threshold, from, to;
+
+        Rows(byte[][] src, int[] dx, int[] dy, byte[] ref, byte[] dst, int width, int height, int threshold,
+             int from, int to) {
+            this.src = src;
+            this.dx = dx;
+            this.dy = dy;
+            this.ref = ref;
+            this.dst = dst;
+            this.width = width;
+            this.height = height;
+            this.threshold = threshold;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TILE_ROWS) {
+                average(src, dx, dy, ref, dst, width, height, threshold, from, to);
+                return;
+            }
+            int mid = (from + (to - from) / 2) & ~1;
+            invokeAll(new Rows(src, dx, dy, ref, dst, width, height, threshold, from, mid),
+                    new Rows(src, dx, dy, ref, dst, width, height, threshold, mid, to));
+        }
+    }
+
+    // 휘도 [fromRow, toRow) 와 그에 해당하는 크로마 행들을 평균. fromRow/toRow 는 짝수
+    static void average(byte[][] src, int[] dx, int[] dy, byte[] ref, byte[] dst,
+                        int w, int h, int threshold, int fromRow, int toRow) {
+        int n = src.length;
+        int[] acc = new int[w]; // 타일당 하나
+        for (int r = fromRow; r < toRow; r++) {
+            accumulateRow(src, dx, dy, ref, acc, w, h, 0, r, threshold);
+            divide(acc, dst, r * w, w, n);
+        }
+        // 크로마: 행 하나 = VU 쌍 w/2 개 = w 바이트. 이동은 (dx/2 샘플 = dx 바이트, dy/2 행)
+        int ySize = w * h;
+        for (int cr = fromRow >> 1; cr < toRow >> 1; cr++) {
+            accumulateRow(src, dx, dy, ref, acc, w, h >> 1, ySize, cr, threshold);
+            divide(acc, dst, ySize + cr * w, w, n);
+        }
+    }
+
+    // 평면(base 부터 rows 행, 행 길이 w 바이트)의 row 행을 프레임마다 옮겨서 acc 에 합한다.
+    // 크로마 평면이면 rows = h/2 이고 이동량은 (dx, dy/2). 기준과 threshold 넘게 다른 샘플은 기준 값으로
+    private static void accumulateRow(byte[][] src, int[] dx, int[] dy, byte[] ref, int[] acc,
+                                      int w, int rows, int base, int row, int threshold) {
+        boolean chroma = base != 0;
+        int refOff = base + row * w;
+        java.util.Arrays.fill(acc, 0);
+        for (int k = 0; k < src.length; k++) {
+            int sx = dx[k], sy = row + (chroma ? dy[k] >> 1 : dy[k]);
+            byte[] p = src[k];
+            if (sy < 0 || sy >= rows) {
+                for (int x = 0; x < w; x++) acc[x] += ref[refOff + x] & 0xFF;
+                continue;
+            }
+            int off = base + sy * w + sx;
+            int lo = Math.max(0, -sx), hi = Math.min(w, w - sx);
+            for (int x = 0; x < lo; x++) acc[x] += ref[refOff + x] & 0xFF;
+            for (int x = lo; x < hi; x++) {
+                int v = p[off + x] & 0xFF, r = ref[refOff + x] & 0xFF;
+                int d = v - r;
+                acc[x] += d > threshold || -d > threshold ? r : v;
+            }
+            for (int x = hi; x < w; x++) acc[x] += ref[refOff + x] & 0xFF;
+        }
+    }
+
+    private static void divide(int[] acc, byte[] dst, int off, int w, int n) {
+        int half = n >> 1;
+        for (int x = 0; x < w; x++) dst[off + x] = (byte) ((acc[x] + half) / n);
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.camgent;
+
+import android.hardware.camera2.CaptureRequest;
+import android.hardware.camera2.CaptureResult;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 프레임별 캡처 결과 기록 (HAL 이 실제로 쓴 값).
+ * 고정 크기 링버퍼이고 필드마다 원시 배열 하나 → 기록 시 할당 없음, 락 없음.
+ * 쓰기는 카메라 스레드 하나뿐이고, 다 쓴 뒤 volatile 인 count 를 올려서 공개한다.
+ * 읽기는 count 를 먼저 읽고 그 이전 칸만 본다 (덮어쓰기 중인 칸은 버린다).
+ */
+public final class FrameTelemetry {
+    public static final int DEFAULT_CAPACITY = 512; // 30fps 기준 약 17초
+    public static final int KIND_PREVIEW = 0, KIND_STILL = 1, KIND_REPROCESS = 2, KIND_TRIGGER = 3;
+
+    private final int capacity;
+    private final int mask;
+
+    private final long[] frameNumber;
+    private final long[] timestampNs;
+    private final long[] exposureNs;
+    private final long[] frameDurationNs;
+    private final int[] iso;
+    private final float[] focusDistance;
+    private final int[] afState;
+    private final int[] aeState;
+    private final int[] awbState;
+    private final int[] tag;
+    private final byte[] kind;
+
+    private volatile long count = 0; // 지금까지 기록한 프레임 수 (다음 칸 = count & mask)
+
+    // 카메라 스레드 전용 누적값
+    private long lastPreviewFrameNumber = -1;
+    private volatile long dropped = 0;  // 프리뷰 프레임 번호가 건너뛴 수
+    private volatile long failed = 0;   // onCaptureFailed
+    private volatile long buffersLost = 0;
+
+    public FrameTelemetry(int capacity) {
+        int c = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1; // 2의 거듭제곱으로
+        this.capacity = c;
+        this.mask = c - 1;
+        frameNumber = new long[c];
+        timestampNs = new long[c];
+        exposureNs = new long[c];
+        frameDurationNs = new long[c];
+        iso = new int[c];
+        focusDistance = new float[c];
+        afState = new int[c];
+        aeState = new int[c];
+        awbState = new int[c];
+        tag = new int[c];
+        kind = new byte[c];
+    }
+
+    /** 카메라 스레드에서만 호출. 이 프레임 앞에서 새로 빠진 프리뷰 프레임 수를 돌려준다 */
+    public long record(CaptureResult r, int frameKind) {
+        long n = count;
+        int i = (int) (n & mask);
+        long fn = r.getFrameNumber();
+        frameNumber[i] = fn;
+        timestampNs[i] = orZero(r.get(CaptureResult.SENSOR_TIMESTAMP));
+        exposureNs[i] = orZero(r.get(CaptureResult.SENSOR_EXPOSURE_TIME));
+        frameDurationNs[i] = orZero(r.get(CaptureResult.SENSOR_FRAME_DURATION));
+        iso[i] = orMinus(r.get(CaptureResult.SENSOR_SENSITIVITY));
+        Float fd = r.get(CaptureResult.LENS_FOCUS_DISTANCE);
+        focusDistance[i] = fd != null ? fd : -1f;
+        afState[i] = orMinus(r.get(CaptureResult.CONTROL_AF_STATE));
+        aeState[i] = orMinus(r.get(CaptureResult.CONTROL_AE_STATE));
+        awbState[i] = orMinus(r.get(CaptureResult.CONTROL_AWB_STATE));
+        CaptureRequest req = r.getRequest();
+        Object t = req != null ? req.getTag() : null;
+        tag[i] = t instanceof Integer ? (Integer) t : -1;
+        kind[i] = (byte) frameKind;
+
+        long gap = 0;
+        if (frameKind == KIND_PREVIEW) {
+            // 프리뷰 프레임 번호가 건너뛰면 그 사이 프레임은 결과 없이 사라진 것 (스틸이 끼어든 번호는 제외)
+            if (lastPreviewFrameNumber >= 0 && fn > lastPreviewFrameNumber + 1) {
+                gap = Math.max(0, fn - lastPreviewFrameNumber - 1 - stillsBetween(lastPreviewFrameNumber, fn, n));
+                dropped += gap;
+            }
+            lastPreviewFrameNumber = fn;
+        }
+        count = n + 1; // 공개
+        return gap;
+    }
+
+    public void onFailed() { failed++; }
+
+    public void onBufferLost() { buffersLost++; }
+
+    /** 세션이 바뀌면 프레임 번호가 이어지지 않으므로 드롭 계산만 초기화 */
+    public void onNewSession() { lastPreviewFrameNumber = -1; }
+
+    // (from, to) 사이 번호의 스틸/재처리 결과가 최근 기록에 있으면 드롭에서 뺀다
+    private int stillsBetween(long from, long to, long n) {
+        int found = 0;
+        for (long k = n - 1; k >= 0 && k >= n - 8; k--) {
+            int i = (int) (k & mask);
+            if (kind[i] != KIND_PREVIEW && frameNumber[i] > from && frameNumber[i] < to) found++;
+        }
+        return found;
+    }
+
+    /** 가장 최근 프리뷰 프레임에 HAL 이 실제로 쓴 노출/ISO. 기록이 없으면 0 / -1 (카메라 스레드) */
+    public long lastPreviewExposureNs() {
+        int i = lastPreviewIndex();
+        return i >= 0 ? exposureNs[i] : 0;
+    }
+
+    public int lastPreviewIso() {
+        int i = lastPreviewIndex();
+        return i >= 0 ? iso[i] : -1;
+    }
+
+    private int lastPreviewIndex() {
+        long n = count;
+        for (long k = n - 1; k >= 0 && k >= n - 8; k--) {
+            int i = (int) (k & mask);
+            if (kind[i] == KIND_PREVIEW) return i;
+        }
+        return -1;
+    }
+
+    public long recorded() { return count; }
+    public long dropped() { return dropped; }
+    public long failed() { return failed; }
+
+    /**
+     * sinceFrameNumber 보다 뒤의 기록을 최대 max 개, 오래된 것부터.
+     * StandardMessageCodec 이 원시 배열을 그대로 보내므로 열(column) 단위 배열로 만든다.
+     */
+    public Map<String, Object> snapshot(long sinceFrameNumber, int max) {
+        Map<String, Object> m;
+        // 읽는 동안 writer 가 앞부분을 덮어썼으면 다시 읽는다 (초당 30칸이라 거의 안 일어난다)
+        while ((m = read(sinceFrameNumber, max)) == null) { }
+        m.put("dropped", dropped);
+        m.put("failed", failed);
+        m.put("buffersLost", buffersLost);
+        return m;
+    }
+
+    private Map<String, Object> read(long sinceFrameNumber, int max) {
+        long end = count;
+        long start = Math.max(0, end - capacity + 1); // 지금 덮어쓰일 수 있는 가장 오래된 칸은 제외
+        // sinceFrameNumber 이후만
+        long first = end;
+        for (long k = end - 1; k >= start; k--) {
+            if (frameNumber[(int) (k & mask)] <= sinceFrameNumber) break;
+            first = k;
+        }
+        int n = (int) Math.min(end - first, Math.max(0, max));
+        first = end - n;
+
+        long[] fn = new long[n], ts = new long[n], exp = new long[n], dur = new long[n];
+        int[] isoOut = new int[n], af = new int[n], ae = new int[n], awb = new int[n], tags = new int[n], kinds = new int[n];
+        double[] focus = new double[n];
+        for (int j = 0; j < n; j++) {
+            int i = (int) ((first + j) & mask);
+            fn[j] = frameNumber[i];
+            ts[j] = timestampNs[i];
+            exp[j] = exposureNs[i];
+            dur[j] = frameDurationNs[i];
+            isoOut[j] = iso[i];
+            focus[j] = focusDistance[i];
+            af[j] = afState[i];
+            ae[j] = aeState[i];
+            awb[j] = awbState[i];
+            tags[j] = tag[i];
+            kinds[j] = kind[i];
+        }
+        if (count - capacity + 1 > first) return null;
+
+        Map<String, Object> m = new HashMap<>();
+        m.put("frameNumber", fn);
+        m.put("timestampNs", ts);
+        m.put("exposureNs", exp);
+        m.put("frameDurationNs", dur);
+        m.put("iso", isoOut);
+        m.put("focusDistance", focus);
+        m.put("afState", af);
+        m.put("aeState", ae);
+        m.put("awbState", awb);
+        m.put("tag", tags);
+        m.put("kind", kinds);
+        m.put("meanIntervalNs", meanPreviewInterval(ts, kinds));
+        return m;
+    }
+
+    private static double meanPreviewInterval(long[] ts, int[] kinds) {
+        long prev = 0, sum = 0;
+        int cnt = 0;
+        for (int j = 0; j < ts.length; j++) {
+            if (kinds[j] != KIND_PREVIEW || ts[j] == 0) continue;
+            if (prev != 0 && ts[j] > prev) {
+                sum += ts[j] - prev;
+                cnt++;
+            }
+            prev = ts[j];
+        }
+        return cnt > 0 ? sum / (double) cnt : 0;
+    }
+
+    private static long orZero(Long v) { return v != null ? v : 0L; }
+
+    private static int orMinus(Integer v) { return v != null ? v : -1; }
+}
@@ -0,0 +1,110 @@
+package com.example.camgent;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 노출 브래킷 → HDR 한 장 (노출 융합: Mertens 방식의 단일 스케일 버전).
+ * 픽셀마다 각 프레임 휘도의 "적정 노출" 가중치 (중간 밝기일수록 크다) 로 Y/VU 를 가중 평균한다.
+ * 라디언스 복원/톤매핑 없이 표시값끼리 섞으므로 결과를 바로 JPEG 로 쓸 수 있다.
+ * 정렬은 하지 않는다: 버스트가 짧아 손떨림은 작다고 보고, 움직이는 피사체는 고스트가 남을 수 있다.
+ *
+ * 행 묶음(타일) 단위 RecursiveAction 으로 fork-join 병렬. 정수 연산만 쓰고 픽셀당 할당은 없다.
+ */
+public final class HdrMerge {
+    public static final int MAX_FRAMES = 8;
+    // 타일 하나의 행 수 (짝수: 크로마 한 행 = 휘도 두 행)
+    static final int TILE_ROWS = 32;
+    private static final double SIGMA = 0.2;
+    // 휘도 0..255 → 가중치 (고정소수점 ×1024). 0 이 되지 않게 최소 1 (모든 프레임이 포화여도 평균은 나온다)
+    private static final int[] WEIGHT = new int[256];
+
+    static {
+        for (int v = 0; v < 256; v++) {
+            double d = v / 255.0 - 0.5;
+            WEIGHT[v] = Math.max(1, (int) Math.round(1024 * Math.exp(-d * d / (2 * SIGMA * SIGMA))));
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    public HdrMerge(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /** in 을 out 에 합친다. 모두 같은 크기여야 한다. 호출 스레드는 끝날 때까지 막힌다 */
+    public void merge(YuvFrame[] in, YuvFrame out) {
+        if (in.length == 0 || in.length > MAX_FRAMES) {
+            throw new IllegalArgumentException("frames: " + in.length);
+        }
+        byte[][] src = new byte[in.length][];
+        for (int k = 0; k < in.length; k++) {
+            if (in[k].width != out.width || in[k].height != out.height) {
+                throw new IllegalArgumentException("size mismatch: " + in[k].width + "x" + in[k].height
+                        + " vs " + out.width + "x" + out.height);
+            }
+            src[k] = in[k].nv21;
+        }
+        pool.invoke(new Rows(src, out.nv21, out.width, out.height, 0, out.height));
+    }
+
+    private static final class Rows extends RecursiveAction {
+        private final byte[][] src;
+        private final byte[] dst;
+        private final int width, height, from, to;
+
+        Rows(byte[][] src, byte[] dst, int width, int height, int from, int to) {
+            this.src = src;
+            this.dst = dst;
+            this.width = width;
+            this.height = height;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TILE_ROWS) {
+                fuse(src, dst, width, height, from, to);
+                return;
+            }
+            int mid = (from + (to - from) / 2) & ~1;
+            invokeAll(new Rows(src, dst, width, height, from, mid),
+                    new Rows(src, dst, width, height, mid, to));
+        }
+    }
+
+    // 휘도 2x2 블록 단위: 네 픽셀은 각자 가중치로, 블록의 VU 는 네 가중치 합으로 섞는다
+    static void fuse(byte[][] src, byte[] dst, int w, int h, int fromRow, int toRow) {
+        int n = src.length;
+        int ySize = w * h;
+        for (int r = fromRow; r < toRow; r += 2) {
+            int row0 = r * w, row1 = row0 + w;
+            int c = ySize + (r >> 1) * w;
+            for (int x = 0; x < w; x += 2) {
+                int a0 = 0, a1 = 0, a2 = 0, a3 = 0, s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+                int av = 0, au = 0, sc = 0;
+                for (int k = 0; k < n; k++) {
+                    byte[] p = src[k];
+                    int l0 = p[row0 + x] & 0xFF, l1 = p[row0 + x + 1] & 0xFF;
+                    int l2 = p[row1 + x] & 0xFF, l3 = p[row1 + x + 1] & 0xFF;
+                    int w0 = WEIGHT[l0], w1 = WEIGHT[l1], w2 = WEIGHT[l2], w3 = WEIGHT[l3];
+                    a0 += w0 * l0; s0 += w0;
+                    a1 += w1 * l1; s1 += w1;
+                    a2 += w2 * l2; s2 += w2;
+                    a3 += w3 * l3; s3 += w3;
+                    int wc = w0 + w1 + w2 + w3;
+                    av += wc * (p[c + x] & 0xFF);
+                    au += wc * (p[c + x + 1] & 0xFF);
+                    sc += wc;
+                }
+                dst[row0 + x] = (byte) ((a0 + (s0 >> 1)) / s0);
+                dst[row0 + x + 1] = (byte) ((a1 + (s1 >> 1)) / s1);
+                dst[row1 + x] = (byte) ((a2 + (s2 >> 1)) / s2);
+                dst[row1 + x + 1] = (byte) ((a3 + (s3 >> 1)) / s3);
+                dst[c + x] = (byte) ((av + (sc >> 1)) / sc);
+                dst[c + x + 1] = (byte) ((au + (sc >> 1)) / sc);
+            }
+        }
+    }
+}
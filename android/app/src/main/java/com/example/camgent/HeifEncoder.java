@@ -0,0 +1,100 @@
+package com.example.camgent;
+
+import android.graphics.ImageFormat;
+import android.media.Image;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.RequiresApi;
+import androidx.heifwriter.HeifWriter;
+
+import java.io.FileDescriptor;
+import java.nio.ByteBuffer;
+
+/**
+ * YUV_420_888 스틸 → HEIC (HeifWriter, 하드웨어 HEVC/HEIC 인코더).
+ * 카메라가 HEIC 스트림을 직접 못 내는 기기용 (StillFormat.HEIC_ENCODED).
+ *
+ * writer 스레드 전용. HeifWriter 버퍼 입력은 촘촘한 I420 만 받으므로 플레인(stride/pixelStride 제각각)을
+ * 재사용 byte[] 하나에 모아 넘긴다 → 촬영마다 수십 MB 를 새로 할당하지 않는다.
+ */
+@RequiresApi(Build.VERSION_CODES.P)
+public final class HeifEncoder {
+    private static final String TAG = "Cam2Native";
+    private static final long STOP_TIMEOUT_MS = 5_000;
+    private static final String MIME_HEIC = "image/vnd.android.heic";
+    private static final String MIME_HEVC = "video/hevc";
+
+    private static volatile Boolean supported; // 코덱 목록 조회는 한 번만
+
+    private byte[] i420;
+
+    /** HEIC 또는 HEVC 인코더가 있는지 */
+    public static boolean isSupported() {
+        Boolean s = supported;
+        if (s == null) {
+            s = false;
+            try {
+                for (MediaCodecInfo ci : new MediaCodecList(MediaCodecList.REGULAR_CODECS).getCodecInfos()) {
+                    if (!ci.isEncoder()) continue;
+                    for (String type : ci.getSupportedTypes()) {
+                        if (MIME_HEIC.equalsIgnoreCase(type) || MIME_HEVC.equalsIgnoreCase(type)) s = true;
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "codec list query failed", e);
+            }
+            supported = s;
+        }
+        return s;
+    }
+
+    /** fd 에 HEIC 파일 하나를 쓴다. image 는 닫지 않는다 */
+    public void encode(Image yuv, FileDescriptor fd, int rotation, int quality) throws Exception {
+        int w = yuv.getWidth(), h = yuv.getHeight();
+        byte[] data = toI420(yuv);
+        try (HeifWriter writer = new HeifWriter.Builder(fd, w, h, HeifWriter.INPUT_MODE_BUFFER)
+                .setRotation(rotation)
+                .setQuality(quality)
+                .setMaxImages(1)
+                .build()) {
+            writer.start();
+            writer.addYuvBuffer(ImageFormat.YUV_420_888, data);
+            writer.stop(STOP_TIMEOUT_MS);
+        }
+    }
+
+    // Y, U, V 순서의 촘촘한 I420 으로 복사
+    private byte[] toI420(Image image) {
+        int w = image.getWidth(), h = image.getHeight();
+        int cw = (w + 1) / 2, ch = (h + 1) / 2;
+        int need = w * h + 2 * cw * ch;
+        if (i420 == null || i420.length != need) i420 = new byte[need];
+
+        Image.Plane[] p = image.getPlanes();
+        int off = copyPlane(p[0], w, h, i420, 0);
+        off = copyPlane(p[1], cw, ch, i420, off);
+        copyPlane(p[2], cw, ch, i420, off);
+        return i420;
+    }
+
+    private static int copyPlane(Image.Plane plane, int w, int h, byte[] out, int off) {
+        ByteBuffer buf = plane.getBuffer().duplicate();
+        int rowStride = plane.getRowStride();
+        int pixelStride = plane.getPixelStride();
+        for (int y = 0; y < h; y++) {
+            int row = y * rowStride;
+            if (pixelStride == 1) {
+                buf.position(row);
+                buf.get(out, off, w);
+                off += w;
+            } else {
+                // NV12/NV21 식으로 U/V 가 섞여 있는 플레인
+                for (int x = 0; x < w; x++) out[off++] = buf.get(row + x * pixelStride);
+            }
+        }
+        return off;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.camgent;
+
+import android.content.Context;
+import android.media.Image;
+import android.net.Uri;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 촬영 이미지 저장 전용 스테이지.
+ * 카메라 스레드는 submit() 으로 작업만 넣고 바로 돌아가고, 실제 파일 쓰기/IS_PENDING 해제는
+ * 단일 writer 스레드가 순서대로 처리한다. 큐/정책/writer 스레드는 SaveQueue 가, 여기선 저장만.
+ */
+public final class ImageSaveQueue {
+    private static final String TAG = "Cam2Native";
+    // 대기 작업도, writer 가 쓰고 있는 작업도 Image 를 쥐고 있다 → 리더 풀에서 쓰는 중 1장과
+    // 다음 캡처 자리 1장을 뺀 만큼만 대기시킨다 (그래야 카메라가 버퍼를 못 받아 멈추지 않는다)
+    public static final int DEFAULT_CAPACITY = Math.max(1, StillCaptureConfig.DEFAULT_MAX_IMAGES - 2);
+    public static final int DEFAULT_ENCODE_QUALITY = 90;
+
+    /** 저장 작업 하나 */
+    public static final class Job {
+        public final long captureId;
+        public final Uri uri;          // insert 된 pending 항목
+        public final StillFormat format;
+        final ByteBuffer data;         // 이미 인코딩된 바이트 (HEIC_ENCODED 면 null → writer 가 인코딩)
+        private Image image;           // zero-copy: 쓰기가 끝날 때까지 플레인 버퍼를 쥐고 있다
+        private SharedReader<?> source; // image 를 낸 리더. 저장이 끝날 때까지 닫히지 않게 참조를 쥔다
+        private YuvFrame frame;        // 멀티 프레임 결과 (NV21): writer 가 JPEG 로 인코딩하고 풀로 반납
+        public final int size;         // data 크기 (인코딩 전이면 0)
+        public final int heapBytes;    // 이 저장을 위해 Java 힙에 복사한 바이트 (zero-copy 면 0)
+        public volatile long bytesWritten; // 실제로 파일에 쓴 바이트 (onSaved 시점에 확정)
+        final long enqueuedNs;
+        // HEIC_ENCODED 전용 인코딩 파라미터 (카메라 인코딩이면 요청의 JPEG_ORIENTATION/QUALITY 가 이미 반영됨)
+        private int rotation = 0;
+        private int quality = DEFAULT_ENCODE_QUALITY;
+        // 업로드용 축소본 (요청했을 때만). 원본 쓰기 전에 같은 버퍼에서 만든다
+        private UploadVariant variant;
+        private UploadVariant.Callback variantCallback;
+
+        /**
+         * Image 플레인을 그대로 쓴다. image 소유권은 Job 으로 넘어오고 저장 후 닫힌다.
+         * source 는 image 를 낸 리더: 소유자가 리더를 놓아도 이 작업이 끝날 때까지는 닫히지 않는다.
+         */
+        public Job(long captureId, Uri uri, StillFormat format, Image image, SharedReader<?> source) {
+            this(captureId, uri, format,
+                    format.isEncodedByCamera() ? image.getPlanes()[0].getBuffer() : null, image, 0);
+            if (!source.retain()) {
+                image.close();
+                this.image = null;
+                throw new IllegalStateException("still reader already closed");
+            }
+            this.source = source;
+        }
+
+        /** NV21 프레임을 JPEG 로 인코딩해 저장. frame 소유권은 Job 으로 넘어오고 저장 후 풀로 반납된다 */
+        public Job(long captureId, Uri uri, YuvFrame frame) {
+            this(captureId, uri, StillFormat.JPEG, null, null, 0);
+            this.frame = frame;
+        }
+
+        private Job(long captureId, Uri uri, StillFormat format, ByteBuffer data, Image image, int heapBytes) {
+            this.captureId = captureId;
+            this.uri = uri;
+            this.format = format;
+            this.data = data;
+            this.image = image;
+            this.size = data != null ? data.remaining() : 0;
+            this.heapBytes = heapBytes;
+            this.enqueuedNs = SystemClock.elapsedRealtimeNanos();
+        }
+
+        /** writer 가 인코딩하는 작업 (HEIC_ENCODED, NV21 프레임): 회전(도)과 품질 (1~100) */
+        public void setEncoding(int rotation, int quality) {
+            this.rotation = rotation;
+            this.quality = Math.max(1, Math.min(100, quality));
+        }
+
+        public void requestVariant(UploadVariant v, UploadVariant.Callback cb) {
+            variant = v;
+            variantCallback = cb;
+        }
+
+        // 축소본을 기다리는 쪽에 한 번만 알린다
+        void completeVariant(UploadVariant.Result r, Exception e) {
+            UploadVariant.Callback cb = variantCallback;
+            variantCallback = null;
+            if (cb != null) cb.onVariant(r, e);
+        }
+
+        /** 버퍼 반납. 여러 번 불러도 안전 */
+        public synchronized void release() {
+            if (image != null) {
+                image.close();
+                image = null;
+            }
+            if (source != null) {
+                source.release(); // 리더가 이미 놓였고 이게 마지막 작업이면 여기서 닫힌다
+                source = null;
+            }
+            if (frame != null) {
+                frame.release();
+                frame = null;
+            }
+        }
+    }
+
+    /** writer 스레드에서 호출된다 */
+    public interface Listener {
+        void onSaved(Job job, long queuedNs, long writeNs);
+        void onFailed(Job job, Exception e);
+        void onDropped(Job job);
+    }
+
+    private final Context context;
+    private final Listener listener;
+    private final SaveQueue<Job> queue;
+    private final AtomicLong nextCaptureId = new AtomicLong(1);
+    private HeifEncoder heif;  // writer 스레드 전용, 첫 HEIC_ENCODED 작업에서 만든다
+
+    public ImageSaveQueue(Context context, int capacity, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.listener = listener;
+        this.queue = new SaveQueue<>(capacity, "native-cam2-writer", sink);
+    }
+
+    public long nextCaptureId() { return nextCaptureId.getAndIncrement(); }
+
+    public void setPolicy(SaveQueue.Backpressure p) { queue.setPolicy(p); }
+
+    public SaveQueue.Backpressure policy() { return queue.policy(); }
+
+    public int pending() { return queue.pending(); }
+
+    /** 카메라 스레드용: 호출 스레드를 절대 막지 않는다 (SaveQueue.submit 참고) */
+    public SaveQueue.Submit submit(Job job) { return queue.submit(job); }
+
+    /** 이번 작업만 다른 정책으로 (카메라 스레드는 BLOCK 금지) */
+    public SaveQueue.Submit submit(Job job, SaveQueue.Backpressure p) { return queue.submit(job, p); }
+
+    /** 큐에 자리가 있으면 바로, 없으면 writer 가 작업을 하나 꺼낼 때 r 을 부른다. 막지 않는다 */
+    public void runWhenRoom(Runnable r) { queue.runWhenRoom(r); }
+
+    /** 대기/진행 중인 저장이 모두 끝날 때까지 기다린다. 시간 안에 못 끝나면 false */
+    public boolean awaitIdle(long timeoutMs) { return queue.awaitIdle(timeoutMs); }
+
+    /** 남은 작업은 모두 저장하고 종료 (pending 항목이 남지 않도록) */
+    public void shutdown() { queue.shutdown(); }
+
+    private final SaveQueue.Sink<Job> sink = new SaveQueue.Sink<Job>() {
+        @Override public void write(Job job) { save(job); }
+
+        @Override public void dropped(Job oldest) {
+            oldest.release();
+            oldest.completeVariant(null, new IllegalStateException("dropped"));
+            NativeCameraCapture.discardPending(context, oldest.uri);
+            listener.onDropped(oldest);
+        }
+    };
+
+    // writer 스레드: 작업 하나 저장
+    private void save(Job job) {
+        // NV21 프레임: 공용 풀 버퍼에 JPEG 로 먼저 인코딩 → 축소본도 원본 쓰기도 그 버퍼로.
+        // 풀 예산이 모자라거나 버퍼가 넘치면 파일로 바로 인코딩 (그때는 축소본 없음)
+        ByteBuffer encoded = job.frame != null ? encodeFrame(job) : null;
+
+        if (job.variant != null && job.data == null && encoded == null) {
+            job.completeVariant(null, new IllegalStateException(
+                    "upload variant needs an encoded still (format=" + job.format.key + ")"));
+        } else if (job.variant != null) {
+            // 업로드는 이 결과만 기다리므로 원본 쓰기보다 먼저
+            try {
+                job.completeVariant(encoded != null
+                        ? job.variant.encode(encoded, job.rotation, context.getCacheDir(), job.captureId)
+                        : job.variant.encode(job.data, context.getCacheDir(), job.captureId), null);
+            } catch (Exception e) {
+                Log.e(TAG, "upload variant failed id=" + job.captureId, e);
+                job.completeVariant(null, e);
+            }
+        }
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        try {
+            if (job.data != null) {
+                NativeCameraCapture.writeAndPublish(context, job.uri, job.data);
+                job.bytesWritten = job.size;
+            } else if (encoded != null) {
+                job.bytesWritten = NativeCameraCapture.writeJpegAndPublish(context, job.uri, encoded, job.rotation);
+            } else if (job.frame != null) {
+                job.bytesWritten = NativeCameraCapture.writeNv21JpegAndPublish(
+                        context, job.uri, job.frame, job.rotation, job.quality);
+            } else {
+                job.bytesWritten = encodeHeif(job);
+            }
+            long end = SystemClock.elapsedRealtimeNanos();
+            listener.onSaved(job, start - job.enqueuedNs, end - start);
+        } catch (Exception e) {
+            Log.e(TAG, "save failed id=" + job.captureId, e);
+            NativeCameraCapture.discardPending(context, job.uri);
+            listener.onFailed(job, e);
+        } finally {
+            if (encoded != null) BufferPool.shared().release(encoded);
+            job.release();
+        }
+    }
+
+    // NV21 → 풀 버퍼 JPEG. 프레임 크기(NV21 바이트)면 보통 충분하다. 못 받거나 넘치면 null
+    private static ByteBuffer encodeFrame(Job job) {
+        YuvFrame f = job.frame;
+        ByteBuffer b = BufferPool.shared().acquire(f.ySize() * 3 / 2);
+        if (b == null) return null;
+        if (NativeCameraCapture.encodeNv21Jpeg(f, job.quality, b)) return b;
+        Log.w(TAG, "pooled JPEG buffer overflow id=" + job.captureId + ", encoding to file");
+        BufferPool.shared().release(b);
+        return null;
+    }
+
+    private long encodeHeif(Job job) throws Exception {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.P) {
+            throw new IllegalStateException("HEIC encoding needs API 28");
+        }
+        if (heif == null) heif = new HeifEncoder();
+        return NativeCameraCapture.writeHeifAndPublish(context, job.uri, heif, job.image, job.rotation, job.quality);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.camgent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 고정 구간 지연 히스토그램.
+ * 구간 경계는 미리 정해 둔 배열이라 기록은 경계 탐색 + 원자적 증가 몇 번뿐 (할당/락 없음).
+ * 어느 스레드에서 기록해도 되고, 백분위는 구간 상한으로 근사한다.
+ */
+public final class LatencyHistogram {
+    // 구간 상한 (마이크로초). 마지막 구간 뒤는 overflow
+    private static final long[] BOUNDS_US = {
+            250, 500, 1_000, 2_000, 4_000, 8_000, 16_000, 33_000, 66_000, 100_000,
+            150_000, 250_000, 500_000, 1_000_000, 2_000_000, 5_000_000
+    };
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_US.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sumNs = new AtomicLong();
+    private final AtomicLong maxNs = new AtomicLong();
+
+    public void record(long ns) {
+        if (ns < 0) return;
+        long us = ns / 1_000;
+        int i = 0;
+        while (i < BOUNDS_US.length && us > BOUNDS_US[i]) i++;
+        buckets.incrementAndGet(i);
+        count.incrementAndGet();
+        sumNs.addAndGet(ns);
+        long m;
+        while (ns > (m = maxNs.get()) && !maxNs.compareAndSet(m, ns)) { }
+    }
+
+    public long count() { return count.get(); }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) buckets.set(i, 0);
+        count.set(0);
+        sumNs.set(0);
+        maxNs.set(0);
+    }
+
+    /** 기록과 겹치면 구간 합과 count 가 한두 개 어긋날 수 있다 (모니터링용이라 허용) */
+    public Map<String, Object> snapshot() {
+        long[] b = new long[buckets.length()];
+        long total = 0;
+        for (int i = 0; i < b.length; i++) {
+            b[i] = buckets.get(i);
+            total += b[i];
+        }
+        long n = count.get();
+        Map<String, Object> m = new HashMap<>();
+        m.put("count", n);
+        m.put("meanMs", n > 0 ? sumNs.get() / (double) n / 1_000_000.0 : 0.0);
+        m.put("maxMs", maxNs.get() / 1_000_000.0);
+        m.put("p50Ms", percentileMs(b, total, 0.50));
+        m.put("p90Ms", percentileMs(b, total, 0.90));
+        m.put("p99Ms", percentileMs(b, total, 0.99));
+        m.put("buckets", b);
+        return m;
+    }
+
+    /** 구간 상한 (ms). buckets 배열과 같은 순서, 마지막(overflow)은 제외 */
+    public static double[] boundsMs() {
+        double[] out = new double[BOUNDS_US.length];
+        for (int i = 0; i < out.length; i++) out[i] = BOUNDS_US[i] / 1_000.0;
+        return out;
+    }
+
+    private double percentileMs(long[] b, long total, double q) {
+        if (total == 0) return 0;
+        long target = (long) Math.ceil(total * q);
+        long acc = 0;
+        for (int i = 0; i < b.length; i++) {
+            acc += b[i];
+            if (acc >= target) {
+                // overflow 구간은 상한이 없으므로 최댓값으로
+                return i < BOUNDS_US.length ? BOUNDS_US[i] / 1_000.0 : maxNs.get() / 1_000_000.0;
+            }
+        }
+        return maxNs.get() / 1_000_000.0;
+    }
+}
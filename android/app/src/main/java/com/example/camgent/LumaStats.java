@@ -0,0 +1,106 @@
+package com.example.camgent;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 휘도(Y) 평면 통계: 히스토그램, 평균 밝기, 클리핑 비율, 선명도 (플랫폼 무관).
+ * 2픽셀 간격으로 샘플링하고, 버퍼는 모두 미리 잡아 둔 원시 배열을 재사용한다 → 프레임당 할당 없음.
+ * SceneStatsAnalyzer 가 Image 의 Y 플레인으로 부르고, 테스트/벤치마크는 합성 버퍼로 부른다.
+ * 한 스레드 전용 (결과 필드는 다음 compute 까지 유효).
+ */
+public final class LumaStats {
+    static final int STEP = 2;                  // 샘플링 간격 (픽셀)
+    static final int CLIP_LOW = 5, CLIP_HIGH = 250;
+
+    // 마지막 compute 결과
+    public long samples;
+    public double meanLuma;
+    public double clipLow, clipHigh;            // 비율
+    public double sharpness;                    // 샘플 격자 위 4-이웃 라플라시안 절댓값의 평균
+
+    // 재사용 버퍼
+    private final int[] histogram = new int[256];
+    private byte[] prevRow = new byte[0], row = new byte[0], nextRow = new byte[0];
+
+    /**
+     * Y 평면 하나를 분석한다. buf 의 position 은 끝나면 되돌린다 (다른 분석기와 공유).
+     * 샘플이 없으면(크기 0) false
+     */
+    public boolean compute(ByteBuffer buf, int rowStride, int pixelStride, int w, int h) {
+        int rowBytes = (w - 1) * pixelStride + 1;
+        if (w <= 0 || h <= 0) return false;
+        if (row.length < rowBytes) {
+            prevRow = new byte[rowBytes];
+            row = new byte[rowBytes];
+            nextRow = new byte[rowBytes];
+        }
+
+        int startPos = buf.position();
+        Arrays.fill(histogram, 0);
+        long sum = 0, count = 0, low = 0, high = 0;
+        long lapSum = 0, lapSamples = 0;
+
+        // 첫 샘플 행을 미리 읽어 두고, 행 3개(prev/row/next)를 돌려 쓴다
+        readRow(buf, startPos, rowBytes, row);
+        boolean havePrev = false;
+        for (int yy = 0; yy < h; yy += STEP) {
+            int ny = yy + STEP;
+            boolean haveNext = ny < h;
+            if (haveNext) readRow(buf, startPos + ny * rowStride, rowBytes, nextRow);
+
+            for (int xx = 0; xx < w; xx += STEP) {
+                int i = xx * pixelStride;
+                int v = row[i] & 0xFF;
+                histogram[v]++;
+                sum += v;
+                count++;
+                if (v <= CLIP_LOW) low++;
+                else if (v >= CLIP_HIGH) high++;
+
+                int l = xx - STEP, r = xx + STEP;
+                if (havePrev && haveNext && l >= 0 && r < w) {
+                    int lap = 4 * v
+                            - (row[l * pixelStride] & 0xFF) - (row[r * pixelStride] & 0xFF)
+                            - (prevRow[i] & 0xFF) - (nextRow[i] & 0xFF);
+                    lapSum += lap < 0 ? -lap : lap;
+                    lapSamples++;
+                }
+            }
+
+            byte[] t = prevRow;
+            prevRow = row;
+            row = nextRow;
+            nextRow = t;
+            havePrev = true;
+        }
+        buf.position(startPos);
+        samples = count;
+        if (count == 0) return false;
+        meanLuma = sum / (double) count;
+        clipLow = low / (double) count;
+        clipHigh = high / (double) count;
+        sharpness = lapSamples > 0 ? lapSum / (double) lapSamples : 0.0;
+        return true;
+    }
+
+    /** 256칸 → bins 칸, 샘플 수 대비 비율로 */
+    public List<Double> histogram(int bins) {
+        int per = histogram.length / bins;
+        List<Double> out = new ArrayList<>(bins);
+        for (int b = 0; b < bins; b++) {
+            long c = 0;
+            for (int k = 0; k < per; k++) c += histogram[b * per + k];
+            out.add(samples > 0 ? c / (double) samples : 0.0);
+        }
+        return out;
+    }
+
+    // 버퍼 위치만 옮겨 통째로 복사 (duplicate() 도 할당이므로 쓰지 않는다)
+    private static void readRow(ByteBuffer buf, int offset, int len, byte[] dst) {
+        buf.position(offset);
+        buf.get(dst, 0, Math.min(len, buf.remaining()));
+    }
+}
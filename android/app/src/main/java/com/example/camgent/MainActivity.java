@@ -1,5 +1,8 @@
 package com.example.camgent;
 
+import android.Manifest;
+import android.content.pm.PackageManager;
+import android.os.Build;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
 import io.flutter.embedding.android.FlutterActivity;
@@ -7,6 +10,9 @@ import io.flutter.embedding.engine.FlutterEngine;
 import io.flutter.plugin.common.BinaryMessenger;
 
 public class MainActivity extends FlutterActivity {
+    // 엔진 구성과 동시에 카메라를 미리 연다 (권한이 이미 있을 때만)
+    private static final boolean PREWARM_CAMERA = true;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -15,6 +21,9 @@ public class MainActivity extends FlutterActivity {
     @Override
     public void configureFlutterEngine(@NonNull FlutterEngine flutterEngine) {
         super.configureFlutterEngine(flutterEngine);
+        if (PREWARM_CAMERA && hasCameraPermission()) {
+            CameraPrewarmer.start(this);
+        }
         BinaryMessenger messenger = flutterEngine.getDartExecutor().getBinaryMessenger();
         flutterEngine
                 .getPlatformViewsController()
@@ -25,4 +34,8 @@ public class MainActivity extends FlutterActivity {
                 );
     }
 
+    private boolean hasCameraPermission() {
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.M
+                || checkSelfPermission(Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED;
+    }
 }
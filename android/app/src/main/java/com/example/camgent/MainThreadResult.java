@@ -0,0 +1,40 @@
+package com.example.camgent;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.flutter.plugin.common.MethodChannel;
+
+/**
+ * MethodChannel.Result 래퍼.
+ * 어느 스레드에서 불러도 메인 스레드로 한 번만 응답을 보낸다 (두 번째 응답은 무시).
+ */
+public final class MainThreadResult implements MethodChannel.Result {
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    private final MethodChannel.Result delegate;
+    private final AtomicBoolean replied = new AtomicBoolean(false);
+
+    public MainThreadResult(MethodChannel.Result delegate) {
+        this.delegate = delegate;
+    }
+
+    public boolean isReplied() { return replied.get(); }
+
+    @Override
+    public void success(Object value) {
+        if (replied.compareAndSet(false, true)) MAIN.post(() -> delegate.success(value));
+    }
+
+    @Override
+    public void error(String code, String message, Object details) {
+        if (replied.compareAndSet(false, true)) MAIN.post(() -> delegate.error(code, message, details));
+    }
+
+    @Override
+    public void notImplemented() {
+        if (replied.compareAndSet(false, true)) MAIN.post(delegate::notImplemented);
+    }
+}
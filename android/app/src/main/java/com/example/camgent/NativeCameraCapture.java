@@ -31,41 +31,194 @@ package com.example.camgent;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+import android.hardware.camera2.DngCreator;
+import android.media.ExifInterface;
+import android.media.Image;
 import android.net.Uri;
 import android.os.Build;
+import android.os.ParcelFileDescriptor;
 import android.provider.MediaStore;
-import java.io.OutputStream;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 public class NativeCameraCapture {
 
-    public static String saveJpegToMediaStore(Context ctx, byte[] jpeg) throws Exception {
-        String fileName = "IMG_" + System.currentTimeMillis() + ".jpg";
+    /** 빈 항목만 먼저 만든다 (Q+ 에선 IS_PENDING=1 → 쓰기 끝날 때까지 갤러리에 안 보임). 스틸 형식에 맞는 확장자/MIME 으로 */
+    public static Uri insertPendingImage(Context ctx, StillFormat format) throws Exception {
+        return insertPending(ctx, "IMG_" + System.currentTimeMillis() + "." + format.extension, format.mimeType);
+    }
+
+    public static Uri insertPendingDng(Context ctx) throws Exception {
+        return insertPending(ctx, "IMG_" + System.currentTimeMillis() + ".dng", "image/x-adobe-dng");
+    }
+
+    public static Uri insertPendingVideo(Context ctx) throws Exception {
+        return insertPending(ctx, MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
+                "VID_" + System.currentTimeMillis() + ".mp4", "video/mp4");
+    }
+
+    private static Uri insertPending(Context ctx, String fileName, String mimeType) throws Exception {
+        return insertPending(ctx, MediaStore.Images.Media.EXTERNAL_CONTENT_URI, fileName, mimeType);
+    }
+
+    private static Uri insertPending(Context ctx, Uri collection, String fileName, String mimeType) throws Exception {
         ContentResolver resolver = ctx.getContentResolver();
 
+        // 컬럼 이름은 Images/Video 공통 (MediaColumns)
         ContentValues values = new ContentValues();
         values.put(MediaStore.Images.Media.DISPLAY_NAME, fileName);
-        values.put(MediaStore.Images.Media.MIME_TYPE, "image/jpeg");
+        values.put(MediaStore.Images.Media.MIME_TYPE, mimeType);
         if (Build.VERSION.SDK_INT >= 29) {
             values.put(MediaStore.Images.Media.RELATIVE_PATH, "DCIM/Camgent");
             values.put(MediaStore.Images.Media.IS_PENDING, 1);
         }
 
-        Uri uri = resolver.insert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values);
+        Uri uri = resolver.insert(collection, values);
         if (uri == null) throw new Exception("Insert failed");
+        return uri;
+    }
+
+    /**
+     * 바이트를 쓰고 IS_PENDING 해제. 반환되면 파일이 확정(durable)된 상태.
+     * Image 플레인 같은 (direct) ByteBuffer 를 힙에 복사하지 않고 파일 디스크립터로 바로 쓴다.
+     * buffer 의 position 은 끝까지 이동한다.
+     */
+    public static void writeAndPublish(Context ctx, Uri uri, ByteBuffer data) throws Exception {
+        ContentResolver resolver = ctx.getContentResolver();
+        try (ParcelFileDescriptor pfd = resolver.openFileDescriptor(uri, "w")) {
+            if (pfd == null) throw new Exception("openFileDescriptor null");
+            try (FileOutputStream fos = new FileOutputStream(pfd.getFileDescriptor());
+                 FileChannel ch = fos.getChannel()) {
+                while (data.hasRemaining()) ch.write(data);
+                ch.force(false); // IS_PENDING 해제 전에 디스크까지 내려보낸다
+            }
+        }
+        publish(resolver, uri);
+    }
+
+    /** RAW Image 를 DNG 로 파일 디스크립터에 바로 쓴다 (중간 byte[] 없음) */
+    public static void writeDngAndPublish(Context ctx, Uri uri, DngCreator dng, Image raw) throws Exception {
+        ContentResolver resolver = ctx.getContentResolver();
+        try (ParcelFileDescriptor pfd = resolver.openFileDescriptor(uri, "w")) {
+            if (pfd == null) throw new Exception("openFileDescriptor null");
+            try (FileOutputStream fos = new FileOutputStream(pfd.getFileDescriptor())) {
+                dng.writeImage(fos, raw);
+                fos.getFD().sync();
+            }
+        }
+        publish(resolver, uri);
+    }
+
+    /** YUV 스틸을 HEIC 로 인코딩하며 파일 디스크립터에 바로 쓴다. 쓴 바이트 수를 돌려준다 */
+    @androidx.annotation.RequiresApi(Build.VERSION_CODES.P)
+    public static long writeHeifAndPublish(Context ctx, Uri uri, HeifEncoder heif, Image yuv,
+                                           int rotation, int quality) throws Exception {
+        ContentResolver resolver = ctx.getContentResolver();
+        long bytes;
+        try (ParcelFileDescriptor pfd = resolver.openFileDescriptor(uri, "w")) {
+            if (pfd == null) throw new Exception("openFileDescriptor null");
+            heif.encode(yuv, pfd.getFileDescriptor(), rotation, quality);
+            pfd.getFileDescriptor().sync();
+            bytes = pfd.getStatSize();
+        }
+        publish(resolver, uri);
+        return bytes;
+    }
+
+    /**
+     * NV21 프레임을 JPEG 로 인코딩하며 파일 디스크립터에 바로 쓴다. 쓴 바이트 수를 돌려준다.
+     * YuvImage 는 EXIF 를 안 쓰므로 회전은 쓰고 난 파일에 Orientation 태그로 붙인다 (API 24+).
+     */
+    public static long writeNv21JpegAndPublish(Context ctx, Uri uri, YuvFrame frame,
+                                               int rotation, int quality) throws Exception {
+        ContentResolver resolver = ctx.getContentResolver();
+        long bytes;
+        try (ParcelFileDescriptor pfd = resolver.openFileDescriptor(uri, "rw")) {
+            if (pfd == null) throw new Exception("openFileDescriptor null");
+            try (FileOutputStream fos = new FileOutputStream(pfd.getFileDescriptor())) {
+                YuvImage yuv = new YuvImage(frame.nv21, ImageFormat.NV21, frame.width, frame.height, null);
+                if (!yuv.compressToJpeg(new Rect(0, 0, frame.width, frame.height), quality, fos)) {
+                    throw new Exception("compressToJpeg failed");
+                }
+                setOrientation(pfd, rotation);
+                fos.getFD().sync();
+            }
+            bytes = pfd.getStatSize();
+        }
+        publish(resolver, uri);
+        return bytes;
+    }
 
-        try (OutputStream out = resolver.openOutputStream(uri)) {
-            if (out == null) throw new Exception("openOutputStream null");
-            out.write(jpeg);
-            out.flush();
+    /** NV21 프레임을 out 에 JPEG 로 인코딩 (처음부터 쓰고 flip). out 이 모자라면 false */
+    public static boolean encodeNv21Jpeg(YuvFrame frame, int quality, ByteBuffer out) {
+        out.clear();
+        YuvImage yuv = new YuvImage(frame.nv21, ImageFormat.NV21, frame.width, frame.height, null);
+        boolean ok;
+        try {
+            ok = yuv.compressToJpeg(new Rect(0, 0, frame.width, frame.height), quality, new BufferPool.Output(out));
+        } catch (RuntimeException e) {
+            ok = false; // 스트림 쓰기 실패 (버퍼 넘침)
         }
+        out.flip();
+        return ok;
+    }
 
+    /** 이미 인코딩된 (EXIF 없는) JPEG 을 쓰고 Orientation 태그를 붙인다. 쓴 바이트 수를 돌려준다 */
+    public static long writeJpegAndPublish(Context ctx, Uri uri, ByteBuffer jpeg, int rotation) throws Exception {
+        ContentResolver resolver = ctx.getContentResolver();
+        long bytes;
+        try (ParcelFileDescriptor pfd = resolver.openFileDescriptor(uri, "rw")) {
+            if (pfd == null) throw new Exception("openFileDescriptor null");
+            try (FileOutputStream fos = new FileOutputStream(pfd.getFileDescriptor());
+                 FileChannel ch = fos.getChannel()) {
+                while (jpeg.hasRemaining()) ch.write(jpeg);
+                setOrientation(pfd, rotation);
+                fos.getFD().sync();
+            }
+            bytes = pfd.getStatSize();
+        }
+        publish(resolver, uri);
+        return bytes;
+    }
+
+    private static void setOrientation(ParcelFileDescriptor pfd, int rotation) throws java.io.IOException {
+        if (rotation == 0 || Build.VERSION.SDK_INT < Build.VERSION_CODES.N) return;
+        ExifInterface exif = new ExifInterface(pfd.getFileDescriptor());
+        exif.setAttribute(ExifInterface.TAG_ORIENTATION, String.valueOf(exifOrientation(rotation)));
+        exif.saveAttributes();
+    }
+
+    private static int exifOrientation(int degrees) {
+        switch (degrees) {
+            case 90:  return ExifInterface.ORIENTATION_ROTATE_90;
+            case 180: return ExifInterface.ORIENTATION_ROTATE_180;
+            case 270: return ExifInterface.ORIENTATION_ROTATE_270;
+            default:  return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    /** 직접 fd 에 쓴 항목(녹화 등)의 IS_PENDING 해제 */
+    public static void publishPending(Context ctx, Uri uri) {
+        publish(ctx.getContentResolver(), uri);
+    }
+
+    private static void publish(ContentResolver resolver, Uri uri) {
         if (Build.VERSION.SDK_INT >= 29) {
             ContentValues cv = new ContentValues();
             cv.put(MediaStore.Images.Media.IS_PENDING, 0);
             resolver.update(uri, cv, null, null);
         }
+    }
 
-        // Flutter 쪽엔 경로 대신 URI 문자열을 반환해도 됨
-        return uri.toString();
+    /** 버려진/실패한 pending 항목 삭제 */
+    public static void discardPending(Context ctx, Uri uri) {
+        if (uri == null) return;
+        try {
+            ctx.getContentResolver().delete(uri, null, null);
+        } catch (Exception ignore) {}
     }
 }
@@ -7,19 +7,21 @@ import android.hardware.camera2.CameraAccessException;
 import android.hardware.camera2.CameraCaptureSession;
 import android.hardware.camera2.CameraCharacteristics;
 import android.hardware.camera2.CameraDevice;
-import android.hardware.camera2.CameraManager;
-import android.hardware.camera2.CameraMetadata;                  // ★ 추가
+import android.hardware.camera2.CameraMetadata;
+import android.hardware.camera2.CaptureFailure;
 import android.hardware.camera2.CaptureRequest;
-import android.hardware.camera2.params.MeteringRectangle;        // ★ 추가
-import android.hardware.camera2.params.RggbChannelVector;       // ★ 추가
-import android.hardware.camera2.params.StreamConfigurationMap;
+import android.hardware.camera2.TotalCaptureResult;
+import android.hardware.camera2.params.MeteringRectangle;
+import android.hardware.camera2.params.OutputConfiguration;
+import android.hardware.camera2.params.RggbChannelVector;
 import android.media.Image;
 import android.media.ImageReader;
+import android.media.ImageWriter;
+import android.net.Uri;
 import android.os.Build;
-import android.os.Handler;
-import android.os.HandlerThread;
-import android.os.Looper;
-import android.util.Range;
+import android.os.SystemClock;
+import android.util.DisplayMetrics;
+import android.util.Log;
 import android.util.Size;
 import android.view.Surface;
 import android.view.TextureView;
@@ -27,42 +29,142 @@ import android.view.View;
 import android.view.WindowManager;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.platform.PlatformView;
-import android.util.Log; // ★ 추가
 public class NativeCameraView implements PlatformView, MethodChannel.MethodCallHandler {
-    private static final String TAG = "Cam2Native"; // ★ 추가
+    private static final String TAG = "Cam2Native";
     // Flutter / View
     private final Context context;
     private final TextureView textureView;
     private final MethodChannel channel;
+    private final CameraEvents events;
 
-    // Camera2
-    private final CameraManager cameraManager;
+    // Camera2 (cameraHandle 은 백엔드가 준 핸들, 나머지 둘은 거기서 꺼낸 것)
+    private CameraBackend.Device cameraHandle;
     private CameraDevice cameraDevice;
+    private CameraCharacteristics cameraCharacteristics;
     private CameraCaptureSession captureSession;
     private ImageReader imageReader;
-    private HandlerThread bgThread;
-    private Handler bgHandler;
+    private SharedReader<ImageReader> stillReader; // imageReader 의 참조 수 (저장 작업이 쥔 동안 안 닫힌다)
+    // 카메라 전용 직렬 스레드 (모든 Camera2 호출/콜백은 여기서만)
+    private final CameraExecutor cameraExecutor;
+    // 저장 전용 스테이지 (카메라 스레드가 파일 I/O 를 기다리지 않도록)
+    private final ImageSaveQueue saveQueue;
 
     private String cameraId;
-    private Size previewSize;
+    private StreamSize previewSize;
     private Surface previewSurface;
-
-    // Cached characteristics
-    private Rect activeArrayRect;
-    private float maxZoom = 1f;
-    private Range<Integer> aeCompRange = new Range<>(-2, 2);
+    // 스틸 스트림은 프리뷰 크기와 별개 (null 이면 자동 선택)
+    private StillCaptureConfig stillConfig;
+    private StreamSize requestedStillSize;
+    // 저장 형식 요청 (실제 형식은 stillConfig.format: 기기 지원/ZSL 에 따라 JPEG 로 내려갈 수 있다)
+    private StillFormat requestedFormat = StillFormat.JPEG;
+
+    // Zero-shutter-lag (옵션, 재처리 지원 기기만)
+    private boolean zslEnabled = false;
+    private ZslRingBuffer zsl;
+    private ImageWriter zslWriter;
+    private String lastCaptureMode = "none";  // "zsl" | "still" | "night"
+    // 일반 스틸 경로의 AF 잠금/AE 프리캡처 (끄면 예전처럼 바로 촬영 → 셔터 지연 비교용)
+    private boolean precaptureEnabled = true;
+    private final PrecaptureSequence precapture;
+    private PrecaptureSequence.Outcome lastPrecapture;
+    // RAW_OUTPUT: JPEG 과 같은 스틸 요청에 RAW_SENSOR 출력을 붙여 DNG 로 따로 저장
+    private static final String STILL_WITH_RAW = "still+raw";
+    private boolean rawRequested = false;
+    private RawCapture raw;
+    // 노출 브래킷: YUV 버스트 출력을 세션에 붙여 두고 captureBracket 때 captureBurst 한 번으로 N장
+    private static final float[] DEFAULT_BRACKET_EVS = {-2f, 0f, 2f};
+    private static final long BRACKET_TIMEOUT_MS = 2_000; // 수동 노출 시간 합에 더하는 여유
+    private boolean bracketEnabled = false;
+    private BurstCapture burst;
+    private final HdrMerge hdrMerge = new HdrMerge(ForkJoinPool.commonPool());
+    // 네이티브 야간 모드 (NIGHT 씬): 같은 버스트 출력으로 고정 노출 N장 → 정렬 + 평균
+    private static final int NIGHT_FRAMES = 6;
+    private boolean nightRequested = false;
+    private final FrameStacker frameStacker = new FrameStacker(ForkJoinPool.commonPool()); // 버스트 스레드 전용
+    private Map<String, Object> lastNight;     // 마지막 야간 촬영 통계 (getCaptureStats)
+    // 녹화: 인코더 입력 표면을 프리뷰 세션 출력으로 (녹화 중엔 ZSL/RAW/분석 스트림을 뺀다)
+    private VideoRecorder recorder;
+    private CameraCaptureSession recordingSession;   // 인코더 표면을 타겟으로 하는 세션
+    private volatile MainThreadResult recordingStopResult; // mux 스레드가 파일 확정 후 응답
+    private final Runnable recordingLimit = () -> finishRecording(null, true);
+    private long lastShutterToFrameNs = 0;    // ZSL: 탭 시각 ↔ 선택된 프레임 시각
+    private long lastShutterToImageNs = 0;    // 탭 → JPEG 도착
+    private SurfaceTexture surfaceTexture;
+
+    // 저해상도 YUV 분석 스트림 (옵션) → 장면 통계를 네트워크 없이 Dart 로
+    private boolean analysisEnabled = false;
+    private AnalysisStream analysis;
+    private final SceneStatsAnalyzer sceneStats;
+    // 같은 분석 스트림에서 줄인 프레임을 바이너리 채널로 Dart 에 보낸다
+    private final FrameExporter frameExporter;
+
+    // 프리뷰/스틸 요청의 단일 원본 상태 (카메라 스레드 전용)
+    private final CaptureState captureState = new CaptureState();
+    // HAL 이 실제로 적용한 프레임별 결과 (카메라 스레드에서 기록)
+    private final FrameTelemetry telemetry = new FrameTelemetry(FrameTelemetry.DEFAULT_CAPACITY);
+    // 단계별 지연 히스토그램 (getMetrics). 시작 시각은 카메라 스레드 전용
+    private final CameraMetrics metrics = new CameraMetrics();
+    private long openStartNs = 0;
+    private long configureStartNs = 0;
+    private long streamStartNs = 0;
+    private long settingsPendingNs = 0;   // 아직 프레임에 반영되지 않은 가장 이른 applySettings
+    private int settingsAfterTag = 0;     // 이 태그보다 뒤의 요청부터 새 설정을 담고 있다
+    private int repeatingSubmits = 0;
+    private int repeatingSkips = 0;   // 상태가 그대로라 setRepeatingRequest 를 생략한 횟수
+    // 줌/노출 슬라이더 등 빠른 갱신을 프레임 완료 단위로 합친다
+    private final RequestCoalescer coalescer = new RequestCoalescer(this::submitStateIfChanged);
+
+    // warm pause: 반복 요청만 멈추고 디바이스/세션은 유예 시간 동안 살려둔다
+    private static final long DEFAULT_WARM_GRACE_MS = 10_000;
+    private long warmGraceMs = DEFAULT_WARM_GRACE_MS;   // 0 이면 항상 cold pause
+    private final Runnable warmGraceExpired = this::onWarmGraceExpired;
+    private boolean warmPaused = false;
+    // 재개 지연 측정: 재개 시작 → 첫 프레임 완료
+    private long resumeStartNs = 0;
+    private String resumeMode = "cold";     // "warm" | "cold"
+    private String lastResumeMode = "none";
+    private long lastResumeNs = 0;
+    private int lastViewWidth, lastViewHeight;
+
+    // 첫 프리뷰 프레임까지 (뷰 생성 기준). "prewarm" 이면 디바이스를 미리 열어 둔 경로
+    private final long createdNs = SystemClock.elapsedRealtimeNanos();
+    private String startPath = "cold";
+    private long prewarmLeadNs = 0;        // 미리 열기가 뷰 생성보다 먼저 시작된 시간
+    private long firstPreviewFrameNs = 0;
+    // 표면보다 디바이스가 먼저 준비됐을 때: 프리뷰 출력을 비워 둔 채 세션부터 만든다 (API 26+)
+    private OutputConfiguration deferredPreview;
+
+    // Cached characteristics (CameraRegistry 스냅샷)
+    private final CameraRegistry registry;
+    private CameraInfo cameraInfo;
+    // settings 맵 → 검증된 플랜 (카메라별, 캐시 포함)
+    private SettingsCompiler settingsCompiler;
+    private Map<String, Object> pendingSettings; // 카메라 선택 전에 들어온 설정
+    private Map<String, Object> lastSettings;    // 렌즈(카메라) 전환 시 새 컴파일러로 다시 반영
+
+    // 렌즈 전환 (selectLens). requestedLens 가 null 이면 레지스트리 기본 카메라
+    private CameraLens requestedLens;
+    private String preopeningId;           // 미리 열고 있는 카메라 (동시 열기 지원 기기만)
+    private long preopenStartNs = 0;
+    private long lensSwitchStartNs = 0;    // 전환 시작 → 새 렌즈 첫 프레임
+    private int lensSwitchAfterTag = 0;    // 이 태그보다 뒤의 요청부터 새 렌즈
+    private String lensSwitchMethod = "none"; // "zoomRatio" | "preopen" | "reopen" | "deferred"
+    private long lastLensSwitchNs = 0;
 
     public NativeCameraView(Context context, BinaryMessenger messenger, int viewId) {
 
@@ -72,97 +174,512 @@ public class NativeCameraView implements PlatformView, MethodChannel.MethodCallH
         // 카메라 미리보기를 뿌릴 화면을 생성 -> 카메라2는 surfaceTexture에 그림 -> TextureView 사용
         this.textureView = new TextureView(context);
 
-        // 카메라2의 설정 들을 저장하는 객체
-        this.cameraManager = (CameraManager) context.getSystemService(Context.CAMERA_SERVICE);
+        // 카메라2의 설정 들을 저장하는 객체 (특성 조회는 레지스트리가 한 번만)
+        this.registry = CameraRegistry.get(context);
 
         // flutter와 android 통신을 위한 MethodChannel 생성
         this.channel = new MethodChannel(messenger, "native_camera_channel_" + viewId);
         this.channel.setMethodCallHandler(this);
+        this.events = new CameraEvents(messenger, viewId);
+
+        // 카메라 작업/파일 저장 등을 돌릴 카메라 스레드 시작 (미리 열어 둔 게 있으면 그 스레드를 이어받음)
+        CameraPrewarmer prewarm = CameraPrewarmer.claim();
+        this.cameraExecutor = prewarm != null ? prewarm.executor() : new CameraExecutor("native-cam2-bg");
+        this.saveQueue = new ImageSaveQueue(this.context, ImageSaveQueue.DEFAULT_CAPACITY, saveListener);
+        this.sceneStats = new SceneStatsAnalyzer(events::emit, SceneStatsAnalyzer.DEFAULT_INTERVAL_MS);
+        this.frameExporter = new FrameExporter(messenger, viewId);
+        this.precapture = new PrecaptureSequence(cameraExecutor, this::submitPrecaptureTrigger);
 
-        // 카메라 작업/파일 저장 등을 돌릴 백그라운드 스레드 시작
-        startBackgroundThread();
+        applyDefaultState();
 
         // 프리뷰 화면이 준비됐는지를 알려주는 리스너 연결 -> 화면 준비되면 카메라 오픈
         textureView.setSurfaceTextureListener(surfaceListener);
+
+        if (prewarm != null) {
+            startPath = "prewarm";
+            prewarmLeadNs = createdNs - prewarm.startNs;
+            // 표면 크기는 아직 모르므로 화면 크기로 프리뷰 크기를 고른다
+            DisplayMetrics dm = context.getResources().getDisplayMetrics();
+            cameraExecutor.execute(() -> {
+                setUpCamera(dm.widthPixels, dm.heightPixels);
+                prewarm.attach(stateCallback, this::openCamera); // 실패하면 평소처럼 연다
+            });
+        }
     }
 
     // ---------- PlatformView ----------
     @Override public View getView() { return textureView; }
 
     @Override public void dispose() {
-        closeCamera();
-        stopBackgroundThread();
         channel.setMethodCallHandler(null);
+        // 닫기 작업을 먼저 넣고 quitSafely → 닫기가 끝난 뒤 스레드 종료
+        cameraExecutor.execute(() -> {
+            cameraExecutor.cancel(warmGraceExpired);
+            warmPaused = false;
+            preopeningId = null;   // 미리 열던 카메라는 도착하는 대로 닫힌다
+            closeCamera();         // 대기 중인 저장을 끝까지 마친 뒤 리더를 닫는다
+            saveQueue.shutdown();
+        });
+        cameraExecutor.shutdown();
+        events.dispose();
     }
 
     // ---------- MethodChannel ----------
+    // 인자 파싱만 메인 스레드에서 하고, 실제 Camera2 작업은 카메라 스레드로 넘긴다.
+    // 응답은 MainThreadResult 가 메인 스레드로 한 번만 보낸다.
     @Override
-    public void onMethodCall(MethodCall call, MethodChannel.Result result) {
+    public void onMethodCall(MethodCall call, MethodChannel.Result rawResult) {
+        final MainThreadResult result = new MainThreadResult(rawResult);
         switch (call.method) {
             case "applySettings": {
                 @SuppressWarnings("unchecked")
                 Map<String, Object> s = (Map<String, Object>) call.arguments;
-                Log.d(TAG, "[MC] applySettings raw=" + s);
-                applySettings(s);
-
-                result.success(null);
+                if (CameraMetrics.verbose) Log.d(TAG, "[MC] applySettings raw=" + s);
+                cameraExecutor.execute(() -> {
+                    applySettings(s);
+                    result.success(null);
+                });
                 break;
             }
             case "setZoom": {
                 float zoom = ((Number) ((Map<?, ?>) call.arguments).get("zoom")).floatValue();
-                applyZoom(zoom);
-                result.success(null);
+                cameraExecutor.execute(() -> {
+                    applyZoom(zoom);
+                    result.success(null);
+                });
                 break;
             }
             case "setExposureCompensation": {
                 float exp = ((Number) ((Map<?, ?>) call.arguments).get("exposure")).floatValue();
-                applyExposureCompensation(exp);
-                result.success(null);
+                cameraExecutor.execute(() -> {
+                    applyExposureCompensation(exp);
+                    result.success(null);
+                });
                 break;
             }
             case "takePicture": {
-                captureStillAndSave(result);
+                // 탭 시각은 메인 스레드에서 바로 찍는다 (ZSL 프레임 선택 기준)
+                final long shutterNs = SystemClock.elapsedRealtimeNanos();
+                // {upload: {maxEdge, quality}} 가 있으면 업로드용 축소본도 만들어 맵으로 응답
+                Map<?, ?> a = call.arguments instanceof Map ? (Map<?, ?>) call.arguments : null;
+                Object up = a != null ? a.get("upload") : null;
+                final UploadVariant upload = up instanceof Map ? uploadVariantFrom((Map<?, ?>) up) : null;
+                cameraExecutor.execute(() -> {
+                    if (saveQueue.policy() != SaveQueue.Backpressure.BLOCK) {
+                        captureStillAndSave(result, shutterNs, upload);
+                        return;
+                    }
+                    // BLOCK: 저장 큐에 자리가 날 때까지 촬영 시작을 미룬다 (카메라 스레드는 막지 않는다)
+                    saveQueue.runWhenRoom(() -> cameraExecutor.execute(() -> captureStillAndSave(result, shutterNs, upload)));
+                });
+                break;
+            }
+            case "setZslEnabled": {
+                boolean enabled = Boolean.TRUE.equals(((Map<?, ?>) call.arguments).get("enabled"));
+                cameraExecutor.execute(() -> {
+                    if (zslEnabled != enabled) {
+                        zslEnabled = enabled;
+                        if (cameraInfo != null) chooseStillConfig(); // ZSL 은 JPEG 전용
+                        reconfigureSession();
+                    }
+                    result.success(null);
+                });
+                break;
+            }
+            case "setBracketingEnabled": {
+                boolean enabled = Boolean.TRUE.equals(((Map<?, ?>) call.arguments).get("enabled"));
+                cameraExecutor.execute(() -> {
+                    if (bracketEnabled != enabled) {
+                        bracketEnabled = enabled;
+                        reconfigureSession();
+                    }
+                    result.success(null);
+                });
+                break;
+            }
+            case "setBufferPoolBudget": {
+                // {bytes}: 캡처/인코딩 공용 direct 버퍼 예산. 줄이면 빈 버퍼부터 놓아 준다
+                Object bytes = ((Map<?, ?>) call.arguments).get("bytes");
+                if (!(bytes instanceof Number) || ((Number) bytes).longValue() < 0) {
+                    result.error("BAD_ARGS", "bytes must be a non-negative number", null);
+                    break;
+                }
+                BufferPool.shared().setBudget(((Number) bytes).longValue());
+                result.success(BufferPool.shared().stats());
+                break;
+            }
+            case "captureBracket": {
+                // {evs: [-2, 0, 2]?, merge: bool?, saveFrames: bool?} → {uris, mergedUri, burstMs, mergeMs, ...}
+                Map<?, ?> a = call.arguments instanceof Map ? (Map<?, ?>) call.arguments : null;
+                float[] evs = DEFAULT_BRACKET_EVS;
+                Object ev = a != null ? a.get("evs") : null;
+                if (ev instanceof List && !((List<?>) ev).isEmpty()) {
+                    List<?> l = (List<?>) ev;
+                    evs = new float[l.size()];
+                    for (int i = 0; i < evs.length; i++) {
+                        Object v = l.get(i);
+                        evs[i] = v instanceof Number ? ((Number) v).floatValue() : 0f;
+                    }
+                }
+                boolean merge = a == null || !Boolean.FALSE.equals(a.get("merge"));
+                boolean saveFrames = a == null || !Boolean.FALSE.equals(a.get("saveFrames"));
+                if (evs.length > BurstCapture.MAX_FRAMES || (!merge && !saveFrames)) {
+                    result.error("BAD_ARGS", "1.." + BurstCapture.MAX_FRAMES + " evs, and merge or saveFrames", null);
+                    break;
+                }
+                final float[] bracket = evs;
+                cameraExecutor.execute(() -> captureBracket(result, bracket, merge, saveFrames));
                 break;
             }
-            case "pauseCamera":
-                android.util.Log.d(TAG, "pauseCamera()");
-                pauseCamera();    // 아래 함수 구현
+            case "setAnalysisEnabled": {
+                // {enabled: bool, intervalMs: int?} — 장면 통계 이벤트 주기
+                Map<?, ?> a = (Map<?, ?>) call.arguments;
+                boolean enabled = Boolean.TRUE.equals(a.get("enabled"));
+                Object iv = a.get("intervalMs");
+                if (iv instanceof Number) sceneStats.setInterval(((Number) iv).longValue());
+                cameraExecutor.execute(() -> {
+                    boolean wanted = analysisWanted();
+                    analysisEnabled = enabled;
+                    updateAnalysisOutput(wanted);
+                    result.success(null);
+                });
+                break;
+            }
+            case "setFrameExport": {
+                // {mode: "off"|"onDemand"|"stream", format: "jpeg"|"luma", maxEdge, quality, maxFps}
+                Map<?, ?> a = (Map<?, ?>) call.arguments;
+                String m = String.valueOf(a.get("mode"));
+                FrameExporter.Mode mode = "stream".equals(m) ? FrameExporter.Mode.STREAM
+                        : "onDemand".equals(m) ? FrameExporter.Mode.ON_DEMAND : FrameExporter.Mode.OFF;
+                int format = "luma".equals(a.get("format")) ? FrameExporter.FORMAT_LUMA : FrameExporter.FORMAT_JPEG;
+                int maxEdge = a.get("maxEdge") instanceof Number ? ((Number) a.get("maxEdge")).intValue() : 320;
+                int quality = a.get("quality") instanceof Number ? ((Number) a.get("quality")).intValue() : 70;
+                double maxFps = a.get("maxFps") instanceof Number ? ((Number) a.get("maxFps")).doubleValue() : 5;
+                cameraExecutor.execute(() -> {
+                    boolean wanted = analysisWanted();
+                    frameExporter.configure(mode, format, maxEdge, quality, maxFps);
+                    updateAnalysisOutput(wanted);
+                    result.success(null);
+                });
+                break;
+            }
+            case "requestFrame":
+                // 다음 분석 프레임 하나를 프레임 채널로. 스트림이 없으면 false
+                cameraExecutor.execute(() -> {
+                    boolean ok = analysis != null && frameExporter.isActive();
+                    if (ok) frameExporter.requestFrame();
+                    result.success(ok);
+                });
+                break;
+            case "setPrecaptureEnabled": {
+                boolean enabled = !Boolean.FALSE.equals(((Map<?, ?>) call.arguments).get("enabled"));
+                cameraExecutor.execute(() -> {
+                    precaptureEnabled = enabled;
+                    result.success(null);
+                });
+                break;
+            }
+            case "setSaveBackpressure": {
+                // "BLOCK" | "DROP" | "REJECT"
+                String p = String.valueOf(((Map<?, ?>) call.arguments).get("policy")).toUpperCase();
+                try {
+                    saveQueue.setPolicy(SaveQueue.Backpressure.valueOf(p));
+                    result.success(null);
+                } catch (IllegalArgumentException e) {
+                    result.error("BAD_ARGS", "Unknown policy " + p, null);
+                }
+                break;
+            }
+            case "getCaptureStats": {
+                cameraExecutor.execute(() -> {
+                    Map<String, Object> m = new HashMap<>();
+                    m.put("zslEnabled", zslEnabled);
+                    m.put("zslActive", zsl != null && zslWriter != null);
+                    m.put("lastCaptureMode", lastCaptureMode);
+                    m.put("stillFormat", stillConfig != null ? stillConfig.format.key : null);
+                    m.put("lens", requestedLens != null ? requestedLens.toMap() : null);
+                    m.put("recording", recorder != null);
+                    m.put("recordingFrames", recorder != null ? recorder.encodedFrames() : 0L);
+                    m.put("lastLensSwitchMethod", lensSwitchMethod);
+                    m.put("lastLensSwitchNs", lastLensSwitchNs);
+                    m.put("requestedFormat", requestedFormat.key);
+                    m.put("precaptureEnabled", precaptureEnabled);
+                    m.put("rawActive", raw != null);
+                    m.put("rawSaved", raw != null ? raw.saved() : 0L);
+                    m.put("rawSkipped", raw != null ? raw.skipped() : 0L);
+                    m.put("bracketActive", burst != null);
+                    m.put("bracketBursts", burst != null ? burst.bursts() : 0L);
+                    m.put("bracketFramesDropped", burst != null ? burst.framesDropped() : 0L);
+                    m.put("nightMode", nightRequested && burst != null);
+                    m.put("bufferPool", BufferPool.shared().stats());
+                    m.put("lastNight", lastNight);
+                    m.put("lastPrecapture", lastPrecapture != null ? lastPrecapture.toMap() : null);
+                    m.put("lastShutterToFrameNs", lastShutterToFrameNs);
+                    m.put("lastShutterToImageNs", lastShutterToImageNs);
+                    m.put("pendingSaves", saveQueue.pending());
+                    m.put("repeatingSubmits", repeatingSubmits);
+                    m.put("repeatingSkips", repeatingSkips);
+                    m.put("controlUpdates", coalescer.updates());
+                    m.put("controlUpdatesSubmitted", coalescer.submitted());
+                    m.put("controlUpdatesCoalesced", coalescer.coalesced());
+                    m.put("saveBackpressure", saveQueue.policy().name());
+                    m.put("warmPaused", warmPaused);
+                    m.put("startPath", startPath);
+                    m.put("analysisActive", analysis != null);
+                    m.put("analysisFrames", analysis != null ? analysis.frames() : 0L);
+                    m.put("analysisSkipped", analysis != null ? analysis.skipped() : 0L);
+                    m.put("frameExportSent", frameExporter.sent());
+                    m.put("frameExportSkipped", frameExporter.skipped());
+                    m.put("frameExportEncodeMs", frameExporter.lastEncodeMs());
+                    m.put("firstPreviewFrameNs", firstPreviewFrameNs);
+                    m.put("prewarmLeadNs", prewarmLeadNs);
+                    m.put("lastResumeMode", lastResumeMode);
+                    m.put("lastResumeNs", lastResumeNs);
+                    m.put("settingsPlanHits", settingsCompiler != null ? settingsCompiler.cacheHits() : 0L);
+                    m.put("settingsPlanMisses", settingsCompiler != null ? settingsCompiler.cacheMisses() : 0L);
+                    result.success(m);
+                });
+                break;
+            }
+            case "getFrameTelemetry": {
+                // {since: 마지막으로 받은 frameNumber, max} → 열 단위 배열 + 요약
+                Map<?, ?> a = call.arguments instanceof Map ? (Map<?, ?>) call.arguments : null;
+                Object since = a != null ? a.get("since") : null;
+                Object max = a != null ? a.get("max") : null;
+                long sinceFn = since instanceof Number ? ((Number) since).longValue() : -1L;
+                int maxN = max instanceof Number ? ((Number) max).intValue() : FrameTelemetry.DEFAULT_CAPACITY;
+                cameraExecutor.execute(() -> result.success(telemetry.snapshot(sinceFn, maxN)));
+                break;
+            }
+            case "getMetrics":
+                cameraExecutor.execute(() -> result.success(metrics.snapshot()));
+                break;
+            case "resetMetrics":
+                metrics.reset();
+                result.success(null);
+                break;
+            case "setDebugLogging": {
+                // {enabled: bool} — 핫패스 Log.d 를 켠다 (기본 꺼짐)
+                Map<?, ?> a = (Map<?, ?>) call.arguments;
+                CameraMetrics.verbose = a != null && Boolean.TRUE.equals(a.get("enabled"));
                 result.success(null);
                 break;
+            }
+            case "getLenses": {
+                cameraExecutor.execute(() -> {
+                    try {
+                        List<Map<String, Object>> out = new ArrayList<>();
+                        for (CameraLens l : registry.lenses()) out.add(l.toMap());
+                        Map<String, Object> m = new HashMap<>();
+                        m.put("lenses", out);
+                        m.put("current", requestedLens != null ? requestedLens.toMap() : null);
+                        m.put("cameraId", cameraId);
+                        result.success(m);
+                    } catch (CameraBackendException e) {
+                        result.error("CAMERA_ACCESS", e.getMessage(), null);
+                    }
+                });
+                break;
+            }
+            case "selectLens": {
+                // {lens: front|back|wide|ultraWide|tele|external} 또는 {cameraId, physicalId?}, preopen: bool (기본 true)
+                Map<?, ?> a = (Map<?, ?>) call.arguments;
+                Object lensArg = a != null ? a.get("lens") : null;
+                CameraLens.Kind kind = lensArg != null ? CameraLens.Kind.fromString(String.valueOf(lensArg)) : null;
+                String id = a != null && a.get("cameraId") != null ? String.valueOf(a.get("cameraId")) : null;
+                String physicalId = a != null && a.get("physicalId") != null ? String.valueOf(a.get("physicalId")) : null;
+                boolean preopen = a == null || !Boolean.FALSE.equals(a.get("preopen"));
+                if (kind == null && id == null) {
+                    result.error("BAD_ARGS", "Unknown lens " + lensArg, null);
+                    break;
+                }
+                cameraExecutor.execute(() -> selectLens(kind, id, physicalId, preopen, result));
+                break;
+            }
+            case "startRecording": {
+                // {maxDurationMs?, bitRate?, fps?} → {uri, width, height}. 저장 완료는 stopRecording 응답/이벤트로
+                Map<?, ?> a = call.arguments instanceof Map ? (Map<?, ?>) call.arguments : null;
+                Object max = a != null ? a.get("maxDurationMs") : null;
+                Object br = a != null ? a.get("bitRate") : null;
+                Object fps = a != null ? a.get("fps") : null;
+                long maxMs = max instanceof Number ? ((Number) max).longValue() : 0;
+                int bitRate = br instanceof Number ? ((Number) br).intValue() : 0;
+                int frameRate = fps instanceof Number ? ((Number) fps).intValue() : VideoRecorder.DEFAULT_FPS;
+                cameraExecutor.execute(() -> startRecording(result, maxMs, bitRate, frameRate));
+                break;
+            }
+            case "stopRecording": {
+                cameraExecutor.execute(() -> {
+                    if (recorder == null) {
+                        result.error("NOT_RECORDING", "No recording in progress", null);
+                        return;
+                    }
+                    finishRecording(result, true);
+                });
+                break;
+            }
+            case "setOutputFormat": {
+                // {format: "jpeg" | "heic"} → 실제로 쓰게 된 형식 ("jpeg" | "heic" | "heicEncoded")
+                Map<?, ?> a = (Map<?, ?>) call.arguments;
+                StillFormat f = StillFormat.fromString(a != null ? String.valueOf(a.get("format")) : null);
+                if (f == null) {
+                    result.error("BAD_ARGS", "Unknown format " + (a != null ? a.get("format") : null), null);
+                    break;
+                }
+                cameraExecutor.execute(() -> {
+                    setOutputFormat(f);
+                    result.success(stillConfig != null ? stillConfig.format.key : null);
+                });
+                break;
+            }
+            case "setStillCaptureSize": {
+                // {width, height} 또는 null(자동, 최대 해상도)
+                Map<?, ?> a = (Map<?, ?>) call.arguments;
+                StreamSize req = (a != null && a.get("width") != null && a.get("height") != null)
+                        ? new StreamSize(((Number) a.get("width")).intValue(), ((Number) a.get("height")).intValue())
+                        : null;
+                cameraExecutor.execute(() -> {
+                    setStillCaptureSize(req);
+                    result.success(stillConfig != null ? stillConfig.size.toString() : null);
+                });
+                break;
+            }
+            case "pauseCamera": {
+                // {warm: bool} — 생략하면 warm (유예 시간이 0 이면 cold)
+                Map<?, ?> a = (Map<?, ?>) call.arguments;
+                boolean warm = a == null || !Boolean.FALSE.equals(a.get("warm"));
+                Log.d(TAG, "pauseCamera() warm=" + warm);
+                cameraExecutor.execute(() -> {
+                    if (warm) warmPauseCamera();
+                    else pauseCamera();
+                    result.success(null);
+                });
+                break;
+            }
+            case "resumeCamera":
+                cameraExecutor.execute(() -> {
+                    resumeCamera();
+                    result.success(null);
+                });
+                break;
+            case "setWarmGrace": {
+                long ms = ((Number) ((Map<?, ?>) call.arguments).get("ms")).longValue();
+                cameraExecutor.execute(() -> {
+                    warmGraceMs = Math.max(0, ms);
+                    result.success(null);
+                });
+                break;
+            }
             default: result.notImplemented();
         }
     }
+
+    // 카메라 스레드에서 호출. 반복 요청만 멈추고 유예 시간이 지나면 cold pause
+    private void warmPauseCamera() {
+        if (recorder != null) finishRecording(null, false); // 멈춘 동안 녹화를 이어 붙이지 않는다
+        if (warmGraceMs <= 0 || captureSession == null
+                || !cameraExecutor.is(CameraExecutor.State.STREAMING)) {
+            pauseCamera();
+            return;
+        }
+        try {
+            captureSession.stopRepeating();
+        } catch (Exception e) {
+            Log.w(TAG, "warm pause failed, closing", e);
+            pauseCamera();
+            return;
+        }
+        cameraExecutor.moveTo(CameraExecutor.State.PAUSED);
+        warmPaused = true;
+        resumeStartNs = 0;
+        cameraExecutor.executeDelayed(warmGraceExpired, warmGraceMs);
+        Log.d(TAG, "warm paused, grace " + warmGraceMs + "ms");
+    }
+
+    private void onWarmGraceExpired() {
+        if (!warmPaused) return;
+        Log.d(TAG, "warm grace expired → closing camera");
+        pauseCamera();
+    }
+
+    // warm 이면 반복 요청만 다시 걸고, 아니면 디바이스부터 다시 연다
+    private void resumeCamera() {
+        resumeStartNs = SystemClock.elapsedRealtimeNanos();
+        if (warmPaused && captureSession != null && captureState.repeatingBuilder() != null) {
+            cameraExecutor.cancel(warmGraceExpired);
+            warmPaused = false;
+            resumeMode = "warm";
+            try {
+                // 멈춘 동안 바뀐 설정도 같이 반영
+                int tag = coalescer.reset();
+                captureState.buildRepeatingIfDirty(tag);
+                CaptureRequest.Builder b = captureState.repeatingBuilder();
+                b.setTag(tag);
+                submitRepeating(b);
+                cameraExecutor.moveTo(CameraExecutor.State.STREAMING);
+                return;
+            } catch (Exception e) {
+                Log.w(TAG, "warm resume failed, reopening", e);
+                pauseCamera();
+                resumeStartNs = SystemClock.elapsedRealtimeNanos();
+            }
+        }
+        resumeMode = "cold";
+        if (cameraExecutor.is(CameraExecutor.State.CLOSED) && surfaceTexture != null) {
+            setUpCamera(lastViewWidth, lastViewHeight);
+            openCamera();
+        }
+        // 표면이 아직 없으면 onSurfaceTextureAvailable 에서 열린다 (cold 로 측정)
+    }
+
+    // 뷰 생성 후 첫 프리뷰 프레임
+    private void onFirstPreviewFrame() {
+        firstPreviewFrameNs = SystemClock.elapsedRealtimeNanos() - createdNs;
+        Log.d(TAG, "first preview frame (" + startPath + ") in " + firstPreviewFrameNs / 1_000_000 + "ms"
+                + (prewarmLeadNs > 0 ? ", prewarm lead " + prewarmLeadNs / 1_000_000 + "ms" : ""));
+        Map<String, Object> e = new HashMap<>();
+        e.put("event", "firstFrame");
+        e.put("path", startPath);
+        e.put("latencyMs", firstPreviewFrameNs / 1_000_000.0);
+        e.put("prewarmLeadMs", prewarmLeadNs / 1_000_000.0);
+        events.emit(e);
+    }
+
+    // 재개 후 첫 프레임
+    private void onFirstFrameAfterResume() {
+        lastResumeNs = SystemClock.elapsedRealtimeNanos() - resumeStartNs;
+        lastResumeMode = resumeMode;
+        resumeStartNs = 0;
+        Log.d(TAG, "resume(" + lastResumeMode + ") first frame in " + lastResumeNs / 1_000_000 + "ms");
+        Map<String, Object> e = new HashMap<>();
+        e.put("event", "resumed");
+        e.put("mode", lastResumeMode);
+        e.put("latencyMs", lastResumeNs / 1_000_000.0);
+        events.emit(e);
+    }
+
+    // 카메라 스레드에서 호출
     private void pauseCamera() {
+        cameraExecutor.cancel(warmGraceExpired);
+        warmPaused = false;
+        preopeningId = null;
+        if (recorder != null) finishRecording(null, false);
 
         // 1) 캡처 반복 중지
         try {
             if (captureSession != null) {
                 captureSession.stopRepeating();
                 captureSession.abortCaptures();
+                cameraExecutor.moveTo(CameraExecutor.State.PAUSED);
             }
         } catch (Exception ignore) {}
+        closeZsl();
+        closeRaw();
+        closeBurst();
+        closeAnalysis();
 
-        // 미리 리스너 해제해서 추가 콜백 방지
-        // 2) ImageReader 리스너 해제 + 큐 드레인 + 닫기
-        if (imageReader != null) {
-            // 더 이상 새 콜백 안 오게
-            imageReader.setOnImageAvailableListener(null, null);
-
-
-            // 큐에 남은 이미지 전부 닫기 (버퍼 반환)
-            try {
-                while (true) {
-                    Image img = imageReader.acquireLatestImage();
-                    if (img == null) break;
-                    img.close();
-                }
-            } catch (Exception ignore) {}
-
-            try {
-                imageReader.close();
-            } catch (Exception ignore) {}
-
-        }
+        // 2) ImageReader 리스너 해제 + 놓기 (저장 대기 중인 작업이 있으면 writer 가 닫는다)
+        retireStillReader();
         // 3) 카메라 디바이스/세션 정리
         try {
             if (captureSession != null) {
@@ -170,15 +687,18 @@ public class NativeCameraView implements PlatformView, MethodChannel.MethodCallH
             }
         } catch (Exception ignore) {}
         captureSession = null;
+        captureState.unbindRepeating();
+        deferredPreview = null;
 
         try {
-            if (cameraDevice != null) {
-                cameraDevice.close();
+            if (cameraHandle != null) {
+                cameraHandle.close();
             }
         } catch (Exception ignore) {}
-        cameraDevice = null;
-
-        stopBackgroundThread(); // 백그라운드 스레드도 같이 종료 (재진입시 다시 start)
+        adoptDevice(null);
+        releasePreviewSurface();
+        // 카메라 스레드는 살려둔다 (dispose 에서 종료). 표면이 다시 오면 재오픈
+        cameraExecutor.moveTo(CameraExecutor.State.CLOSED);
     }
 
 
@@ -186,160 +706,640 @@ public class NativeCameraView implements PlatformView, MethodChannel.MethodCallH
     private final TextureView.SurfaceTextureListener surfaceListener =
             new TextureView.SurfaceTextureListener() {
                 @Override public void onSurfaceTextureAvailable(@NonNull SurfaceTexture surface, int w, int h) {
-                    setUpCamera(w, h);
-                    openCamera();
+                    cameraExecutor.execute(() -> {
+                        surfaceTexture = surface;
+                        lastViewWidth = w;
+                        lastViewHeight = h;
+                        if (deferredPreview != null) {
+                            // 미리 만든 세션에 표면만 붙인다 (구성 중이면 onConfigured 에서)
+                            if (captureSession != null) finalizeDeferredPreview();
+                            return;
+                        }
+                        setUpCamera(w, h);
+                        if (cameraDevice != null && captureSession == null) createPreviewSession(); // 미리 열린 디바이스
+                        else openCamera();
+                    });
                 }
                 @Override public void onSurfaceTextureSizeChanged(@NonNull SurfaceTexture s, int w, int h) {}
                 @Override public boolean onSurfaceTextureDestroyed(@NonNull SurfaceTexture s) {
-                    android.util.Log.d(TAG, "SurfaceTexture destroyed");
-                    pauseCamera(); // or at least closeCamera();
-                    //closeCamera();
-                    return true;
+                    Log.d(TAG, "SurfaceTexture destroyed");
+                    // 카메라 스레드에서 세션을 닫은 "뒤에" 텍스처를 해제해야 하므로 false 반환 후 직접 release
+                    cameraExecutor.execute(() -> {
+                        pauseCamera();
+                        surfaceTexture = null;
+                        s.release();
+                    });
+                    return false;
                 }
                 @Override public void onSurfaceTextureUpdated(@NonNull SurfaceTexture s) {}
             };
 
     private void setUpCamera(int viewWidth, int viewHeight) {
         try {
-            // Back camera
-            for (String id : cameraManager.getCameraIdList()) {
-                CameraCharacteristics c = cameraManager.getCameraCharacteristics(id);
-                Integer facing = c.get(CameraCharacteristics.LENS_FACING);
-                if (facing != null && facing == CameraCharacteristics.LENS_FACING_BACK) {
-                    cameraId = id;
-
-                    activeArrayRect = c.get(CameraCharacteristics.SENSOR_INFO_ACTIVE_ARRAY_SIZE);
-                    if (activeArrayRect == null) activeArrayRect = new Rect(0,0,0,0);
-
-                    Float mz = c.get(CameraCharacteristics.SCALER_AVAILABLE_MAX_DIGITAL_ZOOM);
-                    maxZoom = (mz != null && mz > 1f) ? mz : 1f;
-
-                    Range<Integer> r = c.get(CameraCharacteristics.CONTROL_AE_COMPENSATION_RANGE);
-                    if (r != null) aeCompRange = r;
-
-                    StreamConfigurationMap map = c.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
-                    if (map != null) {
-                        Size[] sizes = map.getOutputSizes(SurfaceTexture.class);
-                        previewSize = choosePreviewSize(sizes, viewWidth, viewHeight);
-                    } else previewSize = new Size(1280, 720);
-                    break;
-                }
-            }
-            if (cameraId == null) {
-                String[] ids = cameraManager.getCameraIdList();
-                if (ids.length > 0) {
-                    cameraId = ids[0];
-                    CameraCharacteristics c = cameraManager.getCameraCharacteristics(cameraId);
-                    StreamConfigurationMap map = c.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
-                    previewSize = (map != null && map.getOutputSizes(SurfaceTexture.class) != null)
-                            ? map.getOutputSizes(SurfaceTexture.class)[0]
-                            : new Size(1280, 720);
+            // 특성은 프로세스 전역 레지스트리에서 (surface 가 생길 때마다 다시 조회하지 않음)
+            CameraInfo info = selectedCamera();
+            if (info != null) {
+                if (info != cameraInfo) {
+                    boolean switched = cameraInfo != null;
+                    cameraInfo = info;
+                    settingsCompiler = new SettingsCompiler(info);
+                    if (switched) resetStateForCamera();
                 }
+                cameraId = info.id;
+                previewSize = choosePreviewSize(info.previewSizes, viewWidth, viewHeight);
+                chooseStillConfig();
             }
         } catch (Exception e) { e.printStackTrace(); }
         Log.d(TAG, "Selected cameraId=" + cameraId
                 + " previewSize=" + previewSize
-                + " maxZoom=" + maxZoom
-                + " aeCompRange=" + aeCompRange
-                + " activeArray=" + activeArrayRect);
+                + " still=" + stillConfig
+                + " info=" + cameraInfo);
 
+        if (pendingSettings != null && settingsCompiler != null) {
+            Map<String, Object> s = pendingSettings;
+            pendingSettings = null;
+            applySettings(s);
+        }
     }
 
-    private Size choosePreviewSize(Size[] choices, int viewW, int viewH) {
-        if (choices == null || choices.length == 0) return new Size(1280, 720);
-        Size wanted = new Size(viewW > 0 ? viewW : 1280, viewH > 0 ? viewH : 720);
+    private StreamSize choosePreviewSize(StreamSize[] choices, int viewW, int viewH) {
+        if (choices == null || choices.length == 0) return new StreamSize(1280, 720);
+        StreamSize wanted = new StreamSize(viewW > 0 ? viewW : 1280, viewH > 0 ? viewH : 720);
         return Arrays.stream(choices)
                 .min(Comparator.comparingInt(s ->
                         Math.abs(s.getWidth()*s.getHeight() - wanted.getWidth()*wanted.getHeight())))
                 .orElse(choices[0]);
     }
 
-    private final CameraDevice.StateCallback stateCallback = new CameraDevice.StateCallback() {
-        @Override public void onOpened(@NonNull CameraDevice camera) {
-            cameraDevice = camera; createPreviewSession();
+    // 콜백은 모두 카메라 스레드에서 온다
+    private void chooseStillConfig() {
+        long previewFrameNs = cameraInfo.previewMinFrameDurationNs(previewSize);
+        // ZSL 재처리 출력은 JPEG 리더로 나오므로 ZSL 을 켜 두면 JPEG 고정
+        StillFormat format = zslEnabled ? StillFormat.JPEG : StillFormat.resolve(requestedFormat, cameraInfo);
+        stillConfig = StillCaptureConfig.choose(cameraInfo, format, requestedStillSize, previewSize, previewFrameNs);
+    }
+
+    // 저장 형식 변경 → 스틸 리더 형식이 바뀔 때만 세션 재구성
+    private void setOutputFormat(StillFormat format) {
+        requestedFormat = format;
+        if (cameraInfo == null) return;
+        StillCaptureConfig before = stillConfig;
+        chooseStillConfig();
+        Log.d(TAG, "Still config -> " + stillConfig);
+        if (before == null || before.format != stillConfig.format || !before.size.equals(stillConfig.size)) {
+            reconfigureSession();
+        }
+    }
+
+    // 스틸 해상도 변경 → 세션 출력이 바뀌므로 세션만 다시 구성 (디바이스는 유지)
+    private void setStillCaptureSize(StreamSize requested) {
+        requestedStillSize = requested;
+        if (cameraInfo == null) return;
+        chooseStillConfig();
+        Log.d(TAG, "Still config -> " + stillConfig);
+        reconfigureSession();
+    }
+
+    // 세션 출력 구성이 바뀔 때: 디바이스는 유지하고 세션만 다시 만든다
+    private void reconfigureSession() {
+        if (warmPaused) {
+            // 숨겨진 동안엔 새 세션을 띄우지 않는다 → 재개 때 새 구성으로 다시 연다
+            pauseCamera();
+            return;
         }
-        @Override public void onDisconnected(@NonNull CameraDevice camera) {
-            camera.close(); cameraDevice = null;
+        if (cameraDevice != null && captureSession != null && captureInProgress) {
+            // 진행 중인 촬영의 출력을 닫을 수 없다 → 끝나면 captureFinished() 가 다시 부른다
+            reconfigurePending = true;
+            Log.d(TAG, "session reconfigure deferred until the capture finishes");
+            return;
         }
-        @Override public void onError(@NonNull CameraDevice camera, int error) {
-            camera.close(); cameraDevice = null;
+        reconfigurePending = false;
+        if (cameraDevice != null && captureSession != null) {
+            captureSession.close();
+            captureSession = null;
+            captureState.unbindRepeating();
+            deferredPreview = null;
+            createPreviewSession();
+        }
+    }
+
+    // 열린 디바이스를 이 뷰의 것으로 (null 이면 비운다)
+    private void adoptDevice(CameraBackend.Device device) {
+        cameraHandle = device;
+        cameraDevice = device != null ? Camera2Backend.unwrap(device) : null;
+        cameraCharacteristics = device != null ? Camera2Backend.characteristics(device) : null;
+    }
+
+    private final CameraBackend.DeviceCallback stateCallback = new CameraBackend.DeviceCallback() {
+        @Override public void onOpened(CameraBackend.Device camera) {
+            if (!cameraExecutor.is(CameraExecutor.State.OPENING)) {
+                // 여는 도중에 pause/dispose 됨 → 늦게 도착한 디바이스는 바로 닫는다
+                camera.close();
+                return;
+            }
+            if (openStartNs != 0) {
+                metrics.record(CameraMetrics.Stage.OPEN, SystemClock.elapsedRealtimeNanos() - openStartNs);
+                openStartNs = 0;
+            }
+            adoptDevice(camera); createPreviewSession();
+        }
+        @Override public void onDisconnected(CameraBackend.Device camera) {
+            camera.close();
+            if (cameraHandle == camera) closeCamera();
+        }
+        @Override public void onError(CameraBackend.Device camera, int error) {
+            Log.e(TAG, "CameraDevice error=" + error);
+            camera.close();
+            if (cameraHandle == camera) closeCamera();
         }
     };
 
     private void openCamera() {
         if (cameraId == null) return;
+        if (!cameraExecutor.is(CameraExecutor.State.CLOSED)) return; // 이미 열렸거나 여는 중
+        if (resumeStartNs == 0) {
+            resumeStartNs = SystemClock.elapsedRealtimeNanos();
+            resumeMode = "cold";
+        }
         try {
-            // ❗️핵심: bgHandler 대신 null → 메인 스레드 콜백
-            cameraManager.openCamera(cameraId, stateCallback, /*handler*/ null);
+            cameraExecutor.moveTo(CameraExecutor.State.OPENING);
+            openStartNs = SystemClock.elapsedRealtimeNanos();
+            registry.openCamera(cameraId, stateCallback, cameraExecutor);
         } catch (SecurityException se) {
             se.printStackTrace(); // 권한 이슈
+            cameraExecutor.moveTo(CameraExecutor.State.CLOSED);
         } catch (Exception e) {
             e.printStackTrace();
+            cameraExecutor.moveTo(CameraExecutor.State.CLOSED);
         }
     }
     private void createPreviewSession() {
-        if (cameraDevice == null || !textureView.isAvailable()) return;
+        if (cameraDevice == null) return;
+        if (surfaceTexture == null) {
+            // 디바이스가 표면보다 먼저 열렸다 (미리 열기) → 가능하면 세션부터 만들어 둔다
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && !zslEnabled && deferredPreview == null) {
+                createDeferredSession();
+            }
+            return;
+        }
 
         try {
-            SurfaceTexture st = textureView.getSurfaceTexture();
-            if (st == null) return;
+            SurfaceTexture st = surfaceTexture;
 
             st.setDefaultBufferSize(previewSize.getWidth(), previewSize.getHeight());
+            releasePreviewSurface();
             previewSurface = new Surface(st);
 
-            // JPEG 캡처용 ImageReader
-            if (imageReader != null) imageReader.close();
-            imageReader = ImageReader.newInstance(
-                    previewSize.getWidth(),
-                    previewSize.getHeight(),
-                    android.graphics.ImageFormat.JPEG,
-                    /*maxImages*/ 1
-            );
-
-            final CaptureRequest.Builder previewBuilder =
-                    cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
-            previewBuilder.addTarget(previewSurface);
+            prepareStillOutputs();
 
             List<Surface> targets = new ArrayList<>();
             targets.add(previewSurface);
             targets.add(imageReader.getSurface());
+            if (zsl != null) targets.add(zsl.surface());
+            if (raw != null) targets.add(raw.surface());
+            if (burst != null) targets.add(burst.surface());
+            if (analysis != null) targets.add(analysis.surface());
+            if (recorder != null) targets.add(recorder.surface());
+
+            CameraCaptureSession.StateCallback sessionCallback = new CameraCaptureSession.StateCallback() {
+                @Override
+                public void onConfigured(@NonNull CameraCaptureSession session) {
+                    if (cameraDevice == null || session.getDevice() != cameraDevice) {
+                        session.close(); // 이미 닫힌 디바이스의 늦은 콜백
+                        return;
+                    }
+                    captureSession = session;
+                    onSessionConfigured();
+                    cameraExecutor.moveTo(CameraExecutor.State.CONFIGURED);
+                    startStreaming();
+                }
 
-            cameraDevice.createCaptureSession(
-                    targets,
-                    new CameraCaptureSession.StateCallback() {
-                        @Override
-                        public void onConfigured(@NonNull CameraCaptureSession session) {
-                            captureSession = session;
-                            try {
-                                previewBuilder.set(CaptureRequest.CONTROL_AF_MODE,
-                                        CaptureRequest.CONTROL_AF_MODE_CONTINUOUS_PICTURE);
-                                previewBuilder.set(CaptureRequest.CONTROL_AE_MODE,
-                                        CaptureRequest.CONTROL_AE_MODE_ON);
-
-                                captureSession.setRepeatingRequest(
-                                        previewBuilder.build(), null, /*callback handler*/ null);
-                                Log.d(TAG, "Preview configured: preview=" + previewSize + ", imageReader="
-                                        + imageReader.getWidth() + "x" + imageReader.getHeight());
-
-                            } catch (CameraAccessException e) {
-                                e.printStackTrace();
-                            }
-                        }
+                @Override
+                public void onConfigureFailed(@NonNull CameraCaptureSession session) {
+                    Log.e(TAG, "Session configure failed");
+                    session.close();
+                    if (cameraDevice == null || session.getDevice() != cameraDevice) return; // 늦은 콜백
+                    // 이 구성으로는 스트리밍할 수 없다 → 디바이스를 닫아 CLOSED 로 (재개 시 다시 연다) 하고 알린다
+                    closeCamera();
+                    Map<String, Object> e = new HashMap<>();
+                    e.put("event", "sessionFailed");
+                    e.put("message", "Capture session configuration failed");
+                    events.emit(e);
+                }
+            };
 
-                        @Override
-                        public void onConfigureFailed(@NonNull CameraCaptureSession session) {
-                            // no-op
-                        }
-                    },
-                    /*handler*/ null // ❗️핵심: bgHandler 대신 null → 메인 스레드 콜백
-            );
+            configureStartNs = SystemClock.elapsedRealtimeNanos();
+            if (zsl != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                cameraDevice.createReprocessableCaptureSession(
+                        zsl.inputConfiguration(), targets, sessionCallback, cameraExecutor.handler());
+            } else {
+                cameraDevice.createCaptureSession(targets, sessionCallback, cameraExecutor.handler());
+            }
 
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    // 스틸 리더 + (선택) ZSL 링버퍼
+    private void prepareStillOutputs() {
+        // 스틸 캡처용 ImageReader (JPEG/HEIC/YUV, 프리뷰와 별개 해상도, 파이프라이닝 위해 여러 장)
+        retireStillReader();
+        imageReader = ImageReader.newInstance(
+                stillConfig.size.getWidth(),
+                stillConfig.size.getHeight(),
+                stillConfig.format.imageFormat,
+                stillConfig.maxImages
+        );
+        stillReader = new SharedReader<>(imageReader);
+
+        // ZSL 링버퍼 (재처리 지원 기기만)
+        closeZsl();
+        if (zslEnabled && recorder != null) {
+            Log.w(TAG, "ZSL disabled while recording");
+        } else if (zslEnabled) {
+            zsl = ZslRingBuffer.create(cameraCharacteristics,
+                    ZslRingBuffer.DEFAULT_CAPACITY, cameraExecutor.handler());
+            if (zsl == null) Log.w(TAG, "ZSL requested but reprocessing is not supported");
+        }
+
+        // RAW: ZSL 과는 같이 쓰지 않는다 (재처리 입력까지 출력 조합이 너무 커진다)
+        closeRaw();
+        if (rawRequested) {
+            if (zsl != null || recorder != null) {
+                Log.w(TAG, "RAW output disabled while " + (zsl != null ? "ZSL is active" : "recording"));
+            } else {
+                raw = RawCapture.create(context, cameraInfo, cameraCharacteristics, rawListener);
+                if (raw == null) Log.w(TAG, "RAW requested but not supported by camera " + cameraId);
+            }
+        }
+
+        // 버스트 출력 (브래킷/야간): ZSL/RAW/녹화와는 같이 쓰지 않는다 (출력 조합)
+        closeBurst();
+        if (bracketEnabled || nightRequested) {
+            if (zsl != null || raw != null || recorder != null) {
+                Log.w(TAG, "burst output (bracketing/night) disabled while "
+                        + (zsl != null ? "ZSL" : raw != null ? "RAW" : "recording") + " is active");
+            } else {
+                burst = BurstCapture.create(cameraInfo, stillConfig.size);
+                if (burst == null) Log.w(TAG, "burst output requested but camera " + cameraId + " has no YUV output");
+            }
+        }
+
+        // 분석 스트림: ZSL/RAW/브래킷과 같이 쓰면 출력이 4개라 보장 조합을 벗어나므로 그쪽이 우선
+        closeAnalysis();
+        if (analysisWanted()) {
+            if (zsl != null || raw != null || burst != null || recorder != null) {
+                Log.w(TAG, "analysis stream disabled while " + (zsl != null ? "ZSL" : raw != null ? "RAW"
+                        : burst != null ? "burst output" : "recording") + " is active");
+            } else {
+                analysis = new AnalysisStream(cameraInfo, AnalysisStream.DEFAULT_TARGET);
+                if (analysisEnabled) analysis.addAnalyzer(sceneStats);
+                analysis.addAnalyzer(frameExporter);
+            }
+        }
+    }
+
+    // 장면 통계나 프레임 내보내기 중 하나라도 켜져 있으면 분석 스트림이 필요하다
+    private boolean analysisWanted() {
+        return analysisEnabled || frameExporter.isActive();
+    }
+
+    // 스트림 필요 여부가 바뀌었으면 세션 재구성, 아니면 분석기만 붙였다 뗀다
+    private void updateAnalysisOutput(boolean wasWanted) {
+        if (wasWanted != analysisWanted()) {
+            reconfigureSession();
+        } else if (analysis != null) {
+            if (analysisEnabled) analysis.addAnalyzer(sceneStats);
+            else analysis.removeAnalyzer(sceneStats);
+        }
+    }
+
+    // 세션 구성 완료 후: 반복 요청 시작
+    private void startStreaming() {
+        try {
+            if (zsl != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+                    && captureSession.isReprocessable()) {
+                zslWriter = ImageWriter.newInstance(captureSession.getInputSurface(), 2);
+            }
+            // 세션마다 빌더는 한 번만 만들고 현재 상태 전체를 반영
+            CaptureRequest.Builder previewBuilder = newRepeatingBuilder();
+            captureState.bindRepeating(previewBuilder);
+            previewBuilder.setTag(coalescer.reset());
+            telemetry.onNewSession();
+            precapture.reset();
+            recordingSession = recorder != null ? captureSession : null;
+            submitRepeating(previewBuilder);
+            cameraExecutor.moveTo(CameraExecutor.State.STREAMING);
+            Log.d(TAG, "Preview configured: preview=" + previewSize + ", still=" + stillConfig
+                    + ", zsl=" + (zslWriter != null));
+
+        } catch (CameraAccessException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // 프리뷰 출력은 크기만 정해 둔 채(deferred) 세션을 만든다. 표면은 나중에 finalize
+    @RequiresApi(Build.VERSION_CODES.O)
+    private void createDeferredSession() {
+        try {
+            prepareStillOutputs();
+            deferredPreview = new OutputConfiguration(new Size(previewSize.getWidth(), previewSize.getHeight()), SurfaceTexture.class);
+            List<OutputConfiguration> outputs = new ArrayList<>();
+            outputs.add(deferredPreview);
+            outputs.add(new OutputConfiguration(imageReader.getSurface()));
+            if (raw != null) outputs.add(new OutputConfiguration(raw.surface()));
+            if (burst != null) outputs.add(new OutputConfiguration(burst.surface()));
+            if (analysis != null) outputs.add(new OutputConfiguration(analysis.surface()));
+
+            configureStartNs = SystemClock.elapsedRealtimeNanos();
+            cameraDevice.createCaptureSessionByOutputConfigurations(outputs, new CameraCaptureSession.StateCallback() {
+                @Override
+                public void onConfigured(@NonNull CameraCaptureSession session) {
+                    if (cameraDevice == null || session.getDevice() != cameraDevice || deferredPreview == null) {
+                        session.close();
+                        return;
+                    }
+                    captureSession = session;
+                    onSessionConfigured();
+                    cameraExecutor.moveTo(CameraExecutor.State.CONFIGURED);
+                    Log.d(TAG, "Deferred session configured, preview=" + previewSize);
+                    if (surfaceTexture != null) finalizeDeferredPreview();
+                }
+
+                @Override
+                public void onConfigureFailed(@NonNull CameraCaptureSession session) {
+                    Log.e(TAG, "Deferred session configure failed");
+                    deferredPreview = null;
+                    createPreviewSession(); // 표면이 오면 평소 경로로
+                }
+            }, cameraExecutor.handler());
+        } catch (Exception e) {
+            Log.e(TAG, "createDeferredSession error", e);
+            deferredPreview = null;
+        }
+    }
+
+    // 미리 만든 세션에 프리뷰 표면을 붙이고 스트리밍 시작
+    private void finalizeDeferredPreview() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O || deferredPreview == null) return;
+        try {
+            surfaceTexture.setDefaultBufferSize(previewSize.getWidth(), previewSize.getHeight());
+            releasePreviewSurface();
+            previewSurface = new Surface(surfaceTexture);
+            deferredPreview.addSurface(previewSurface);
+            captureSession.finalizeOutputConfigurations(java.util.Collections.singletonList(deferredPreview));
+            deferredPreview = null;
+            startStreaming();
+        } catch (Exception e) {
+            Log.e(TAG, "finalizeDeferredPreview error, recreating session", e);
+            deferredPreview = null;
+            captureSession.close();
+            captureSession = null;
+            captureState.unbindRepeating();
+            createPreviewSession();
+        }
+    }
+
+    // 반복(프리뷰) 요청 빌더: ZSL 이면 링버퍼, 녹화 중이면 인코더도 함께 채운다
+    private CaptureRequest.Builder newRepeatingBuilder() throws CameraAccessException {
+        int template = recorder != null ? CameraDevice.TEMPLATE_RECORD
+                : zsl != null ? CameraDevice.TEMPLATE_ZERO_SHUTTER_LAG : CameraDevice.TEMPLATE_PREVIEW;
+        CaptureRequest.Builder b = cameraDevice.createCaptureRequest(template);
+        b.addTarget(previewSurface);
+        if (zsl != null) b.addTarget(zsl.surface());
+        if (analysis != null) b.addTarget(analysis.surface());
+        if (recorder != null) b.addTarget(recorder.surface());
+        return b;
+    }
+
+    private final CameraCaptureSession.CaptureCallback repeatingCallback =
+            new CameraCaptureSession.CaptureCallback() {
+                @Override
+                public void onCaptureCompleted(@NonNull CameraCaptureSession session,
+                                               @NonNull CaptureRequest request,
+                                               @NonNull TotalCaptureResult result) {
+                    metrics.count(CameraMetrics.Counter.DROPPED_FRAMES,
+                            telemetry.record(result, FrameTelemetry.KIND_PREVIEW));
+                    if (streamStartNs != 0) {
+                        metrics.record(CameraMetrics.Stage.FIRST_FRAME, SystemClock.elapsedRealtimeNanos() - streamStartNs);
+                        streamStartNs = 0;
+                    }
+                    if (settingsPendingNs != 0) onSettingsFrame(request.getTag());
+                    if (lensSwitchStartNs != 0) onLensSwitchFrame(session, request, result);
+                    precapture.onResult(result);
+                    if (zsl != null) zsl.onResult(result);
+                    if (recorder != null && session == recordingSession) recorder.onCameraFrame();
+                    if (firstPreviewFrameNs == 0) onFirstPreviewFrame();
+                    if (resumeStartNs != 0) onFirstFrameAfterResume();
+                    coalescer.onFrameDelivered(request.getTag());
+                }
+
+                @Override
+                public void onCaptureFailed(@NonNull CameraCaptureSession session,
+                                            @NonNull CaptureRequest request,
+                                            @NonNull CaptureFailure failure) {
+                    telemetry.onFailed();
+                    metrics.count(CameraMetrics.Counter.CAPTURE_FAILURES);
+                    // 실패한 프레임도 "새 요청이 HAL 에 도달했다"는 신호 → 보류 중 갱신을 막지 않도록
+                    coalescer.onFrameDelivered(request.getTag());
+                }
+
+                @Override
+                public void onCaptureBufferLost(@NonNull CameraCaptureSession session,
+                                                @NonNull CaptureRequest request,
+                                                @NonNull Surface target, long frameNumber) {
+                    telemetry.onBufferLost();
+                    if (recorder != null && target == recorder.surface()) recorder.onBufferLost();
+                }
+            };
+
+    // 스틸/재처리 요청용: 결과만 기록
+    private final CameraCaptureSession.CaptureCallback stillCallback =
+            new CameraCaptureSession.CaptureCallback() {
+                @Override
+                public void onCaptureCompleted(@NonNull CameraCaptureSession session,
+                                               @NonNull CaptureRequest request,
+                                               @NonNull TotalCaptureResult result) {
+                    boolean reprocess = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && request.isReprocess();
+                    telemetry.record(result, reprocess ? FrameTelemetry.KIND_REPROCESS : FrameTelemetry.KIND_STILL);
+                    if (!reprocess) precapture.unlock();
+                    if (raw != null && STILL_WITH_RAW.equals(request.getTag())) {
+                        Integer o = request.get(CaptureRequest.JPEG_ORIENTATION);
+                        raw.onResult(result, o != null ? o : 0);
+                    }
+                }
+
+                @Override
+                public void onCaptureFailed(@NonNull CameraCaptureSession session,
+                                            @NonNull CaptureRequest request,
+                                            @NonNull CaptureFailure failure) {
+                    telemetry.onFailed();
+                    metrics.count(CameraMetrics.Counter.CAPTURE_FAILURES);
+                    precapture.unlock();
+                    if (raw != null && STILL_WITH_RAW.equals(request.getTag())) raw.onFailed(failure.getFrameNumber());
+                    // 이미지가 찍혔으면 버퍼는 그대로 온다 (리더 리스너가 응답). 아니면 JPEG 은 오지 않는다
+                    if (!failure.wasImageCaptured()) {
+                        failPendingStill("CAPTURE_FAILED", "Capture failed (reason " + failure.getReason() + ")");
+                    }
+                }
+
+                @Override
+                public void onCaptureBufferLost(@NonNull CameraCaptureSession session,
+                                                @NonNull CaptureRequest request,
+                                                @NonNull Surface target, long frameNumber) {
+                    if (raw != null && target == raw.surface()) raw.onBufferLost(frameNumber);
+                    if (imageReader != null && target == imageReader.getSurface()) {
+                        failPendingStill("CAPTURE_FAILED", "Still buffer lost (frame " + frameNumber + ")");
+                    }
+                }
+            };
+
+    // 카메라 스레드: 촬영 하나가 끝났다 (성공/실패 모두). 미뤄 둔 재구성은 리더 콜백 밖에서 한다
+    private void captureFinished() {
+        captureInProgress = false;
+        if (reconfigurePending) {
+            reconfigurePending = false;
+            cameraExecutor.execute(this::reconfigureSession);
+        }
+    }
+
+    // 카메라 스레드: 리더 리스너가 응답하기 전에 스틸이 실패 → 리스너를 떼고 대신 응답 (다음 촬영을 받는다)
+    private void failPendingStill(String code, String message) {
+        MainThreadResult r = pendingStill;
+        if (r == null) return;
+        pendingStill = null;
+        captureFinished();
+        if (imageReader != null) imageReader.setOnImageAvailableListener(null, null);
+        Log.w(TAG, message);
+        r.error(code, message, null);
+    }
+
+    // 브래킷 버스트 요청용: 결과 기록 + 실패한 요청의 프레임은 기다리지 않게
+    private final CameraCaptureSession.CaptureCallback burstCallback =
+            new CameraCaptureSession.CaptureCallback() {
+                @Override
+                public void onCaptureCompleted(@NonNull CameraCaptureSession session,
+                                               @NonNull CaptureRequest request,
+                                               @NonNull TotalCaptureResult result) {
+                    telemetry.record(result, FrameTelemetry.KIND_STILL);
+                }
+
+                @Override
+                public void onCaptureFailed(@NonNull CameraCaptureSession session,
+                                            @NonNull CaptureRequest request,
+                                            @NonNull CaptureFailure failure) {
+                    telemetry.onFailed();
+                    metrics.count(CameraMetrics.Counter.CAPTURE_FAILURES);
+                    if (burst != null) burst.onRequestFailed();
+                }
+            };
+
+    // 프리캡처 트리거 요청용: 결과로 시퀀스를 진행시킨다 (반복 요청과 달리 coalescer 태그 없음)
+    private final CameraCaptureSession.CaptureCallback triggerCallback =
+            new CameraCaptureSession.CaptureCallback() {
+                @Override
+                public void onCaptureCompleted(@NonNull CameraCaptureSession session,
+                                               @NonNull CaptureRequest request,
+                                               @NonNull TotalCaptureResult result) {
+                    telemetry.record(result, FrameTelemetry.KIND_TRIGGER);
+                    precapture.onResult(result);
+                }
+
+                @Override
+                public void onCaptureFailed(@NonNull CameraCaptureSession session,
+                                            @NonNull CaptureRequest request,
+                                            @NonNull CaptureFailure failure) {
+                    telemetry.onFailed();
+                    metrics.count(CameraMetrics.Counter.CAPTURE_FAILURES);
+                }
+            };
+
+    // 프리뷰와 같은 상태 + 트리거만 얹은 1회성 요청
+    private void submitPrecaptureTrigger(Integer afTrigger, Integer aeTrigger) throws CameraAccessException {
+        if (captureSession == null || previewSurface == null) throw new IllegalStateException("no session");
+        CaptureRequest.Builder b = cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
+        b.addTarget(previewSurface);
+        captureState.applyTo(b);
+        if (afTrigger != null) b.set(CaptureRequest.CONTROL_AF_TRIGGER, afTrigger);
+        if (aeTrigger != null) b.set(CaptureRequest.CONTROL_AE_PRECAPTURE_TRIGGER, aeTrigger);
+        captureSession.capture(b.build(), triggerCallback, cameraExecutor.handler());
+    }
+
+    private void submitRepeating(CaptureRequest.Builder b) throws CameraAccessException {
+        captureSession.setRepeatingRequest(b.build(), repeatingCallback, cameraExecutor.handler());
+        repeatingSubmits++;
+        streamStartNs = SystemClock.elapsedRealtimeNanos();
+    }
+
+    private void onSessionConfigured() {
+        if (configureStartNs == 0) return;
+        metrics.record(CameraMetrics.Stage.CONFIGURE, SystemClock.elapsedRealtimeNanos() - configureStartNs);
+        configureStartNs = 0;
+    }
+
+    // 새 설정을 담은 요청(태그가 settingsAfterTag 보다 큰)의 첫 프레임
+    private void onSettingsFrame(Object tag) {
+        if (!(tag instanceof Integer) || (Integer) tag <= settingsAfterTag) return;
+        metrics.record(CameraMetrics.Stage.SETTINGS_APPLIED, SystemClock.elapsedRealtimeNanos() - settingsPendingNs);
+        settingsPendingNs = 0;
+    }
+
+    // 상태가 실제로 바뀌었고 스트리밍 중일 때만 재제출. 제출했으면 true
+    // 직접 부르지 말고 coalescer.request() 를 거친다 (프레임당 최대 1회)
+    private boolean submitStateIfChanged(int tag) {
+        if (captureSession == null || !cameraExecutor.is(CameraExecutor.State.STREAMING)) return false;
+        CaptureRequest req = captureState.buildRepeatingIfDirty(tag);
+        if (req == null) {
+            repeatingSkips++;
+            return false;
+        }
+        try {
+            captureSession.setRepeatingRequest(req, repeatingCallback, cameraExecutor.handler());
+        } catch (CameraAccessException | IllegalStateException e) {
+            Log.e(TAG, "setRepeatingRequest error", e);
+            return false;
+        }
+        repeatingSubmits++;
+        return true;
+    }
+
+    private void closeAnalysis() {
+        if (analysis != null) {
+            analysis.close();
+            analysis = null;
+        }
+    }
+
+    private void closeRaw() {
+        if (raw != null) {
+            raw.close();
+            raw = null;
+        }
+    }
+
+    private void closeBurst() {
+        if (burst != null) {
+            burst.close();
+            burst = null;
+        }
+    }
+
+    private void closeZsl() {
+        if (zslWriter != null) {
+            zslWriter.close();
+            zslWriter = null;
+        }
+        if (zsl != null) {
+            zsl.close();
+            zsl = null;
+        }
+    }
+
     private void closeCamera() {
+        deferredPreview = null;
+        failPendingStill("NO_CAMERA", "Camera closed during capture"); // 리더 리스너를 떼기 전에 응답
+        if (recorder != null) finishRecording(null, false);
         try {
             if (captureSession != null) {
                 try {
@@ -348,55 +1348,659 @@ public class NativeCameraView implements PlatformView, MethodChannel.MethodCallH
                 } catch (Exception ignore) {}
                 captureSession.close();
                 captureSession = null;
+                captureState.unbindRepeating();
             }
-            if (imageReader != null) {
-                // 리스너 먼저 끊고
-                imageReader.setOnImageAvailableListener(null, null);
-                imageReader.close();
-                imageReader = null;
-            }
-            if (cameraDevice != null) {
-                cameraDevice.close();
-                cameraDevice = null;
+            retireStillReader();
+            closeZsl();
+            closeRaw();
+            closeBurst();
+            closeAnalysis();
+            if (cameraHandle != null) {
+                cameraHandle.close();
+                adoptDevice(null);
             }
         } catch (Exception ignored) {}
+        releasePreviewSurface();
+        cameraExecutor.moveTo(CameraExecutor.State.CLOSED);
+    }
+
+    // zero-copy 저장은 Image 를 쥔 채 대기하므로 리더를 바로 닫지 않는다: 소유자 참조만 놓고,
+    // 쥐고 있는 작업이 남았으면 마지막 작업을 끝낸 writer 가 닫는다 (카메라 스레드는 기다리지 않음)
+    private void retireStillReader() {
+        if (imageReader == null) return;
+        imageReader.setOnImageAvailableListener(null, null); // 더 이상 새 콜백 안 오게
+        // 아직 꺼내지 않은 이미지는 바로 닫는다 (버퍼 반환)
+        try {
+            while (true) {
+                Image img = imageReader.acquireLatestImage();
+                if (img == null) break;
+                img.close();
+            }
+        } catch (Exception ignore) {} // 작업들이 maxImages 를 모두 쥐고 있으면 IllegalStateException
+        stillReader.retire();
+        imageReader = null;
+        stillReader = null;
+    }
+
+    private void releasePreviewSurface() {
+        if (previewSurface != null) {
+            previewSurface.release();
+            previewSurface = null;
+        }
+    }
+
+    // ---------- Recording ----------
+    // 모두 카메라 스레드에서
+
+    private void startRecording(MainThreadResult result, long maxDurationMs, int bitRate, int fps) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            result.error("UNSUPPORTED", "Recording needs API 26", null);
+            return;
+        }
+        if (recorder != null) {
+            result.error("BUSY", "Already recording", null);
+            return;
+        }
+        if (!cameraExecutor.is(CameraExecutor.State.STREAMING) || cameraDevice == null || captureSession == null) {
+            result.error("NO_CAMERA", "Camera not ready", null);
+            return;
+        }
+        if (captureInProgress) {
+            result.error("BUSY", "Capture in progress", null);
+            return;
+        }
+        Uri uri = null;
+        try {
+            StreamSize size = VideoRecorder.chooseSize(cameraInfo, previewSize);
+            uri = NativeCameraCapture.insertPendingVideo(context);
+            recorder = VideoRecorder.create(context, uri, size, fps,
+                    bitRate > 0 ? bitRate : VideoRecorder.defaultBitRate(size, fps),
+                    getJpegOrientation(), this::onRecordingFinished);
+        } catch (Exception e) {
+            Log.e(TAG, "startRecording failed", e);
+            NativeCameraCapture.discardPending(context, uri);
+            result.error("RECORD_ERR", e.getMessage(), null);
+            return;
+        }
+        // 인코더 표면은 세션 출력이어야 하므로 세션만 다시 구성 (디바이스/프리뷰 표면은 유지)
+        reconfigureSession();
+        if (maxDurationMs > 0) cameraExecutor.executeDelayed(recordingLimit, maxDurationMs);
+
+        Map<String, Object> m = new HashMap<>();
+        m.put("uri", uri.toString());
+        m.put("width", recorder.size.getWidth());
+        m.put("height", recorder.size.getHeight());
+        result.success(m);
+    }
+
+    /**
+     * 녹화 종료. keepStreaming 이면 인코더를 뺀 반복 요청을 바로 다시 건다 (세션 재구성 없음,
+     * 남은 인코더 출력은 다음 재구성 때 빠진다). 응답은 파일이 확정된 뒤 mux 스레드에서.
+     */
+    private void finishRecording(MainThreadResult result, boolean keepStreaming) {
+        VideoRecorder r = recorder;
+        if (r == null) return;
+        detachRecorder(keepStreaming);
+        recordingStopResult = result;
+        r.stop();
+    }
+
+    // 카메라가 더 이상 인코더 표면에 쓰지 않게 한다
+    private void detachRecorder(boolean keepStreaming) {
+        cameraExecutor.cancel(recordingLimit);
+        recorder = null;
+        recordingSession = null;
+        if (!keepStreaming || captureSession == null || !cameraExecutor.is(CameraExecutor.State.STREAMING)) return;
+        try {
+            CaptureRequest.Builder b = newRepeatingBuilder();
+            captureState.bindRepeating(b);
+            b.setTag(coalescer.reset());
+            submitRepeating(b);
+        } catch (CameraAccessException | IllegalStateException e) {
+            Log.w(TAG, "repeating request without encoder failed, reconfiguring", e);
+            reconfigureSession();
+        }
+    }
+
+    // mux 스레드에서 호출: 파일 확정(또는 실패) 후
+    private void onRecordingFinished(VideoRecorder.Stats stats, Exception error) {
+        metrics.record(CameraMetrics.Stage.RECORD_FINALIZE, stats.finalizeNs);
+        metrics.count(CameraMetrics.Counter.RECORD_DROPPED_FRAMES, stats.droppedFrames);
+        Map<String, Object> e = stats.toMap();
+        e.put("event", error == null ? "recordingSaved" : "recordingFailed");
+        if (error != null) e.put("message", error.getMessage());
+        events.emit(e);
+
+        MainThreadResult r = recordingStopResult;
+        recordingStopResult = null;
+        if (r != null) {
+            if (error == null) r.success(stats.toMap());
+            else r.error("RECORD_ERR", error.getMessage(), null);
+        }
+        if (error != null) {
+            // 인코더 오류로 스스로 끝난 경우: 카메라가 죽은 표면에 계속 쓰지 않도록 뗀다
+            cameraExecutor.execute(() -> {
+                if (recorder != null && recorder.uri.equals(stats.uri)) detachRecorder(true);
+            });
+        }
+    }
+
+    // ---------- Burst capture (bracketing / night) ----------
+
+    /** 버스트 프레임이 다 모였을 때 (버스트 스레드) */
+    private interface BurstDone {
+        void onFrames(BurstCapture b, String exposureMode, int rotation, int quality,
+                      List<YuvFrame> frames, long burstNs, Exception error);
+    }
+
+    private void captureBracket(MainThreadResult result, float[] evs, boolean merge, boolean saveFrames) {
+        startBurst(result, evs, (b, mode, rotation, quality, frames, burstNs, error) ->
+                onBracketFrames(result, b, evs, mode, merge, saveFrames, rotation, quality, frames, burstNs, error));
+    }
+
+    // 고정 노출 (EV 0 × N): 수동 노출이면 프리뷰가 실제로 쓴 노출 그대로, 아니면 AE 잠금
+    private void captureNight(MainThreadResult result, UploadVariant upload) {
+        lastCaptureMode = "night";
+        startBurst(result, new float[NIGHT_FRAMES], (b, mode, rotation, quality, frames, burstNs, error) ->
+                onNightFrames(result, upload, b, mode, rotation, quality, frames, burstNs, error));
+    }
+
+    // 카메라 스레드: 노출만 다른 스틸 요청 N개를 captureBurst 한 번으로. 프레임이 다 모이면 버스트 스레드에서 이어진다
+    private void startBurst(MainThreadResult result, float[] evs, BurstDone done) {
+        if (!cameraExecutor.is(CameraExecutor.State.STREAMING) || cameraDevice == null || captureSession == null) {
+            result.error("NO_CAMERA", "Camera not ready", null);
+            return;
+        }
+        if (burst == null) {
+            result.error("NO_BURST", "Burst output not enabled or not supported", null);
+            return;
+        }
+        if (captureInProgress || burst.isBusy()) {
+            metrics.count(CameraMetrics.Counter.BUSY_REJECTIONS);
+            result.error("BUSY", "Capture already in progress", null);
+            return;
+        }
+        // 수동 노출이 되면 프리뷰가 실제로 쓴 노출 기준으로 정확히, 아니면 AE 잠금 + 노출 보정
+        long baseExposureNs = telemetry.lastPreviewExposureNs();
+        int baseIso = telemetry.lastPreviewIso();
+        boolean manual = cameraInfo.manualSensor && baseExposureNs > 0 && baseIso > 0;
+        List<CaptureRequest> requests = new ArrayList<>(evs.length);
+        long exposureSumNs = 0;
+        try {
+            for (float ev : evs) {
+                CaptureRequest.Builder b = cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_STILL_CAPTURE);
+                b.addTarget(burst.surface());
+                captureState.applyTo(b);
+                if (manual) {
+                    exposureSumNs += setBracketExposure(b, ev, baseExposureNs, baseIso);
+                } else {
+                    setBracketCompensation(b, ev);
+                }
+                requests.add(b.build());
+            }
+        } catch (CameraAccessException | IllegalStateException e) {
+            result.error("CAPTURE_ERR", e.getMessage(), null);
+            return;
+        }
+
+        captureInProgress = true;
+        final BurstCapture b = burst;
+        final int rotation = getJpegOrientation(), quality = encodeQuality();
+        final String mode = manual ? "manual" : "compensation";
+        b.begin(requests.size(), exposureSumNs / 1_000_000 + BRACKET_TIMEOUT_MS, (frames, burstNs, error) -> {
+            cameraExecutor.execute(this::captureFinished); // 프레임은 복사됐으니 다음 촬영을 받는다
+            done.onFrames(b, mode, rotation, quality, frames, burstNs, error);
+        });
+        try {
+            captureSession.captureBurst(requests, burstCallback, cameraExecutor.handler());
+        } catch (CameraAccessException | IllegalStateException e) {
+            Log.e(TAG, "captureBurst failed", e);
+            for (int i = 0; i < requests.size(); i++) b.onRequestFailed(); // 빈 결과로 바로 끝난다
+        }
+    }
+
+    // 프리뷰의 실제 노출 × 2^ev. 노출 시간 범위를 벗어난 만큼은 ISO 로 메운다. 쓴 노출 시간을 돌려준다
+    private long setBracketExposure(CaptureRequest.Builder b, float ev, long baseNs, int baseIso) {
+        double want = baseNs * Math.pow(2, ev);
+        long ns = cameraInfo.clampExposureNs((long) want);
+        int iso = cameraInfo.clampIso((int) Math.round(baseIso * want / ns));
+        b.set(CaptureRequest.CONTROL_AE_MODE, CameraMetadata.CONTROL_AE_MODE_OFF);
+        b.set(CaptureRequest.SENSOR_EXPOSURE_TIME, ns);
+        b.set(CaptureRequest.SENSOR_SENSITIVITY, iso);
+        b.set(CaptureRequest.SENSOR_FRAME_DURATION, ns); // 최소 프레임 시간보다 짧으면 HAL 이 올린다
+        return ns;
+    }
+
+    // 수동 노출이 없는 기기: 현재 보정값 기준으로 더한다.
+    // 반영까지 몇 프레임 걸리는 HAL 도 있어 앞 프레임 EV 가 덜 벌어질 수 있다
+    private void setBracketCompensation(CaptureRequest.Builder b, float ev) {
+        Integer current = captureState.get(CaptureRequest.CONTROL_AE_EXPOSURE_COMPENSATION);
+        int steps = (current != null ? current : 0) + Math.round(ev / cameraInfo.aeCompStep);
+        b.set(CaptureRequest.CONTROL_AE_LOCK, true);
+        b.set(CaptureRequest.CONTROL_AE_EXPOSURE_COMPENSATION, cameraInfo.clampAeComp(steps));
+    }
+
+    // 버스트 스레드: (선택) 병합 → 저장 큐. 응답은 저장 요청까지 넣은 뒤 (완료는 평소처럼 saved 이벤트)
+    private void onBracketFrames(MainThreadResult result, BurstCapture b, float[] evs, String mode,
+                                 boolean merge, boolean saveFrames, int rotation, int quality,
+                                 List<YuvFrame> frames, long burstNs, Exception error) {
+        metrics.record(CameraMetrics.Stage.BRACKET_BURST, burstNs);
+        if (frames.isEmpty()) {
+            result.error("CAPTURE_ERR", error != null ? error.getMessage() : "No bracket frames", null);
+            return;
+        }
+
+        YuvFrame merged = null;
+        long mergeNs = 0;
+        String mergeError = null;
+        if (merge && frames.size() < 2) {
+            mergeError = "need at least 2 frames";
+        } else if (merge) {
+            merged = b.pool().acquire();
+            if (merged == null) {
+                mergeError = "no free frame for merge";
+            } else {
+                long t0 = SystemClock.elapsedRealtimeNanos();
+                try {
+                    hdrMerge.merge(frames.toArray(new YuvFrame[0]), merged);
+                    mergeNs = SystemClock.elapsedRealtimeNanos() - t0;
+                    metrics.record(CameraMetrics.Stage.HDR_MERGE, mergeNs);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "HDR merge failed", e);
+                    merged.release();
+                    merged = null;
+                    mergeError = e.getMessage();
+                }
+            }
+        }
+
+        // 병합본을 먼저 큐에 (기다리는 건 보통 이쪽)
+        Uri mergedUri = merged != null ? saveFrame(merged, rotation, quality, null, null) : null;
+        List<String> uris = new ArrayList<>();
+        for (YuvFrame f : frames) {
+            if (saveFrames) {
+                Uri u = saveFrame(f, rotation, quality, null, null);
+                uris.add(u != null ? u.toString() : null);
+            } else {
+                f.release();
+            }
+        }
+
+        List<Double> evList = new ArrayList<>();
+        for (float ev : evs) evList.add((double) ev);
+        Map<String, Object> m = new HashMap<>();
+        m.put("uris", uris);
+        m.put("mergedUri", mergedUri != null ? mergedUri.toString() : null);
+        m.put("mergeError", mergeError);
+        m.put("evs", evList);
+        m.put("exposureMode", mode);
+        m.put("frames", frames.size());
+        m.put("width", b.size().getWidth());
+        m.put("height", b.size().getHeight());
+        m.put("burstMs", burstNs / 1_000_000.0);
+        m.put("mergeMs", mergeNs / 1_000_000.0);
+        if (error != null) m.put("error", error.getMessage());
+        result.success(m);
+    }
+
+    // 버스트 스레드: 정렬 + 평균 → 한 장 저장. 응답은 takePicture 와 같은 모양 (pending URI 또는 업로드 맵)
+    private void onNightFrames(MainThreadResult result, UploadVariant upload, BurstCapture b, String mode,
+                               int rotation, int quality, List<YuvFrame> frames, long burstNs, Exception error) {
+        metrics.record(CameraMetrics.Stage.NIGHT_BURST, burstNs);
+        if (frames.isEmpty()) {
+            result.error("CAPTURE_ERR", error != null ? error.getMessage() : "No night frames", null);
+            return;
+        }
+        if (error != null) Log.w(TAG, "night burst incomplete: " + error.getMessage());
+
+        // 가운데 프레임 기준 (앞뒤 프레임과의 이동이 가장 작다)
+        YuvFrame out = frames.size() > 1 ? b.pool().acquire() : null;
+        FrameStacker.Result r = null;
+        if (out != null) {
+            try {
+                r = frameStacker.stack(frames.toArray(new YuvFrame[0]), frames.size() / 2, out);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "night stacking failed", e);
+                out.release();
+                out = null;
+            }
+        }
+        YuvFrame keep = out != null ? out : frames.get(frames.size() / 2); // 쌓지 못했으면 한 장이라도
+        for (YuvFrame f : frames) if (f != keep) f.release();
+
+        int pixels = keep.ySize();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("frames", frames.size());
+        stats.put("stacked", r != null);
+        stats.put("exposureMode", mode);
+        stats.put("width", keep.width);
+        stats.put("height", keep.height);
+        stats.put("burstMs", burstNs / 1_000_000.0);
+        if (r != null) {
+            long stackNs = r.alignNs + r.mergeNs;
+            long perMpNs = stackNs * 1_000_000L / pixels;
+            metrics.record(CameraMetrics.Stage.NIGHT_STACK_PER_MP, perMpNs);
+            stats.put("alignMs", r.alignNs / 1_000_000.0);
+            stats.put("mergeMs", r.mergeNs / 1_000_000.0);
+            stats.put("msPerMp", perMpNs / 1_000_000.0);
+            stats.put("mpPerSec", stackNs > 0 ? pixels * 1_000.0 / stackNs : 0);
+            stats.put("shiftX", r.dx);
+            stats.put("shiftY", r.dy);
+        }
+        lastNight = stats;
+        if (CameraMetrics.verbose) Log.d(TAG, "night " + stats);
+
+        Uri uri = saveFrame(keep, rotation, quality, upload, result);
+        if (uri == null) {
+            result.error("CAPTURE_ERR", "Night frame could not be saved", null);
+        } else if (upload == null) {
+            result.success(uri.toString());
+        }
+    }
+
+    // NV21 프레임 하나를 저장 큐로 (JPEG 인코딩은 writer 가). 큐가 차 있으면 이 스레드가 기다린다.
+    // upload 가 있으면 그 응답은 uploadReply 가 한다 (writer 가 축소본 결과를 알려줄 때)
+    private Uri saveFrame(YuvFrame f, int rotation, int quality, UploadVariant upload, MainThreadResult result) {
+        Uri uri;
+        try {
+            uri = NativeCameraCapture.insertPendingImage(context, StillFormat.JPEG);
+        } catch (Exception e) {
+            Log.e(TAG, "bracket frame insert failed", e);
+            f.release();
+            return null;
+        }
+        ImageSaveQueue.Job job = new ImageSaveQueue.Job(saveQueue.nextCaptureId(), uri, f);
+        job.setEncoding(rotation, quality);
+        if (upload != null) job.requestVariant(upload, uploadReply(result, uri));
+        if (saveQueue.submit(job, SaveQueue.Backpressure.BLOCK) == SaveQueue.Submit.REJECTED) {
+            job.release();
+            NativeCameraCapture.discardPending(context, uri);
+            return null;
+        }
+        return uri;
+    }
+
+    // ---------- Lens switching ----------
+    // 모두 카메라 스레드에서
+
+    private CameraInfo selectedCamera() throws CameraBackendException {
+        if (requestedLens != null) {
+            try {
+                return registry.info(requestedLens.cameraId);
+            } catch (CameraBackendException | IllegalArgumentException e) {
+                Log.w(TAG, "selected lens " + requestedLens + " gone, using default", e);
+                requestedLens = null;
+            }
+        }
+        return registry.defaultCamera();
+    }
+
+    // 모든 요청의 기본값
+    private void applyDefaultState() {
+        captureState.set(CaptureRequest.CONTROL_AF_MODE, CaptureRequest.CONTROL_AF_MODE_CONTINUOUS_PICTURE);
+        captureState.set(CaptureRequest.CONTROL_AE_MODE, CaptureRequest.CONTROL_AE_MODE_ON);
+    }
+
+    // 다른 카메라로 바뀜: 이전 카메라 기준으로 검증한 값(크롭 영역, 노출 보정 범위 등)은 버리고
+    // 마지막 설정 맵을 새 카메라의 컴파일러로 다시 반영한다 (setUpCamera 끝에서)
+    private void resetStateForCamera() {
+        Integer ev = captureState.get(CaptureRequest.CONTROL_AE_EXPOSURE_COMPENSATION);
+        captureState.clear();
+        applyDefaultState();
+        if (ev != null) captureState.set(CaptureRequest.CONTROL_AE_EXPOSURE_COMPENSATION, cameraInfo.clampAeComp(ev));
+        if (requestedLens != null && requestedLens.zoomRatio > 0 && Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            captureState.set(CaptureRequest.CONTROL_ZOOM_RATIO, requestedLens.zoomRatio);
+        }
+        if (pendingSettings == null) pendingSettings = lastSettings;
     }
 
-    // ---------- Background thread ----------
-    private void startBackgroundThread() {
-        bgThread = new HandlerThread("native-cam2-bg");
-        bgThread.start();
-        bgHandler = new Handler(bgThread.getLooper());
+    private void selectLens(CameraLens.Kind kind, String id, String physicalId, boolean preopen,
+                            MainThreadResult result) {
+        CameraLens target;
+        try {
+            target = CameraLens.choose(registry.lenses(), cameraId, kind, id, physicalId);
+        } catch (CameraBackendException e) {
+            result.error("CAMERA_ACCESS", e.getMessage(), null);
+            return;
+        }
+        if (target == null) {
+            result.error("NO_LENS", "No selectable lens for " + (id != null ? id : kind.key), null);
+            return;
+        }
+        if (captureInProgress || preopeningId != null) {
+            result.error("BUSY", "Capture or lens switch in progress", null);
+            return;
+        }
+        Map<String, Object> m = target.toMap();
+        m.put("method", switchLens(target, preopen));
+        result.success(m);
     }
-    private void stopBackgroundThread() {
-        if (bgThread != null) {
-            bgThread.quitSafely();
-            try { bgThread.join(); } catch (InterruptedException ignored) {}
-            bgThread = null; bgHandler = null;
+
+    // 전환 방법을 고르고 시작한다. 지연은 새 렌즈의 첫 프리뷰 프레임에서 잰다 (lensSwitched 이벤트)
+    private String switchLens(CameraLens target, boolean preopen) {
+        requestedLens = target;
+        lensSwitchStartNs = SystemClock.elapsedRealtimeNanos();
+        lensSwitchAfterTag = coalescer.generation();
+
+        if (!cameraExecutor.is(CameraExecutor.State.STREAMING)) {
+            // 멈춰 있거나 여는 중: 다음에 열 때 이 렌즈로 (warm pause 면 재개 때 새로 열도록 닫아 둔다)
+            lensSwitchStartNs = 0;
+            if (warmPaused) pauseCamera();
+            return lensSwitchMethod = "deferred";
+        }
+        if (target.cameraId.equals(cameraId)) {
+            // 같은 (논리) 카메라: 줌 비율만 바꾸면 HAL 이 렌즈를 옮긴다. 세션/표면 그대로
+            boolean changed = false;
+            if (target.zoomRatio > 0 && Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                changed = captureState.set(CaptureRequest.CONTROL_ZOOM_RATIO, target.zoomRatio);
+                changed |= captureState.set(CaptureRequest.SCALER_CROP_REGION, null); // 디지털 줌은 1x 로
+            }
+            if (changed) coalescer.request();
+            else lensSwitchStartNs = 0; // 이미 이 렌즈
+            return lensSwitchMethod = "zoomRatio";
+        }
+        if (preopen && registry.canOpenConcurrently(cameraId, target.cameraId)) {
+            // 이전 카메라는 새 디바이스가 열릴 때까지 계속 스트리밍
+            preopeningId = target.cameraId;
+            preopenStartNs = SystemClock.elapsedRealtimeNanos();
+            try {
+                registry.openCamera(target.cameraId, preopenCallback, cameraExecutor);
+                return lensSwitchMethod = "preopen";
+            } catch (CameraBackendException | SecurityException | IllegalArgumentException e) {
+                Log.w(TAG, "preopen of " + target.cameraId + " failed, reopening", e);
+                preopeningId = null;
+            }
         }
+        reopenForLens();
+        return lensSwitchMethod = "reopen";
+    }
+
+    // 세션/디바이스만 닫고 새 카메라로 연다. SurfaceTexture 는 유지 → TextureView 는 새 첫 프레임까지 마지막 프레임을 보여준다
+    private void reopenForLens() {
+        pauseCamera();
+        setUpCamera(lastViewWidth, lastViewHeight);
+        openCamera();
+        resumeStartNs = 0; // 재개가 아니라 전환으로 잰다
+    }
+
+    // 미리 열린 디바이스로 갈아탄다: 이전 세션/디바이스 정리 → 같은 표면으로 새 세션
+    private void adoptPreopened(CameraBackend.Device camera) {
+        pauseCamera();
+        setUpCamera(lastViewWidth, lastViewHeight);
+        cameraExecutor.moveTo(CameraExecutor.State.OPENING);
+        adoptDevice(camera);
+        createPreviewSession();
+    }
+
+    private final CameraBackend.DeviceCallback preopenCallback = new CameraBackend.DeviceCallback() {
+        @Override public void onOpened(CameraBackend.Device camera) {
+            // 미리 열기가 취소됐거나(pause/dispose) 다른 전환이 시작됨 → 늦게 온 디바이스는 닫는다.
+            // CLOSED 는 이전 카메라가 새 디바이스에 밀려 끊긴 경우 (동시 열기 목록이 틀린 기기)
+            boolean wanted = camera.id().equals(preopeningId)
+                    && (cameraExecutor.is(CameraExecutor.State.STREAMING) || cameraExecutor.is(CameraExecutor.State.CLOSED));
+            preopeningId = null;
+            if (!wanted || surfaceTexture == null) {
+                camera.close();
+                return;
+            }
+            metrics.record(CameraMetrics.Stage.OPEN, SystemClock.elapsedRealtimeNanos() - preopenStartNs);
+            adoptPreopened(camera);
+        }
+        @Override public void onDisconnected(CameraBackend.Device camera) {
+            if (camera == cameraHandle) {
+                stateCallback.onDisconnected(camera); // 이미 갈아탄 뒤면 평소와 같다
+                return;
+            }
+            camera.close();
+            onPreopenFailed(camera);
+        }
+        @Override public void onError(CameraBackend.Device camera, int error) {
+            if (camera == cameraHandle) {
+                stateCallback.onError(camera, error);
+                return;
+            }
+            Log.w(TAG, "preopen error=" + error + " camera=" + camera.id());
+            camera.close();
+            onPreopenFailed(camera);
+        }
+    };
+
+    // 미리 열기 실패 → 평소처럼 닫고 다시 연다
+    private void onPreopenFailed(CameraBackend.Device camera) {
+        if (!camera.id().equals(preopeningId)) return;
+        preopeningId = null;
+        if (cameraExecutor.is(CameraExecutor.State.STREAMING) || cameraExecutor.is(CameraExecutor.State.CLOSED)) {
+            lensSwitchMethod = "reopen";
+            reopenForLens();
+        }
+    }
+
+    // 새 렌즈로 만든 요청의 첫 프레임
+    private void onLensSwitchFrame(CameraCaptureSession session, CaptureRequest request, TotalCaptureResult result) {
+        Object tag = request.getTag();
+        if (!(tag instanceof Integer) || (Integer) tag <= lensSwitchAfterTag) return;
+        if (requestedLens == null || !requestedLens.cameraId.equals(session.getDevice().getId())) return;
+        lastLensSwitchNs = SystemClock.elapsedRealtimeNanos() - lensSwitchStartNs;
+        lensSwitchStartNs = 0;
+        metrics.record(CameraMetrics.Stage.LENS_SWITCH, lastLensSwitchNs);
+        Log.d(TAG, "lens switch (" + lensSwitchMethod + ") → " + requestedLens + " in " + lastLensSwitchNs / 1_000_000 + "ms");
+        Map<String, Object> e = requestedLens.toMap();
+        e.put("event", "lensSwitched");
+        e.put("method", lensSwitchMethod);
+        e.put("latencyMs", lastLensSwitchNs / 1_000_000.0);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // HAL 이 실제로 쓰고 있는 물리 렌즈 (줌 비율 전환은 HAL 이 늦게 옮길 수 있다)
+            e.put("activePhysicalId", result.get(android.hardware.camera2.CaptureResult.LOGICAL_MULTI_CAMERA_ACTIVE_PHYSICAL_ID));
+        }
+        events.emit(e);
     }
 
     // ---------- Capture still & save ----------
-    // 파일: android/app/src/main/java/com/example/camgent/NativeCameraView.java
 
+    // 카메라 스레드에서만 읽고 쓴다
+    private boolean captureInProgress = false;
+    // 촬영 중에 들어온 세션 재구성 요청 (출력 크기/포맷/ZSL 등) → 촬영이 끝나면 적용
+    private boolean reconfigurePending = false;
+    // 카메라 스레드 전용: 리더 리스너가 응답할 스틸. 이미지가 오기 전에 실패하면 stillCallback 이 대신 응답
+    private MainThreadResult pendingStill;
+
+    // writer 스레드에서 호출 → 저장 확정/실패 이벤트를 Flutter 로
+    private final ImageSaveQueue.Listener saveListener = new ImageSaveQueue.Listener() {
+        @Override public void onSaved(ImageSaveQueue.Job job, long queuedNs, long writeNs) {
+            metrics.recordSave(job.format, writeNs, job.bytesWritten);
+            Map<String, Object> e = saveEvent("saved", job);
+            e.put("format", job.format.key);
+            e.put("bytes", job.bytesWritten);
+            e.put("heapBytes", job.heapBytes);
+            e.put("queuedMs", queuedNs / 1_000_000.0);
+            e.put("writeMs", writeNs / 1_000_000.0);
+            events.emit(e);
+        }
+        @Override public void onFailed(ImageSaveQueue.Job job, Exception ex) {
+            Map<String, Object> e = saveEvent("saveFailed", job);
+            e.put("message", ex.getMessage());
+            events.emit(e);
+        }
+        @Override public void onDropped(ImageSaveQueue.Job job) {
+            events.emit(saveEvent("saveDropped", job));
+        }
+    };
 
-    private volatile boolean captureInProgress = false;
+    // RAW 스레드에서 호출
+    private final RawCapture.Listener rawListener = new RawCapture.Listener() {
+        @Override public void onRawSaved(Uri uri, long writeNs) {
+            metrics.record(CameraMetrics.Stage.RAW_SAVE, writeNs);
+            Map<String, Object> e = new HashMap<>();
+            e.put("event", "rawSaved");
+            e.put("uri", String.valueOf(uri));
+            e.put("writeMs", writeNs / 1_000_000.0);
+            events.emit(e);
+        }
+        @Override public void onRawFailed(Exception ex) {
+            Map<String, Object> e = new HashMap<>();
+            e.put("event", "rawFailed");
+            e.put("message", ex.getMessage());
+            events.emit(e);
+        }
+    };
 
-// ...
+    private static Map<String, Object> saveEvent(String name, ImageSaveQueue.Job job) {
+        Map<String, Object> e = new HashMap<>();
+        e.put("event", name);
+        e.put("captureId", job.captureId);
+        e.put("uri", String.valueOf(job.uri));
+        return e;
+    }
+
+    private static UploadVariant uploadVariantFrom(Map<?, ?> m) {
+        Object e = m.get("maxEdge"), q = m.get("quality");
+        return new UploadVariant(
+                e instanceof Number ? ((Number) e).intValue() : UploadVariant.DEFAULT_MAX_EDGE,
+                q instanceof Number ? ((Number) q).intValue() : UploadVariant.DEFAULT_QUALITY);
+    }
+
+    // 축소본이 준비되면 (writer 스레드) 원본 URI 와 함께 응답
+    private UploadVariant.Callback uploadReply(MainThreadResult result, Uri pendingUri) {
+        return (r, err) -> {
+            Map<String, Object> m = new HashMap<>();
+            m.put("uri", pendingUri.toString());
+            if (r != null) {
+                metrics.record(CameraMetrics.Stage.UPLOAD_VARIANT, r.encodeNs);
+                m.put("uploadPath", r.file.getAbsolutePath());
+                m.put("uploadUri", Uri.fromFile(r.file).toString());
+                m.put("uploadWidth", r.width);
+                m.put("uploadHeight", r.height);
+                m.put("uploadBytes", r.bytes);
+                m.put("encodeMs", r.encodeNs / 1_000_000.0);
+            } else {
+                // 원본은 그대로 저장되므로 촬영 자체는 성공으로 돌려준다
+                m.put("uploadError", String.valueOf(err != null ? err.getMessage() : null));
+            }
+            result.success(m);
+        };
+    }
 
-    private void captureStillAndSave(MethodChannel.Result result) {
-        if (cameraDevice == null || captureSession == null || imageReader == null) {
+    private void captureStillAndSave(MainThreadResult result, long shutterNs, UploadVariant upload) {
+        if (!cameraExecutor.is(CameraExecutor.State.STREAMING)
+                || cameraDevice == null || captureSession == null || imageReader == null) {
             result.error("NO_CAMERA", "Camera not ready", null);
             return;
         }
+        // NIGHT 씬: 단일 스틸 대신 버스트 스태킹 (버스트 출력을 못 붙였으면 평소 경로)
+        if (nightRequested && burst != null) {
+            captureNight(result, upload);
+            return;
+        }
 
         // 1) 중복 촬영 가드
         if (captureInProgress) {
+            metrics.count(CameraMetrics.Counter.BUSY_REJECTIONS);
             result.error("BUSY", "Capture already in progress", null);
             return;
         }
         captureInProgress = true;
-        android.util.Log.d(TAG, "captureStillAndSave() start");
+        if (CameraMetrics.verbose) Log.d(TAG, "captureStillAndSave() start");
+        final StillFormat format = stillConfig.format; // 이 리더가 만들어질 때의 형식
 
         // 2) 혹시 남아있을 수 있는 이전 이미지 모두 비우기 (드레인)
         try {
@@ -406,8 +2010,8 @@ public class NativeCameraView implements PlatformView, MethodChannel.MethodCallH
                 drain.close();
                 drained++;
             }
-            if (drained > 0) {
-                android.util.Log.d(TAG, "Drained stale images: " + drained);
+            if (drained > 0 && CameraMetrics.verbose) {
+                Log.d(TAG, "Drained stale images: " + drained);
             }
         } catch (Throwable t) {
             // ignore
@@ -416,93 +2020,165 @@ public class NativeCameraView implements PlatformView, MethodChannel.MethodCallH
         // 3) 먼저 혹시 붙어있던 리스너 제거 (중복 방지)
         imageReader.setOnImageAvailableListener(null, null);
 
-        final boolean[] replied = { false };
-
-        // 4) 이번 촬영용 리스너 1회만 붙이기
+        // 4) 이번 촬영용 리스너 1회만 붙이기 (카메라 스레드에서 호출됨)
+        pendingStill = result;
+        SharedReader<ImageReader> source = stillReader; // 이 리스너가 붙은 리더
         imageReader.setOnImageAvailableListener(reader -> {
             Image image = null;
+            pendingStill = null; // 이제 이 리스너가 응답한다
             try {
-                android.util.Log.d(TAG, "onImageAvailable()");
-                // 한 번만 최신 이미지 획득
-                image = reader.acquireLatestImage(); // 핵심: acquireNextImage() 말고 Latest
+                if (CameraMetrics.verbose) Log.d(TAG, "onImageAvailable()");
+                // 큐가 여러 장이므로 도착 순서대로 한 장 (Latest 는 앞선 프레임을 버린다)
+                image = reader.acquireNextImage();
                 if (image == null) {
-                    android.util.Log.w(TAG, "No image returned by acquireLatestImage()");
-                    // 메인스레드로 에러 전달
-                    new Handler(Looper.getMainLooper()).post(() -> {
-                        if (!replied[0]) {
-                            replied[0] = true;
-                            captureInProgress = false;
-                            result.error("NO_IMAGE", "No image to acquire", null);
-                        }
-                    });
+                    Log.w(TAG, "No image returned by acquireNextImage()");
+                    captureFinished();
+                    result.error("NO_IMAGE", "No image to acquire", null);
                     return;
                 }
 
-                ByteBuffer buffer = image.getPlanes()[0].getBuffer();
-                byte[] jpeg = new byte[buffer.remaining()];
-                buffer.get(jpeg);
-                android.util.Log.d(TAG, "JPEG bytes: " + jpeg.length);
+                long imageNs = SystemClock.elapsedRealtimeNanos();
+                lastShutterToImageNs = imageNs - shutterNs;
+                metrics.record(CameraMetrics.Stage.SHUTTER_TO_IMAGE, lastShutterToImageNs);
+                if (CameraMetrics.verbose) {
+                    Log.d(TAG, "shutter→image(" + lastCaptureMode + ") "
+                            + lastShutterToImageNs / 1_000_000 + "ms");
+                }
 
-                final String uriString = NativeCameraCapture.saveJpegToMediaStore(context, jpeg);
-                android.util.Log.d(TAG, "Saved to MediaStore: " + uriString);
+                // pending 항목만 만들고 실제 쓰기는 writer 스테이지로.
+                // 플레인은 복사하지 않고 Image 째로 넘긴다 (writer 가 fd 에 직접 쓰거나 HEIC 로 인코딩하고 닫음)
+                Uri pendingUri = NativeCameraCapture.insertPendingImage(context, format);
+                ImageSaveQueue.Job job = new ImageSaveQueue.Job(saveQueue.nextCaptureId(), pendingUri, format, image, source);
+                image = null; // 소유권 이전
+                if (!format.isEncodedByCamera()) job.setEncoding(getJpegOrientation(), encodeQuality());
+                if (upload != null) job.requestVariant(upload, uploadReply(result, pendingUri));
+                if (CameraMetrics.verbose) Log.d(TAG, format.key + " bytes: " + job.size);
+                if (saveQueue.submit(job) == SaveQueue.Submit.REJECTED) {
+                    job.release();
+                    NativeCameraCapture.discardPending(context, pendingUri);
+                    captureFinished();
+                    metrics.count(CameraMetrics.Counter.BUSY_REJECTIONS);
+                    result.error("BUSY", "Save queue full", null);
+                    return;
+                }
+                metrics.record(CameraMetrics.Stage.ENQUEUE, SystemClock.elapsedRealtimeNanos() - imageNs);
+                if (CameraMetrics.verbose) {
+                    Log.d(TAG, "Queued save id=" + job.captureId + " uri=" + pendingUri);
+                }
 
-                new Handler(Looper.getMainLooper()).post(() -> {
-                    if (!replied[0]) {
-                        replied[0] = true;
-                        captureInProgress = false;
-                        result.success(uriString);
-                    }
-                });
+                captureFinished();
+                if (upload == null) result.success(pendingUri.toString());
             } catch (Exception e) {
-                android.util.Log.e(TAG, "Capture save error", e);
-                new Handler(Looper.getMainLooper()).post(() -> {
-                    if (!replied[0]) {
-                        replied[0] = true;
-                        captureInProgress = false;
-                        result.error("CAPTURE_ERR", e.getMessage(), null);
-                    }
-                });
+                Log.e(TAG, "Capture save error", e);
+                captureFinished();
+                result.error("CAPTURE_ERR", e.getMessage(), null);
             } finally {
                 // 5) 반드시 닫기 (이거 안 하면 maxImages 경고 납니다)
                 if (image != null) {
                     image.close();
-                    android.util.Log.d(TAG, "Image closed");
                 }
                 // 6) 1회 처리 후 리스너 해제
-                imageReader.setOnImageAvailableListener(null, null);
+                reader.setOnImageAvailableListener(null, null);
             }
-        }, bgHandler);
+        }, cameraExecutor.handler());
 
-        // 7) 캡처 요청 발사 (스틸만 ImageReader 타겟)
+        // 7-a) ZSL: 링버퍼에서 탭 시각에 가장 가까운 프레임을 재처리 → JPEG
+        if (zsl != null && zslWriter != null && submitZslReprocess(shutterNs)) {
+            return;
+        }
+
+        // 7-b) 일반 경로: (필요할 때만) 초점 잠금/AE 프리캡처 후 캡처 요청
+        lastCaptureMode = "still";
+        if (!precaptureEnabled) {
+            submitStill(result);
+            return;
+        }
+        precapture.start(captureState.get(CaptureRequest.CONTROL_AF_MODE), captureState.get(CaptureRequest.CONTROL_AE_MODE),
+                cameraInfo != null && cameraInfo.hasAutoFocus, outcome -> {
+                    lastPrecapture = outcome;
+                    recordPrecapture(outcome);
+                    submitStill(result);
+                });
+    }
+
+    private void recordPrecapture(PrecaptureSequence.Outcome o) {
+        if (o.fastPath) metrics.count(CameraMetrics.Counter.PRECAPTURE_FAST_PATH);
+        if (o.timedOut) metrics.count(CameraMetrics.Counter.PRECAPTURE_TIMEOUTS);
+        if (o.afTriggered) metrics.record(CameraMetrics.Stage.PRECAPTURE_AF, o.afNs);
+        if (o.aeNs > 0) metrics.record(CameraMetrics.Stage.PRECAPTURE_AE, o.aeNs);
+        if (CameraMetrics.verbose) Log.d(TAG, o.toString());
+    }
+
+    // 스틸만 ImageReader 타겟. 프리캡처를 기다리는 사이 세션이 닫혔을 수 있다
+    private void submitStill(MainThreadResult result) {
+        if (!cameraExecutor.is(CameraExecutor.State.STREAMING) || captureSession == null || imageReader == null) {
+            captureFinished();
+            pendingStill = null;
+            if (imageReader != null) imageReader.setOnImageAvailableListener(null, null);
+            result.error("NO_CAMERA", "Camera closed before capture", null);
+            return;
+        }
+        boolean withRaw = false;
         try {
             final CaptureRequest.Builder still =
                     cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_STILL_CAPTURE);
             still.addTarget(imageReader.getSurface());
-            still.set(CaptureRequest.CONTROL_AF_MODE, CaptureRequest.CONTROL_AF_MODE_CONTINUOUS_PICTURE);
-            still.set(CaptureRequest.CONTROL_AE_MODE, CaptureRequest.CONTROL_AE_MODE_ON);
+            // 프리뷰와 같은 상태(줌/ISO/노출/플래시 등)에서 파생 → 사진이 프리뷰와 일치
+            captureState.applyTo(still);
             still.set(CaptureRequest.JPEG_ORIENTATION, getJpegOrientation());
+            // RAW 는 앞 DNG 가 아직 저장 중이면 건너뛴다 (메모리 상한)
+            withRaw = raw != null && raw.tryReserve();
+            if (withRaw) {
+                still.addTarget(raw.surface());
+                still.setTag(STILL_WITH_RAW);
+            }
 
-            android.util.Log.d(TAG, "captureSession.capture()");
-            captureSession.capture(still.build(), new CameraCaptureSession.CaptureCallback(){}, bgHandler);
+            if (CameraMetrics.verbose) Log.d(TAG, "captureSession.capture() raw=" + withRaw);
+            captureSession.capture(still.build(), stillCallback, cameraExecutor.handler());
         } catch (Exception e) {
-            android.util.Log.e(TAG, "capture() error", e);
-            if (!replied[0]) {
-                replied[0] = true;
-                captureInProgress = false;
-                result.error("CAPTURE_ERR", e.getMessage(), null);
-            }
+            Log.e(TAG, "capture() error", e);
+            if (withRaw) raw.onFailed();
+            captureFinished();
+            pendingStill = null;
+            result.error("CAPTURE_ERR", e.getMessage(), null);
             // 리스너도 안전하게 해제
             imageReader.setOnImageAvailableListener(null, null);
         }
     }
 
 
-    private int getJpegOrientation() {
+    // 성공하면 true. 링이 비었거나 실패하면 false → 일반 경로로
+    private boolean submitZslReprocess(long shutterNs) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) return false;
+        ZslRingBuffer.Selection sel = zsl.take(shutterNs);
+        if (sel == null) return false;
+        boolean queued = false;
         try {
-            CameraCharacteristics c = cameraManager.getCameraCharacteristics(cameraId);
-            Integer sensorOrientation = c.get(CameraCharacteristics.SENSOR_ORIENTATION);
-            if (sensorOrientation == null) sensorOrientation = 0;
+            CaptureRequest.Builder rb = cameraDevice.createReprocessCaptureRequest(sel.result);
+            rb.addTarget(imageReader.getSurface());
+            rb.set(CaptureRequest.JPEG_ORIENTATION, getJpegOrientation());
+            zslWriter.queueInputImage(sel.image); // 소유권 이전 (image 는 여기서 닫힘)
+            queued = true;
+            captureSession.capture(rb.build(), stillCallback, cameraExecutor.handler());
+            lastCaptureMode = "zsl";
+            lastShutterToFrameNs = sel.shutterToFrameNs;
+            if (CameraMetrics.verbose) Log.d(TAG, "ZSL reprocess, shutter→frame " + sel.shutterToFrameNs / 1_000 + "us");
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "ZSL reprocess error, fallback to still", e);
+            if (!queued) sel.image.close();
+            return false;
+        }
+    }
+
+    // HEIC_ENCODED 품질: JPEG_QUALITY 설정을 그대로 따른다
+    private int encodeQuality() {
+        Byte q = captureState.get(CaptureRequest.JPEG_QUALITY);
+        return q != null ? q : ImageSaveQueue.DEFAULT_ENCODE_QUALITY;
+    }
 
+    private int getJpegOrientation() {
+        try {
             int deviceRotation = 0;
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
                 deviceRotation = context.getDisplay() != null ? context.getDisplay().getRotation() : 0;
@@ -511,273 +2187,74 @@ public class NativeCameraView implements PlatformView, MethodChannel.MethodCallH
                 if (wm != null && wm.getDefaultDisplay() != null)
                     deviceRotation = wm.getDefaultDisplay().getRotation();
             }
-
-            int degrees;
-            switch (deviceRotation) {
-                case Surface.ROTATION_90:  degrees = 90;  break;
-                case Surface.ROTATION_180: degrees = 180; break;
-                case Surface.ROTATION_270: degrees = 270; break;
-                default:                    degrees = 0;
-            }
-            return (sensorOrientation + degrees) % 360;
+            return Orientation.jpeg(cameraInfo.sensorOrientation,
+                    cameraInfo.facing == CameraInfo.FACING_FRONT,
+                    Orientation.surfaceRotationDegrees(deviceRotation));
         } catch (Exception e) { return 0; }
     }
 
     // ---------- Settings / Zoom / Exposure ----------
     private void applySettings(Map<String, Object> s) {
-        if (cameraDevice == null || captureSession == null || previewSurface == null) return;
-
-        Log.d(TAG, "applySettings() called with: " + s); // ★ 전체 맵
+        if (CameraMetrics.verbose) Log.d(TAG, "applySettings() called with: " + s);
+        lastSettings = s;
 
+        // 카메라 특성을 아직 모르면 컴파일을 미뤘다가 setUpCamera 에서 반영
+        if (settingsCompiler == null) {
+            pendingSettings = s;
+            return;
+        }
         try {
-            final CaptureRequest.Builder b =
-                    cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
-            b.addTarget(previewSurface);
-
-            // ISO
-            if (s.containsKey("SENSOR_SENSITIVITY")) {
-                int iso = ((Number) s.get("SENSOR_SENSITIVITY")).intValue();
-                b.set(CaptureRequest.SENSOR_SENSITIVITY, iso);
-                Log.d(TAG, "→ ISO=" + iso);
-            }
-
-            // 노출시간(ns) - 네이티브 키 기준
-            if (s.containsKey("SENSOR_EXPOSURE_TIME_NS")) {
-                long ns = ((Number) s.get("SENSOR_EXPOSURE_TIME_NS")).longValue();
-                b.set(CaptureRequest.SENSOR_EXPOSURE_TIME, ns);
-                Log.d(TAG, "→ Exposure(ns)=" + ns);
+            // 같은 내용의 프리셋이면 캐시된 플랜 → 파싱/검증 생략
+            SettingsPlan plan = settingsCompiler.compile(s);
+            if (!plan.warnings.isEmpty()) Log.w(TAG, "applySettings warnings: " + plan.warnings);
+
+            // RAW 출력은 세션 구성이 바뀌므로 켜고 끌 때만 재구성
+            if (plan.rawOutput != rawRequested) {
+                rawRequested = plan.rawOutput;
+                if (cameraInfo != null && cameraInfo.supportsRaw()) reconfigureSession();
             }
-
-            // AE 보정
-            if (s.containsKey("CONTROL_AE_EXPOSURE_COMPENSATION")) {
-                int ev = ((Number) s.get("CONTROL_AE_EXPOSURE_COMPENSATION")).intValue();
-                b.set(CaptureRequest.CONTROL_AE_EXPOSURE_COMPENSATION, ev);
-                Log.d(TAG, "→ AE Comp=" + ev + " (range " + aeCompRange + ")");
-            }
-
-            // AE/AWB Lock
-            if (s.containsKey("CONTROL_AE_LOCK")) {
-                boolean lock = (Boolean) s.get("CONTROL_AE_LOCK");
-                b.set(CaptureRequest.CONTROL_AE_LOCK, lock);
-                Log.d(TAG, "→ AE Lock=" + lock);
-            }
-            if (s.containsKey("CONTROL_AWB_LOCK")) {
-                boolean lock = (Boolean) s.get("CONTROL_AWB_LOCK");
-                b.set(CaptureRequest.CONTROL_AWB_LOCK, lock);
-                Log.d(TAG, "→ AWB Lock=" + lock);
+            // 야간 스태킹도 버스트 출력이 필요하다 (브래킷이 이미 붙여 뒀으면 그대로)
+            if (plan.nightStack != nightRequested) {
+                nightRequested = plan.nightStack;
+                if (!bracketEnabled) reconfigureSession();
             }
 
-            // 플래시/AE 모드
-            if (s.containsKey("FLASH_MODE")) {
-                String fm = String.valueOf(s.get("FLASH_MODE")).toUpperCase();
-                if ("AUTO".equals(fm)) {
-                    b.set(CaptureRequest.CONTROL_AE_MODE, CameraMetadata.CONTROL_AE_MODE_ON_AUTO_FLASH);
-                    Log.d(TAG, "→ AE Mode=AUTO_FLASH");
-                } else {
-                    Integer flash = flashModeFromString(fm);
-                    if (flash != null) {
-                        b.set(CaptureRequest.FLASH_MODE, flash);
-                        Log.d(TAG, "→ FlashMode=" + fm);
-                    }
-                    b.set(CaptureRequest.CONTROL_AE_MODE, CameraMetadata.CONTROL_AE_MODE_ON);
-                }
-            } else {
-                b.set(CaptureRequest.CONTROL_AE_MODE, CameraMetadata.CONTROL_AE_MODE_ON);
-                Log.d(TAG, "→ AE Mode=ON");
-            }
-
-            // Scene
-            if (s.containsKey("CONTROL_SCENE_MODE")) {
-                String smS = String.valueOf(s.get("CONTROL_SCENE_MODE"));
-                Integer sm = sceneModeFromString(smS);
-                if (sm != null) {
-                    b.set(CaptureRequest.CONTROL_MODE, CameraMetadata.CONTROL_MODE_USE_SCENE_MODE);
-                    b.set(CaptureRequest.CONTROL_SCENE_MODE, sm);
-                    Log.d(TAG, "→ SceneMode=" + smS);
+            // 세션이 아직 없어도 상태는 기억해 둔다 → 세션이 구성되면 그대로 반영됨
+            // 바뀐 게 있을 때만 (다음 프레임 경계에서) 반복 요청 재제출
+            if (captureState.apply(plan)) {
+                // 스트리밍 중일 때만 "설정 → 반영 프레임" 지연을 잰다 (합쳐진 갱신은 가장 이른 시각 기준)
+                if (settingsPendingNs == 0 && cameraExecutor.is(CameraExecutor.State.STREAMING)) {
+                    settingsPendingNs = SystemClock.elapsedRealtimeNanos();
+                    settingsAfterTag = coalescer.generation();
                 }
+                coalescer.request();
+                if (CameraMetrics.verbose) Log.d(TAG, "Preview request update queued: " + plan);
             }
-
-            // Focus distance
-            if (s.containsKey("LENS_FOCUS_DISTANCE")) {
-                float fd = ((Number) s.get("LENS_FOCUS_DISTANCE")).floatValue();
-                b.set(CaptureRequest.LENS_FOCUS_DISTANCE, fd);
-                Log.d(TAG, "→ FocusDistance=" + fd);
-            }
-
-            // FPS Range
-            if (s.containsKey("CONTROL_AE_TARGET_FPS_RANGE")) {
-                @SuppressWarnings("unchecked")
-                List<Number> r = (List<Number>) s.get("CONTROL_AE_TARGET_FPS_RANGE");
-                if (r != null && r.size() == 2) {
-                    Range<Integer> fps = new Range<>(r.get(0).intValue(), r.get(1).intValue());
-                    b.set(CaptureRequest.CONTROL_AE_TARGET_FPS_RANGE, fps);
-                    Log.d(TAG, "→ FPS Range=" + fps);
-                }
-            }
-
-            // JPEG Quality (미리보기엔 영향 X, 캡처용 정보)
-            if (s.containsKey("JPEG_QUALITY")) {
-                int q = ((Number) s.get("JPEG_QUALITY")).intValue();
-                b.set(CaptureRequest.JPEG_QUALITY, (byte) q);
-                Log.d(TAG, "→ JPEG Quality=" + q);
-            }
-
-            // 마무리
-            b.set(CaptureRequest.CONTROL_AF_MODE, CaptureRequest.CONTROL_AF_MODE_CONTINUOUS_PICTURE);
-            if (b.get(CaptureRequest.CONTROL_AE_MODE) == null)
-                b.set(CaptureRequest.CONTROL_AE_MODE, CameraMetadata.CONTROL_AE_MODE_ON);
-
-            captureSession.setRepeatingRequest(b.build(), null, null);
-            Log.d(TAG, "★ Preview request updated with new settings.");
-
         } catch (Exception e) {
             Log.e(TAG, "applySettings error", e);
         }
     }
 
-    /* ── 문자열 → Camera2 상수 매핑 ── */
-    private Integer flashModeFromString(String s) {
-        switch (s.toUpperCase()) {
-            case "OFF":    return CameraMetadata.FLASH_MODE_OFF;
-            case "SINGLE": return CameraMetadata.FLASH_MODE_SINGLE;
-            case "TORCH":  return CameraMetadata.FLASH_MODE_TORCH;
-            default:       return null;
-        }
-    }
-    // sceneModeFromString
-    private Integer sceneModeFromString(String s) {
-        switch (s.toUpperCase()) {
-            case "AUTO":
-            case "OFF":
-            case "DISABLED":
-                return CameraMetadata.CONTROL_SCENE_MODE_DISABLED;
-            case "PORTRAIT": return CameraMetadata.CONTROL_SCENE_MODE_PORTRAIT;
-            case "NIGHT":    return CameraMetadata.CONTROL_SCENE_MODE_NIGHT;
-            case "SPORTS":   return CameraMetadata.CONTROL_SCENE_MODE_SPORTS;
-            default: return null;
-        }
-    }
-    private Integer colorModeFromString(String s) {
-        switch (s.toUpperCase()) {
-            case "OFF":              return CameraMetadata.COLOR_CORRECTION_MODE_TRANSFORM_MATRIX;
-            case "FAST":             return CameraMetadata.COLOR_CORRECTION_MODE_FAST;
-            case "HIGH_QUALITY":     return CameraMetadata.COLOR_CORRECTION_MODE_HIGH_QUALITY;
-            case "TRANSFORM_MATRIX": return CameraMetadata.COLOR_CORRECTION_MODE_TRANSFORM_MATRIX;
-            default: return null;
-        }
-    }
-    // effectModeFromString
-    private Integer effectModeFromString(String s) {
-        switch (s.toUpperCase()) {
-            case "NONE":
-            case "OFF":  return CameraMetadata.CONTROL_EFFECT_MODE_OFF;
-            case "MONO": return CameraMetadata.CONTROL_EFFECT_MODE_MONO;
-            case "NEGATIVE": return CameraMetadata.CONTROL_EFFECT_MODE_NEGATIVE;
-            case "SEPIA": return CameraMetadata.CONTROL_EFFECT_MODE_SEPIA;
-            default: return null;
-        }
-    }
-    private Integer noiseReductionFromString(String s) {
-        switch (s.toUpperCase()) {
-            case "OFF":          return CameraMetadata.NOISE_REDUCTION_MODE_OFF;
-            case "FAST":         return CameraMetadata.NOISE_REDUCTION_MODE_FAST;
-            case "HIGH_QUALITY": return CameraMetadata.NOISE_REDUCTION_MODE_HIGH_QUALITY;
-            case "MINIMAL":      return CameraMetadata.NOISE_REDUCTION_MODE_MINIMAL;
-            default:             return null;
-        }
-    }
-    // tonemapFromString
-    private Integer tonemapFromString(String s) {
-        switch (s.toUpperCase()) {
-            case "CONTRAST_CURVE": return CameraMetadata.TONEMAP_MODE_CONTRAST_CURVE;
-            case "FAST":           return CameraMetadata.TONEMAP_MODE_FAST;
-            case "HIGH_QUALITY":   return CameraMetadata.TONEMAP_MODE_HIGH_QUALITY;
-            case "GAMMA_VALUE":    return CameraMetadata.TONEMAP_MODE_GAMMA_VALUE; // ← 추가
-            default: return null;
-        }
-    }
-    private Integer antibandingFromString(String s) {
-        switch (s.toUpperCase()) {
-            case "OFF":  return CameraMetadata.CONTROL_AE_ANTIBANDING_MODE_OFF;
-            case "50HZ": return CameraMetadata.CONTROL_AE_ANTIBANDING_MODE_50HZ;
-            case "60HZ": return CameraMetadata.CONTROL_AE_ANTIBANDING_MODE_60HZ;
-            case "AUTO": return CameraMetadata.CONTROL_AE_ANTIBANDING_MODE_AUTO;
-            default:     return null;
-        }
-    }
-    private MeteringRectangle[] parseRegions(String text) {
-        if (text == null || text.trim().isEmpty()) return null;
-        if (activeArrayRect == null) return null;
-
-        String t = text.trim().toLowerCase();
-        if ("full".equals(t)) {
-            return new MeteringRectangle[]{
-                    new MeteringRectangle(activeArrayRect, MeteringRectangle.METERING_WEIGHT_MAX)
-            };
-        }
-        if ("center".equals(t)) {
-            int w = activeArrayRect.width()/3;
-            int h = activeArrayRect.height()/3;
-            int l = activeArrayRect.left + (activeArrayRect.width()-w)/2;
-            int tp = activeArrayRect.top + (activeArrayRect.height()-h)/2;
-            return new MeteringRectangle[]{
-                    new MeteringRectangle(new Rect(l, tp, l+w, tp+h), MeteringRectangle.METERING_WEIGHT_MAX)
-            };
-        }
-
-        // 숫자 포맷 "x,y,w,h; x,y,w,h"
-        try {
-            String[] parts = text.split(";");
-            MeteringRectangle[] out = new MeteringRectangle[parts.length];
-            for (int i=0;i<parts.length;i++){
-                String[] nums = parts[i].trim().split(",");
-                if (nums.length != 4) return null;
-                int x = Integer.parseInt(nums[0].trim());
-                int y = Integer.parseInt(nums[1].trim());
-                int w = Integer.parseInt(nums[2].trim());
-                int h = Integer.parseInt(nums[3].trim());
-                out[i] = new MeteringRectangle(new Rect(x,y,x+w,y+h),
-                        MeteringRectangle.METERING_WEIGHT_MAX);
-            }
-            return out;
-        } catch (Exception e) { return null; }
-    }
-
 
     private void applyZoom(float zoom) {
-        if (cameraDevice == null || captureSession == null || previewSurface == null || activeArrayRect == null) return;
+        if (cameraInfo == null) return;
         try {
-            float z = Math.max(1f, Math.min(zoom, maxZoom));
-            int w = activeArrayRect.width(), h = activeArrayRect.height();
+            float z = Math.max(1f, Math.min(zoom, cameraInfo.maxZoom));
+            int w = cameraInfo.activeWidth(), h = cameraInfo.activeHeight();
             int cropW = (int)(w / z), cropH = (int)(h / z);
             int left = (w - cropW) / 2, top = (h - cropH) / 2;
             Rect zoomRect = new Rect(left, top, left + cropW, top + cropH);
 
-            CaptureRequest.Builder builder =
-                    cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
-            builder.addTarget(previewSurface);
-            builder.set(CaptureRequest.SCALER_CROP_REGION, zoomRect);
-            builder.set(CaptureRequest.CONTROL_AF_MODE, CaptureRequest.CONTROL_AF_MODE_CONTINUOUS_PICTURE);
-            builder.set(CaptureRequest.CONTROL_AE_MODE, CaptureRequest.CONTROL_AE_MODE_ON);
-
-            captureSession.setRepeatingRequest(builder.build(), null, bgHandler);
+            if (captureState.set(CaptureRequest.SCALER_CROP_REGION, zoomRect)) coalescer.request();
         } catch (Exception e) { e.printStackTrace(); }
     }
 
     private void applyExposureCompensation(float exposure) {
-        if (cameraDevice == null || captureSession == null || previewSurface == null) return;
         try {
             int ev = (int)Math.round(exposure);
-            ev = Math.max(aeCompRange.getLower(), Math.min(aeCompRange.getUpper(), ev));
-
-            CaptureRequest.Builder builder =
-                    cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
-            builder.addTarget(previewSurface);
-            builder.set(CaptureRequest.CONTROL_AE_EXPOSURE_COMPENSATION, ev);
-            builder.set(CaptureRequest.CONTROL_AF_MODE, CaptureRequest.CONTROL_AF_MODE_CONTINUOUS_PICTURE);
-            builder.set(CaptureRequest.CONTROL_AE_MODE, CaptureRequest.CONTROL_AE_MODE_ON);
+            if (cameraInfo != null) ev = cameraInfo.clampAeComp(ev);
 
-            captureSession.setRepeatingRequest(builder.build(), null, bgHandler);
+            if (captureState.set(CaptureRequest.CONTROL_AE_EXPOSURE_COMPENSATION, ev)) coalescer.request();
         } catch (Exception e) { e.printStackTrace(); }
     }
 }
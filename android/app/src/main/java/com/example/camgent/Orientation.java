@@ -0,0 +1,24 @@
+package com.example.camgent;
+
+/**
+ * 회전 계산 (플랫폼 무관). 화면 회전(Surface.ROTATION_*)과 센서 장착 방향으로 JPEG_ORIENTATION /
+ * 녹화 방향 힌트를 구한다.
+ *
+ * 화면 회전은 기기를 반시계로 돌린 각도라 후면은 센서 방향에서 빼고, 전면은 거울상이라 더한다
+ * (CaptureRequest.JPEG_ORIENTATION 문서의 계산과 같다).
+ */
+public final class Orientation {
+    private Orientation() {}
+
+    /** Surface.ROTATION_0..270 (0..3) → 도. 모르는 값은 0 */
+    public static int surfaceRotationDegrees(int rotation) {
+        return rotation >= 0 && rotation <= 3 ? rotation * 90 : 0;
+    }
+
+    /** 저장 이미지를 바로 세우려면 돌려야 하는 각도 (0/90/180/270) */
+    public static int jpeg(int sensorOrientation, boolean frontFacing, int displayDegrees) {
+        int d = ((displayDegrees + 45) / 90 * 90) % 360; // 90 단위로
+        int r = frontFacing ? sensorOrientation + d : sensorOrientation - d;
+        return ((r % 360) + 360) % 360;
+    }
+}
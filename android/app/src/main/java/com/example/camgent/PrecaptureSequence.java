@@ -0,0 +1,239 @@
+package com.example.camgent;
+
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraMetadata;
+import android.hardware.camera2.CaptureRequest;
+import android.hardware.camera2.CaptureResult;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 스틸 촬영 전 AF 잠금 / AE 프리캡처 시퀀스 (카메라 스레드 전용).
+ * 프리뷰 결과(onResult)로 진행된다:
+ *   이미 수렴했으면 바로 촬영 (fast path)
+ *   아니면 트리거 요청 1회 → 초점 잠김 / 프리캡처 끝날 때까지 대기 (시간 제한) → 촬영 → AF 잠금 해제
+ * AE 프리캡처는 플래시가 터지거나 저조도(FLASH_REQUIRED)일 때만 돌린다.
+ */
+public final class PrecaptureSequence {
+    private static final String TAG = "Cam2Native";
+    public static final long AF_TIMEOUT_MS = 1_000;
+    public static final long AE_TIMEOUT_MS = 1_500;
+    // 트리거 후 이만큼 지나도 PRECAPTURE 상태가 안 보이면 HAL 이 건너뛴 것으로 본다
+    private static final int AE_SKIP_FRAMES = 4;
+
+    /** 트리거만 담은 1회성 요청을 보낸다 (반복 요청에 트리거를 넣으면 매 프레임 다시 걸린다) */
+    public interface Host {
+        void submitTrigger(Integer afTrigger, Integer aeTrigger) throws CameraAccessException;
+    }
+
+    public interface Done {
+        void onReady(Outcome outcome);
+    }
+
+    /** 시퀀스 한 번의 결과. 시간은 start() 기준 */
+    public static final class Outcome {
+        public final boolean fastPath;
+        public final boolean afTriggered;
+        public final boolean aeTriggered;
+        public final boolean timedOut;
+        public final long afNs;
+        public final long aeNs;
+        public final long totalNs;
+        public final int afState;
+        public final int aeState;
+
+        Outcome(boolean fastPath, boolean afTriggered, boolean aeTriggered, boolean timedOut,
+                long afNs, long aeNs, long totalNs, int afState, int aeState) {
+            this.fastPath = fastPath;
+            this.afTriggered = afTriggered;
+            this.aeTriggered = aeTriggered;
+            this.timedOut = timedOut;
+            this.afNs = afNs;
+            this.aeNs = aeNs;
+            this.totalNs = totalNs;
+            this.afState = afState;
+            this.aeState = aeState;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new HashMap<>();
+            m.put("fastPath", fastPath);
+            m.put("afTriggered", afTriggered);
+            m.put("aeTriggered", aeTriggered);
+            m.put("timedOut", timedOut);
+            m.put("afMs", afNs / 1_000_000.0);
+            m.put("aeMs", aeNs / 1_000_000.0);
+            m.put("totalMs", totalNs / 1_000_000.0);
+            m.put("afState", afState);
+            m.put("aeState", aeState);
+            return m;
+        }
+
+        @Override
+        public String toString() {
+            return fastPath ? "precapture{fast}" : "precapture{af=" + (afTriggered ? afNs / 1_000_000 + "ms" : "-")
+                    + " ae=" + (aeTriggered ? aeNs / 1_000_000 + "ms" : aeNs > 0 ? "wait " + aeNs / 1_000_000 + "ms" : "-")
+                    + (timedOut ? " timeout" : "") + "}";
+        }
+    }
+
+    private final CameraExecutor executor;
+    private final Host host;
+
+    // 최근 프리뷰 결과의 상태 (fast path 판단용)
+    private int lastAfState = CameraMetadata.CONTROL_AF_STATE_INACTIVE;
+    private int lastAeState = CameraMetadata.CONTROL_AE_STATE_INACTIVE;
+
+    // 진행 중인 시퀀스
+    private Done done;
+    private long startNs;
+    private boolean afTriggered, aeTriggered, aeWaiting;
+    private boolean afTriggerSeen, aeTriggerSeen, aePrecaptureSeen;
+    private int framesAfterAeTrigger;
+    private long afDoneNs, aeDoneNs;
+    private boolean afLocked = false; // 촬영 후 해제해야 함
+
+    private final Runnable timeout = () -> finish(true);
+
+    public PrecaptureSequence(CameraExecutor executor, Host host) {
+        this.executor = executor;
+        this.host = host;
+    }
+
+    public boolean isActive() { return done != null; }
+
+    /**
+     * afMode/aeMode 는 지금 반복 요청에 걸린 값 (null 이면 템플릿 기본값 = CONTINUOUS_PICTURE / ON).
+     * hasAutoFocus 가 false (고정 초점) 면 AF 단계는 건너뛴다.
+     * 준비되면 (바로일 수도 있다) done 을 카메라 스레드에서 한 번 부른다.
+     */
+    public void start(Integer afMode, Integer aeMode, boolean hasAutoFocus, Done done) {
+        if (this.done != null) return; // 호출자가 captureInProgress 로 막는다
+        int af = afMode != null ? afMode : CameraMetadata.CONTROL_AF_MODE_CONTINUOUS_PICTURE;
+        int ae = aeMode != null ? aeMode : CameraMetadata.CONTROL_AE_MODE_ON;
+
+        boolean afAuto = hasAutoFocus && af != CameraMetadata.CONTROL_AF_MODE_OFF
+                && af != CameraMetadata.CONTROL_AF_MODE_EDOF;
+        boolean needAf = afAuto && !afConverged(af, lastAfState);
+        boolean aeAuto = ae != CameraMetadata.CONTROL_AE_MODE_OFF;
+        // 플래시가 터질 예정이거나 저조도 → 프리캡처로 노출/플래시 세기를 미리 잡는다
+        boolean needAe = aeAuto && (ae == CameraMetadata.CONTROL_AE_MODE_ON_ALWAYS_FLASH
+                || lastAeState == CameraMetadata.CONTROL_AE_STATE_FLASH_REQUIRED);
+        // 아직 노출을 찾는 중이면 트리거 없이 수렴만 기다린다
+        boolean waitAe = aeAuto && !needAe && lastAeState == CameraMetadata.CONTROL_AE_STATE_SEARCHING;
+
+        this.startNs = SystemClock.elapsedRealtimeNanos();
+        if (!needAf && !needAe && !waitAe) {
+            done.onReady(new Outcome(true, false, false, false, 0, 0, 0, lastAfState, lastAeState));
+            return;
+        }
+
+        this.done = done;
+        afTriggered = needAf;
+        aeTriggered = needAe;
+        aeWaiting = waitAe;
+        afTriggerSeen = aeTriggerSeen = aePrecaptureSeen = false;
+        framesAfterAeTrigger = 0;
+        afDoneNs = needAf ? 0 : startNs;
+        aeDoneNs = (needAe || waitAe) ? 0 : startNs;
+
+        if (needAf || needAe) {
+            try {
+                host.submitTrigger(needAf ? CameraMetadata.CONTROL_AF_TRIGGER_START : null,
+                        needAe ? CameraMetadata.CONTROL_AE_PRECAPTURE_TRIGGER_START : null);
+                afLocked = needAf;
+            } catch (CameraAccessException | IllegalStateException e) {
+                Log.w(TAG, "precapture trigger failed, capturing without it", e);
+                finish(false);
+                return;
+            }
+        }
+        executor.executeDelayed(timeout, needAe || waitAe ? AE_TIMEOUT_MS : AF_TIMEOUT_MS);
+    }
+
+    /** 프리뷰/트리거 요청의 결과마다 호출 */
+    public void onResult(CaptureResult r) {
+        Integer afs = r.get(CaptureResult.CONTROL_AF_STATE);
+        Integer aes = r.get(CaptureResult.CONTROL_AE_STATE);
+        if (afs != null) lastAfState = afs;
+        if (aes != null) lastAeState = aes;
+        if (done == null) return;
+
+        long now = SystemClock.elapsedRealtimeNanos();
+        CaptureRequest req = r.getRequest();
+        if (afTriggered && afDoneNs == 0) {
+            // 트리거 요청의 결과부터 본다 (그 전 프레임의 상태는 트리거와 무관)
+            if (req != null && Integer.valueOf(CameraMetadata.CONTROL_AF_TRIGGER_START)
+                    .equals(req.get(CaptureRequest.CONTROL_AF_TRIGGER))) {
+                afTriggerSeen = true;
+            }
+            if (afTriggerSeen && (lastAfState == CameraMetadata.CONTROL_AF_STATE_FOCUSED_LOCKED
+                    || lastAfState == CameraMetadata.CONTROL_AF_STATE_NOT_FOCUSED_LOCKED)) {
+                afDoneNs = now;
+            }
+        }
+        if (aeDoneNs == 0) {
+            if (aeTriggered) {
+                if (req != null && Integer.valueOf(CameraMetadata.CONTROL_AE_PRECAPTURE_TRIGGER_START)
+                        .equals(req.get(CaptureRequest.CONTROL_AE_PRECAPTURE_TRIGGER))) {
+                    aeTriggerSeen = true;
+                }
+                else if (aeTriggerSeen) framesAfterAeTrigger++;
+                if (lastAeState == CameraMetadata.CONTROL_AE_STATE_PRECAPTURE) {
+                    aePrecaptureSeen = true;
+                } else if (aePrecaptureSeen || framesAfterAeTrigger >= AE_SKIP_FRAMES) {
+                    // PRECAPTURE 를 빠져나왔다. PRECAPTURE 를 건너뛰고 바로 수렴하는 HAL 도 있어 몇 프레임만 기다려 본다
+                    aeDoneNs = now;
+                }
+            } else if (aeWaiting && lastAeState != CameraMetadata.CONTROL_AE_STATE_SEARCHING) {
+                aeDoneNs = now;
+            }
+        }
+        if (afDoneNs != 0 && aeDoneNs != 0) finish(false);
+    }
+
+    /** 촬영 후: 트리거로 잠근 초점을 풀어 연속 AF 로 돌아간다 */
+    public void unlock() {
+        if (!afLocked) return;
+        afLocked = false;
+        try {
+            host.submitTrigger(CameraMetadata.CONTROL_AF_TRIGGER_CANCEL, null);
+        } catch (CameraAccessException | IllegalStateException e) {
+            Log.w(TAG, "AF unlock failed", e);
+        }
+    }
+
+    /**
+     * 새 세션: 잠금과 최근 상태는 이전 세션과 함께 사라진다.
+     * 진행 중이던 시퀀스는 시간 제한으로 끝나고, 호출자가 세션 상태를 보고 오류로 응답한다.
+     */
+    public void reset() {
+        afLocked = false;
+        lastAfState = CameraMetadata.CONTROL_AF_STATE_INACTIVE;
+        lastAeState = CameraMetadata.CONTROL_AE_STATE_INACTIVE;
+    }
+
+    private void finish(boolean timedOut) {
+        Done d = done;
+        if (d == null) return;
+        done = null;
+        executor.cancel(timeout);
+        long now = SystemClock.elapsedRealtimeNanos();
+        long af = afTriggered ? (afDoneNs != 0 ? afDoneNs : now) - startNs : 0;
+        long ae = (aeTriggered || aeWaiting) ? (aeDoneNs != 0 ? aeDoneNs : now) - startNs : 0;
+        if (timedOut) Log.w(TAG, "precapture timed out (af=" + lastAfState + ", ae=" + lastAeState + ")");
+        d.onReady(new Outcome(false, afTriggered, aeTriggered, timedOut, af, ae, now - startNs,
+                lastAfState, lastAeState));
+    }
+
+    private static boolean afConverged(int afMode, int state) {
+        if (state == CameraMetadata.CONTROL_AF_STATE_FOCUSED_LOCKED) return true;
+        // 연속 AF 는 스스로 맞춰 둔 상태면 충분
+        boolean continuous = afMode == CameraMetadata.CONTROL_AF_MODE_CONTINUOUS_PICTURE
+                || afMode == CameraMetadata.CONTROL_AF_MODE_CONTINUOUS_VIDEO;
+        return continuous && state == CameraMetadata.CONTROL_AF_STATE_PASSIVE_FOCUSED;
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.camgent;
+
+import android.content.Context;
+import android.graphics.ImageFormat;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CaptureResult;
+import android.hardware.camera2.DngCreator;
+import android.hardware.camera2.TotalCaptureResult;
+import android.media.ExifInterface;
+import android.media.Image;
+import android.media.ImageReader;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Surface;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RAW_SENSOR 출력 + DNG 저장 (RAW_OUTPUT 설정이 켜져 있고 기기가 RAW 를 지원할 때만).
+ * 스틸 요청에 JPEG 과 같이 타겟으로 붙는다.
+ *
+ * DngCreator 는 같은 프레임의 TotalCaptureResult 가 필요하다. 이미지(리더 콜백)와 결과(카메라 스레드)는
+ * 서로 다른 스레드에서 순서 없이 오므로, 둘 다 전용 RAW 스레드로 넘겨 센서 타임스탬프로 짝을 맞춘다
+ * → 카메라 스레드는 결과 참조를 post 만 하고 기다리지 않는다. DNG 쓰기도 같은 스레드에서 fd 로 바로.
+ *
+ * RAW 버퍼는 장당 수십 MB 라 리더는 2장, 동시에 진행 중인 RAW 촬영은 1건으로 제한한다.
+ * 앞 RAW 가 아직 저장 중이면 그 촬영은 JPEG 만 찍는다 (tryReserve() == false).
+ */
+public final class RawCapture {
+    private static final String TAG = "Cam2Native";
+    private static final int MAX_IMAGES = 2;
+    private static final int MAX_IN_FLIGHT = 1;
+    // 짝을 못 찾은 이미지/결과를 이 이상 쥐고 있지 않는다 (이미지를 다 쥐고 있으면 리더가 멈춘다)
+    private static final int MAX_UNMATCHED = MAX_IMAGES - 1;
+
+    /** RAW 스레드에서 호출된다 */
+    public interface Listener {
+        void onRawSaved(Uri uri, long writeNs);
+        void onRawFailed(Exception e);
+    }
+
+    private final Context context;
+    private final CameraCharacteristics characteristics;
+    private final Listener listener;
+    private final ImageReader reader;
+    private final HandlerThread thread;
+    private final Handler handler;
+
+    // RAW 스레드 전용: 타임스탬프 → 짝을 기다리는 쪽
+    private final Map<Long, Image> images = new HashMap<>();
+    private final Map<Long, Pending> results = new HashMap<>();
+    // RAW 버퍼를 잃었는데 결과는 아직 안 온 프레임 번호 (결과가 오면 예약만 반납)
+    private final Set<Long> lostFrames = new HashSet<>();
+
+    private int inFlight = 0; // 카메라 스레드에서 예약, RAW 스레드에서 반납 (this 로 보호)
+    private volatile long saved = 0, skipped = 0;
+
+    private static final class Pending {
+        final TotalCaptureResult result;
+        final long frameNumber;
+        final int jpegOrientation;
+
+        Pending(TotalCaptureResult result, int jpegOrientation) {
+            this.result = result;
+            this.frameNumber = result.getFrameNumber();
+            this.jpegOrientation = jpegOrientation;
+        }
+    }
+
+    /** 지원하지 않는 기기면 null. characteristics 는 열린 디바이스의 것 (DngCreator 용) */
+    public static RawCapture create(Context context, CameraInfo info, CameraCharacteristics characteristics,
+                                    Listener listener) {
+        if (info == null || !info.supportsRaw() || characteristics == null) return null;
+        return new RawCapture(context, characteristics, info.rawSize, listener);
+    }
+
+    private RawCapture(Context context, CameraCharacteristics c, StreamSize size, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.characteristics = c;
+        this.listener = listener;
+        thread = new HandlerThread("native-cam2-raw");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        reader = ImageReader.newInstance(size.getWidth(), size.getHeight(), ImageFormat.RAW_SENSOR, MAX_IMAGES);
+        reader.setOnImageAvailableListener(this::onImageAvailable, handler);
+        Log.d(TAG, "RAW output " + size);
+    }
+
+    public Surface surface() { return reader.getSurface(); }
+
+    public long saved() { return saved; }
+    public long skipped() { return skipped; }
+
+    /**
+     * 이번 스틸에 RAW 를 붙여도 되는지. true 면 onResult/onFailed 중 하나를 반드시 불러야 한다
+     * (RAW 버퍼를 잃었으면 onBufferLost 도)
+     */
+    public synchronized boolean tryReserve() {
+        if (inFlight >= MAX_IN_FLIGHT) {
+            skipped++;
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    private synchronized void release() {
+        if (inFlight > 0) inFlight--;
+    }
+
+    /** 카메라 스레드: RAW 를 타겟으로 한 스틸의 결과. 짝 맞추기는 RAW 스레드에서 */
+    public void onResult(TotalCaptureResult result, int jpegOrientation) {
+        Pending p = new Pending(result, jpegOrientation);
+        handler.post(() -> {
+            Long ts = result.get(CaptureResult.SENSOR_TIMESTAMP);
+            if (ts == null || lostFrames.remove(p.frameNumber)) {
+                release();
+                return;
+            }
+            Image image = images.remove(ts);
+            if (image != null) {
+                write(image, p);
+            } else {
+                results.put(ts, p);
+                prune(results);
+            }
+        });
+    }
+
+    /** 카메라 스레드: 요청을 보내지 못했다 → 예약만 반납 */
+    public void onFailed() {
+        handler.post(this::release);
+    }
+
+    /** 카메라 스레드: RAW 를 타겟으로 한 스틸이 실패 → 예약만 반납 (도착한 이미지는 prune 으로 정리) */
+    public void onFailed(long frameNumber) {
+        handler.post(() -> {
+            lostFrames.remove(frameNumber);
+            release();
+        });
+    }
+
+    /**
+     * 카메라 스레드: 이 프레임의 RAW 버퍼는 오지 않는다. 기다리는 결과가 있으면 버리고 예약을 반납,
+     * 결과가 아직이면 표시해 두고 결과가 올 때 반납한다 (JPEG 은 그대로 저장된다)
+     */
+    public void onBufferLost(long frameNumber) {
+        handler.post(() -> {
+            for (Iterator<Pending> it = results.values().iterator(); it.hasNext(); ) {
+                if (it.next().frameNumber == frameNumber) {
+                    it.remove();
+                    release();
+                    Log.w(TAG, "RAW buffer lost for frame " + frameNumber);
+                    return;
+                }
+            }
+            lostFrames.add(frameNumber);
+        });
+    }
+
+    private void onImageAvailable(ImageReader r) {
+        Image image;
+        try {
+            image = r.acquireNextImage();
+        } catch (IllegalStateException e) {
+            return; // 리더가 닫히는 중
+        }
+        if (image == null) return;
+        Pending p = results.remove(image.getTimestamp());
+        if (p != null) {
+            write(image, p);
+        } else {
+            images.put(image.getTimestamp(), image);
+            prune(images);
+        }
+    }
+
+    // RAW 스레드: fd 로 바로 DNG 쓰기. image 는 여기서 닫는다
+    private void write(Image image, Pending p) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        Uri uri = null;
+        try (DngCreator dng = new DngCreator(characteristics, p.result)) {
+            dng.setOrientation(exifOrientation(p.jpegOrientation));
+            uri = NativeCameraCapture.insertPendingDng(context);
+            NativeCameraCapture.writeDngAndPublish(context, uri, dng, image);
+            saved++;
+            listener.onRawSaved(uri, SystemClock.elapsedRealtimeNanos() - start);
+        } catch (Exception e) {
+            Log.e(TAG, "DNG save failed", e);
+            NativeCameraCapture.discardPending(context, uri);
+            listener.onRawFailed(e);
+        } finally {
+            image.close();
+            release();
+        }
+    }
+
+    // 짝이 끝내 안 오는 항목(실패한 요청 등)은 오래된 것부터 버린다
+    private void prune(Map<Long, ?> pending) {
+        while (pending.size() > MAX_UNMATCHED) {
+            long oldest = Long.MAX_VALUE;
+            for (Long ts : pending.keySet()) oldest = Math.min(oldest, ts);
+            Object dropped = pending.remove(oldest);
+            if (dropped instanceof Image) {
+                ((Image) dropped).close();
+            } else {
+                release();
+            }
+            Log.w(TAG, "RAW " + (dropped instanceof Image ? "image" : "result") + " without match, dropped");
+        }
+    }
+
+    /** 저장 중인 DNG 는 끝까지 쓰고 닫는다 (quitSafely 가 앞선 작업을 먼저 처리) */
+    public void close() {
+        handler.post(() -> {
+            reader.setOnImageAvailableListener(null, null);
+            for (Iterator<Image> it = images.values().iterator(); it.hasNext(); ) {
+                it.next().close();
+                it.remove();
+            }
+            results.clear();
+            lostFrames.clear();
+            reader.close();
+        });
+        thread.quitSafely();
+    }
+
+    private static int exifOrientation(int degrees) {
+        switch (degrees) {
+            case 90:  return ExifInterface.ORIENTATION_ROTATE_90;
+            case 180: return ExifInterface.ORIENTATION_ROTATE_180;
+            case 270: return ExifInterface.ORIENTATION_ROTATE_270;
+            default:  return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.camgent;
+
+/**
+ * 반복 요청 갱신 합치기 (latest-wins).
+ * 슬라이더 드래그처럼 빠른 갱신이 와도 "새 요청으로 만든 프레임이 하나 나올 때까지" 다음 제출을 미룬다.
+ * 그 사이 들어온 갱신은 하나로 합쳐지고, 다음 프레임 완료 시 최신 상태로 한 번만 제출된다.
+ *
+ * 상태 자체는 CaptureState 가 이미 latest-wins 로 들고 있으므로 여기선 "언제 제출하느냐"만 정한다.
+ * 카메라 스레드 전용.
+ */
+public final class RequestCoalescer {
+
+    /** 실제 제출. tag 를 요청에 붙이고, 제출했으면 true (바뀐 게 없으면 false) */
+    public interface Submitter {
+        boolean submit(int tag);
+    }
+
+    private final Submitter submitter;
+    private int generation = 0;
+    private int awaitedTag = -1;      // 이 태그 이상의 프레임이 완료되기 전까지는 제출 보류
+    private boolean pending = false;  // 보류 중인 갱신이 있음
+
+    private long updates = 0;
+    private long submitted = 0;
+    private long coalesced = 0;
+
+    public RequestCoalescer(Submitter submitter) {
+        this.submitter = submitter;
+    }
+
+    /** 상태가 바뀌었다는 알림 */
+    public void request() {
+        updates++;
+        if (awaitedTag >= 0) {
+            if (pending) coalesced++; // 이미 보류 중인 갱신에 합쳐짐
+            pending = true;
+            return;
+        }
+        submitNow();
+    }
+
+    /** 반복 요청의 프레임 완료(또는 실패) 시 호출. tag 는 그 프레임을 만든 요청의 태그 */
+    public void onFrameDelivered(Object tag) {
+        if (awaitedTag < 0 || !(tag instanceof Integer) || (Integer) tag < awaitedTag) return;
+        awaitedTag = -1;
+        if (pending) {
+            pending = false;
+            submitNow();
+        }
+    }
+
+    /** 세션이 새로 만들어졌을 때 등: 보류 상태 초기화. 다음 제출 태그를 돌려준다 */
+    public int reset() {
+        awaitedTag = -1;
+        pending = false;
+        return ++generation;
+    }
+
+    private void submitNow() {
+        int tag = ++generation;
+        if (submitter.submit(tag)) {
+            submitted++;
+            awaitedTag = tag;
+        }
+    }
+
+    /** 마지막으로 발급한 태그. 이후 제출되는 요청의 태그는 모두 이보다 크다 */
+    public int generation() { return generation; }
+
+    public long updates() { return updates; }
+    public long submitted() { return submitted; }
+    public long coalesced() { return coalesced; }
+}
@@ -0,0 +1,28 @@
+package com.example.camgent;
+
+/**
+ * SettingsCompiler 가 만드는 요청 항목 (이름은 CaptureRequest 키와 같다).
+ * 값은 플랫폼 타입 없이 들고 있고, Camera2 키/타입으로 바꾸는 건 CaptureState.apply() 가 한다.
+ */
+public enum RequestKey {
+    SENSOR_SENSITIVITY,               // Integer
+    SENSOR_EXPOSURE_TIME,             // Long (ns)
+    CONTROL_AE_EXPOSURE_COMPENSATION, // Integer (칸)
+    CONTROL_AE_LOCK,                  // Boolean
+    CONTROL_AWB_LOCK,                 // Boolean
+    CONTROL_AE_MODE,                  // Integer
+    FLASH_MODE,                       // Integer
+    CONTROL_MODE,                     // Integer
+    CONTROL_SCENE_MODE,               // Integer
+    COLOR_CORRECTION_MODE,            // Integer
+    COLOR_CORRECTION_GAINS,           // float[4] R, G_even, G_odd, B
+    LENS_FOCUS_DISTANCE,              // Float (디옵터)
+    CONTROL_EFFECT_MODE,              // Integer
+    NOISE_REDUCTION_MODE,             // Integer
+    TONEMAP_MODE,                     // Integer
+    CONTROL_AE_ANTIBANDING_MODE,      // Integer
+    CONTROL_AE_REGIONS,               // int[] 영역마다 x, y, w, h, weight
+    CONTROL_AF_REGIONS,               // int[] 영역마다 x, y, w, h, weight
+    CONTROL_AE_TARGET_FPS_RANGE,      // int[2] 하한, 상한
+    JPEG_QUALITY                      // Byte (1~100)
+}
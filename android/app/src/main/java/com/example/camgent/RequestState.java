@@ -0,0 +1,102 @@
+package com.example.camgent;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 요청 상태와 "바뀐 키" 추적 (플랫폼 무관, 키 타입만 다르다).
+ * CaptureState 가 CaptureRequest.Key 로 쓰고, 테스트/벤치마크는 RequestKey 나 문자열 키로 쓴다.
+ *
+ * 반복 요청 타겟은 세션마다 한 번 묶고, 그 뒤로는 바뀐 키만 반영한다. 키를 지우면 묶을 때 기억해 둔
+ * 템플릿 기본값으로 되돌린다. 카메라 스레드 전용.
+ */
+public final class RequestState<K> {
+
+    /** 요청 빌더 하나 (Camera2 에선 CaptureRequest.Builder) */
+    public interface Target<K> {
+        Object get(K key);
+        void set(K key, Object value);
+    }
+
+    private final Map<K, Object> values = new LinkedHashMap<>();
+    // 마지막으로 반복 요청에 반영한 이후 바뀐 키
+    private final Set<K> dirty = new LinkedHashSet<>();
+
+    // 세션에 묶인 반복 요청 타겟 + 덮어쓰기 전 템플릿 기본값 (키를 지우면 되돌릴 값)
+    private Target<K> repeating;
+    private final Map<K, Object> templateDefaults = new HashMap<>();
+
+    /** value 가 null 이면 키를 지운다(템플릿 기본값으로). 실제로 바뀌었으면 true */
+    public boolean set(K key, Object value) {
+        Object cur = values.get(key);
+        if (Objects.deepEquals(cur, value)) return false;
+        if (value == null) values.remove(key);
+        else values.put(key, value);
+        dirty.add(key);
+        return true;
+    }
+
+    public Object get(K key) { return values.get(key); }
+
+    public int size() { return values.size(); }
+
+    public boolean hasPendingChanges() { return !dirty.isEmpty(); }
+
+    /** 다른 카메라로 바꿀 때: 이전 카메라 기준 값을 모두 버린다 (세션에 묶이지 않았을 때만 부른다) */
+    public void clear() {
+        values.clear();
+        dirty.clear();
+    }
+
+    // ---------- 반복 요청 ----------
+    /** 새 세션의 반복 요청 타겟을 묶고 전체 상태를 반영한다 */
+    public void bindRepeating(Target<K> target) {
+        repeating = target;
+        templateDefaults.clear();
+        for (Map.Entry<K, Object> e : values.entrySet()) {
+            rememberDefault(e.getKey());
+            target.set(e.getKey(), e.getValue());
+        }
+        dirty.clear();
+    }
+
+    public void unbindRepeating() {
+        repeating = null;
+        templateDefaults.clear();
+    }
+
+    public boolean isBound() { return repeating != null; }
+
+    /** 바뀐 키만 반복 타겟에 반영한다. 묶인 타겟이 없거나 바뀐 게 없으면 false → 재제출 생략 */
+    public boolean flushRepeating() {
+        if (repeating == null || dirty.isEmpty()) return false;
+        for (K key : dirty) {
+            if (values.containsKey(key)) {
+                rememberDefault(key);
+                repeating.set(key, values.get(key));
+            } else if (templateDefaults.containsKey(key)) {
+                repeating.set(key, templateDefaults.remove(key));
+            }
+        }
+        dirty.clear();
+        return true;
+    }
+
+    // ---------- 1회성 요청 ----------
+    /** 스틸 등 새로 만든 타겟에 현재 상태 전체를 덮어쓴다 */
+    public void applyTo(Target<K> target) {
+        for (Map.Entry<K, Object> e : values.entrySet()) {
+            target.set(e.getKey(), e.getValue());
+        }
+    }
+
+    private void rememberDefault(K key) {
+        if (!templateDefaults.containsKey(key)) {
+            templateDefaults.put(key, repeating.get(key));
+        }
+    }
+}
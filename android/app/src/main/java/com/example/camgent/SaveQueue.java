@@ -0,0 +1,164 @@
+package com.example.camgent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * 고정 크기 큐 + 단일 writer 스레드 (플랫폼 무관).
+ * 생산자는 submit() 으로 작업만 넣고 바로 돌아가고, writer 가 순서대로 Sink.write 를 부른다.
+ * 가득 찼을 때 동작은 Backpressure 정책으로 고른다. 실제 저장(파일/MediaStore)은 ImageSaveQueue 의 Sink 가.
+ */
+public final class SaveQueue<J> {
+    /** 큐가 가득 찼을 때 */
+    public enum Backpressure {
+        BLOCK,   // 자리가 날 때까지 기다린다 (카메라 스레드는 막지 않고 runWhenRoom 으로 촬영 시작을 미룬다)
+        DROP,    // 가장 오래된 대기 작업을 버리고 새 작업을 넣는다
+        REJECT   // 새 작업을 거절 → 호출자가 BUSY 로 응답
+    }
+
+    public enum Submit { ACCEPTED, REJECTED }
+
+    /** writer 스레드에서 호출된다 (DROP 으로 버려진 작업의 dropped 는 submit 한 스레드에서) */
+    public interface Sink<J> {
+        void write(J job);    // 예외는 Sink 가 처리한다
+        void dropped(J job);
+    }
+
+    private static final Object POISON = new Object();
+
+    private final Sink<J> sink;
+    private final ArrayBlockingQueue<Object> queue;
+    private final Thread writer;
+    private volatile Backpressure policy = Backpressure.REJECT;
+    private int inFlight = 0; // 큐 대기 + 쓰는 중 (this 로 보호)
+    private final List<Runnable> roomWaiters = new ArrayList<>(); // 자리가 나면 한 번씩 (this 로 보호)
+
+    public SaveQueue(int capacity, String threadName, Sink<J> sink) {
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::drainLoop, threadName);
+        this.writer.setPriority(Thread.NORM_PRIORITY - 1);
+        this.writer.start();
+    }
+
+    public void setPolicy(Backpressure p) { policy = p; }
+
+    public Backpressure policy() { return policy; }
+
+    public int pending() { return queue.size(); }
+
+    /**
+     * 카메라 스레드용: 호출 스레드를 절대 막지 않는다. BLOCK 정책이면 여기서는 REJECT 로 처리한다
+     * (BLOCK 의 대기는 촬영을 시작하기 전에 runWhenRoom 으로)
+     */
+    public Submit submit(J job) {
+        Backpressure p = policy;
+        return submit(job, p == Backpressure.BLOCK ? Backpressure.REJECT : p);
+    }
+
+    /** 이번 작업만 다른 정책으로 (예: 버스트 스레드는 자리가 날 때까지 기다려도 된다. 카메라 스레드는 BLOCK 금지) */
+    public Submit submit(J job, Backpressure p) {
+        synchronized (this) { inFlight++; }
+        Submit r = enqueue(job, p);
+        if (r == Submit.REJECTED) finished();
+        return r;
+    }
+
+    /** 큐에 자리가 있으면 바로, 없으면 writer 가 작업을 하나 꺼낼 때 r 을 부른다 (writer 스레드). 막지 않는다 */
+    public void runWhenRoom(Runnable r) {
+        synchronized (this) {
+            if (queue.remainingCapacity() == 0) {
+                roomWaiters.add(r);
+                return;
+            }
+        }
+        r.run();
+    }
+
+    // writer 스레드: 자리가 났다 → 기다리던 쪽을 깨운다 (보통 카메라 스레드로 post 만 한다)
+    private void notifyRoom() {
+        Runnable[] waiters;
+        synchronized (this) {
+            if (roomWaiters.isEmpty()) return;
+            waiters = roomWaiters.toArray(new Runnable[0]);
+            roomWaiters.clear();
+        }
+        for (Runnable r : waiters) r.run();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Submit enqueue(J job, Backpressure p) {
+        switch (p) {
+            case BLOCK:
+                try {
+                    queue.put(job);
+                    return Submit.ACCEPTED;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return Submit.REJECTED;
+                }
+            case DROP:
+                while (!queue.offer(job)) {
+                    Object oldest = queue.poll();
+                    if (oldest != null && oldest != POISON) {
+                        sink.dropped((J) oldest);
+                        finished();
+                    }
+                }
+                return Submit.ACCEPTED;
+            case REJECT:
+            default:
+                return queue.offer(job) ? Submit.ACCEPTED : Submit.REJECTED;
+        }
+    }
+
+    /** 대기/진행 중인 작업이 모두 끝날 때까지 기다린다. 시간 안에 못 끝나면 false */
+    public synchronized boolean awaitIdle(long timeoutMs) {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000L;
+        while (inFlight > 0) {
+            long leftMs = (deadline - System.nanoTime()) / 1_000_000L;
+            if (leftMs <= 0) return false;
+            try {
+                wait(leftMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized void finished() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /** 남은 작업은 모두 처리하고 종료 */
+    public void shutdown() {
+        try {
+            queue.put(POISON);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drainLoop() {
+        while (true) {
+            Object next;
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            notifyRoom();
+            if (next == POISON) return;
+            try {
+                sink.write((J) next);
+            } finally {
+                finished();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.camgent;
+
+import android.media.Image;
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 기본 분석기: 휘도(Y) 히스토그램, 평균 밝기, 클리핑 비율, 선명도.
+ * 계산은 LumaStats 가 (Y 평면만 2픽셀 간격, 프레임당 할당 없음), 여기선 주기 조절과 이벤트 맵만.
+ * 결과는 intervalMs 마다 한 번만 Listener 로 넘긴다.
+ */
+public final class SceneStatsAnalyzer implements FrameAnalyzer {
+    public static final long DEFAULT_INTERVAL_MS = 200; // 5Hz
+    private static final int BINS = 64;                 // Dart 로 보낼 히스토그램 칸 수
+
+    /** 분석 스레드에서 호출 */
+    public interface Listener {
+        void onSceneStats(Map<String, Object> stats);
+    }
+
+    private final Listener listener;
+    private volatile long intervalNs;
+
+    // 분석 스레드 전용
+    private final LumaStats stats = new LumaStats();
+    private long lastEmitNs = 0;
+
+    public SceneStatsAnalyzer(Listener listener, long intervalMs) {
+        this.listener = listener;
+        setInterval(intervalMs);
+    }
+
+    public void setInterval(long intervalMs) {
+        intervalNs = Math.max(1, intervalMs) * 1_000_000L;
+    }
+
+    @Override
+    public void analyze(Image image) {
+        long now = SystemClock.elapsedRealtimeNanos();
+        if (now - lastEmitNs < intervalNs) return; // 보낼 때가 아니면 계산도 생략
+        lastEmitNs = now;
+
+        Image.Plane y = image.getPlanes()[0];
+        if (!stats.compute(y.getBuffer(), y.getRowStride(), y.getPixelStride(), image.getWidth(), image.getHeight())) {
+            return;
+        }
+
+        Map<String, Object> m = new HashMap<>();
+        m.put("event", "sceneStats");
+        m.put("timestampNs", image.getTimestamp());
+        m.put("meanLuma", stats.meanLuma);
+        m.put("clipLow", stats.clipLow);
+        m.put("clipHigh", stats.clipHigh);
+        m.put("sharpness", stats.sharpness);
+        m.put("histogram", stats.histogram(BINS));
+        listener.onSceneStats(m);
+    }
+}
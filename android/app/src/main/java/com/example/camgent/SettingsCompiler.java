@@ -0,0 +1,402 @@
+package com.example.camgent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * settings 맵(CameraSettings.toJson()) → SettingsPlan 컴파일러.
+ * 카메라 하나의 특성(범위/지원 모드)에 묶여 있고, 같은 내용의 맵은 캐시된 플랜을 그대로 돌려준다
+ * (에이전트가 같은 프리셋을 다시 보내면 파싱을 아예 건너뜀). 카메라 스레드 전용.
+ * 플랫폼 타입을 쓰지 않는다: 입력은 CameraInfo, 출력은 RequestKey 와 일반 값 (Camera2 변환은 CaptureState).
+ */
+public final class SettingsCompiler {
+    private static final int CACHE_SIZE = 16;
+
+    // CameraMetadata 와 같은 값 (CameraConstantsTest 가 맞는지 확인한다)
+    static final int FLASH_MODE_OFF = 0, FLASH_MODE_SINGLE = 1, FLASH_MODE_TORCH = 2;
+    static final int CONTROL_AE_MODE_ON = 1, CONTROL_AE_MODE_ON_AUTO_FLASH = 2;
+    static final int CONTROL_MODE_AUTO = 1, CONTROL_MODE_USE_SCENE_MODE = 2;
+    static final int SCENE_MODE_DISABLED = 0, SCENE_MODE_PORTRAIT = 3, SCENE_MODE_NIGHT = 5, SCENE_MODE_SPORTS = 13;
+    static final int COLOR_CORRECTION_TRANSFORM_MATRIX = 0, COLOR_CORRECTION_FAST = 1, COLOR_CORRECTION_HIGH_QUALITY = 2;
+    static final int EFFECT_MODE_OFF = 0, EFFECT_MODE_MONO = 1, EFFECT_MODE_NEGATIVE = 2, EFFECT_MODE_SEPIA = 4;
+    static final int NOISE_REDUCTION_OFF = 0, NOISE_REDUCTION_FAST = 1, NOISE_REDUCTION_HIGH_QUALITY = 2,
+            NOISE_REDUCTION_MINIMAL = 3;
+    static final int TONEMAP_CONTRAST_CURVE = 0, TONEMAP_FAST = 1, TONEMAP_HIGH_QUALITY = 2, TONEMAP_GAMMA_VALUE = 3;
+    static final int ANTIBANDING_OFF = 0, ANTIBANDING_50HZ = 1, ANTIBANDING_60HZ = 2, ANTIBANDING_AUTO = 3;
+    static final int METERING_WEIGHT_MAX = 1000;
+
+    // 특성에서 뽑아둔 검증 기준
+    private final CameraInfo info;
+    private final int[] activeArray;             // left, top, right, bottom
+
+    // 내용 기준(Map.equals/hashCode) LRU 캐시
+    private final LinkedHashMap<Map<String, Object>, SettingsPlan> cache =
+            new LinkedHashMap<Map<String, Object>, SettingsPlan>(CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Map<String, Object>, SettingsPlan> e) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+    private long hits = 0, misses = 0;
+
+    public SettingsCompiler(CameraInfo info) {
+        this.info = info;
+        activeArray = new int[]{info.activeLeft, info.activeTop, info.activeRight, info.activeBottom};
+    }
+
+    public SettingsPlan compile(Map<String, Object> s) {
+        SettingsPlan plan = cache.get(s);
+        if (plan != null) {
+            hits++;
+            return plan;
+        }
+        misses++;
+        plan = parse(s);
+        cache.put(s, plan);
+        return plan;
+    }
+
+    public long cacheHits() { return hits; }
+    public long cacheMisses() { return misses; }
+
+    // ---------- 파싱 + 검증 ----------
+    private SettingsPlan parse(Map<String, Object> s) {
+        Acc a = new Acc();
+
+        // ISO
+        Number iso = number(s, "SENSOR_SENSITIVITY");
+        if (iso != null) {
+            int v = info.clampIso(iso.intValue());
+            if (v != iso.intValue()) a.warn("SENSOR_SENSITIVITY clamped to " + v);
+            a.put(RequestKey.SENSOR_SENSITIVITY, v);
+        }
+
+        // 노출시간(ns)
+        Number ns = number(s, "SENSOR_EXPOSURE_TIME_NS");
+        if (ns != null) {
+            long v = info.clampExposureNs(ns.longValue());
+            if (v != ns.longValue()) a.warn("SENSOR_EXPOSURE_TIME_NS clamped to " + v);
+            a.put(RequestKey.SENSOR_EXPOSURE_TIME, v);
+        }
+
+        // AE 보정
+        Number ev = number(s, "CONTROL_AE_EXPOSURE_COMPENSATION");
+        if (ev != null) {
+            int want = (int) Math.round(ev.doubleValue());
+            int v = info.clampAeComp(want);
+            if (v != want) a.warn("CONTROL_AE_EXPOSURE_COMPENSATION clamped to " + v);
+            a.put(RequestKey.CONTROL_AE_EXPOSURE_COMPENSATION, v);
+        }
+
+        // AE/AWB Lock
+        Boolean aeLock = bool(s, "CONTROL_AE_LOCK");
+        if (aeLock != null) a.put(RequestKey.CONTROL_AE_LOCK, aeLock);
+        Boolean awbLock = bool(s, "CONTROL_AWB_LOCK");
+        if (awbLock != null) a.put(RequestKey.CONTROL_AWB_LOCK, awbLock);
+
+        // 플래시/AE 모드 (AUTO 는 플래시 모드가 아니라 AE 모드로 표현)
+        String fm = string(s, "FLASH_MODE");
+        if ("AUTO".equals(fm)) {
+            a.put(RequestKey.CONTROL_AE_MODE, CONTROL_AE_MODE_ON_AUTO_FLASH);
+            a.put(RequestKey.FLASH_MODE, null);
+        } else {
+            if (fm != null) {
+                Integer flash = flashModeFromString(fm);
+                if (flash != null) a.put(RequestKey.FLASH_MODE, flash);
+                else a.warn("FLASH_MODE " + fm);
+            }
+            a.put(RequestKey.CONTROL_AE_MODE, CONTROL_AE_MODE_ON);
+        }
+
+        // Scene (DISABLED 면 일반 AUTO 제어로). NIGHT 은 HAL 이 지원하지 않아도 촬영은 네이티브 스태킹으로 (SettingsPlan.nightStack)
+        String sm = string(s, "CONTROL_SCENE_MODE");
+        if (sm != null) {
+            Integer scene = supported("CONTROL_SCENE_MODE", sceneModeFromString(sm), info.sceneModes, a);
+            if (scene != null && scene != SCENE_MODE_DISABLED) {
+                a.put(RequestKey.CONTROL_MODE, CONTROL_MODE_USE_SCENE_MODE);
+                a.put(RequestKey.CONTROL_SCENE_MODE, scene);
+            } else if (scene != null) {
+                a.put(RequestKey.CONTROL_MODE, CONTROL_MODE_AUTO);
+                a.put(RequestKey.CONTROL_SCENE_MODE, null);
+            }
+        }
+
+        // 색 보정
+        String cm = string(s, "COLOR_CORRECTION_MODE");
+        if (cm != null) {
+            Integer mode = colorModeFromString(cm);
+            if (mode != null) a.put(RequestKey.COLOR_CORRECTION_MODE, mode);
+            else a.warn("COLOR_CORRECTION_MODE " + cm);
+        }
+        Object gains = s.get("COLOR_CORRECTION_GAINS");
+        if (gains instanceof List) {
+            float[] v = gainsFromList((List<?>) gains);
+            if (v != null) a.put(RequestKey.COLOR_CORRECTION_GAINS, v);
+            else a.warn("COLOR_CORRECTION_GAINS " + gains);
+        }
+
+        // Focus distance (디옵터, 0 = 무한대 ~ minFocusDistance = 최근접)
+        Number fd = number(s, "LENS_FOCUS_DISTANCE");
+        if (fd != null) {
+            if (info.minFocusDistance > 0f) {
+                float v = Math.max(0f, Math.min(fd.floatValue(), info.minFocusDistance));
+                if (v != fd.floatValue()) a.warn("LENS_FOCUS_DISTANCE clamped to " + v);
+                a.put(RequestKey.LENS_FOCUS_DISTANCE, v);
+            } else {
+                a.warn("LENS_FOCUS_DISTANCE fixed-focus lens");
+            }
+        }
+
+        // 효과 / 노이즈 / 톤맵 / 안티밴딩
+        String em = string(s, "CONTROL_EFFECT_MODE");
+        if (em != null) putMode(a, RequestKey.CONTROL_EFFECT_MODE, effectModeFromString(em), info.effectModes);
+        String nr = string(s, "NOISE_REDUCTION_MODE");
+        if (nr != null) putMode(a, RequestKey.NOISE_REDUCTION_MODE, noiseReductionFromString(nr), info.noiseModes);
+        String tm = string(s, "TONEMAP_MODE");
+        if (tm != null) putMode(a, RequestKey.TONEMAP_MODE, tonemapFromString(tm), info.tonemapModes);
+        String ab = string(s, "CONTROL_AE_ANTIBANDING_MODE");
+        if (ab != null) putMode(a, RequestKey.CONTROL_AE_ANTIBANDING_MODE, antibandingFromString(ab), info.antibandingModes);
+
+        // 측광/초점 영역
+        String aeR = string(s, "CONTROL_AE_REGIONS");
+        if (aeR != null) putRegions(a, RequestKey.CONTROL_AE_REGIONS, aeR, info.maxAeRegions);
+        String afR = string(s, "CONTROL_AF_REGIONS");
+        if (afR != null) putRegions(a, RequestKey.CONTROL_AF_REGIONS, afR, info.maxAfRegions);
+
+        // FPS Range → 기기가 지원하는 범위 중 가장 가까운 것
+        Object fps = s.get("CONTROL_AE_TARGET_FPS_RANGE");
+        if (fps instanceof List && ((List<?>) fps).size() == 2) {
+            List<?> r = (List<?>) fps;
+            int[] chosen = nearestFps(((Number) r.get(0)).intValue(), ((Number) r.get(1)).intValue());
+            a.put(RequestKey.CONTROL_AE_TARGET_FPS_RANGE, chosen);
+        }
+
+        // JPEG Quality (1..100)
+        Number q = number(s, "JPEG_QUALITY");
+        if (q != null) a.put(RequestKey.JPEG_QUALITY, (byte) Math.max(1, Math.min(100, q.intValue())));
+
+        return new SettingsPlan(a.keys.toArray(new RequestKey[0]), a.values.toArray(),
+                Boolean.TRUE.equals(bool(s, "RAW_OUTPUT")), "NIGHT".equalsIgnoreCase(sm), a.warnings);
+    }
+
+    // 컴파일 중간 결과
+    private static final class Acc {
+        final List<RequestKey> keys = new ArrayList<>();
+        final List<Object> values = new ArrayList<>();
+        final List<String> warnings = new ArrayList<>();
+
+        void put(RequestKey k, Object v) { keys.add(k); values.add(v); }
+        void warn(String w) { warnings.add(w); }
+    }
+
+    private static Integer supported(String name, Integer mode, int[] available, Acc a) {
+        if (mode == null) {
+            a.warn(name + " unknown");
+            return null;
+        }
+        if (available != null && !contains(available, mode)) {
+            a.warn(name + " " + mode + " unsupported");
+            return null;
+        }
+        return mode;
+    }
+
+    private static void putMode(Acc a, RequestKey key, Integer mode, int[] available) {
+        Integer m = supported(key.name(), mode, available, a);
+        if (m != null) a.put(key, m);
+    }
+
+    private void putRegions(Acc a, RequestKey key, String text, int max) {
+        String name = key.name();
+        if (max <= 0) {
+            a.warn(name + " unsupported");
+            return;
+        }
+        int[] r = parseRegions(text, activeArray);
+        if (r == null) {
+            a.warn(name + " " + text);
+            return;
+        }
+        if (r.length > max * REGION_FIELDS) {
+            int[] cut = new int[max * REGION_FIELDS];
+            System.arraycopy(r, 0, cut, 0, cut.length);
+            r = cut;
+            a.warn(name + " limited to " + max);
+        }
+        a.put(key, r);
+    }
+
+    // 지원 목록이 없으면 요청 범위를 그대로
+    private int[] nearestFps(int lo, int hi) {
+        int[][] ranges = info.fpsRanges;
+        if (ranges.length == 0) return new int[]{lo, hi};
+        int[] best = null;
+        int bestDist = Integer.MAX_VALUE;
+        for (int[] r : ranges) {
+            int d = Math.abs(r[0] - lo) + Math.abs(r[1] - hi);
+            if (d < bestDist) {
+                bestDist = d;
+                best = r;
+            }
+        }
+        return best.clone();
+    }
+
+    private static float[] gainsFromList(List<?> g) {
+        try {
+            if (g.size() == 4) {
+                return new float[]{f(g.get(0)), f(g.get(1)), f(g.get(2)), f(g.get(3))};
+            }
+            if (g.size() == 3) { // R, G, B → 녹색 채널 두 개에 같은 값
+                return new float[]{f(g.get(0)), f(g.get(1)), f(g.get(1)), f(g.get(2))};
+            }
+        } catch (ClassCastException ignore) {}
+        return null;
+    }
+
+    private static float f(Object o) { return ((Number) o).floatValue(); }
+
+    private static Number number(Map<String, Object> s, String k) {
+        Object v = s.get(k);
+        return v instanceof Number ? (Number) v : null;
+    }
+
+    private static Boolean bool(Map<String, Object> s, String k) {
+        Object v = s.get(k);
+        return v instanceof Boolean ? (Boolean) v : null;
+    }
+
+    private static String string(Map<String, Object> s, String k) {
+        Object v = s.get(k);
+        return v != null ? String.valueOf(v).toUpperCase() : null;
+    }
+
+    private static boolean contains(int[] arr, int v) {
+        for (int x : arr) if (x == v) return true;
+        return false;
+    }
+
+    /* ── 문자열 → Camera2 상수 매핑 ── */
+    static Integer flashModeFromString(String s) {
+        switch (s.toUpperCase()) {
+            case "OFF":    return FLASH_MODE_OFF;
+            case "SINGLE": return FLASH_MODE_SINGLE;
+            case "TORCH":  return FLASH_MODE_TORCH;
+            default:       return null;
+        }
+    }
+    // sceneModeFromString
+    static Integer sceneModeFromString(String s) {
+        switch (s.toUpperCase()) {
+            case "AUTO":
+            case "OFF":
+            case "DISABLED":
+                return SCENE_MODE_DISABLED;
+            case "PORTRAIT": return SCENE_MODE_PORTRAIT;
+            case "NIGHT":    return SCENE_MODE_NIGHT;
+            case "SPORTS":   return SCENE_MODE_SPORTS;
+            default: return null;
+        }
+    }
+    static Integer colorModeFromString(String s) {
+        switch (s.toUpperCase()) {
+            case "OFF":              return COLOR_CORRECTION_TRANSFORM_MATRIX;
+            case "FAST":             return COLOR_CORRECTION_FAST;
+            case "HIGH_QUALITY":     return COLOR_CORRECTION_HIGH_QUALITY;
+            case "TRANSFORM_MATRIX": return COLOR_CORRECTION_TRANSFORM_MATRIX;
+            default: return null;
+        }
+    }
+    // effectModeFromString
+    static Integer effectModeFromString(String s) {
+        switch (s.toUpperCase()) {
+            case "NONE":
+            case "OFF":  return EFFECT_MODE_OFF;
+            case "MONO": return EFFECT_MODE_MONO;
+            case "NEGATIVE": return EFFECT_MODE_NEGATIVE;
+            case "SEPIA": return EFFECT_MODE_SEPIA;
+            default: return null;
+        }
+    }
+    static Integer noiseReductionFromString(String s) {
+        switch (s.toUpperCase()) {
+            case "OFF":          return NOISE_REDUCTION_OFF;
+            case "FAST":         return NOISE_REDUCTION_FAST;
+            case "HIGH_QUALITY": return NOISE_REDUCTION_HIGH_QUALITY;
+            case "MINIMAL":      return NOISE_REDUCTION_MINIMAL;
+            default:             return null;
+        }
+    }
+    // tonemapFromString
+    static Integer tonemapFromString(String s) {
+        switch (s.toUpperCase()) {
+            case "CONTRAST_CURVE": return TONEMAP_CONTRAST_CURVE;
+            case "FAST":           return TONEMAP_FAST;
+            case "HIGH_QUALITY":   return TONEMAP_HIGH_QUALITY;
+            case "GAMMA_VALUE":    return TONEMAP_GAMMA_VALUE; // ← 추가
+            default: return null;
+        }
+    }
+    static Integer antibandingFromString(String s) {
+        switch (s.toUpperCase()) {
+            case "OFF":  return ANTIBANDING_OFF;
+            case "50HZ": return ANTIBANDING_50HZ;
+            case "60HZ": return ANTIBANDING_60HZ;
+            case "AUTO": return ANTIBANDING_AUTO;
+            default:     return null;
+        }
+    }
+
+    /** parseRegions 결과에서 영역 하나의 칸 수: x, y, w, h, weight */
+    static final int REGION_FIELDS = 5;
+
+    /**
+     * "full" | "center" | "x,y,w,h; x,y,w,h" (활성 영역 좌표). 잘못된 형식이면 null.
+     * activeArray 는 {left, top, right, bottom}. 결과는 영역마다 x, y, w, h, weight (MeteringRectangle 순서)
+     */
+    static int[] parseRegions(String text, int[] activeArray) {
+        if (text == null || text.trim().isEmpty()) return null;
+        if (activeArray == null) return null;
+        int aLeft = activeArray[0], aTop = activeArray[1], aRight = activeArray[2], aBottom = activeArray[3];
+        int aw = aRight - aLeft, ah = aBottom - aTop;
+
+        String t = text.trim().toLowerCase();
+        if ("full".equals(t)) {
+            return new int[]{aLeft, aTop, aw, ah, METERING_WEIGHT_MAX};
+        }
+        if ("center".equals(t)) {
+            int w = aw / 3;
+            int h = ah / 3;
+            return new int[]{aLeft + (aw - w) / 2, aTop + (ah - h) / 2, w, h, METERING_WEIGHT_MAX};
+        }
+
+        // 숫자 포맷 "x,y,w,h; x,y,w,h"
+        try {
+            String[] parts = text.split(";");
+            int[] out = new int[parts.length * REGION_FIELDS];
+            for (int i = 0; i < parts.length; i++) {
+                String[] nums = parts[i].trim().split(",");
+                if (nums.length != 4) return null;
+                int x = Integer.parseInt(nums[0].trim());
+                int y = Integer.parseInt(nums[1].trim());
+                int w = Integer.parseInt(nums[2].trim());
+                int h = Integer.parseInt(nums[3].trim());
+                // 활성 영역 밖으로 나가지 않게 자른다
+                int l = Math.max(aLeft, x);
+                int tp = Math.max(aTop, y);
+                int r = Math.min(aRight, x + w);
+                int b = Math.min(aBottom, y + h);
+                if (r <= l || b <= tp) return null;
+                int o = i * REGION_FIELDS;
+                out[o] = l;
+                out[o + 1] = tp;
+                out[o + 2] = r - l;
+                out[o + 3] = b - tp;
+                out[o + 4] = METERING_WEIGHT_MAX;
+            }
+            return out;
+        } catch (NumberFormatException e) { return null; }
+    }
+}
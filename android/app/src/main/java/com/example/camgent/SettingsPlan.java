@@ -0,0 +1,60 @@
+package com.example.camgent;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 컴파일된 설정 묶음 (불변).
+ * 에이전트가 준 settings 맵을 한 번 파싱/검증해서 (RequestKey, 값) 배열로 만든 것.
+ * 값이 null 인 항목은 "그 키를 지운다(템플릿 기본값으로)"는 뜻. 상태 반영은 CaptureState.apply().
+ */
+public final class SettingsPlan {
+    private final RequestKey[] keys;
+    private final Object[] values;
+    public final boolean rawOutput;
+    public final boolean nightStack;    // NIGHT 씬: HAL 씬 모드와 별개로 촬영을 멀티 프레임 스태킹으로
+    public final List<String> warnings; // 범위 밖이라 잘렸거나 지원 안 돼서 무시된 항목
+
+    SettingsPlan(RequestKey[] keys, Object[] values, boolean rawOutput, boolean nightStack,
+                 List<String> warnings) {
+        this.keys = keys;
+        this.values = values;
+        this.rawOutput = rawOutput;
+        this.nightStack = nightStack;
+        this.warnings = Collections.unmodifiableList(warnings);
+    }
+
+    public int size() { return keys.length; }
+
+    public RequestKey key(int i) { return keys[i]; }
+
+    /** RequestKey 주석의 타입. 배열 값은 공유되므로 고치지 않는다 */
+    public Object value(int i) { return values[i]; }
+
+    /** key 의 위치. 이 플랜에 없으면 -1 */
+    public int indexOf(RequestKey key) {
+        for (int i = 0; i < keys.length; i++) if (keys[i] == key) return i;
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("SettingsPlan{");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(keys[i].name()).append('=').append(valueString(values[i]));
+        }
+        if (rawOutput) sb.append(", RAW");
+        if (nightStack) sb.append(", NIGHT_STACK");
+        if (!warnings.isEmpty()) sb.append(", warnings=").append(warnings);
+        return sb.append('}').toString();
+    }
+
+    private static String valueString(Object v) {
+        if (v instanceof int[]) return Arrays.toString((int[]) v);
+        if (v instanceof float[]) return Arrays.toString((float[]) v);
+        return Objects.toString(v);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.camgent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 참조 수로 닫는 리더 (플랫폼 무관, Camera2 에선 스틸 ImageReader).
+ * zero-copy 저장 작업은 리더의 Image 를 쥔 채 writer 큐에서 기다리므로, 리더를 바로 닫으면
+ * 작업이 해제된 네이티브 버퍼를 쓰게 된다. 그래서 소유자(카메라 스레드) 참조 1 + 대기 중인 작업마다 1 을 세고,
+ * 마지막 참조를 놓는 쪽(보통 writer 스레드)이 닫는다 → 카메라 스레드는 저장을 기다리지 않는다.
+ */
+public final class SharedReader<T extends AutoCloseable> {
+    private final T reader;
+    private final AtomicInteger refs = new AtomicInteger(1); // 소유자
+    private volatile boolean retired;
+
+    public SharedReader(T reader) {
+        this.reader = reader;
+    }
+
+    public T get() { return reader; }
+
+    /** 작업 하나가 이 리더의 이미지를 쥔다. 이미 닫혔으면 false (그 이미지는 쓰면 안 된다) */
+    public boolean retain() {
+        while (true) {
+            int n = refs.get();
+            if (n <= 0) return false;
+            if (refs.compareAndSet(n, n + 1)) return true;
+        }
+    }
+
+    /** retain 한 만큼 한 번씩. 마지막 참조면 여기서 닫는다 */
+    public void release() {
+        int n = refs.decrementAndGet();
+        if (n == 0) closeQuietly();
+        else if (n < 0) throw new IllegalStateException("SharedReader released more than retained");
+    }
+
+    /** 소유자가 놓는다 (여러 번 불러도 된다). 쥐고 있는 작업이 없으면 바로 닫힌다 */
+    public synchronized void retire() {
+        if (retired) return;
+        retired = true;
+        release();
+    }
+
+    public boolean isClosed() { return refs.get() <= 0; }
+
+    private void closeQuietly() {
+        try {
+            reader.close();
+        } catch (Exception ignore) {}
+    }
+}
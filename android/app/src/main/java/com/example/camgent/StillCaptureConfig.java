@@ -0,0 +1,79 @@
+package com.example.camgent;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 스틸 출력 구성 (형식 + 크기). 프리뷰 크기와 독립적으로 고른다.
+ *  - 그 형식으로 가능한 크기 중 가장 큰 것 (또는 요청 크기에 가장 가까운 것)
+ *  - 단, 스톨/최소 프레임 시간이 프리뷰 프레임레이트를 깎지 않는 범위 안에서
+ */
+public final class StillCaptureConfig {
+    // 저장 1장 + 캡처 진행 1장 + 여유 1장
+    public static final int DEFAULT_MAX_IMAGES = 3;
+    // 스틸 스트림이 프리뷰를 멈추게 할 수 있는 최대 허용치
+    private static final long MAX_STALL_NS = 300_000_000L;
+    private static final long DEFAULT_PREVIEW_FRAME_NS = 33_333_333L; // 30fps
+
+    public final StillFormat format;
+    public final StreamSize size;
+    public final long minFrameDurationNs;
+    public final long stallDurationNs;
+    public final int maxImages;
+
+    private StillCaptureConfig(StillFormat format, StreamSize size, long minFrameDurationNs, long stallDurationNs,
+                               int maxImages) {
+        this.format = format;
+        this.size = size;
+        this.minFrameDurationNs = minFrameDurationNs;
+        this.stallDurationNs = stallDurationNs;
+        this.maxImages = maxImages;
+    }
+
+    /**
+     * @param format             StillFormat.resolve() 로 이미 이 카메라에서 되는 것으로 고른 형식
+     * @param requested          null 이면 자동(최대 해상도)
+     * @param previewFrameNs     프리뷰 한 프레임 시간. 0 이하면 30fps 로 간주
+     */
+    public static StillCaptureConfig choose(CameraInfo info, StillFormat format, StreamSize requested,
+                                            StreamSize fallback, long previewFrameNs) {
+        int f = format.imageFormat;
+        StreamSize[] sizes = info != null ? info.outputSizes(f) : null;
+        if (sizes == null || sizes.length == 0) {
+            return new StillCaptureConfig(StillFormat.JPEG, fallback, 0, 0, DEFAULT_MAX_IMAGES);
+        }
+        long frameBudget = previewFrameNs > 0 ? Math.max(previewFrameNs, DEFAULT_PREVIEW_FRAME_NS)
+                : DEFAULT_PREVIEW_FRAME_NS;
+
+        StreamSize[] byArea = sizes.clone();
+        Arrays.sort(byArea, Comparator.comparingLong((StreamSize s) -> (long) s.getWidth() * s.getHeight()).reversed());
+
+        StreamSize chosen = null;
+        if (requested != null) {
+            long want = (long) requested.getWidth() * requested.getHeight();
+            chosen = Arrays.stream(byArea)
+                    .min(Comparator.comparingLong(s -> Math.abs((long) s.getWidth() * s.getHeight() - want)))
+                    .orElse(null);
+        } else {
+            for (StreamSize s : byArea) {
+                if (info.outputMinFrameDurationNs(f, s) <= frameBudget
+                        && info.outputStallDurationNs(f, s) <= MAX_STALL_NS) {
+                    chosen = s;
+                    break;
+                }
+            }
+        }
+        if (chosen == null) chosen = byArea[0]; // 조건 만족 크기가 없으면 최대 크기
+
+        return new StillCaptureConfig(format, chosen,
+                info.outputMinFrameDurationNs(f, chosen),
+                info.outputStallDurationNs(f, chosen),
+                DEFAULT_MAX_IMAGES);
+    }
+
+    @Override
+    public String toString() {
+        return format.key + " " + size + " minFrame=" + minFrameDurationNs / 1_000 + "us stall="
+                + stallDurationNs / 1_000 + "us maxImages=" + maxImages;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.camgent;
+
+import android.graphics.ImageFormat;
+import android.os.Build;
+
+/**
+ * 스틸 저장 형식.
+ *  - JPEG          : 기본값, 어디서나 된다
+ *  - HEIC          : 카메라가 ImageFormat.HEIC 스트림을 직접 내준다 (API 29+, 기기 광고 시)
+ *  - HEIC_ENCODED  : YUV 스틸을 받아 하드웨어 HEVC 인코더(HeifWriter)로 HEIC 를 만든다 (API 28+)
+ * 요청 형식을 못 쓰면 resolve() 가 다음 후보로 내려간다 (HEIC → HEIC_ENCODED → JPEG).
+ */
+public enum StillFormat {
+    JPEG("jpeg", ImageFormat.JPEG, "image/jpeg", "jpg"),
+    HEIC("heic", ImageFormat.HEIC, "image/heic", "heic"),
+    HEIC_ENCODED("heicEncoded", ImageFormat.YUV_420_888, "image/heic", "heic");
+
+    public final String key;
+    public final int imageFormat;   // 스틸 ImageReader 형식
+    public final String mimeType;
+    public final String extension;
+
+    StillFormat(String key, int imageFormat, String mimeType, String extension) {
+        this.key = key;
+        this.imageFormat = imageFormat;
+        this.mimeType = mimeType;
+        this.extension = extension;
+    }
+
+    /** 리더 버퍼를 그대로 파일에 쓸 수 있는 형식 (아니면 writer 가 인코딩) */
+    public boolean isEncodedByCamera() { return this != HEIC_ENCODED; }
+
+    /** "jpeg" | "heic" → 요청 형식. 모르는 값이면 null */
+    public static StillFormat fromString(String s) {
+        if (s == null) return null;
+        switch (s.toLowerCase()) {
+            case "jpeg":
+            case "jpg":  return JPEG;
+            case "heic":
+            case "heif": return HEIC;
+            default:     return null;
+        }
+    }
+
+    /** 이 카메라에서 실제로 쓸 형식 */
+    public static StillFormat resolve(StillFormat requested, CameraInfo info) {
+        if (requested == null || requested == JPEG || info == null) return JPEG;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && info.outputSizes(ImageFormat.HEIC).length > 0) {
+            return HEIC;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P && HeifEncoder.isSupported()
+                && info.outputSizes(ImageFormat.YUV_420_888).length > 0) {
+            return HEIC_ENCODED;
+        }
+        return JPEG;
+    }
+}
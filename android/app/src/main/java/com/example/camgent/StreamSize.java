@@ -0,0 +1,34 @@
+package com.example.camgent;
+
+/**
+ * 출력 스트림 크기 (불변). CameraInfo 가 플랫폼 타입 없이 들고 있는 해상도.
+ * android.util.Size 와 같은 모양이라 리더/인코더에는 getWidth()/getHeight() 로 넘긴다.
+ */
+public final class StreamSize {
+    private final int width;
+    private final int height;
+
+    public StreamSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getWidth() { return width; }
+
+    public int getHeight() { return height; }
+
+    public long area() { return (long) width * height; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof StreamSize)) return false;
+        StreamSize s = (StreamSize) o;
+        return width == s.width && height == s.height;
+    }
+
+    @Override
+    public int hashCode() { return 31 * width + height; }
+
+    @Override
+    public String toString() { return width + "x" + height; }
+}
@@ -0,0 +1,151 @@
+package com.example.camgent;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.os.Build;
+import android.os.SystemClock;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 업로드용 축소 JPEG (긴 변 maxEdge, 품질 quality).
+ * 원본(JPEG, 또는 API 28+ 에서 카메라 HEIC)을 전부 디코드하지 않고 inSampleSize 로 디코더 단계에서 2^n 으로 줄여 읽은 뒤
+ * 남은 배율만 비트맵으로 맞춘다. 입력은 Image 플레인 (direct ByteBuffer) 을 스트림으로 그대로 읽는다.
+ * 결과 파일은 앱 캐시에 두고 최근 KEEP_FILES 개만 남긴다 (갤러리에는 넣지 않음).
+ */
+public final class UploadVariant {
+    public static final int DEFAULT_MAX_EDGE = 1024;
+    public static final int DEFAULT_QUALITY = 80;
+    private static final String DIR = "upload";
+    private static final int KEEP_FILES = 8;
+
+    public final int maxEdge;
+    public final int quality;
+
+    /** writer 스레드에서 한 번 호출된다. 실패하면 result 는 null */
+    public interface Callback {
+        void onVariant(Result result, Exception error);
+    }
+
+    public static final class Result {
+        public final File file;
+        public final int width, height;
+        public final long bytes;
+        public final long encodeNs;
+
+        Result(File file, int width, int height, long bytes, long encodeNs) {
+            this.file = file;
+            this.width = width;
+            this.height = height;
+            this.bytes = bytes;
+            this.encodeNs = encodeNs;
+        }
+    }
+
+    public UploadVariant(int maxEdge, int quality) {
+        this.maxEdge = Math.max(64, maxEdge);
+        this.quality = Math.max(1, Math.min(100, quality));
+    }
+
+    /** jpeg 의 position/limit 은 건드리지 않는다 (원본 저장이 이어서 같은 버퍼를 쓴다) */
+    public Result encode(ByteBuffer jpeg, File cacheDir, long captureId) throws IOException {
+        return encode(jpeg, Build.VERSION.SDK_INT >= Build.VERSION_CODES.N ? exifRotation(jpeg) : 0, cacheDir, captureId);
+    }
+
+    /** EXIF 가 없는 JPEG (NV21 프레임을 직접 인코딩한 것): 회전(도)을 따로 받는다 */
+    public Result encode(ByteBuffer jpeg, int rotation, File cacheDir, long captureId) throws IOException {
+        long start = SystemClock.elapsedRealtimeNanos();
+
+        // 1) 헤더만 읽어 크기 확인
+        BitmapFactory.Options o = new BitmapFactory.Options();
+        o.inJustDecodeBounds = true;
+        BitmapFactory.decodeStream(new BufferInput(jpeg.duplicate()), null, o);
+        if (o.outWidth <= 0 || o.outHeight <= 0) throw new IOException("undecodable still");
+
+        // 2) maxEdge 이상을 유지하는 가장 큰 2^n 으로 줄여서 디코드
+        int longest = Math.max(o.outWidth, o.outHeight);
+        int sample = 1;
+        while (longest / (sample * 2) >= maxEdge) sample *= 2;
+        o.inJustDecodeBounds = false;
+        o.inSampleSize = sample;
+        o.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap decoded = BitmapFactory.decodeStream(new BufferInput(jpeg.duplicate()), null, o);
+        if (decoded == null) throw new IOException("decode failed");
+
+        // 3) 남은 배율 + 회전을 한 번에 (서버는 EXIF 를 안 볼 수 있으므로 픽셀로 돌려 둔다)
+        float scale = Math.min(1f, maxEdge / (float) Math.max(decoded.getWidth(), decoded.getHeight()));
+        Bitmap out = decoded;
+        if (scale < 1f || rotation != 0) {
+            Matrix m = new Matrix();
+            m.postScale(scale, scale);
+            m.postRotate(rotation);
+            out = Bitmap.createBitmap(decoded, 0, 0, decoded.getWidth(), decoded.getHeight(), m, true);
+            if (out != decoded) decoded.recycle();
+        }
+
+        File dir = new File(cacheDir, DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("cannot create " + dir);
+        File file = new File(dir, "UP_" + captureId + "_" + System.currentTimeMillis() + ".jpg");
+        int w = out.getWidth(), h = out.getHeight();
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            if (!out.compress(Bitmap.CompressFormat.JPEG, quality, fos)) throw new IOException("compress failed");
+        } finally {
+            out.recycle();
+        }
+        prune(dir);
+        return new Result(file, w, h, file.length(), SystemClock.elapsedRealtimeNanos() - start);
+    }
+
+    @androidx.annotation.RequiresApi(Build.VERSION_CODES.N)
+    private static int exifRotation(ByteBuffer jpeg) {
+        try {
+            ExifInterface exif = new ExifInterface(new BufferInput(jpeg.duplicate()));
+            switch (exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL)) {
+                case ExifInterface.ORIENTATION_ROTATE_90:  return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180: return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270: return 270;
+                default: return 0;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // 오래된 업로드 파일 정리
+    private static void prune(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null || files.length <= KEEP_FILES) return;
+        Arrays.sort(files, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        for (int i = KEEP_FILES; i < files.length; i++) {
+            //noinspection ResultOfMethodCallIgnored
+            files[i].delete();
+        }
+    }
+
+    // direct ByteBuffer 를 힙 복사 없이 읽는 InputStream
+    private static final class BufferInput extends InputStream {
+        private final ByteBuffer buf;
+
+        BufferInput(ByteBuffer buf) { this.buf = buf; }
+
+        @Override public int read() {
+            return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+        }
+
+        @Override public int read(byte[] b, int off, int len) {
+            if (!buf.hasRemaining()) return -1;
+            int n = Math.min(len, buf.remaining());
+            buf.get(b, off, n);
+            return n;
+        }
+
+        @Override public int available() { return buf.remaining(); }
+    }
+}
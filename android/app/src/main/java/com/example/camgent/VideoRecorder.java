@@ -0,0 +1,325 @@
+package com.example.camgent;
+
+import android.content.Context;
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.ParcelFileDescriptor;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Surface;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 하드웨어 H.264 녹화 (영상만).
+ * 인코더 입력 표면을 프리뷰 세션의 출력으로 붙인다 → 카메라 버퍼가 CPU 복사 없이 인코더로 간다.
+ * 인코더 출력 처리와 MP4 먹싱은 전용 스레드("native-cam2-mux")에서 MediaStore fd 에 바로 쓴다.
+ *
+ * 드롭/백프레셔: 카메라가 인코더 표면으로 낸 프레임 수(onCameraFrame)와 인코더가 내놓은 프레임 수를 비교한다.
+ * 인코더가 밀리면 표면 큐가 앞 프레임을 덮어써서 그 차이가 드롭이 된다. 진행 중 최대 차이가 백프레셔 지표.
+ */
+@RequiresApi(Build.VERSION_CODES.O)
+public final class VideoRecorder {
+    private static final String TAG = "Cam2Native";
+    private static final String MIME = MediaFormat.MIMETYPE_VIDEO_AVC;
+    public static final int DEFAULT_FPS = 30;
+    private static final int MAX_WIDTH = 1920, MAX_HEIGHT = 1080;
+    private static final int I_FRAME_INTERVAL_S = 1;
+    private static final long STOP_TIMEOUT_MS = 3_000;
+
+    /** mux 스레드에서 한 번 호출된다 (stop() 후 또는 인코더 오류 시). 실패하면 error != null (파일은 지워진다) */
+    public interface Listener {
+        void onFinished(Stats stats, Exception error);
+    }
+
+    public static final class Stats {
+        public final Uri uri;
+        public final StreamSize size;
+        public final long durationUs;
+        public final long bytes;
+        public final long cameraFrames;   // 카메라가 인코더 표면으로 낸 프레임
+        public final long encodedFrames;
+        public final long droppedFrames;  // cameraFrames - encodedFrames (버퍼 유실 포함)
+        public final long gapFrames;      // 타임스탬프 간격으로 추정한 빠진 프레임
+        public final long buffersLost;
+        public final long maxInFlight;    // 카메라 프레임 - 인코딩된 프레임의 최대치 (백프레셔)
+        public final long finalizeNs;     // stop → 파일 확정
+
+        Stats(Uri uri, StreamSize size, long durationUs, long bytes, long cameraFrames, long encodedFrames,
+              long gapFrames, long buffersLost, long maxInFlight, long finalizeNs) {
+            this.uri = uri;
+            this.size = size;
+            this.durationUs = durationUs;
+            this.bytes = bytes;
+            this.cameraFrames = cameraFrames;
+            this.encodedFrames = encodedFrames;
+            this.droppedFrames = Math.max(0, cameraFrames - encodedFrames);
+            this.gapFrames = gapFrames;
+            this.buffersLost = buffersLost;
+            this.maxInFlight = maxInFlight;
+            this.finalizeNs = finalizeNs;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new HashMap<>();
+            m.put("uri", String.valueOf(uri));
+            m.put("width", size.getWidth());
+            m.put("height", size.getHeight());
+            m.put("durationMs", durationUs / 1_000.0);
+            m.put("bytes", bytes);
+            m.put("cameraFrames", cameraFrames);
+            m.put("encodedFrames", encodedFrames);
+            m.put("droppedFrames", droppedFrames);
+            m.put("gapFrames", gapFrames);
+            m.put("buffersLost", buffersLost);
+            m.put("maxInFlight", maxInFlight);
+            m.put("finalizeMs", finalizeNs / 1_000_000.0);
+            return m;
+        }
+    }
+
+    private final Context context;
+    public final Uri uri;
+    public final StreamSize size;
+    private final long frameIntervalUs;
+    private final HandlerThread thread;
+    private final Handler handler;
+    private final MediaCodec codec;
+    private final Surface surface;
+    private final ParcelFileDescriptor pfd;
+    private final MediaMuxer muxer;
+    private final Listener listener;
+
+    // mux 스레드 전용
+    private int track = -1;
+    private long firstPtsUs = -1, lastPtsUs = -1;
+    private long gapFrames = 0;
+    private long maxInFlight = 0;
+    private long stopStartNs = 0;
+    private boolean finished = false;
+
+    // 카메라 스레드가 쓰고 mux 스레드가 읽는다 (쓰는 쪽은 하나씩)
+    private volatile long cameraFrames = 0;
+    private volatile long buffersLost = 0;
+    private volatile long encodedFrames = 0;
+
+    /** MediaCodec 출력 크기 중 1080p 이하, 프리뷰 비율에 가장 가까운 가장 큰 것 */
+    public static StreamSize chooseSize(CameraInfo info, StreamSize preview) {
+        StreamSize[] sizes = info.videoSizes;
+        if (sizes.length == 0) return preview;
+        double want = preview.getWidth() / (double) preview.getHeight();
+        StreamSize best = null;
+        double bestDiff = Double.MAX_VALUE;
+        for (StreamSize s : sizes) {
+            if (s.getWidth() > MAX_WIDTH || s.getHeight() > MAX_HEIGHT) continue;
+            double diff = Math.abs(s.getWidth() / (double) s.getHeight() - want);
+            boolean better = best == null || diff < bestDiff - 0.01
+                    || (Math.abs(diff - bestDiff) <= 0.01
+                        && (long) s.getWidth() * s.getHeight() > (long) best.getWidth() * best.getHeight());
+            if (better) {
+                best = s;
+                bestDiff = diff;
+            }
+        }
+        return best != null ? best : preview;
+    }
+
+    /** 인코더와 먹서를 준비한다. 세션에 surface() 를 붙이면 바로 녹화가 시작된다 */
+    public static VideoRecorder create(Context context, Uri uri, StreamSize size, int fps, int bitRate,
+                                       int orientationHint, Listener listener) throws IOException {
+        return new VideoRecorder(context, uri, size, fps, bitRate, orientationHint, listener);
+    }
+
+    private VideoRecorder(Context context, Uri uri, StreamSize size, int fps, int bitRate,
+                          int orientationHint, Listener listener) throws IOException {
+        this.context = context.getApplicationContext();
+        this.listener = listener;
+        this.uri = uri;
+        this.size = size;
+        this.frameIntervalUs = 1_000_000L / Math.max(1, fps);
+
+        thread = new HandlerThread("native-cam2-mux");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+
+        ParcelFileDescriptor fd = null;
+        MediaMuxer mx = null;
+        MediaCodec c = null;
+        try {
+            fd = this.context.getContentResolver().openFileDescriptor(uri, "rw");
+            if (fd == null) throw new IOException("openFileDescriptor null");
+            mx = new MediaMuxer(fd.getFileDescriptor(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+            mx.setOrientationHint(orientationHint);
+
+            MediaFormat format = MediaFormat.createVideoFormat(MIME, size.getWidth(), size.getHeight());
+            format.setInteger(MediaFormat.KEY_COLOR_FORMAT, MediaCodecInfo.CodecCapabilities.COLOR_FormatSurface);
+            format.setInteger(MediaFormat.KEY_BIT_RATE, bitRate);
+            format.setInteger(MediaFormat.KEY_FRAME_RATE, fps);
+            format.setInteger(MediaFormat.KEY_I_FRAME_INTERVAL, I_FRAME_INTERVAL_S);
+            c = MediaCodec.createEncoderByType(MIME);
+            c.setCallback(codecCallback, handler);
+            c.configure(format, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+            surface = c.createInputSurface();
+            c.start();
+        } catch (IOException | RuntimeException e) {
+            if (c != null) c.release();
+            if (mx != null) mx.release();
+            if (fd != null) {
+                try { fd.close(); } catch (IOException ignore) {}
+            }
+            thread.quitSafely();
+            throw e;
+        }
+        codec = c;
+        muxer = mx;
+        pfd = fd;
+        Log.d(TAG, "recorder " + size + " @" + fps + "fps " + bitRate / 1000 + "kbps → " + uri);
+    }
+
+    /** 세션 출력 + 반복 요청 타겟으로 붙일 인코더 입력 표면 */
+    public Surface surface() { return surface; }
+
+    public static int defaultBitRate(StreamSize size, int fps) {
+        // 대략 0.1 bit/pixel/frame (1080p30 ≈ 6Mbps)
+        return (int) Math.max(1_000_000L, (long) size.getWidth() * size.getHeight() * fps / 10);
+    }
+
+    /** 카메라 스레드: 인코더 표면을 타겟으로 한 프레임이 완료됨 */
+    public void onCameraFrame() { cameraFrames++; }
+
+    /** 카메라 스레드: 인코더 표면의 버퍼가 유실됨 */
+    public void onBufferLost() { buffersLost++; }
+
+    public long cameraFrames() { return cameraFrames; }
+    public long encodedFrames() { return encodedFrames; }
+
+    /**
+     * 녹화 종료. 카메라가 더 이상 이 표면에 쓰지 않게 한 뒤에 부른다.
+     * 인코더에 남은 프레임을 모두 먹싱하고 파일을 확정한 다음 listener 를 mux 스레드에서 부른다.
+     */
+    public void stop() {
+        handler.post(() -> {
+            if (finished || stopStartNs != 0) return;
+            stopStartNs = SystemClock.elapsedRealtimeNanos();
+            try {
+                codec.signalEndOfInputStream();
+            } catch (IllegalStateException e) {
+                finish(e);
+                return;
+            }
+            handler.postDelayed(stopTimeout, STOP_TIMEOUT_MS);
+        });
+    }
+
+    private final Runnable stopTimeout = () -> {
+        Log.w(TAG, "recorder: no end-of-stream in " + STOP_TIMEOUT_MS + "ms, finalizing what we have");
+        finish(null);
+    };
+
+    private final MediaCodec.Callback codecCallback = new MediaCodec.Callback() {
+        @Override public void onInputBufferAvailable(@NonNull MediaCodec c, int index) {
+            // 표면 입력이라 쓰지 않는다
+        }
+
+        @Override public void onOutputFormatChanged(@NonNull MediaCodec c, @NonNull MediaFormat format) {
+            if (track >= 0) return;
+            track = muxer.addTrack(format);
+            muxer.start();
+        }
+
+        @Override public void onOutputBufferAvailable(@NonNull MediaCodec c, int index,
+                                                      @NonNull MediaCodec.BufferInfo info) {
+            if (finished) return;
+            try {
+                boolean config = (info.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0;
+                if (!config && info.size > 0 && track >= 0) {
+                    ByteBuffer buf = c.getOutputBuffer(index);
+                    if (buf != null) writeSample(buf, info);
+                }
+                c.releaseOutputBuffer(index, false);
+            } catch (IllegalStateException e) {
+                finish(e);
+                return;
+            }
+            if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) finish(null);
+        }
+
+        @Override public void onError(@NonNull MediaCodec c, @NonNull MediaCodec.CodecException e) {
+            Log.e(TAG, "encoder error", e);
+            finish(e);
+        }
+    };
+
+    // mux 스레드: 타임스탬프를 0 기준으로 옮겨 바로 fd 에 쓴다
+    private void writeSample(ByteBuffer buf, MediaCodec.BufferInfo info) {
+        long pts = info.presentationTimeUs;
+        if (firstPtsUs < 0) firstPtsUs = pts;
+        if (lastPtsUs >= 0) {
+            long gap = pts - lastPtsUs;
+            // 1.5 프레임 이상 벌어지면 그 사이 프레임이 빠진 것
+            if (gap > frameIntervalUs * 3 / 2) gapFrames += Math.round(gap / (double) frameIntervalUs) - 1;
+        }
+        lastPtsUs = pts;
+        info.presentationTimeUs = pts - firstPtsUs;
+        buf.position(info.offset);
+        buf.limit(info.offset + info.size);
+        muxer.writeSampleData(track, buf, info);
+        long encoded = ++encodedFrames;
+        maxInFlight = Math.max(maxInFlight, cameraFrames - encoded);
+    }
+
+    // mux 스레드: 인코더/먹서 정리, 파일 확정 또는 삭제. 한 번만
+    private void finish(Exception error) {
+        if (finished) return;
+        finished = true;
+        handler.removeCallbacks(stopTimeout);
+        try { codec.stop(); } catch (IllegalStateException ignore) {}
+        codec.release();
+        surface.release();
+
+        Exception err = error;
+        boolean started = track >= 0;
+        try {
+            if (started) muxer.stop();
+        } catch (IllegalStateException e) {
+            if (err == null) err = e;
+        }
+        muxer.release();
+        if (err == null && (!started || encodedFrames == 0)) err = new IllegalStateException("no frames recorded");
+
+        long bytes = 0;
+        try {
+            pfd.getFileDescriptor().sync();
+            bytes = pfd.getStatSize();
+            pfd.close();
+        } catch (IOException e) {
+            if (err == null) err = e;
+        }
+        if (err == null) {
+            NativeCameraCapture.publishPending(context, uri);
+        } else {
+            NativeCameraCapture.discardPending(context, uri);
+        }
+
+        long finalizeNs = stopStartNs != 0 ? SystemClock.elapsedRealtimeNanos() - stopStartNs : 0;
+        Stats stats = new Stats(uri, size, lastPtsUs >= 0 ? lastPtsUs - firstPtsUs : 0, bytes,
+                cameraFrames, encodedFrames, gapFrames, buffersLost, maxInFlight, finalizeNs);
+        Log.d(TAG, "recorder finished frames=" + stats.encodedFrames + "/" + stats.cameraFrames
+                + " dropped=" + stats.droppedFrames + " maxInFlight=" + stats.maxInFlight
+                + (err != null ? " error=" + err : ""));
+        listener.onFinished(stats, err);
+        thread.quitSafely();
+    }
+}
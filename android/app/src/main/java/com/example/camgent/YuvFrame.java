@@ -0,0 +1,67 @@
+package com.example.camgent;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * 멀티 프레임 처리(브래킷 병합 등)용 NV21 프레임: Y 평면 뒤에 VU 인터리브 평면.
+ * 안드로이드 타입을 쓰지 않으므로 병합 로직은 JVM 에서도 그대로 돈다.
+ *
+ * 프레임은 Pool 에서만 만든다. 한 장이 수 MB 라 버스트마다 새로 할당하지 않고 정해 둔 개수를 돌려 쓴다.
+ * 다 쓴 쪽(병합/저장)이 release() 로 반납한다.
+ */
+public final class YuvFrame {
+    public final int width, height;   // 둘 다 짝수 (NV21)
+    public final byte[] nv21;
+    public long timestampNs;
+    public int index;                 // 버스트 안에서의 요청 순서 (브래킷 EV 순서)
+    private final Pool pool;
+
+    private YuvFrame(int width, int height, Pool pool) {
+        this.width = width;
+        this.height = height;
+        this.nv21 = new byte[width * height * 3 / 2];
+        this.pool = pool;
+    }
+
+    public int ySize() { return width * height; }
+
+    /** 풀로 반납. 반납 뒤엔 이 프레임을 더 쓰면 안 된다 */
+    public void release() { pool.release(this); }
+
+    /** 같은 크기 프레임을 최대 capacity 장까지 (처음 필요할 때) 만들어 돌려 쓴다. 스레드 안전 */
+    public static final class Pool {
+        public final int width, height, capacity;
+        private final ArrayBlockingQueue<YuvFrame> free;
+        private int created = 0; // this 로 보호
+
+        public Pool(int width, int height, int capacity) {
+            if ((width & 1) != 0 || (height & 1) != 0) {
+                throw new IllegalArgumentException("NV21 needs even size: " + width + "x" + height);
+            }
+            this.width = width;
+            this.height = height;
+            this.capacity = capacity;
+            this.free = new ArrayBlockingQueue<>(capacity);
+        }
+
+        /** 빈 프레임. 모두 사용 중이면 null (호출자가 건너뛰거나 BUSY 로) */
+        public YuvFrame acquire() {
+            YuvFrame f = free.poll();
+            if (f != null) return f;
+            synchronized (this) {
+                if (created >= capacity) return null;
+                created++;
+            }
+            return new YuvFrame(width, height, this);
+        }
+
+        void release(YuvFrame f) {
+            f.timestampNs = 0;
+            f.index = 0;
+            free.offer(f);
+        }
+
+        /** 지금 빌려 간 프레임 수 */
+        public synchronized int inUse() { return created - free.size(); }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.camgent;
+
+import android.graphics.ImageFormat;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraMetadata;
+import android.hardware.camera2.CaptureResult;
+import android.hardware.camera2.TotalCaptureResult;
+import android.hardware.camera2.params.InputConfiguration;
+import android.hardware.camera2.params.StreamConfigurationMap;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Size;
+import android.view.Surface;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Zero-shutter-lag 링버퍼.
+ * 반복 요청이 풀 해상도 PRIVATE/YUV 프레임을 계속 채우고, 셔터 시점에 가장 가까운 프레임을
+ * 재처리(reprocess) 요청으로 JPEG 으로 만든다.
+ *
+ * 버퍼는 ImageReader 가 가진 고정 풀(maxImages)만 돌려 쓴다 → 새로 할당하지 않음.
+ * 모든 메서드는 카메라 스레드에서만 호출.
+ */
+public final class ZslRingBuffer implements ImageReader.OnImageAvailableListener {
+    public static final int DEFAULT_CAPACITY = 4;
+
+    private final ImageReader reader;
+    private final int format;
+    private final Size size;
+
+    // 프레임 링 (Image 는 ImageReader 풀에 있는 버퍼를 가리킬 뿐)
+    private final Image[] images;
+    private final long[] imageTs;
+    private int imageHead = 0;
+
+    // 재처리 요청에 필요한 결과 링 (SENSOR_TIMESTAMP 로 매칭)
+    private final TotalCaptureResult[] results;
+    private final long[] resultTs;
+    private int resultHead = 0;
+
+    // 센서 타임스탬프 → elapsedRealtimeNanos 보정값 (REALTIME 소스면 0)
+    private final boolean realtimeTimestamps;
+    private long clockOffsetNs = Long.MAX_VALUE;
+
+    /** 셔터로 고른 프레임. image 의 소유권은 호출자에게 넘어간다. */
+    public static final class Selection {
+        public final Image image;
+        public final TotalCaptureResult result;
+        public final long shutterToFrameNs; // 음수면 탭보다 앞선 프레임
+
+        Selection(Image image, TotalCaptureResult result, long shutterToFrameNs) {
+            this.image = image;
+            this.result = result;
+            this.shutterToFrameNs = shutterToFrameNs;
+        }
+    }
+
+    private ZslRingBuffer(int format, Size size, int capacity, boolean realtimeTimestamps, Handler handler) {
+        this.format = format;
+        this.size = size;
+        this.realtimeTimestamps = realtimeTimestamps;
+        this.images = new Image[capacity];
+        this.imageTs = new long[capacity];
+        this.results = new TotalCaptureResult[capacity * 2];
+        this.resultTs = new long[capacity * 2];
+        // 링 capacity + 재처리로 넘어간 1장 + 획득 중 1장
+        this.reader = ImageReader.newInstance(size.getWidth(), size.getHeight(), format, capacity + 2);
+        this.reader.setOnImageAvailableListener(this, handler);
+    }
+
+    /** 재처리를 지원하지 않는 기기면 null */
+    public static ZslRingBuffer create(CameraCharacteristics c, int capacity, Handler handler) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) return null;
+        int[] caps = c.get(CameraCharacteristics.REQUEST_AVAILABLE_CAPABILITIES);
+        StreamConfigurationMap map = c.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+        if (caps == null || map == null) return null;
+
+        int format;
+        if (contains(caps, CameraMetadata.REQUEST_AVAILABLE_CAPABILITIES_PRIVATE_REPROCESSING)) {
+            format = ImageFormat.PRIVATE;
+        } else if (contains(caps, CameraMetadata.REQUEST_AVAILABLE_CAPABILITIES_YUV_REPROCESSING)) {
+            format = ImageFormat.YUV_420_888;
+        } else {
+            return null;
+        }
+        Size[] inputs = map.getInputSizes(format);
+        if (inputs == null || inputs.length == 0) return null;
+        Size largest = Arrays.stream(inputs)
+                .max(Comparator.comparingLong(s -> (long) s.getWidth() * s.getHeight()))
+                .orElse(inputs[0]);
+
+        Integer src = c.get(CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE);
+        boolean realtime = src != null && src == CameraMetadata.SENSOR_INFO_TIMESTAMP_SOURCE_REALTIME;
+        return new ZslRingBuffer(format, largest, capacity, realtime, handler);
+    }
+
+    public Surface surface() { return reader.getSurface(); }
+
+    public InputConfiguration inputConfiguration() {
+        return new InputConfiguration(size.getWidth(), size.getHeight(), format);
+    }
+
+    @Override
+    public void onImageAvailable(ImageReader r) {
+        Image img;
+        try {
+            img = r.acquireNextImage();
+        } catch (IllegalStateException full) {
+            return; // 풀 고갈 (재처리 중인 프레임이 아직 반환 안 됨) → 이번 프레임은 건너뜀
+        }
+        if (img == null) return;
+
+        long ts = img.getTimestamp();
+        if (!realtimeTimestamps) {
+            long offset = SystemClock.elapsedRealtimeNanos() - ts;
+            if (offset < clockOffsetNs) clockOffsetNs = offset; // 전달 지연이 가장 짧은 값을 기준으로
+        }
+
+        int slot = imageHead;
+        if (images[slot] != null) images[slot].close(); // 가장 오래된 프레임 반납 → 버퍼 재사용
+        images[slot] = img;
+        imageTs[slot] = ts;
+        imageHead = (slot + 1) % images.length;
+    }
+
+    /** 반복 요청 콜백에서 호출 */
+    public void onResult(TotalCaptureResult result) {
+        Long ts = result.get(CaptureResult.SENSOR_TIMESTAMP);
+        if (ts == null) return;
+        int slot = resultHead;
+        results[slot] = result;
+        resultTs[slot] = ts;
+        resultHead = (slot + 1) % results.length;
+    }
+
+    /** 셔터 시각(elapsedRealtimeNanos)에 가장 가까운, 결과가 매칭되는 프레임을 링에서 꺼낸다. */
+    public Selection take(long shutterRealtimeNs) {
+        long offset = realtimeTimestamps ? 0 : (clockOffsetNs == Long.MAX_VALUE ? 0 : clockOffsetNs);
+        long shutterSensorNs = shutterRealtimeNs - offset;
+
+        int best = -1;
+        TotalCaptureResult bestResult = null;
+        long bestDist = Long.MAX_VALUE;
+        for (int i = 0; i < images.length; i++) {
+            if (images[i] == null) continue;
+            TotalCaptureResult r = resultFor(imageTs[i]);
+            if (r == null) continue;
+            long dist = Math.abs(imageTs[i] - shutterSensorNs);
+            if (dist < bestDist) {
+                bestDist = dist;
+                best = i;
+                bestResult = r;
+            }
+        }
+        if (best < 0) return null;
+
+        Image img = images[best];
+        images[best] = null;
+        return new Selection(img, bestResult, imageTs[best] - shutterSensorNs);
+    }
+
+    private TotalCaptureResult resultFor(long ts) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != null && resultTs[i] == ts) return results[i];
+        }
+        return null;
+    }
+
+    public void close() {
+        reader.setOnImageAvailableListener(null, null);
+        for (int i = 0; i < images.length; i++) {
+            if (images[i] != null) {
+                images[i].close();
+                images[i] = null;
+            }
+        }
+        Arrays.fill(results, null);
+        reader.close();
+    }
+
+    private static boolean contains(int[] arr, int v) {
+        for (int x : arr) if (x == v) return true;
+        return false;
+    }
+}
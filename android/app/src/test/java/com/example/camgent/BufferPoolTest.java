@@ -0,0 +1,145 @@
+package com.example.camgent;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BufferPoolTest {
+    private static final int K = 1 << 10;
+
+    @Test
+    public void classSizeBoundaries() {
+        assertEquals(64 * K, BufferPool.classSize(0));
+        assertEquals(64 * K, BufferPool.classSize(1));
+        assertEquals(64 * K, BufferPool.classSize(64 * K));
+        assertEquals(96 * K, BufferPool.classSize(64 * K + 1));  // 1.5·2^16
+        assertEquals(96 * K, BufferPool.classSize(96 * K));
+        assertEquals(128 * K, BufferPool.classSize(96 * K + 1));
+        assertEquals(128 * K, BufferPool.classSize(128 * K));     // 2^k 는 그대로
+        assertEquals(192 * K, BufferPool.classSize(128 * K + 1));
+        assertEquals(3 << 19, BufferPool.classSize(3 << 19));      // 1.5 MB
+        assertEquals(2 << 20, BufferPool.classSize((3 << 19) + 1));
+    }
+
+    @Test
+    public void acquireGivesClassSizedDirectBuffer() {
+        BufferPool pool = new BufferPool(1 << 20);
+        ByteBuffer b = pool.acquire(100 * K);
+        assertNotNull(b);
+        assertTrue(b.isDirect());
+        assertEquals(128 * K, b.capacity());
+        assertEquals(100 * K, b.limit());
+        assertEquals(0, b.position());
+        assertSame(ByteOrder.LITTLE_ENDIAN, b.order());
+    }
+
+    @Test
+    public void releasedBufferIsReused() {
+        BufferPool pool = new BufferPool(1 << 20);
+        ByteBuffer a = pool.acquire(70 * K);
+        a.position(10);
+        pool.release(a);
+        ByteBuffer b = pool.acquire(90 * K); // 같은 등급(96K)
+        assertSame(a, b);
+        assertEquals(0, b.position());
+        assertEquals(90 * K, b.limit());
+    }
+
+    @Test
+    public void rejectsWhenOverBudget() {
+        BufferPool pool = new BufferPool(128 * K);
+        ByteBuffer a = pool.acquire(100 * K); // 128K 등급 → 예산을 다 쓴다
+        assertNotNull(a);
+        assertNull(pool.acquire(1));           // 빈 버퍼가 없어 놓아 줄 것도 없다
+        assertEquals(1L, pool.stats().get("rejects"));
+        pool.release(a);
+        assertNotNull(pool.acquire(1));        // 128K 빈 버퍼를 놓고 64K 를 새로
+    }
+
+    @Test
+    public void trimsIdleBuffersOfOtherClasses() {
+        BufferPool pool = new BufferPool(256 * K);
+        pool.release(pool.acquire(128 * K));
+        pool.release(pool.acquire(64 * K));
+        assertEquals((long) 192 * K, pool.stats().get("allocatedBytes"));
+
+        // 192K 가 들어갈 자리를 만들려고 큰 등급(128K)부터 놓는다
+        ByteBuffer b = pool.acquire(192 * K);
+        assertNotNull(b);
+        Map<String, Object> s = pool.stats();
+        assertEquals((long) 256 * K, s.get("allocatedBytes"));
+        assertEquals((long) 192 * K, s.get("inUseBytes"));
+        // 남은 64K 빈 버퍼는 그대로 재사용된다
+        assertNotNull(pool.acquire(64 * K));
+        assertEquals(1L, pool.stats().get("hits"));
+    }
+
+    @Test
+    public void shrinkingBudgetFreesOnRelease() {
+        BufferPool pool = new BufferPool(1 << 20);
+        ByteBuffer a = pool.acquire(256 * K);
+        ByteBuffer idle = pool.acquire(256 * K);
+        pool.release(idle);
+
+        pool.setBudget(128 * K); // 빈 버퍼는 바로, 사용 중인 건 반납할 때
+        assertEquals((long) 256 * K, pool.stats().get("allocatedBytes"));
+        pool.release(a);
+        Map<String, Object> s = pool.stats();
+        assertEquals(0L, s.get("allocatedBytes"));
+        assertEquals(0L, s.get("inUseBytes"));
+
+        assertNull(pool.acquire(256 * K));
+        assertNotNull(pool.acquire(64 * K));
+    }
+
+    @Test
+    public void rejectsBuffersItDidNotLend() {
+        BufferPool pool = new BufferPool(1 << 20);
+        expectRejected(pool, ByteBuffer.allocate(64 * K));        // 힙 버퍼
+        expectRejected(pool, ByteBuffer.allocateDirect(64 * K));  // 등급 크기지만 다른 곳에서 만든 것
+        ByteBuffer other = new BufferPool(1 << 20).acquire(64 * K);
+        expectRejected(pool, other);                              // 다른 풀의 버퍼
+
+        ByteBuffer b = pool.acquire(64 * K);
+        pool.release(b);
+        expectRejected(pool, b);                                  // 두 번째 반납
+        assertEquals(0L, pool.stats().get("inUseBytes"));
+    }
+
+    @Test
+    public void statsTrackHitsMissesAndHighWater() {
+        BufferPool pool = new BufferPool(1 << 20);
+        ByteBuffer a = pool.acquire(64 * K);
+        ByteBuffer b = pool.acquire(64 * K);
+        pool.release(a);
+        pool.release(b);
+        pool.acquire(64 * K);
+        pool.acquire(64 * K);
+        pool.acquire(64 * K);
+
+        Map<String, Object> s = pool.stats();
+        assertEquals(2L, s.get("hits"));
+        assertEquals(3L, s.get("misses"));
+        assertEquals(0L, s.get("rejects"));
+        assertEquals((long) 192 * K, s.get("highWaterBytes"));
+        assertEquals((long) 192 * K, s.get("inUseBytes"));
+        assertEquals((long) (1 << 20), s.get("budgetBytes"));
+    }
+
+    private static void expectRejected(BufferPool pool, ByteBuffer b) {
+        try {
+            pool.release(b);
+            fail("accepted " + b);
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.camgent;
+
+import android.hardware.camera2.CameraMetadata;
+import android.view.Surface;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 플랫폼 무관 코드가 복사해 둔 프레임워크 상수가 실제 값과 같은지 (android.jar 가 있는 :app 단위 테스트에서만).
+ */
+public class CameraConstantsTest {
+    @Test
+    public void constantsMatchCameraMetadata() {
+        assertEquals(CameraMetadata.FLASH_MODE_OFF, SettingsCompiler.FLASH_MODE_OFF);
+        assertEquals(CameraMetadata.FLASH_MODE_SINGLE, SettingsCompiler.FLASH_MODE_SINGLE);
+        assertEquals(CameraMetadata.FLASH_MODE_TORCH, SettingsCompiler.FLASH_MODE_TORCH);
+        assertEquals(CameraMetadata.CONTROL_AE_MODE_ON, SettingsCompiler.CONTROL_AE_MODE_ON);
+        assertEquals(CameraMetadata.CONTROL_AE_MODE_ON_AUTO_FLASH, SettingsCompiler.CONTROL_AE_MODE_ON_AUTO_FLASH);
+        assertEquals(CameraMetadata.CONTROL_MODE_AUTO, SettingsCompiler.CONTROL_MODE_AUTO);
+        assertEquals(CameraMetadata.CONTROL_MODE_USE_SCENE_MODE, SettingsCompiler.CONTROL_MODE_USE_SCENE_MODE);
+        assertEquals(CameraMetadata.CONTROL_SCENE_MODE_DISABLED, SettingsCompiler.SCENE_MODE_DISABLED);
+        assertEquals(CameraMetadata.CONTROL_SCENE_MODE_PORTRAIT, SettingsCompiler.SCENE_MODE_PORTRAIT);
+        assertEquals(CameraMetadata.CONTROL_SCENE_MODE_NIGHT, SettingsCompiler.SCENE_MODE_NIGHT);
+        assertEquals(CameraMetadata.CONTROL_SCENE_MODE_SPORTS, SettingsCompiler.SCENE_MODE_SPORTS);
+        assertEquals(CameraMetadata.COLOR_CORRECTION_MODE_TRANSFORM_MATRIX,
+                SettingsCompiler.COLOR_CORRECTION_TRANSFORM_MATRIX);
+        assertEquals(CameraMetadata.COLOR_CORRECTION_MODE_FAST, SettingsCompiler.COLOR_CORRECTION_FAST);
+        assertEquals(CameraMetadata.COLOR_CORRECTION_MODE_HIGH_QUALITY, SettingsCompiler.COLOR_CORRECTION_HIGH_QUALITY);
+        assertEquals(CameraMetadata.CONTROL_EFFECT_MODE_OFF, SettingsCompiler.EFFECT_MODE_OFF);
+        assertEquals(CameraMetadata.CONTROL_EFFECT_MODE_MONO, SettingsCompiler.EFFECT_MODE_MONO);
+        assertEquals(CameraMetadata.CONTROL_EFFECT_MODE_NEGATIVE, SettingsCompiler.EFFECT_MODE_NEGATIVE);
+        assertEquals(CameraMetadata.CONTROL_EFFECT_MODE_SEPIA, SettingsCompiler.EFFECT_MODE_SEPIA);
+        assertEquals(CameraMetadata.NOISE_REDUCTION_MODE_OFF, SettingsCompiler.NOISE_REDUCTION_OFF);
+        assertEquals(CameraMetadata.NOISE_REDUCTION_MODE_FAST, SettingsCompiler.NOISE_REDUCTION_FAST);
+        assertEquals(CameraMetadata.NOISE_REDUCTION_MODE_HIGH_QUALITY, SettingsCompiler.NOISE_REDUCTION_HIGH_QUALITY);
+        assertEquals(CameraMetadata.NOISE_REDUCTION_MODE_MINIMAL, SettingsCompiler.NOISE_REDUCTION_MINIMAL);
+        assertEquals(CameraMetadata.TONEMAP_MODE_CONTRAST_CURVE, SettingsCompiler.TONEMAP_CONTRAST_CURVE);
+        assertEquals(CameraMetadata.TONEMAP_MODE_FAST, SettingsCompiler.TONEMAP_FAST);
+        assertEquals(CameraMetadata.TONEMAP_MODE_HIGH_QUALITY, SettingsCompiler.TONEMAP_HIGH_QUALITY);
+        assertEquals(CameraMetadata.TONEMAP_MODE_GAMMA_VALUE, SettingsCompiler.TONEMAP_GAMMA_VALUE);
+        assertEquals(CameraMetadata.CONTROL_AE_ANTIBANDING_MODE_OFF, SettingsCompiler.ANTIBANDING_OFF);
+        assertEquals(CameraMetadata.CONTROL_AE_ANTIBANDING_MODE_50HZ, SettingsCompiler.ANTIBANDING_50HZ);
+        assertEquals(CameraMetadata.CONTROL_AE_ANTIBANDING_MODE_60HZ, SettingsCompiler.ANTIBANDING_60HZ);
+        assertEquals(CameraMetadata.CONTROL_AE_ANTIBANDING_MODE_AUTO, SettingsCompiler.ANTIBANDING_AUTO);
+        assertEquals(CameraMetadata.LENS_FACING_FRONT, CameraInfo.FACING_FRONT);
+        assertEquals(CameraMetadata.LENS_FACING_BACK, CameraInfo.FACING_BACK);
+        assertEquals(CameraMetadata.LENS_FACING_EXTERNAL, CameraInfo.FACING_EXTERNAL);
+    }
+
+    @Test
+    public void surfaceRotationsMatchOrientation() {
+        assertEquals(0, Orientation.surfaceRotationDegrees(Surface.ROTATION_0));
+        assertEquals(90, Orientation.surfaceRotationDegrees(Surface.ROTATION_90));
+        assertEquals(180, Orientation.surfaceRotationDegrees(Surface.ROTATION_180));
+        assertEquals(270, Orientation.surfaceRotationDegrees(Surface.ROTATION_270));
+    }
+}
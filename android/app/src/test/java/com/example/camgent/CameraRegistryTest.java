@@ -0,0 +1,122 @@
+package com.example.camgent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CameraRegistryTest {
+    private FakeCameraBackend backend;
+    private CameraRegistry registry;
+
+    @Before
+    public void setUp() {
+        backend = new FakeCameraBackend()
+                .add(FakeCameraBackend.frontCamera("1").build())
+                .add(FakeCameraBackend.backCamera("0").build())
+                .concurrent("0", "1");
+        registry = new CameraRegistry(backend);
+    }
+
+    @Test
+    public void infoIsQueriedOnce() throws CameraBackendException {
+        CameraInfo a = registry.info("0");
+        CameraInfo b = registry.info("0");
+        assertSame(a, b);
+        assertEquals(1, backend.infoQueries);
+        registry.cameraIds();
+        registry.cameraIds();
+        assertEquals(1, backend.idQueries);
+    }
+
+    @Test
+    public void defaultCameraPrefersBackFacing() throws CameraBackendException {
+        assertEquals("0", registry.defaultCamera().id);
+    }
+
+    @Test
+    public void newCameraInvalidatesIdList() throws CameraBackendException {
+        assertEquals(2, registry.cameraIds().length);
+        backend.plug(new CameraInfo.Builder("usb").facing(CameraInfo.FACING_EXTERNAL).build());
+        assertEquals(3, registry.cameraIds().length);
+        assertEquals(2, backend.idQueries);
+    }
+
+    @Test
+    public void onlyExternalCamerasAreDroppedWhenUnavailable() throws CameraBackendException {
+        backend.plug(new CameraInfo.Builder("usb").facing(CameraInfo.FACING_EXTERNAL).build());
+        registry.info("usb");
+        registry.info("0");
+        registry.cameraIds();
+        int queries = backend.idQueries;
+
+        backend.unplug("usb");
+        assertEquals(2, registry.cameraIds().length);
+        assertEquals(queries + 1, backend.idQueries);
+
+        // 내장 카메라는 다른 앱이 연 것뿐 → 캐시 유지
+        backend.busy("0");
+        registry.cameraIds();
+        assertEquals(queries + 1, backend.idQueries);
+        registry.info("0");
+        assertEquals(2, backend.infoQueries);
+    }
+
+    @Test
+    public void concurrentPairs() {
+        assertTrue(registry.canOpenConcurrently("0", "1"));
+        assertFalse(registry.canOpenConcurrently("0", "2"));
+    }
+
+    @Test
+    public void openDeliversCallbacksOnTheGivenExecutor() throws CameraBackendException {
+        List<String> events = new ArrayList<>();
+        CameraBackend.DeviceCallback cb = new CameraBackend.DeviceCallback() {
+            @Override public void onOpened(CameraBackend.Device d) { events.add("opened " + d.id()); }
+            @Override public void onDisconnected(CameraBackend.Device d) { events.add("disconnected " + d.id()); }
+            @Override public void onError(CameraBackend.Device d, int e) { events.add("error " + e); }
+        };
+        List<Runnable> posted = new ArrayList<>();
+        registry.openCamera("0", cb, posted::add);
+        assertTrue(events.isEmpty());
+        posted.remove(0).run();
+        assertEquals("opened 0", events.get(0));
+
+        backend.disconnect("0");
+        posted.remove(0).run();
+        assertEquals("disconnected 0", events.get(1));
+
+        backend.failNextOpen("1", CameraBackend.ERROR_CAMERA_IN_USE);
+        registry.openCamera("1", cb, Runnable::run);
+        assertEquals("error " + CameraBackend.ERROR_CAMERA_IN_USE, events.get(2));
+        assertEquals(0, backend.openDevices());
+    }
+
+    @Test
+    public void unknownCameraFailsToOpen() {
+        try {
+            registry.openCamera("9", null, Runnable::run);
+            fail();
+        } catch (CameraBackendException expected) {
+        }
+    }
+
+    @Test
+    public void lensCatalogClassifiesByFocalLength() throws CameraBackendException {
+        backend.plug(FakeCameraBackend.backCamera("2").focalLength35mm(13f).build());
+        backend.plug(FakeCameraBackend.backCamera("3").focalLength35mm(77f).build());
+        List<CameraLens> lenses = registry.lenses();
+        assertEquals(4, lenses.size());
+        assertEquals(CameraLens.Kind.FRONT, lenses.get(0).kind);
+        assertEquals(CameraLens.Kind.WIDE, lenses.get(1).kind);
+        assertEquals(CameraLens.Kind.ULTRA_WIDE, lenses.get(2).kind);
+        assertEquals(CameraLens.Kind.TELE, lenses.get(3).kind);
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.camgent;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * JVM 테스트/벤치마크용 CameraBackend. 카메라 목록과 특성은 코드로 정하고, 열기/끊김/연결 알림은
+ * 테스트가 직접 일으킨다. 콜백은 open() 에 준 executor 로 (테스트는 보통 Runnable::run).
+ * 프리뷰 프레임 대신 시드로 정해지는 합성 장면(사각형 몇 개 + 그라데이션)을 NV21/Y 평면으로 만들어 준다.
+ */
+public final class FakeCameraBackend implements CameraBackend {
+    private final Map<String, CameraInfo> cameras = new LinkedHashMap<>();
+    private final Set<Set<String>> concurrent = new HashSet<>();
+    private final Map<String, Integer> openErrors = new LinkedHashMap<>();
+    private final List<FakeDevice> opened = new ArrayList<>();
+    private AvailabilityListener availability;
+
+    // 호출 횟수 (레지스트리 캐시 확인용)
+    public int idQueries, infoQueries, opens;
+
+    // ---------- 구성 ----------
+    public FakeCameraBackend add(CameraInfo info) {
+        cameras.put(info.id, info);
+        return this;
+    }
+
+    public FakeCameraBackend concurrent(String... ids) {
+        concurrent.add(new HashSet<>(Arrays.asList(ids)));
+        return this;
+    }
+
+    /** 다음 open(id) 를 error(ERROR_*) 로 실패시킨다 */
+    public FakeCameraBackend failNextOpen(String id, int error) {
+        openErrors.put(id, error);
+        return this;
+    }
+
+    /** 12MP 4:3 후면 카메라 (JPEG/YUV 출력, 수동 센서, AF, 플래시) */
+    public static CameraInfo.Builder backCamera(String id) {
+        StreamSize[] still = {new StreamSize(4000, 3000), new StreamSize(3264, 2448), new StreamSize(1920, 1440)};
+        long[] stillFrame = {50_000_000L, 33_333_333L, 33_333_333L};
+        long[] stillStall = {400_000_000L, 200_000_000L, 100_000_000L};
+        StreamSize[] preview = {new StreamSize(1920, 1080), new StreamSize(1440, 1080), new StreamSize(640, 480)};
+        return new CameraInfo.Builder(id)
+                .facing(CameraInfo.FACING_BACK)
+                .sensorOrientation(90)
+                .activeArray(0, 0, 4000, 3000)
+                .maxZoom(8f)
+                .aeCompensation(-12, 12, 1f / 6)
+                .previewSizes(preview, new long[]{33_333_333L, 33_333_333L, 16_666_666L})
+                .videoSizes(new StreamSize[]{new StreamSize(1920, 1080), new StreamSize(1280, 720)})
+                .output(256 /* ImageFormat.JPEG */, still, stillFrame, stillStall)
+                .output(35 /* ImageFormat.YUV_420_888 */, still, stillFrame, new long[still.length])
+                .minFocusDistance(10f)
+                .flash(true)
+                .focalLength35mm(26f)
+                .manualSensor(true)
+                .exposureTimeRange(10_000L, 500_000_000L)
+                .sensitivityRange(50, 3200)
+                .fpsRanges(new int[][]{{15, 30}, {30, 30}, {24, 24}})
+                .sceneModes(new int[]{0, 3, 13})
+                .effectModes(new int[]{0, 1, 2, 4})
+                .noiseReductionModes(new int[]{0, 1, 2})
+                .tonemapModes(new int[]{0, 1, 2})
+                .antibandingModes(new int[]{0, 1, 2, 3})
+                .maxRegions(1, 1);
+    }
+
+    /** 고정 초점 전면 카메라 (JPEG 만, 수동 센서 없음) */
+    public static CameraInfo.Builder frontCamera(String id) {
+        StreamSize[] still = {new StreamSize(3264, 2448), new StreamSize(1600, 1200)};
+        return new CameraInfo.Builder(id)
+                .facing(CameraInfo.FACING_FRONT)
+                .sensorOrientation(270)
+                .activeArray(0, 0, 3264, 2448)
+                .previewSizes(new StreamSize[]{new StreamSize(1280, 960), new StreamSize(640, 480)}, null)
+                .output(256, still, null, null)
+                .focalLength35mm(24f);
+    }
+
+    // ---------- 테스트가 일으키는 사건 ----------
+    /** 새 카메라 연결 (외장 등) */
+    public void plug(CameraInfo info) {
+        add(info);
+        if (availability != null) availability.onCameraAvailable(info.id);
+    }
+
+    public void unplug(String id) {
+        cameras.remove(id);
+        if (availability != null) availability.onCameraUnavailable(id);
+    }
+
+    /** 다른 앱이 카메라를 열었다 (목록은 그대로) */
+    public void busy(String id) {
+        if (availability != null) availability.onCameraUnavailable(id);
+    }
+
+    /** 열린 디바이스를 끊는다 (다른 앱이 가져감 등) */
+    public void disconnect(String id) {
+        for (FakeDevice d : new ArrayList<>(opened)) {
+            if (d.id.equals(id)) {
+                opened.remove(d);
+                d.executor.execute(() -> d.cb.onDisconnected(d));
+            }
+        }
+    }
+
+    public int openDevices() { return opened.size(); }
+
+    // ---------- CameraBackend ----------
+    @Override
+    public String[] cameraIds() {
+        idQueries++;
+        return cameras.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public CameraInfo info(String id) throws CameraBackendException {
+        infoQueries++;
+        CameraInfo info = cameras.get(id);
+        if (info == null) throw new CameraBackendException("no camera " + id);
+        return info;
+    }
+
+    @Override
+    public Set<Set<String>> concurrentCameraIds() {
+        return Collections.unmodifiableSet(concurrent);
+    }
+
+    @Override
+    public void open(String id, DeviceCallback cb, Executor executor) throws CameraBackendException {
+        if (!cameras.containsKey(id)) throw new CameraBackendException("no camera " + id);
+        opens++;
+        FakeDevice d = new FakeDevice(id, cb, executor);
+        Integer error = openErrors.remove(id);
+        if (error != null) {
+            executor.execute(() -> cb.onError(d, error));
+            return;
+        }
+        opened.add(d);
+        executor.execute(() -> cb.onOpened(d));
+    }
+
+    @Override
+    public void setAvailabilityListener(AvailabilityListener listener) {
+        availability = listener;
+    }
+
+    private final class FakeDevice implements Device {
+        final String id;
+        final DeviceCallback cb;
+        final Executor executor;
+
+        FakeDevice(String id, DeviceCallback cb, Executor executor) {
+            this.id = id;
+            this.cb = cb;
+            this.executor = executor;
+        }
+
+        @Override public String id() { return id; }
+
+        @Override public void close() { opened.remove(this); }
+    }
+
+    // ---------- 합성 프레임 ----------
+    /**
+     * seed 로 정해지는 장면을 (dx, dy) 만큼 옮겨서 f 에 그린다: f(x, y) = scene(x - dx, y - dy).
+     * noise > 0 이면 휘도에 ±noise 균일 잡음 (noiseSeed 로 재현). 크로마는 128.
+     */
+    public static void fillScene(YuvFrame f, long seed, int dx, int dy, int noise, long noiseSeed) {
+        int w = f.width, h = f.height;
+        int[] rects = sceneRects(seed, w, h);
+        Random rnd = new Random(noiseSeed);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int v = sceneLuma(rects, w, h, x - dx, y - dy);
+                if (noise > 0) v += rnd.nextInt(2 * noise + 1) - noise;
+                f.nv21[y * w + x] = (byte) Math.max(0, Math.min(255, v));
+            }
+        }
+        Arrays.fill(f.nv21, w * h, f.nv21.length, (byte) 128);
+    }
+
+    /** fillScene 의 휘도만 rowStride/pixelStride 를 가진 Y 평면으로 (Image.Plane 흉내) */
+    public static ByteBuffer lumaPlane(long seed, int w, int h, int rowStride, int pixelStride) {
+        int[] rects = sceneRects(seed, w, h);
+        ByteBuffer b = ByteBuffer.allocateDirect(rowStride * (h - 1) + (w - 1) * pixelStride + 1);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                b.put(y * rowStride + x * pixelStride, (byte) sceneLuma(rects, w, h, x, y));
+            }
+        }
+        return b;
+    }
+
+    // 사각형마다 x, y, w, h, 밝기
+    private static int[] sceneRects(long seed, int w, int h) {
+        Random rnd = new Random(seed);
+        int n = 12;
+        int[] r = new int[n * 5];
+        for (int i = 0; i < n; i++) {
+            r[i * 5] = rnd.nextInt(w) - w / 8;
+            r[i * 5 + 1] = rnd.nextInt(h) - h / 8;
+            r[i * 5 + 2] = w / 16 + rnd.nextInt(w / 4);
+            r[i * 5 + 3] = h / 16 + rnd.nextInt(h / 4);
+            r[i * 5 + 4] = 30 + rnd.nextInt(200);
+        }
+        return r;
+    }
+
+    // 장면 밖(음수 좌표 포함)도 정의된다: 옮긴 프레임 가장자리도 같은 장면의 연장
+    private static int sceneLuma(int[] rects, int w, int h, int x, int y) {
+        int v = 40 + (x * 60) / w + (y * 40) / h;
+        for (int i = 0; i < rects.length; i += 5) {
+            if (x >= rects[i] && x < rects[i] + rects[i + 2] && y >= rects[i + 1] && y < rects[i + 1] + rects[i + 3]) {
+                v = rects[i + 4];
+            }
+        }
+        return v;
+    }
+}
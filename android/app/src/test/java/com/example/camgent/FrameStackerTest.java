@@ -0,0 +1,125 @@
+package com.example.camgent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FrameStackerTest {
+    private static final int W = 320, H = 240;
+    private static final long SCENE = 42;
+
+    private YuvFrame.Pool pool;
+    private FrameStacker stacker;
+
+    @Before
+    public void setUp() {
+        pool = new YuvFrame.Pool(W, H, 10);
+        stacker = new FrameStacker(ForkJoinPool.commonPool());
+    }
+
+    private YuvFrame scene(int dx, int dy, int noise, long noiseSeed) {
+        YuvFrame f = pool.acquire();
+        FakeCameraBackend.fillScene(f, SCENE, dx, dy, noise, noiseSeed);
+        return f;
+    }
+
+    @Test
+    public void recoversGlobalShift() {
+        YuvFrame[] in = {scene(0, 0, 0, 0), scene(6, -4, 0, 0), scene(-10, 8, 0, 0)};
+        FrameStacker.Result r = stacker.stack(in, 0, pool.acquire());
+
+        assertArrayEquals(new int[]{0, 6, -10}, r.dx);
+        assertArrayEquals(new int[]{0, -4, 8}, r.dy);
+    }
+
+    @Test
+    public void recoversShiftUnderNoise() {
+        YuvFrame[] in = {scene(0, 0, 12, 1), scene(-14, 2, 12, 2)};
+        FrameStacker.Result r = stacker.stack(in, 0, pool.acquire());
+
+        assertEquals(-14, r.dx[1]);
+        assertEquals(2, r.dy[1]);
+    }
+
+    @Test
+    public void averagesAlignedFrames() {
+        YuvFrame[] in = new YuvFrame[4];
+        for (int k = 0; k < in.length; k++) {
+            in[k] = pool.acquire();
+            Arrays.fill(in[k].nv21, 0, W * H, (byte) (100 + 10 * k));
+            Arrays.fill(in[k].nv21, W * H, in[k].nv21.length, (byte) 128);
+        }
+        YuvFrame out = pool.acquire();
+        stacker.stack(in, 0, out);
+
+        for (int i = 0; i < W * H; i++) assertEquals(115, out.nv21[i] & 0xFF); // (100+110+120+130)/4
+        for (int i = W * H; i < out.nv21.length; i++) assertEquals(128, out.nv21[i] & 0xFF);
+    }
+
+    @Test
+    public void stackingReducesNoise() {
+        YuvFrame clean = scene(0, 0, 0, 0);
+        YuvFrame[] in = new YuvFrame[8];
+        for (int k = 0; k < in.length; k++) in[k] = scene(2 * (k % 3), -2 * (k % 2), 16, 100 + k);
+        YuvFrame out = pool.acquire();
+        FrameStacker.Result r = stacker.stack(in, 0, out);
+
+        for (int k = 0; k < in.length; k++) {
+            assertEquals(2 * (k % 3), r.dx[k]);
+            assertEquals(-2 * (k % 2), r.dy[k]);
+        }
+        double single = meanAbsError(in[0], clean), stacked = meanAbsError(out, clean);
+        // 8장 → 잡음 σ 는 약 1/√8. 가장자리(기준 값으로 채움) 여유를 두고 절반 아래면 충분
+        assertTrue("single=" + single + " stacked=" + stacked, stacked < single / 2);
+    }
+
+    @Test
+    public void rejectsGhostsAgainstReference() {
+        YuvFrame ref = scene(0, 0, 0, 0);
+        YuvFrame[] in = {ref, scene(0, 0, 0, 0), scene(0, 0, 0, 0), scene(0, 0, 0, 0)};
+        // 기준 이후 프레임에만 지나가는 물체: 기준과 크게 다른 값의 사각형
+        for (int k = 1; k < in.length; k++) paintObject(in[k], 100 + 20 * k, 80, 24, 24);
+
+        YuvFrame out = pool.acquire();
+        FrameStacker.Result r = stacker.stack(in, 0, out);
+        assertArrayEquals(new int[4], r.dx);
+        assertArrayEquals(new int[4], r.dy);
+        assertArrayEquals(ref.nv21, out.nv21); // 물체 자리는 기준 값 그대로, 나머지는 같은 값의 평균
+
+        // 고스트 제거를 끄면 물체가 반투명하게 남는다
+        stacker.setGhostThreshold(0);
+        stacker.stack(in, 0, out);
+        int y = 90, x = 170;
+        assertTrue(Math.abs((out.nv21[y * W + x] & 0xFF) - (ref.nv21[y * W + x] & 0xFF)) > 20);
+    }
+
+    @Test
+    public void bestShiftMatchesOneDimensionalOffset() {
+        int[] ref = new int[64], cur = new int[64];
+        for (int i = 0; i < 64; i++) ref[i] = (i * 37) % 101;
+        for (int i = 0; i < 64; i++) cur[i] = i >= 6 ? ref[i - 6] : 0; // cur[i + 6] = ref[i]
+        assertEquals(6, FrameStacker.bestShift(ref, cur, 64));
+    }
+
+    // 기준과 최소 100 차이 나는 값으로 칠한다
+    private static void paintObject(YuvFrame f, int x0, int y0, int w, int h) {
+        for (int y = y0; y < y0 + h; y++) {
+            for (int x = x0; x < x0 + w; x++) {
+                int v = f.nv21[y * W + x] & 0xFF;
+                f.nv21[y * W + x] = (byte) (v < 128 ? 250 : 5);
+            }
+        }
+    }
+
+    private static double meanAbsError(YuvFrame a, YuvFrame b) {
+        long sum = 0;
+        for (int i = 0; i < W * H; i++) sum += Math.abs((a.nv21[i] & 0xFF) - (b.nv21[i] & 0xFF));
+        return sum / (double) (W * H);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.camgent;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LumaStatsTest {
+    @Test
+    public void flatPlane() {
+        ByteBuffer b = ByteBuffer.allocate(64 * 48);
+        for (int i = 0; i < b.capacity(); i++) b.put(i, (byte) 200);
+        LumaStats s = new LumaStats();
+        assertTrue(s.compute(b, 64, 1, 64, 48));
+
+        assertEquals(32 * 24, s.samples);
+        assertEquals(200.0, s.meanLuma, 0.0);
+        assertEquals(0.0, s.clipLow, 0.0);
+        assertEquals(0.0, s.clipHigh, 0.0);
+        assertEquals(0.0, s.sharpness, 0.0);
+        List<Double> hist = s.histogram(64);
+        assertEquals(64, hist.size());
+        assertEquals(1.0, hist.get(200 / 4), 0.0);
+    }
+
+    @Test
+    public void clippedPixelsAreCounted() {
+        ByteBuffer b = ByteBuffer.allocate(16 * 16);
+        // 샘플 행(짝수 행) 절반은 검정, 절반은 흰색
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 16; x++) b.put(y * 16 + x, (byte) (y % 4 == 0 ? 0 : 255));
+        }
+        LumaStats s = new LumaStats();
+        s.compute(b, 16, 1, 16, 16);
+        assertEquals(0.5, s.clipLow, 0.0);
+        assertEquals(0.5, s.clipHigh, 0.0);
+        assertTrue(s.sharpness > 0);
+    }
+
+    @Test
+    public void strideAndPixelStrideGiveSameResult() {
+        LumaStats packed = new LumaStats(), strided = new LumaStats();
+        packed.compute(FakeCameraBackend.lumaPlane(7, 320, 240, 320, 1), 320, 1, 320, 240);
+        strided.compute(FakeCameraBackend.lumaPlane(7, 320, 240, 704, 2), 704, 2, 320, 240);
+
+        assertEquals(packed.samples, strided.samples);
+        assertEquals(packed.meanLuma, strided.meanLuma, 0.0);
+        assertEquals(packed.sharpness, strided.sharpness, 0.0);
+        assertEquals(packed.histogram(64), strided.histogram(64));
+    }
+
+    @Test
+    public void bufferPositionIsRestored() {
+        ByteBuffer b = FakeCameraBackend.lumaPlane(3, 64, 48, 64, 1);
+        b.position(0);
+        new LumaStats().compute(b, 64, 1, 64, 48);
+        assertEquals(0, b.position());
+    }
+
+    @Test
+    public void emptyFrame() {
+        assertFalse(new LumaStats().compute(ByteBuffer.allocate(0), 0, 1, 0, 0));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.camgent;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class OrientationTest {
+    @Test
+    public void backCameraSubtractsDisplayRotation() {
+        // 대부분의 후면 센서는 90 으로 장착된다
+        assertEquals(90, Orientation.jpeg(90, false, 0));
+        assertEquals(0, Orientation.jpeg(90, false, 90));
+        assertEquals(270, Orientation.jpeg(90, false, 180));
+        assertEquals(180, Orientation.jpeg(90, false, 270));
+    }
+
+    @Test
+    public void frontCameraAddsDisplayRotation() {
+        assertEquals(270, Orientation.jpeg(270, true, 0));
+        assertEquals(0, Orientation.jpeg(270, true, 90));
+        assertEquals(90, Orientation.jpeg(270, true, 180));
+        assertEquals(180, Orientation.jpeg(270, true, 270));
+    }
+
+    @Test
+    public void displayDegreesRoundToQuarterTurns() {
+        assertEquals(0, Orientation.jpeg(90, false, 80));
+        assertEquals(90, Orientation.jpeg(90, false, 350)); // 350 → 0
+        assertEquals(0, Orientation.jpeg(0, false, 360));
+    }
+
+    @Test
+    public void surfaceRotationToDegrees() {
+        assertEquals(0, Orientation.surfaceRotationDegrees(0));
+        assertEquals(90, Orientation.surfaceRotationDegrees(1));
+        assertEquals(180, Orientation.surfaceRotationDegrees(2));
+        assertEquals(270, Orientation.surfaceRotationDegrees(3));
+        assertEquals(0, Orientation.surfaceRotationDegrees(7));
+    }
+}
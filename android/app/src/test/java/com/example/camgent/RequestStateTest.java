@@ -0,0 +1,117 @@
+package com.example.camgent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RequestStateTest {
+    /** 템플릿 기본값을 가진 요청 빌더 흉내. set 호출을 기록한다 */
+    private static final class Builder implements RequestState.Target<String> {
+        final Map<String, Object> values = new HashMap<>();
+        final List<String> writes = new ArrayList<>();
+
+        @Override public Object get(String key) { return values.get(key); }
+
+        @Override public void set(String key, Object value) {
+            writes.add(key);
+            values.put(key, value);
+        }
+    }
+
+    private RequestState<String> state;
+    private Builder builder;
+
+    @Before
+    public void setUp() {
+        state = new RequestState<>();
+        builder = new Builder();
+        builder.values.put("ae", 1); // 템플릿 기본값
+    }
+
+    @Test
+    public void equalValuesAreNotChanges() {
+        assertTrue(state.set("iso", 100));
+        assertFalse(state.set("iso", 100));
+        assertTrue(state.set("fps", new int[]{30, 30}));
+        assertFalse(state.set("fps", new int[]{30, 30})); // 배열은 내용으로 비교
+        assertFalse(state.set("missing", null));
+    }
+
+    @Test
+    public void bindAppliesEverythingThenOnlyDirtyKeys() {
+        state.set("iso", 100);
+        state.set("ae", 0);
+        state.bindRepeating(builder);
+        assertEquals(2, builder.writes.size());
+        assertFalse(state.hasPendingChanges());
+        assertFalse(state.flushRepeating());
+
+        builder.writes.clear();
+        state.set("iso", 200);
+        state.set("ae", 0); // 그대로
+        assertTrue(state.flushRepeating());
+        assertEquals(1, builder.writes.size());
+        assertEquals(200, builder.values.get("iso"));
+    }
+
+    @Test
+    public void clearingAKeyRestoresTemplateDefault() {
+        state.bindRepeating(builder);
+        state.set("ae", 0);
+        state.flushRepeating();
+        assertEquals(0, builder.values.get("ae"));
+
+        state.set("ae", null);
+        assertTrue(state.flushRepeating());
+        assertEquals(1, builder.values.get("ae"));
+        assertNull(state.get("ae"));
+    }
+
+    @Test
+    public void flushWithoutTargetKeepsChangesPending() {
+        state.set("iso", 100);
+        assertFalse(state.flushRepeating());
+        assertTrue(state.hasPendingChanges());
+
+        state.bindRepeating(builder);
+        state.unbindRepeating();
+        assertFalse(state.isBound());
+        state.set("iso", 200);
+        assertFalse(state.flushRepeating());
+    }
+
+    @Test
+    public void applyToWritesWholeStateWithoutTouchingDirty() {
+        state.set("iso", 100);
+        state.set("af", 4);
+        Builder still = new Builder();
+        state.applyTo(still);
+        assertEquals(100, still.values.get("iso"));
+        assertEquals(4, still.values.get("af"));
+        assertTrue(state.hasPendingChanges());
+    }
+
+    @Test
+    public void compiledPlanDrivesStateByRequestKey() {
+        RequestState<RequestKey> s = new RequestState<>();
+        SettingsCompiler compiler = new SettingsCompiler(FakeCameraBackend.backCamera("0").build());
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("SENSOR_SENSITIVITY", 400);
+        settings.put("FLASH_MODE", "auto");
+        SettingsPlan plan = compiler.compile(settings);
+
+        int changed = 0;
+        for (int i = 0; i < plan.size(); i++) if (s.set(plan.key(i), plan.value(i))) changed++;
+        assertEquals(2, changed); // FLASH_MODE=null 은 원래 없던 키라 변화 없음
+        for (int i = 0; i < plan.size(); i++) assertFalse(s.set(plan.key(i), plan.value(i)));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.camgent;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SaveQueueTest {
+    /** 첫 작업에서 gate 가 열릴 때까지 멈추는 sink */
+    private static final class GatedSink implements SaveQueue.Sink<Integer> {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        final List<Integer> written = new CopyOnWriteArrayList<>();
+        final List<Integer> dropped = new CopyOnWriteArrayList<>();
+
+        @Override public void write(Integer job) {
+            started.countDown();
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.add(job);
+        }
+
+        @Override public void dropped(Integer job) { dropped.add(job); }
+    }
+
+    private final GatedSink sink = new GatedSink();
+    private final SaveQueue<Integer> queue = new SaveQueue<>(2, "test-writer", sink);
+
+    @After
+    public void tearDown() {
+        sink.gate.countDown();
+        queue.shutdown();
+    }
+
+    // writer 가 1 을 쥐고 멈춘 상태에서 큐(2칸)를 채운다
+    private void fill() throws InterruptedException {
+        assertEquals(SaveQueue.Submit.ACCEPTED, queue.submit(1));
+        assertTrue(sink.started.await(5, TimeUnit.SECONDS));
+        assertEquals(SaveQueue.Submit.ACCEPTED, queue.submit(2));
+        assertEquals(SaveQueue.Submit.ACCEPTED, queue.submit(3));
+    }
+
+    @Test
+    public void rejectWhenFull() throws InterruptedException {
+        fill();
+        assertEquals(SaveQueue.Submit.REJECTED, queue.submit(4));
+        sink.gate.countDown();
+        assertTrue(queue.awaitIdle(5_000));
+        assertEquals(Arrays.asList(1, 2, 3), sink.written);
+    }
+
+    @Test
+    public void dropReplacesOldestWaitingJob() throws InterruptedException {
+        queue.setPolicy(SaveQueue.Backpressure.DROP);
+        fill();
+        assertEquals(SaveQueue.Submit.ACCEPTED, queue.submit(4));
+        assertEquals(Collections.singletonList(2), sink.dropped);
+        sink.gate.countDown();
+        assertTrue(queue.awaitIdle(5_000));
+        assertEquals(Arrays.asList(1, 3, 4), sink.written);
+    }
+
+    @Test
+    public void blockPolicyNeverBlocksTheDefaultSubmit() throws InterruptedException {
+        queue.setPolicy(SaveQueue.Backpressure.BLOCK);
+        fill();
+        assertEquals(SaveQueue.Submit.REJECTED, queue.submit(4));
+    }
+
+    @Test
+    public void runWhenRoomWaitsForTheWriter() throws InterruptedException {
+        fill();
+        CountDownLatch ran = new CountDownLatch(1);
+        queue.runWhenRoom(ran::countDown);
+        assertEquals(1, ran.getCount());
+        sink.gate.countDown();
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void awaitIdleTimesOut() throws InterruptedException {
+        fill();
+        assertFalse(queue.awaitIdle(20));
+        sink.gate.countDown();
+        assertTrue(queue.awaitIdle(5_000));
+        assertEquals(0, queue.pending());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.camgent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SettingsCompilerTest {
+    private SettingsCompiler compiler;
+
+    @Before
+    public void setUp() {
+        compiler = new SettingsCompiler(FakeCameraBackend.backCamera("0").build());
+    }
+
+    @Test
+    public void clampsToSensorRanges() {
+        Map<String, Object> s = new HashMap<>();
+        s.put("SENSOR_SENSITIVITY", 12800);
+        s.put("SENSOR_EXPOSURE_TIME_NS", 5_000_000_000L);
+        s.put("CONTROL_AE_EXPOSURE_COMPENSATION", 20);
+        SettingsPlan plan = compiler.compile(s);
+
+        assertEquals(3200, value(plan, RequestKey.SENSOR_SENSITIVITY));
+        assertEquals(500_000_000L, value(plan, RequestKey.SENSOR_EXPOSURE_TIME));
+        assertEquals(12, value(plan, RequestKey.CONTROL_AE_EXPOSURE_COMPENSATION));
+        assertEquals(3, plan.warnings.size());
+    }
+
+    @Test
+    public void autoFlashIsAnAeMode() {
+        SettingsPlan plan = compiler.compile(map("FLASH_MODE", "auto"));
+        assertEquals(SettingsCompiler.CONTROL_AE_MODE_ON_AUTO_FLASH, value(plan, RequestKey.CONTROL_AE_MODE));
+        assertTrue(plan.indexOf(RequestKey.FLASH_MODE) >= 0);
+        assertNull(value(plan, RequestKey.FLASH_MODE));
+
+        plan = compiler.compile(map("FLASH_MODE", "torch"));
+        assertEquals(SettingsCompiler.FLASH_MODE_TORCH, value(plan, RequestKey.FLASH_MODE));
+        assertEquals(SettingsCompiler.CONTROL_AE_MODE_ON, value(plan, RequestKey.CONTROL_AE_MODE));
+    }
+
+    @Test
+    public void unsupportedModesAreDroppedWithWarning() {
+        // backCamera 는 NIGHT 씬을 광고하지 않는다 → HAL 씬은 빼고 스태킹만 켠다
+        SettingsPlan plan = compiler.compile(map("CONTROL_SCENE_MODE", "night"));
+        assertEquals(-1, plan.indexOf(RequestKey.CONTROL_SCENE_MODE));
+        assertTrue(plan.nightStack);
+        assertEquals(1, plan.warnings.size());
+
+        plan = compiler.compile(map("TONEMAP_MODE", "gamma_value"));
+        assertEquals(-1, plan.indexOf(RequestKey.TONEMAP_MODE));
+    }
+
+    @Test
+    public void sameSettingsHitTheCache() {
+        SettingsPlan a = compiler.compile(map("SENSOR_SENSITIVITY", 400));
+        SettingsPlan b = compiler.compile(map("SENSOR_SENSITIVITY", 400));
+        assertSame(a, b);
+        assertEquals(1, compiler.cacheHits());
+        assertEquals(1, compiler.cacheMisses());
+    }
+
+    @Test
+    public void fpsRangeSnapsToNearestSupported() {
+        SettingsPlan plan = compiler.compile(map("CONTROL_AE_TARGET_FPS_RANGE", Arrays.asList(20, 30)));
+        assertArrayEquals(new int[]{15, 30}, (int[]) value(plan, RequestKey.CONTROL_AE_TARGET_FPS_RANGE));
+    }
+
+    @Test
+    public void threeGainsDuplicateGreen() {
+        SettingsPlan plan = compiler.compile(map("COLOR_CORRECTION_GAINS", Arrays.asList(2.0, 1.0, 1.5)));
+        assertArrayEquals(new float[]{2f, 1f, 1f, 1.5f}, (float[]) value(plan, RequestKey.COLOR_CORRECTION_GAINS), 0f);
+    }
+
+    @Test
+    public void regionsAreLimitedToMaxRegions() {
+        SettingsPlan plan = compiler.compile(map("CONTROL_AF_REGIONS", "0,0,100,100; 200,200,100,100"));
+        int[] r = (int[]) value(plan, RequestKey.CONTROL_AF_REGIONS);
+        assertEquals(SettingsCompiler.REGION_FIELDS, r.length);
+        assertTrue(plan.warnings.contains("CONTROL_AF_REGIONS limited to 1"));
+    }
+
+    // ---------- parseRegions ----------
+    private static final int[] ACTIVE = {0, 0, 4000, 3000};
+
+    @Test
+    public void parseRegionsKeywords() {
+        assertArrayEquals(new int[]{0, 0, 4000, 3000, 1000}, SettingsCompiler.parseRegions("full", ACTIVE));
+        assertArrayEquals(new int[]{1333, 1000, 1333, 1000, 1000}, SettingsCompiler.parseRegions(" Center ", ACTIVE));
+    }
+
+    @Test
+    public void parseRegionsClipsToActiveArray() {
+        int[] r = SettingsCompiler.parseRegions("-100,-50,300,200; 3900,2900,500,500", ACTIVE);
+        assertArrayEquals(new int[]{0, 0, 200, 150, 1000, 3900, 2900, 100, 100, 1000}, r);
+    }
+
+    @Test
+    public void parseRegionsHonoursActiveArrayOrigin() {
+        int[] r = SettingsCompiler.parseRegions("full", new int[]{8, 4, 4008, 3004});
+        assertArrayEquals(new int[]{8, 4, 4000, 3000, 1000}, r);
+    }
+
+    @Test
+    public void parseRegionsRejectsMalformedInput() {
+        assertNull(SettingsCompiler.parseRegions("", ACTIVE));
+        assertNull(SettingsCompiler.parseRegions("1,2,3", ACTIVE));
+        assertNull(SettingsCompiler.parseRegions("a,b,c,d", ACTIVE));
+        assertNull(SettingsCompiler.parseRegions("5000,5000,10,10", ACTIVE)); // 활성 영역 밖
+        assertNull(SettingsCompiler.parseRegions("full", null));
+    }
+
+    private static Object value(SettingsPlan plan, RequestKey key) {
+        int i = plan.indexOf(key);
+        assertTrue(key + " missing from " + plan, i >= 0);
+        return plan.value(i);
+    }
+
+    private static Map<String, Object> map(String k, Object v) {
+        Map<String, Object> m = new HashMap<>();
+        m.put(k, v);
+        return m;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.camgent;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SharedReaderTest {
+    private final AtomicInteger closes = new AtomicInteger();
+    private final SharedReader<AutoCloseable> reader = new SharedReader<>(closes::incrementAndGet);
+
+    @Test
+    public void retireWithoutJobsClosesImmediately() {
+        reader.retire();
+        assertEquals(1, closes.get());
+        assertTrue(reader.isClosed());
+        assertFalse(reader.retain());
+    }
+
+    @Test
+    public void lastJobClosesAfterRetire() {
+        assertTrue(reader.retain());
+        assertTrue(reader.retain());
+        reader.retire();
+        assertEquals(0, closes.get()); // 작업이 아직 이미지를 쥐고 있다
+        reader.release();
+        assertEquals(0, closes.get());
+        reader.release();
+        assertEquals(1, closes.get());
+    }
+
+    @Test
+    public void retireIsIdempotent() {
+        assertTrue(reader.retain());
+        reader.retire();
+        reader.retire();
+        assertFalse(reader.isClosed());
+        reader.release();
+        assertEquals(1, closes.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void overReleaseFails() {
+        reader.retire();
+        reader.release();
+    }
+
+    @Test
+    public void concurrentReleasesCloseOnce() throws InterruptedException {
+        int jobs = 64;
+        for (int i = 0; i < jobs; i++) assertTrue(reader.retain());
+        CountDownLatch start = new CountDownLatch(1), done = new CountDownLatch(jobs);
+        for (int i = 0; i < jobs; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ignore) {}
+                reader.release();
+                done.countDown();
+            }).start();
+        }
+        start.countDown();
+        reader.retire();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, closes.get());
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.camgent;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class StillCaptureConfigTest {
+    private final CameraInfo back = FakeCameraBackend.backCamera("0").build();
+    private final StreamSize fallback = new StreamSize(1920, 1080);
+
+    @Test
+    public void largestSizeThatDoesNotStallPreview() {
+        // 4000x3000 은 최소 프레임 50ms/스톨 400ms → 30fps 프리뷰에선 다음 크기로
+        StillCaptureConfig c = StillCaptureConfig.choose(back, StillFormat.JPEG, null, fallback, 33_333_333L);
+        assertEquals(new StreamSize(3264, 2448), c.size);
+        assertEquals(200_000_000L, c.stallDurationNs);
+    }
+
+    @Test
+    public void requestedSizeSnapsToNearestArea() {
+        StillCaptureConfig c = StillCaptureConfig.choose(back, StillFormat.JPEG, new StreamSize(4032, 3024), fallback, 0);
+        assertEquals(new StreamSize(4000, 3000), c.size);
+        assertEquals(50_000_000L, c.minFrameDurationNs);
+    }
+
+    @Test
+    public void formatWithoutSizesFallsBackToJpeg() {
+        StillCaptureConfig c = StillCaptureConfig.choose(
+                FakeCameraBackend.frontCamera("1").build(), StillFormat.HEIC_ENCODED, null, fallback, 0);
+        assertSame(StillFormat.JPEG, c.format);
+        assertSame(fallback, c.size);
+        assertEquals(StillCaptureConfig.DEFAULT_MAX_IMAGES, c.maxImages);
+    }
+}
@@ -0,0 +1,78 @@
+plugins {
+    `java-library`
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+// Flutter/Android SDK 없이도 돌도록 저장소를 직접 둔다 (jvm/settings.gradle.kts 로 단독 빌드할 때)
+repositories {
+    mavenCentral()
+}
+
+// 앱 모듈의 플랫폼 무관 소스만 그대로 컴파일한다 (android.jar 없이 JVM 에서 돈다)
+val appSources = listOf(
+    "BufferPool.java",
+    "CameraBackend.java",
+    "CameraBackendException.java",
+    "CameraInfo.java",
+    "FrameStacker.java",
+    "LumaStats.java",
+    "Orientation.java",
+    "RequestKey.java",
+    "RequestState.java",
+    "SaveQueue.java",
+    "SettingsCompiler.java",
+    "SettingsPlan.java",
+    "SharedReader.java",
+    "StreamSize.java",
+    "YuvFrame.java",
+).map { "com/example/camgent/$it" }
+
+// app/src/test 중 android.jar 없이 도는 테스트 (나머지는 :app 의 단위 테스트로만)
+val jvmTests = listOf(
+    "BufferPoolTest.java",
+    "FrameStackerTest.java",
+    "LumaStatsTest.java",
+    "OrientationTest.java",
+    "RequestStateTest.java",
+    "SaveQueueTest.java",
+    "SettingsCompilerTest.java",
+    "SharedReaderTest.java",
+).map { "com/example/camgent/$it" }
+
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java", "../app/src/test/java"))
+            setIncludes(appSources + "com/example/camgent/FakeCameraBackend.java")
+        }
+    }
+    test {
+        java {
+            setSrcDirs(listOf("../app/src/test/java"))
+            setIncludes(jvmTests)
+        }
+    }
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// 주석이 한글이라 로케일과 무관하게 UTF-8 로 읽는다
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    testImplementation("junit:junit:4.13.2")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    // 특정 벤치마크만: -Pjmh.includes=LumaStats
+    (project.findProperty("jmh.includes") as String?)?.let { includes.set(listOf(it)) }
+}
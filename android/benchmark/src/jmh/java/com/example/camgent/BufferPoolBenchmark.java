@@ -0,0 +1,62 @@
+package com.example.camgent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 공용 버퍼 풀 acquire/release 왕복: 같은 등급 재사용(적중), 등급을 섞은 요청(프레임 내보내기 + JPEG 인코딩),
+ * 그리고 여러 스레드가 한 풀을 같이 쓰는 경우 (writer/분석/버스트 스레드).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BufferPoolBenchmark {
+    // 내보내기 프레임(수십 KB) ~ 12MP NV21 JPEG (수 MB)
+    private static final int[] SIZES = {48 << 10, 300 << 10, 1 << 20, 3 << 20, 18 << 20};
+
+    private BufferPool pool;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        pool = new BufferPool(BufferPool.DEFAULT_BUDGET_BYTES);
+        // 등급마다 한 장씩 미리 만들어 둔다 → 측정은 재사용 경로
+        for (int size : SIZES) pool.release(pool.acquire(size));
+    }
+
+    @Benchmark
+    public ByteBuffer sameClass() {
+        ByteBuffer b = pool.acquire(300 << 10);
+        pool.release(b);
+        return b;
+    }
+
+    @Benchmark
+    public ByteBuffer mixedClasses(Cursor c) {
+        ByteBuffer b = pool.acquire(SIZES[c.next]);
+        c.next = (c.next + 1) % SIZES.length;
+        if (b != null) pool.release(b);
+        return b;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ByteBuffer contended() {
+        ByteBuffer b = pool.acquire(48 << 10);
+        if (b != null) pool.release(b);
+        return b;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.camgent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/** 프레임 분석: 분석 스트림 해상도별 LumaStats, 그리고 야간 스태킹 (4장 정렬 + 평균) */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrameAnalysisBenchmark {
+    @Param({"640x480", "1280x720"})
+    public String size;
+
+    private int width, height, rowStride;
+    private ByteBuffer plane;
+    private final LumaStats stats = new LumaStats();
+
+    private YuvFrame[] frames;
+    private YuvFrame out;
+    private FrameStacker stacker;
+
+    @Setup
+    public void setUp() {
+        String[] wh = size.split("x");
+        width = Integer.parseInt(wh[0]);
+        height = Integer.parseInt(wh[1]);
+        rowStride = (width + 63) & ~63; // 실제 기기처럼 행 끝 패딩
+        plane = FakeCameraBackend.lumaPlane(1, width, height, rowStride, 1);
+
+        YuvFrame.Pool pool = new YuvFrame.Pool(width, height, 5);
+        frames = new YuvFrame[4];
+        for (int k = 0; k < frames.length; k++) {
+            frames[k] = pool.acquire();
+            FakeCameraBackend.fillScene(frames[k], 1, 2 * k, -2 * k, 8, k);
+        }
+        out = pool.acquire();
+        stacker = new FrameStacker(ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public double lumaStats() {
+        stats.compute(plane, rowStride, 1, width, height);
+        return stats.meanLuma;
+    }
+
+    @Benchmark
+    public FrameStacker.Result stack4() {
+        return stacker.stack(frames, 0, out);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.camgent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 설정 반영 경로: 플랜 전체를 상태에 넣고(대부분 그대로) 바뀐 키만 반복 요청에 반영.
+ * 타겟은 EnumMap 이라 빌더 쪽 비용은 거의 없다 → diff/dirty 추적 비용만 본다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestStateBenchmark {
+    private static final class Builder implements RequestState.Target<RequestKey> {
+        final Map<RequestKey, Object> values = new EnumMap<>(RequestKey.class);
+
+        @Override public Object get(RequestKey key) { return values.get(key); }
+
+        @Override public void set(RequestKey key, Object value) { values.put(key, value); }
+    }
+
+    private RequestState<RequestKey> state;
+    private SettingsPlan a, b;
+    private boolean flip;
+
+    @Setup
+    public void setUp() {
+        SettingsCompiler compiler = new SettingsCompiler(FakeCameraBackend.backCamera("0").build());
+        a = compiler.compile(SettingsCompilerBenchmark.preset(400));
+        b = compiler.compile(SettingsCompilerBenchmark.preset(800)); // ISO 만 다르다
+        state = new RequestState<>();
+        state.bindRepeating(new Builder());
+        apply(a);
+        state.flushRepeating();
+    }
+
+    private int apply(SettingsPlan plan) {
+        int changed = 0;
+        for (int i = 0; i < plan.size(); i++) if (state.set(plan.key(i), plan.value(i))) changed++;
+        return changed;
+    }
+
+    /** 같은 플랜을 다시: 바뀐 게 없어 재제출 생략 */
+    @Benchmark
+    public boolean applyUnchanged() {
+        apply(a);
+        return state.flushRepeating();
+    }
+
+    /** 키 하나만 바뀌는 플랜을 번갈아 */
+    @Benchmark
+    public boolean applyOneKeyChanged() {
+        flip = !flip;
+        apply(flip ? b : a);
+        return state.flushRepeating();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.camgent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 저장 큐 오버헤드: 쓰기 자체는 비우고(카운트만) 큐 넣기 → writer 스레드 넘김 → 완료 대기까지.
+ * 버스트 하나(BURST 장)를 넣고 awaitIdle 로 다 빠질 때까지를 한 번으로 잰다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SaveQueueBenchmark {
+    private static final int BURST = 8;
+
+    @Param({"1", "4"})
+    public int capacity;
+
+    private SaveQueue<Long> queue;
+    private final AtomicLong written = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        queue = new SaveQueue<>(capacity, "bench-writer", new SaveQueue.Sink<Long>() {
+            @Override public void write(Long job) { written.addAndGet(job); }
+
+            @Override public void dropped(Long job) {}
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        queue.shutdown();
+    }
+
+    /** 버스트 스레드처럼 자리가 날 때까지 기다리며 넣는다 */
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public long burstBlocking() {
+        for (long i = 0; i < BURST; i++) queue.submit(i, SaveQueue.Backpressure.BLOCK);
+        queue.awaitIdle(10_000);
+        return written.get();
+    }
+
+    /** 카메라 스레드처럼 막지 않고 넣는다 (가득 차면 거절) */
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public long burstReject() {
+        int accepted = 0;
+        for (long i = 0; i < BURST; i++) {
+            if (queue.submit(i, SaveQueue.Backpressure.REJECT) == SaveQueue.Submit.ACCEPTED) accepted++;
+        }
+        queue.awaitIdle(10_000);
+        return accepted;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.camgent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** settings 맵 → SettingsPlan: 캐시 적중, 캐시 밖(매번 파싱), parseRegions 단독 */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SettingsCompilerBenchmark {
+    private static final int DISTINCT = 64; // 캐시(16)보다 많게 → 돌려 쓰면 매번 실패
+
+    private SettingsCompiler compiler;
+    private Map<String, Object>[] settings;
+    private int next;
+    private int[] activeArray;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        CameraInfo info = FakeCameraBackend.backCamera("0").build();
+        compiler = new SettingsCompiler(info);
+        activeArray = new int[]{info.activeLeft, info.activeTop, info.activeRight, info.activeBottom};
+        settings = new Map[DISTINCT];
+        for (int i = 0; i < DISTINCT; i++) settings[i] = preset(100 + i);
+    }
+
+    // 에이전트가 보내는 전형적인 프리셋
+    static Map<String, Object> preset(int iso) {
+        Map<String, Object> s = new HashMap<>();
+        s.put("SENSOR_SENSITIVITY", iso);
+        s.put("SENSOR_EXPOSURE_TIME_NS", 16_666_666L);
+        s.put("CONTROL_AE_EXPOSURE_COMPENSATION", -1);
+        s.put("FLASH_MODE", "off");
+        s.put("CONTROL_SCENE_MODE", "portrait");
+        s.put("COLOR_CORRECTION_MODE", "high_quality");
+        s.put("COLOR_CORRECTION_GAINS", Arrays.asList(1.9, 1.0, 1.6));
+        s.put("NOISE_REDUCTION_MODE", "fast");
+        s.put("CONTROL_AE_ANTIBANDING_MODE", "auto");
+        s.put("CONTROL_AF_REGIONS", "1800,1300,400,400");
+        s.put("CONTROL_AE_TARGET_FPS_RANGE", Arrays.asList(24, 30));
+        s.put("JPEG_QUALITY", 95);
+        return s;
+    }
+
+    @Benchmark
+    public SettingsPlan compileCached() {
+        return compiler.compile(settings[0]);
+    }
+
+    @Benchmark
+    public SettingsPlan compileMiss() {
+        Map<String, Object> s = settings[next];
+        next = (next + 1) % DISTINCT;
+        return compiler.compile(s);
+    }
+
+    @Benchmark
+    public int[] parseRegionsCenter() {
+        return SettingsCompiler.parseRegions("center", activeArray);
+    }
+
+    @Benchmark
+    public int[] parseRegionsList() {
+        return SettingsCompiler.parseRegions("100,100,400,300; 1800,1300,400,400; 3700,2800,600,600", activeArray);
+    }
+}
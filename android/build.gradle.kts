@@ -13,7 +13,8 @@ subprojects {
     project.layout.buildDirectory.value(newSubprojectBuildDir)
 }
 subprojects {
-    project.evaluationDependsOn(":app")
+    // :benchmark 는 앱 모듈(Flutter/Android 플러그인)과 무관한 순수 JVM 모듈
+    if (project.name != "benchmark") project.evaluationDependsOn(":app")
 }
 
 tasks.register<Delete>("clean") {
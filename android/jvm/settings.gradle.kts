@@ -0,0 +1,14 @@
+// 플랫폼 무관 코어만 도는 단독 빌드: local.properties / Flutter SDK / Android SDK 없이
+//   gradle -p android/jvm :benchmark:test :benchmark:jmh
+// (android/settings.gradle.kts 는 flutter.sdk 가 있어야 구성되므로 Linux 빌드 머신에선 이쪽을 쓴다)
+pluginManagement {
+    repositories {
+        gradlePluginPortal()
+        mavenCentral()
+    }
+}
+
+rootProject.name = "camgent-jvm"
+
+include(":benchmark")
+project(":benchmark").projectDir = file("../benchmark")
@@ -23,3 +23,6 @@ plugins {
 }
 
 include(":app")
+// 플랫폼 무관 코어(설정 컴파일/요청 상태/프레임 분석/저장 큐) JVM 테스트 + JMH 벤치마크: ./gradlew :benchmark:test :benchmark:jmh
+// SDK 없는 머신에선 jvm/settings.gradle.kts 로 단독 빌드
+include(":benchmark")
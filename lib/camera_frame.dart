@@ -0,0 +1,95 @@
+import 'dart:async';
+import 'dart:typed_data';
+
+import 'package:flutter/services.dart';
+
+/// 네이티브 프레임 채널(native_camera_frames_<id>)로 받은 축소 프리뷰 프레임
+class CameraFrame {
+  static const int formatLuma = 0;
+  static const int formatJpeg = 1;
+  static const int _headerBytes = 24;
+
+  final int format;      // formatLuma | formatJpeg
+  final int width;
+  final int height;
+  final int timestampNs;
+  final Uint8List bytes; // luma: width*height 바이트, jpeg: 인코딩된 파일
+
+  CameraFrame._(this.format, this.width, this.height, this.timestampNs, this.bytes);
+
+  bool get isJpeg => format == formatJpeg;
+
+  /// 헤더(24바이트, little-endian) + 페이로드
+  static CameraFrame? parse(ByteData? data) {
+    if (data == null || data.lengthInBytes < _headerBytes) return null;
+    final format = data.getInt32(0, Endian.little);
+    final width = data.getInt32(4, Endian.little);
+    final height = data.getInt32(8, Endian.little);
+    final length = data.getInt32(12, Endian.little);
+    final ts = data.getInt64(16, Endian.little);
+    if (data.lengthInBytes < _headerBytes + length) return null;
+    // 채널 버퍼는 콜백 후 재사용될 수 있으므로 복사해 둔다
+    final bytes = Uint8List.fromList(
+        data.buffer.asUint8List(data.offsetInBytes + _headerBytes, length));
+    return CameraFrame._(format, width, height, ts, bytes);
+  }
+}
+
+/// 프레임 채널 수신기. 최신 프레임을 들고 있고, 요청한 스냅샷을 Future 로 돌려준다.
+class CameraFrameReceiver {
+  final BasicMessageChannel<ByteData> _channel;
+  final MethodChannel _control;
+  final _frames = StreamController<CameraFrame>.broadcast();
+  Completer<CameraFrame?>? _pending;
+  CameraFrame? latest;
+
+  CameraFrameReceiver(int viewId, this._control)
+      : _channel = BasicMessageChannel<ByteData>(
+      'native_camera_frames_$viewId', const BinaryCodec()) {
+    _channel.setMessageHandler((data) async {
+      final frame = CameraFrame.parse(data);
+      if (frame != null) {
+        latest = frame;
+        _frames.add(frame);
+        _pending?.complete(frame);
+        _pending = null;
+      }
+      return null; // 응답해야 네이티브가 버퍼를 돌려받는다
+    });
+  }
+
+  Stream<CameraFrame> get frames => _frames.stream;
+
+  /// 요청 시 한 장 모드로 켜 둔다
+  Future<void> enableOnDemand({String format = 'jpeg', int maxEdge = 320, int quality = 70}) {
+    return _control.invokeMethod('setFrameExport',
+        {'mode': 'onDemand', 'format': format, 'maxEdge': maxEdge, 'quality': quality});
+  }
+
+  /// 최대 maxFps 로 계속 받기
+  Future<void> enableStream({String format = 'luma', int maxEdge = 160, double maxFps = 5}) {
+    return _control.invokeMethod('setFrameExport',
+        {'mode': 'stream', 'format': format, 'maxEdge': maxEdge, 'maxFps': maxFps});
+  }
+
+  Future<void> disable() => _control.invokeMethod('setFrameExport', {'mode': 'off'});
+
+  /// 현재 장면 스냅샷 (전체 촬영/저장 없이 수십 ms)
+  Future<CameraFrame?> snapshot({Duration timeout = const Duration(milliseconds: 500)}) async {
+    _pending ??= Completer<CameraFrame?>();
+    final future = _pending!.future;
+    final ok = await _control.invokeMethod<bool>('requestFrame') ?? false;
+    if (!ok) {
+      _pending?.complete(null);
+      _pending = null;
+    }
+    return future.timeout(timeout, onTimeout: () => null);
+  }
+
+  void dispose() {
+    _channel.setMessageHandler(null);
+    _pending?.complete(null);
+    _pending = null;
+    _frames.close();
+  }
+}
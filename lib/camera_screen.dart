@@ -1,19 +1,25 @@
 
+import 'dart:async';
+
 import 'package:flutter/material.dart';
 import 'package:flutter/services.dart';
 
+import 'camera_frame.dart';
 import 'camera_settings.dart';
 
 class CameraScreen extends StatefulWidget {
   final CameraSettings? cameraSettings;
   final VoidCallback? onBackToChat;
   final bool isActive;
+  /// 지정하면 촬영 때 업로드용 축소본(긴 변 1024px)도 네이티브에서 만들어 그 파일 경로를 넘긴다
+  final ValueChanged<String>? onUploadReady;
 
   const CameraScreen({
     Key? key,
     required this.isActive,
     this.cameraSettings,
     this.onBackToChat,
+    this.onUploadReady,
   }) : super(key: key);
 
   @override
@@ -22,9 +28,14 @@ class CameraScreen extends StatefulWidget {
 
 class _CameraScreenState extends State<CameraScreen> {
   MethodChannel? _channel;
+  StreamSubscription<dynamic>? _events; // 저장 완료 등 네이티브 이벤트
+  CameraFrameReceiver? _frames;         // 축소 프리뷰 프레임 (장면 스냅샷)
   bool _isTakingPicture = false;
   double _zoom = 1.0;
   double _exposure = 0.0;
+  bool _analysis = false;            // 장면 통계(YUV 분석 스트림) 표시
+  Map<dynamic, dynamic>? _sceneStats;
+  CameraFrame? _snapshot;            // 장면 분석 중 요청한 축소 프리뷰 (저장 없이)
 
   final double _minZoom = 1.0, _maxZoom = 4.0;
   final double _minExposure = -2.0, _maxExposure = 2.0;
@@ -38,23 +49,33 @@ class _CameraScreenState extends State<CameraScreen> {
       _channel!.invokeMethod('applySettings', map);
     }
 
-    // 보이는 → 숨김 전환일 때만 pause 호출
+    // 보이는 → 숨김: warm pause (세션 유지), 숨김 → 보이는: 재개
     if (old.isActive && !widget.isActive) {
       _pause();
+    } else if (!old.isActive && widget.isActive) {
+      _resume();
     }
   }
 
 
   Future<void> _pause() async {
     if (_channel != null) {
-      await _channel!.invokeMethod('pauseCamera');
+      await _channel!.invokeMethod('pauseCamera', {'warm': true});
+    }
+  }
+
+  Future<void> _resume() async {
+    if (_channel != null) {
+      await _channel!.invokeMethod('resumeCamera');
     }
   }
 
   @override
   void dispose() {
     // 네이티브 쪽 카메라/스레드/리스너 정리
-    _channel?.invokeMethod('pauseCamera');
+    _channel?.invokeMethod('pauseCamera', {'warm': false});
+    _events?.cancel();
+    _frames?.dispose();
     super.dispose();
   }
 
@@ -62,6 +83,10 @@ class _CameraScreenState extends State<CameraScreen> {
 
   void _onPlatformViewCreated(int id) {
     _channel = MethodChannel('native_camera_channel_$id');
+    _events = EventChannel('native_camera_events_$id')
+        .receiveBroadcastStream()
+        .listen(_onNativeEvent);
+    _frames = CameraFrameReceiver(id, _channel!);
 
     _channel!.setMethodCallHandler((call) async {
       if (call.method == 'previewReady' && widget.cameraSettings != null) {
@@ -79,6 +104,92 @@ class _CameraScreenState extends State<CameraScreen> {
     });
   }
 
+  // takePicture 는 pending URI 를 바로 돌려주고, 실제 저장 완료는 이벤트로 온다
+  void _onNativeEvent(dynamic e) {
+    if (e is! Map) return;
+    switch (e['event']) {
+      case 'saved':
+        debugPrint('[Native] saved ${e['format']} ${e['uri']} (${e['bytes']}B, write ${e['writeMs']}ms)');
+        break;
+      case 'rawSaved':
+        debugPrint('[Native] DNG saved ${e['uri']} (write ${e['writeMs']}ms)');
+        break;
+      case 'sceneStats':
+        if (!mounted) return;
+        setState(() => _sceneStats = e);
+        break;
+      case 'firstFrame':
+        debugPrint('[Native] first preview frame (${e['path']}) in ${e['latencyMs']}ms');
+        break;
+      case 'resumed':
+        debugPrint('[Native] resumed (${e['mode']}) in ${e['latencyMs']}ms');
+        break;
+      case 'lensSwitched':
+        debugPrint('[Native] lens ${e['lens']} (${e['method']}) in ${e['latencyMs']}ms');
+        break;
+      case 'recordingSaved':
+        debugPrint('[Native] video saved ${e['uri']} (${e['durationMs']}ms, ${e['bytes']}B, '
+            'dropped ${e['droppedFrames']}/${e['cameraFrames']})');
+        break;
+      case 'recordingFailed':
+        if (!mounted) return;
+        ScaffoldMessenger.of(context).showSnackBar(
+          SnackBar(content: Text('녹화 실패: ${e['message']}')),
+        );
+        break;
+      case 'sessionFailed':
+        if (!mounted) return;
+        ScaffoldMessenger.of(context).showSnackBar(
+          SnackBar(content: Text('카메라 세션 구성 실패: ${e['message']}')),
+        );
+        break;
+      case 'rawFailed':
+        if (!mounted) return;
+        ScaffoldMessenger.of(context).showSnackBar(
+          SnackBar(content: Text('RAW 저장 실패: ${e['message']}')),
+        );
+        break;
+      case 'saveFailed':
+      case 'saveDropped':
+        if (!mounted) return;
+        ScaffoldMessenger.of(context).showSnackBar(
+          SnackBar(content: Text('저장 실패: ${e['uri']}')),
+        );
+        break;
+    }
+  }
+
+  Future<void> _toggleAnalysis() async {
+    final next = !_analysis;
+    setState(() {
+      _analysis = next;
+      if (!next) {
+        _sceneStats = null;
+        _snapshot = null;
+      }
+    });
+    await _channel?.invokeMethod('setAnalysisEnabled', {'enabled': next, 'intervalMs': 200});
+    // 분석 중에는 스냅샷을 요청할 수 있게 한 장 모드로 (같은 분석 스트림을 쓴다)
+    if (next) {
+      await _frames?.enableOnDemand();
+    } else {
+      await _frames?.disable();
+    }
+  }
+
+  // 촬영/저장 없이 현재 장면 한 장 (분석 스트림에서 축소 JPEG)
+  Future<void> _takeSnapshot() async {
+    final frame = await _frames?.snapshot(timeout: const Duration(seconds: 1));
+    if (!mounted) return;
+    if (frame == null || !frame.isJpeg) {
+      ScaffoldMessenger.of(context).showSnackBar(
+        const SnackBar(content: Text('스냅샷을 받지 못했습니다')),
+      );
+      return;
+    }
+    setState(() => _snapshot = frame);
+  }
+
   // 슬라이드 동작
   Future<void> _setZoom(double v) async {
     setState(() => _zoom = v);
@@ -97,12 +208,22 @@ class _CameraScreenState extends State<CameraScreen> {
     setState(() => _isTakingPicture = true);
 
     try {
-      final String? uriString =
-      await _channel!.invokeMethod<String>('takePicture');
+      final wantUpload = widget.onUploadReady != null;
+      final dynamic res = await _channel!.invokeMethod('takePicture',
+          wantUpload ? {'upload': {'maxEdge': 1024, 'quality': 80}} : null);
+      // 축소본을 요청하면 {uri, uploadPath, encodeMs, ...} 맵, 아니면 URI 문자열
+      final String? uriString = res is Map ? res['uri'] as String? : res as String?;
       if (uriString == null) throw '네이티브가 경로를 반환하지 않았습니다.';
+      if (res is Map && res['uploadPath'] != null) {
+        debugPrint('[Native] upload variant ${res['uploadWidth']}x${res['uploadHeight']} '
+            '${res['uploadBytes']}B in ${res['encodeMs']}ms');
+        widget.onUploadReady!(res['uploadPath'] as String);
+      }
 
       ScaffoldMessenger.of(context).showSnackBar(
-        SnackBar(content: Text('갤러리에 저장 완료\n$uriString')),
+        SnackBar(content: Text(res is Map && res['uploadPath'] != null
+            ? '갤러리에 저장 완료 (채팅에 첨부됨)\n$uriString'
+            : '갤러리에 저장 완료\n$uriString')),
       );
 
     } catch (e) {
@@ -123,6 +244,18 @@ class _CameraScreenState extends State<CameraScreen> {
           icon: const Icon(Icons.arrow_back),
           onPressed: widget.onBackToChat,
         ),
+        actions: [
+          IconButton(
+            icon: Icon(_analysis ? Icons.insights : Icons.insights_outlined),
+            tooltip: '장면 분석',
+            onPressed: _channel == null ? null : _toggleAnalysis,
+          ),
+          IconButton(
+            icon: const Icon(Icons.photo_outlined),
+            tooltip: '장면 스냅샷',
+            onPressed: _analysis ? _takeSnapshot : null,
+          ),
+        ],
       ),
       body: Stack(children: [
         AndroidView(
@@ -153,6 +286,45 @@ class _CameraScreenState extends State<CameraScreen> {
             ),
           ),
 
+        // 장면 통계 (분석 스트림)
+        if (_sceneStats != null)
+          Positioned(
+            top: MediaQuery.of(context).padding.top + 8,
+            right: 8,
+            child: Container(
+              padding:
+              const EdgeInsets.symmetric(horizontal: 8, vertical: 4),
+              decoration: BoxDecoration(
+                color: Colors.black54,
+                borderRadius: BorderRadius.circular(4),
+              ),
+              child: Text(
+                '밝기: ${(_sceneStats!['meanLuma'] as num).toStringAsFixed(0)}\n'
+                    '클리핑: ${((_sceneStats!['clipHigh'] as num) * 100).toStringAsFixed(1)}% / '
+                    '${((_sceneStats!['clipLow'] as num) * 100).toStringAsFixed(1)}%\n'
+                    '선명도: ${(_sceneStats!['sharpness'] as num).toStringAsFixed(1)}',
+                style: const TextStyle(
+                    color: Colors.white, fontSize: 12),
+              ),
+            ),
+          ),
+
+        // 장면 스냅샷 (탭하면 닫힘)
+        if (_snapshot != null)
+          Positioned(
+            top: MediaQuery.of(context).padding.top + 80,
+            right: 8,
+            child: GestureDetector(
+              onTap: () => setState(() => _snapshot = null),
+              child: Container(
+                decoration: BoxDecoration(
+                  border: Border.all(color: Colors.white, width: 2),
+                ),
+                child: Image.memory(_snapshot!.bytes, width: 120, gaplessPlayback: true),
+              ),
+            ),
+          ),
+
         // 줌 슬라이더
         Positioned(
           right: 8,
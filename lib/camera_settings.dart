@@ -108,6 +108,9 @@ class CameraSettings {
       if (tonemapMode != null) 'TONEMAP_MODE': tonemapMode?.toUpperCase(),
       if (controlAeAntibandingMode != null) 'CONTROL_AE_ANTIBANDING_MODE': controlAeAntibandingMode?.toUpperCase(),
       if (controlAeTargetFpsRange != null) 'CONTROL_AE_TARGET_FPS_RANGE': controlAeTargetFpsRange,
+      if (controlAeRegions != null) 'CONTROL_AE_REGIONS': controlAeRegions,
+      if (controlAfRegions != null) 'CONTROL_AF_REGIONS': controlAfRegions,
+      if (rawOutput != null)        'RAW_OUTPUT': rawOutput,
     };
   }
 
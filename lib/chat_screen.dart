@@ -17,8 +17,11 @@ import 'package:gal/gal.dart';
 
 class ChatScreen extends StatefulWidget {
   final Function(CameraSettings) onSettingsReceived;
+  /// 카메라 탭에서 찍은 사진의 업로드용 축소본. 바뀌면 다음 메시지에 첨부한다
+  final String? attachedImagePath;
 
-  const ChatScreen({Key? key, required this.onSettingsReceived}) : super(key: key);
+  const ChatScreen({Key? key, required this.onSettingsReceived, this.attachedImagePath})
+      : super(key: key);
 
   @override
   State<ChatScreen> createState() => _ChatScreenState();
@@ -38,6 +41,15 @@ class _ChatScreenState extends State<ChatScreen> with TickerProviderStateMixin {
     _addWelcomeMessage();
   }
 
+  @override
+  void didUpdateWidget(covariant ChatScreen old) {
+    super.didUpdateWidget(old);
+    final path = widget.attachedImagePath;
+    if (path != null && path != old.attachedImagePath) {
+      setState(() => _pendingImagePath = path);
+    }
+  }
+
   // 메시지 제출 핸들러 모두 이 함수로 통합
   void _sendMessage({required String text, String? imagePath}) {
     if (text.trim().isEmpty && imagePath == null) return;
@@ -170,7 +170,7 @@ class MainScreen extends StatefulWidget {
 class _MainScreenState extends State<MainScreen> {
   int _currentIndex = 0;
   CameraSettings? _cameraSettings;
-  int _cameraEpoch = 0; // 카메라 재생성용 카운터
+  String? _capturedUploadPath; // 카메라에서 찍은 사진 (업로드용 축소본) → 채팅에 첨부
   // @override
   // Widget build(BuildContext context) {
   //   return Scaffold(
@@ -205,27 +205,26 @@ class _MainScreenState extends State<MainScreen> {
           ChatScreen(
             onSettingsReceived: (s) {
               setState(() {
-                _cameraSettings = s;
-                _cameraEpoch++;        // 다음에 카메라 보여줄 때 재생성
+                _cameraSettings = s;   // 카메라는 재생성하지 않고 설정만 갱신
                 _currentIndex = 1; // 카메라 탭으로 전환
               });
             },
+            attachedImagePath: _capturedUploadPath,
           ),
           CameraScreen(
-            key: ValueKey(_cameraEpoch), // 카메라 재생성용 카운터
             isActive: _currentIndex == 1, // 보일땨만 true
             cameraSettings: _cameraSettings,
             onBackToChat: () => setState(() => _currentIndex = 0),
+            // 원본 대신 긴 변 1024px 축소본을 서버로 보낸다
+            onUploadReady: (path) => setState(() => _capturedUploadPath = path),
           ),
         ],
       ),
       bottomNavigationBar: BottomNavigationBar(
         currentIndex: _currentIndex,
         onTap: (i) {
-          setState(() {
-            if (i == 1) _cameraEpoch++; // 카메라 탭 이동 시 재생성
-            _currentIndex = i;
-          });
+          // 탭 전환은 warm pause/resume 으로 처리 (카메라 재생성 X)
+          setState(() => _currentIndex = i);
         },
         items: const [
           BottomNavigationBarItem(icon: Icon(Icons.list_alt), label: '어시스턴트'),